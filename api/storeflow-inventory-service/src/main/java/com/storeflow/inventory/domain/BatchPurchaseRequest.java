@@ -0,0 +1,11 @@
+package com.storeflow.inventory.domain;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record BatchPurchaseRequest(
+        @NotEmpty List<@Valid PurchaseLineRequest> lines
+) {
+}
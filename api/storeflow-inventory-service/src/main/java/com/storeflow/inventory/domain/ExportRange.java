@@ -0,0 +1,19 @@
+package com.storeflow.inventory.domain;
+
+/**
+ * Half-open product id range {@code [fromProductId, toProductId)} of an export, so disjoint ranges
+ * can run in parallel without overlapping. Checked on construction, before any of the response
+ * is written.
+ */
+public record ExportRange(
+        long fromProductId,
+        long toProductId
+) {
+
+    public ExportRange {
+        if (fromProductId < 0 || toProductId <= fromProductId) {
+            throw new IllegalArgumentException(
+                    "filter[productId][gte] must not be negative and must be lower than filter[productId][lt]");
+        }
+    }
+}
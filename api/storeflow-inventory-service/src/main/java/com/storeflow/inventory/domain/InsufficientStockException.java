@@ -0,0 +1,8 @@
+package com.storeflow.inventory.domain;
+
+public class InsufficientStockException extends RuntimeException {
+
+    public InsufficientStockException(Long productId) {
+        super("Not enough stock for product " + productId);
+    }
+}
@@ -1,13 +1,23 @@
 package com.storeflow.inventory.domain;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
-@Table(name = "inventories")
+@Table(
+        name = "inventories",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_inventories_product_slot",
+                columnNames = {"product_id", "slot"}
+        )
+)
 public class Inventory {
 
     @Id
@@ -18,6 +28,15 @@ public class Inventory {
 
     private Integer quantity;
 
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer slot = 0;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public Inventory() {
     }
 
@@ -33,6 +52,14 @@ public class Inventory {
         return quantity;
     }
 
+    public Integer getSlot() {
+        return slot;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -44,4 +71,12 @@ public class Inventory {
     public void setQuantity(Integer quantity) {
         this.quantity = quantity;
     }
+
+    public void setSlot(Integer slot) {
+        this.slot = slot;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
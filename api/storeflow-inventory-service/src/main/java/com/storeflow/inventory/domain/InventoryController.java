@@ -1,7 +1,19 @@
 package com.storeflow.inventory.domain;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.storeflow.inventory.jsonapi.ETagged;
+import com.storeflow.inventory.jsonapi.ETags;
+import com.storeflow.inventory.jsonapi.JsonApiCursorResponse;
+import com.storeflow.inventory.jsonapi.JsonApiExportMeta;
+import com.storeflow.inventory.jsonapi.JsonApiExportTrailer;
 import com.storeflow.inventory.jsonapi.JsonApiListResponse;
+import com.storeflow.inventory.jsonapi.JsonApiPurchaseResponse;
 import com.storeflow.inventory.jsonapi.JsonApiResponse;
+import com.storeflow.inventory.jsonapi.NdjsonWriter;
+import com.storeflow.inventory.jsonapi.PageCount;
+import com.storeflow.inventory.jsonapi.SparseFields;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,19 +21,24 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 @Tag(name = "Inventory", description = "Operations related to inventory management")
 @RestController
 @RequestMapping("/api/v1/inventories")
 public class InventoryController {
 
     private final InventoryService service;
+    private final ObjectMapper objectMapper;
 
-    public InventoryController(InventoryService service) {
+    public InventoryController(InventoryService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(
@@ -50,6 +67,10 @@ public class InventoryController {
             description = "Inventory retrieved successfully",
             content = @Content(schema = @Schema(implementation = JsonApiResponse.class))
     )
+    @ApiResponse(
+            responseCode = "304",
+            description = "Inventory unchanged since the ETag in If-None-Match"
+    )
     @ApiResponse(
             responseCode = "404",
             description = "Inventory or product not found"
@@ -57,10 +78,11 @@ public class InventoryController {
     @GetMapping
     public ResponseEntity<JsonApiResponse<InventoryResponse>> findByProductId(
             @Parameter(description = "Product identifier", example = "1")
-            @RequestParam(name = "productId") Long productId
+            @RequestParam(name = "productId") Long productId,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
-        JsonApiResponse<InventoryResponse> response = service.findByProductId(productId);
-        return ResponseEntity.ok(response);
+        ETagged<JsonApiResponse<InventoryResponse>> response = service.findTaggedByProductId(productId);
+        return conditional(response, ifNoneMatch);
     }
 
     @Operation(
@@ -77,12 +99,85 @@ public class InventoryController {
             @Parameter(description = "Page number (0-based)", example = "0")
             @RequestParam(name = "page[number]", defaultValue = "0") int pageNumber,
             @Parameter(description = "Page size", example = "10")
-            @RequestParam(name = "page[size]", defaultValue = "10") int pageSize
+            @RequestParam(name = "page[size]", defaultValue = "10") int pageSize,
+            @Parameter(description = "How meta.totalElements is obtained: exact, estimated, cached or none",
+                    example = "exact")
+            @RequestParam(name = "page[count]", defaultValue = "exact") String pageCount,
+            @Parameter(description = "Attributes to return: any of id, productId, quantity, reservedQuantity and "
+                    + "availableQuantity; empty for ids only")
+            @RequestParam(name = "fields[inventories]", required = false) String fields,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
     ) {
-        JsonApiListResponse<InventoryResponse> response = service.findPage(pageNumber, pageSize);
+        ETagged<JsonApiListResponse<InventoryResponse>> response = service.findTaggedPage(
+                pageNumber, pageSize, PageCount.fromParameter(pageCount), inventoryFields(fields));
+        return conditional(response, ifNoneMatch);
+    }
+
+    @Operation(
+            summary = "List inventories after a cursor",
+            description = "Returns the inventories of products with an id greater than page[after], in product id "
+                    + "order. Follow links.next to get the next page; it is null on the last one."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Inventories page retrieved successfully",
+            content = @Content(schema = @Schema(implementation = JsonApiCursorResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Negative cursor or page size out of range"
+    )
+    @GetMapping(value = "/page", params = "page[after]")
+    public ResponseEntity<JsonApiCursorResponse<InventoryResponse>> findPageAfter(
+            @Parameter(description = "Last product id already seen (0 for the first page)", example = "0")
+            @RequestParam(name = "page[after]") long afterProductId,
+            @Parameter(description = "Page size (max 1000)", example = "10")
+            @RequestParam(name = "page[size]", defaultValue = "10") int pageSize,
+            @Parameter(description = "Attributes to return: any of id, productId, quantity, reservedQuantity and "
+                    + "availableQuantity; empty for ids only")
+            @RequestParam(name = "fields[inventories]", required = false) String fields
+    ) {
+        JsonApiCursorResponse<InventoryResponse> response =
+                service.findPageAfter(afterProductId, pageSize, inventoryFields(fields));
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Export inventories",
+            description = "Streams the inventory of every product with filter[productId][gte] <= productId < "
+                    + "filter[productId][lt] as newline-delimited JSON, one JSON:API resource object per line, in "
+                    + "product id order, followed by a {\"meta\":{\"count\":n}} line. An export that ends without that "
+                    + "line failed part way through. Disjoint ranges can be exported in parallel."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Inventories streamed",
+            content = @Content(mediaType = NdjsonWriter.CONTENT_TYPE)
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Empty or negative product id range"
+    )
+    @GetMapping("/export")
+    public void export(
+            @Parameter(description = "Lowest product id to export (inclusive)", example = "0")
+            @RequestParam(name = "filter[productId][gte]", defaultValue = "0") long fromProductId,
+            @Parameter(description = "Product id where the export stops (exclusive)", example = "1000000")
+            @RequestParam(name = "filter[productId][lt]", defaultValue = "9223372036854775807") long toProductId,
+            @Parameter(description = "Attributes to return: any of id, productId, quantity, reservedQuantity and "
+                    + "availableQuantity; empty for ids only")
+            @RequestParam(name = "fields[inventories]", required = false) String fields,
+            HttpServletResponse response
+    ) throws IOException {
+        ExportRange range = new ExportRange(fromProductId, toProductId);
+        SparseFields sparseFields = inventoryFields(fields);
+        response.setContentType(NdjsonWriter.CONTENT_TYPE);
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream())) {
+            long count = service.export(range, sparseFields, writer::write);
+            writer.write(new JsonApiExportTrailer(new JsonApiExportMeta(count)));
+        }
+    }
+
     @Operation(
             summary = "Register purchase",
             description = "Registers a purchase for a given product, decreases stock and returns the updated inventory."
@@ -104,4 +199,67 @@ public class InventoryController {
                 service.purchase(request.getProductId(), request.getQuantity());
         return ResponseEntity.ok(response);
     }
+
+    @Operation(
+            summary = "Register batch purchase",
+            description = "Registers a purchase with several lines in a single transaction. "
+                    + "Either every line is applied or none is."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "All lines purchased; one result per request line",
+            content = @Content(schema = @Schema(implementation = JsonApiPurchaseResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "At least one line cannot be fulfilled; nothing was purchased"
+    )
+    @PostMapping("/purchase/batch")
+    public ResponseEntity<JsonApiPurchaseResponse<PurchaseLineResponse>> purchaseAll(
+            @Valid @RequestBody BatchPurchaseRequest request
+    ) {
+        JsonApiPurchaseResponse<PurchaseLineResponse> response = service.purchaseAll(request.lines());
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Split inventory into slots",
+            description = "Spreads the stock of a hot product over several counter rows so concurrent "
+                    + "purchases update different rows. The total quantity is kept and redistributed."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Slots changed; returns the quantity held by each slot",
+            content = @Content(schema = @Schema(implementation = JsonApiResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "404",
+            description = "Inventory not found"
+    )
+    @ApiResponse(
+            responseCode = "409",
+            description = "The product is kept in the stock ledger and cannot be split"
+    )
+    @PutMapping("/slots")
+    public ResponseEntity<JsonApiResponse<InventorySlotsResponse>> changeSlots(
+            @Valid @RequestBody InventorySlotsRequest request
+    ) {
+        JsonApiResponse<InventorySlotsResponse> response =
+                service.changeSlots(request.productId(), request.slots());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Answers 304 without serializing the document when the client already has this version.
+     */
+    private static <T> ResponseEntity<T> conditional(ETagged<T> response, String ifNoneMatch) {
+        if (ifNoneMatch != null && ETags.matchesWeakly(ifNoneMatch, response.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(response.etag()).build();
+        }
+        return ResponseEntity.ok().eTag(response.etag()).body(response.body());
+    }
+
+    private static SparseFields inventoryFields(String fields) {
+        return SparseFields.fromParameter("inventories", fields, InventoryResponse.class);
+    }
 }
@@ -0,0 +1,62 @@
+package com.storeflow.inventory.domain;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of products with inventory, for {@code page[count]=cached}. Inventory created here for a
+ * new product adds one when its transaction commits; the value is counted again from the table
+ * once it is older than {@code TTL}, which also picks up the writes of other instances.
+ */
+@Component
+public class InventoryProductCount {
+
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final InventoryRepository repository;
+    private final AtomicLong count = new AtomicLong();
+
+    private volatile long loadedAt;
+    private volatile boolean loaded;
+
+    public InventoryProductCount(InventoryRepository repository) {
+        this.repository = repository;
+    }
+
+    public long get() {
+        if (!loaded || System.nanoTime() - loadedAt >= TTL_NANOS) {
+            reload();
+        }
+        return count.get();
+    }
+
+    public void added() {
+        added(1);
+    }
+
+    public void added(long products) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    count.addAndGet(products);
+                }
+            });
+        } else {
+            count.addAndGet(products);
+        }
+    }
+
+    private synchronized void reload() {
+        if (loaded && System.nanoTime() - loadedAt < TTL_NANOS) {
+            return;
+        }
+        count.set(repository.countProducts());
+        loadedAt = System.nanoTime();
+        loaded = true;
+    }
+}
@@ -1,10 +1,175 @@
 package com.storeflow.inventory.domain;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
-    Optional<Inventory> findByProductId(Long productId);
+    Optional<Inventory> findByProductIdAndSlot(Long productId, Integer slot);
+
+    List<Inventory> findAllByProductIdOrderBySlot(Long productId);
+
+    List<Inventory> findAllByProductIdIn(Collection<Long> productIds);
+
+    long countByProductId(Long productId);
+
+    @Query("""
+            select new com.storeflow.inventory.domain.InventoryTotal(min(i.id), i.productId, sum(i.quantity), sum(i.version))
+              from Inventory i
+             where i.productId = :productId
+             group by i.productId
+            """)
+    Optional<InventoryTotal> findTotalByProductId(@Param("productId") Long productId);
+
+    @Query(value = """
+            select new com.storeflow.inventory.domain.InventoryTotal(min(i.id), i.productId, sum(i.quantity), sum(i.version))
+              from Inventory i
+             group by i.productId
+             order by min(i.id)
+            """,
+            countQuery = "select count(distinct i.productId) from Inventory i")
+    Page<InventoryTotal> findTotals(Pageable pageable);
+
+    @Query("""
+            select new com.storeflow.inventory.domain.InventoryTotal(min(i.id), i.productId, sum(i.quantity), sum(i.version))
+              from Inventory i
+             group by i.productId
+             order by min(i.id)
+            """)
+    Slice<InventoryTotal> findTotalSlice(Pageable pageable);
+
+    /**
+     * Id-only variants of the listings below, for sparse fieldsets that ask for no stock figures.
+     * They leave out the sums, and the service skips the ledger and reservation lookups for them.
+     */
+    @Query(value = """
+            select new com.storeflow.inventory.domain.InventoryTotal(min(i.id), i.productId)
+              from Inventory i
+             group by i.productId
+             order by min(i.id)
+            """,
+            countQuery = "select count(distinct i.productId) from Inventory i")
+    Page<InventoryTotal> findTotalIds(Pageable pageable);
+
+    @Query("""
+            select new com.storeflow.inventory.domain.InventoryTotal(min(i.id), i.productId)
+              from Inventory i
+             group by i.productId
+             order by min(i.id)
+            """)
+    Slice<InventoryTotal> findTotalIdSlice(Pageable pageable);
+
+    @Query("""
+            select new com.storeflow.inventory.domain.InventoryTotal(min(i.id), i.productId)
+              from Inventory i
+             where i.productId > :afterProductId
+             group by i.productId
+             order by i.productId
+            """)
+    List<InventoryTotal> findTotalIdsAfter(@Param("afterProductId") long afterProductId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.storeflow.inventory.domain.InventoryTotal(min(i.id), i.productId)
+              from Inventory i
+             where i.productId >= :fromProductId and i.productId < :toProductId
+             group by i.productId
+             order by i.productId
+            """)
+    Stream<InventoryTotal> streamTotalIds(@Param("fromProductId") long fromProductId,
+                                          @Param("toProductId") long toProductId);
+
+    /**
+     * Per-product totals read through a database cursor. Must be consumed inside a transaction
+     * and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.storeflow.inventory.domain.InventoryTotal(min(i.id), i.productId, sum(i.quantity), sum(i.version))
+              from Inventory i
+             where i.productId >= :fromProductId and i.productId < :toProductId
+             group by i.productId
+             order by i.productId
+            """)
+    Stream<InventoryTotal> streamTotals(@Param("fromProductId") long fromProductId,
+                                        @Param("toProductId") long toProductId);
+
+    @Query("select count(distinct i.productId) from Inventory i")
+    long countProducts();
+
+    /**
+     * The planner's estimate of distinct product ids, from the column statistics of the last
+     * ANALYZE. Empty while the table has none.
+     */
+    @Query(value = """
+            select cast(case when s.n_distinct < 0 then -s.n_distinct * c.reltuples else s.n_distinct end as bigint)
+              from pg_class c
+              join pg_stats s on s.schemaname = current_schema() and s.tablename = c.relname
+             where c.oid = to_regclass('inventories')
+               and s.attname = 'product_id'
+            """,
+            nativeQuery = true)
+    Optional<Long> estimateProductCount();
+
+    @Query("""
+            select new com.storeflow.inventory.domain.InventoryTotal(min(i.id), i.productId, sum(i.quantity), sum(i.version))
+              from Inventory i
+             where i.productId > :afterProductId
+             group by i.productId
+             order by i.productId
+            """)
+    List<InventoryTotal> findTotalsAfter(@Param("afterProductId") long afterProductId, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Inventory i where i.productId = :productId and i.slot = :slot")
+    Optional<Inventory> findForUpdateByProductIdAndSlot(@Param("productId") Long productId,
+                                                        @Param("slot") Integer slot);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Inventory i where i.productId = :productId order by i.slot")
+    List<Inventory> findAllForUpdateByProductId(@Param("productId") Long productId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Inventory i where i.productId in :productIds order by i.productId, i.slot")
+    List<Inventory> findAllForUpdateByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Inventory i
+               set i.quantity = i.quantity - :quantity,
+                   i.version = i.version + 1
+             where i.productId = :productId
+               and i.slot = :slot
+               and i.quantity >= :quantity
+            """)
+    int decrementIfAvailable(@Param("productId") Long productId,
+                             @Param("slot") Integer slot,
+                             @Param("quantity") int quantity);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Inventory i
+               set i.quantity = i.quantity + :quantity,
+                   i.version = i.version + 1
+             where i.productId = :productId
+               and i.slot = :slot
+            """)
+    int increment(@Param("productId") Long productId,
+                  @Param("slot") Integer slot,
+                  @Param("quantity") int quantity);
 }
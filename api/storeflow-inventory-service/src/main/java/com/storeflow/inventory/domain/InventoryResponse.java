@@ -1,8 +1,37 @@
 package com.storeflow.inventory.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.storeflow.inventory.jsonapi.SparseFields;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record InventoryResponse(
         Long id,
         Long productId,
-        Integer quantity
+        Integer quantity,
+        Integer reservedQuantity,
+        Integer availableQuantity
 ) {
+
+    public InventoryResponse(Long id, Long productId, Integer quantity) {
+        this(id, productId, quantity, 0, quantity);
+    }
+
+    /**
+     * This response cut down to the attributes in {@code fields}, or null when none are asked for.
+     */
+    public InventoryResponse only(SparseFields fields) {
+        if (fields.isAll()) {
+            return this;
+        }
+        if (fields.attributes().isEmpty()) {
+            return null;
+        }
+        return new InventoryResponse(
+                fields.includes("id") ? id : null,
+                fields.includes("productId") ? productId : null,
+                fields.includes("quantity") ? quantity : null,
+                fields.includes("reservedQuantity") ? reservedQuantity : null,
+                fields.includes("availableQuantity") ? availableQuantity : null
+        );
+    }
 }
@@ -1,53 +1,164 @@
 package com.storeflow.inventory.domain;
 
+import com.storeflow.inventory.jsonapi.ETagged;
+import com.storeflow.inventory.jsonapi.ETags;
+import com.storeflow.inventory.jsonapi.JsonApiCursorMeta;
+import com.storeflow.inventory.jsonapi.JsonApiCursorResponse;
 import com.storeflow.inventory.jsonapi.JsonApiData;
+import com.storeflow.inventory.jsonapi.JsonApiLinks;
 import com.storeflow.inventory.jsonapi.JsonApiListResponse;
 import com.storeflow.inventory.jsonapi.JsonApiPaginationMeta;
+import com.storeflow.inventory.jsonapi.JsonApiPurchaseMeta;
+import com.storeflow.inventory.jsonapi.JsonApiPurchaseResponse;
 import com.storeflow.inventory.jsonapi.JsonApiResponse;
+import com.storeflow.inventory.jsonapi.PageCount;
+import com.storeflow.inventory.jsonapi.SparseFields;
+import com.storeflow.inventory.ledger.StockLedger;
 import com.storeflow.inventory.products.ProductsClient;
+import com.storeflow.inventory.purchase.BatchPurchaseExecutor;
+import com.storeflow.inventory.purchase.BatchPurchaseRejectedException;
+import com.storeflow.inventory.purchase.PurchaseLineFailure;
+import com.storeflow.inventory.purchase.PurchaseResult;
+import com.storeflow.inventory.purchase.SlotPurchaseRouter;
+import com.storeflow.inventory.reservation.ReservationConflictException;
+import com.storeflow.inventory.reservation.ReservedStock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Calls to products-service (and their retries) happen before any transaction is opened; each
+ * operation then does its reads and writes in one short {@link InventoryTransactions} block.
+ */
 @Service
-@Transactional
 public class InventoryService {
 
+    static final int MAX_CURSOR_PAGE = 1000;
+
     private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
     private final InventoryRepository repository;
     private final ProductsClient productsClient;
-
-    public InventoryService(InventoryRepository repository, ProductsClient productsClient) {
+    private final SlotPurchaseRouter purchaseRouter;
+    private final StockLedger stockLedger;
+    private final BatchPurchaseExecutor batchPurchaseExecutor;
+    private final InventorySlotCounts slotCounts;
+    private final ReservedStock reservedStock;
+    private final InventoryTransactions transactions;
+    private final InventoryProductCount productCount;
+
+    public InventoryService(InventoryRepository repository,
+                            ProductsClient productsClient,
+                            SlotPurchaseRouter purchaseRouter,
+                            StockLedger stockLedger,
+                            BatchPurchaseExecutor batchPurchaseExecutor,
+                            InventorySlotCounts slotCounts,
+                            ReservedStock reservedStock,
+                            InventoryTransactions transactions,
+                            InventoryProductCount productCount) {
         this.repository = repository;
         this.productsClient = productsClient;
+        this.purchaseRouter = purchaseRouter;
+        this.stockLedger = stockLedger;
+        this.batchPurchaseExecutor = batchPurchaseExecutor;
+        this.slotCounts = slotCounts;
+        this.reservedStock = reservedStock;
+        this.transactions = transactions;
+        this.productCount = productCount;
     }
 
     public JsonApiResponse<InventoryResponse> createOrUpdate(InventoryRequest request) {
 
         productsClient.validateProductExists(request.productId());
 
-        Inventory inventory = repository.findByProductId(request.productId())
-                .orElseGet(Inventory::new);
+        return setQuantity(request.productId(), request.quantity());
+    }
 
-        Integer previousQuantity = inventory.getId() == null ? null : inventory.getQuantity();
+    /**
+     * {@link #createOrUpdate} for a product already known to exist: sets its stock to
+     * {@code quantity} minus the units currently reserved.
+     */
+    public JsonApiResponse<InventoryResponse> setQuantity(Long productId, int quantity) {
+        int reserved = reservedStock.of(productId);
+        if (quantity < reserved) {
+            throw new ReservationConflictException(
+                    "Product " + productId + " has " + reserved + " units reserved");
+        }
+        int available = quantity - reserved;
 
-        inventory.setProductId(request.productId());
-        inventory.setQuantity(request.quantity());
+        if (stockLedger.tracks(productId)) {
+            PurchaseResult result = stockLedger.set(productId, available);
 
-        Inventory saved = repository.save(inventory);
+            log.info(
+                    "InventoryChangedEvent productId={} previousQuantity={} newQuantity={}",
+                    result.productId(),
+                    result.previousQuantity(),
+                    result.newQuantity()
+            );
 
-        log.info(
-                "InventoryChangedEvent productId={} previousQuantity={} newQuantity={}",
-                saved.getProductId(),
-                previousQuantity,
-                saved.getQuantity()
-        );
+            InventoryResponse response =
+                    inventoryResponse(result.inventoryId(), result.productId(), result.newQuantity());
 
-        InventoryResponse response =
-                new InventoryResponse(saved.getId(), saved.getProductId(), saved.getQuantity());
+            JsonApiData<InventoryResponse> data =
+                    new JsonApiData<>("inventories", String.valueOf(result.inventoryId()), response);
+
+            return new JsonApiResponse<>(data);
+        }
+
+        boolean[] created = new boolean[1];
+        boolean[] singleSlot = new boolean[1];
+        Inventory saved = transactions.execute("upsert", status -> {
+            List<Inventory> slots = repository.findAllForUpdateByProductId(productId);
+
+            Integer previousQuantity = slots.isEmpty() ? null : SlotAllocation.total(slots);
+
+            created[0] = slots.isEmpty();
+            if (created[0]) {
+                Inventory inventory = new Inventory();
+                inventory.setProductId(productId);
+                inventory.setQuantity(available);
+                slots = List.of(repository.save(inventory));
+            } else {
+                int[] quantities = SlotAllocation.spread(available, slots.size());
+                for (int index = 0; index < quantities.length; index++) {
+                    slots.get(index).setQuantity(quantities[index]);
+                }
+            }
+
+            Inventory first = slots.get(0);
+            singleSlot[0] = slots.size() == 1;
+
+            log.info(
+                    "InventoryChangedEvent productId={} previousQuantity={} newQuantity={}",
+                    first.getProductId(),
+                    previousQuantity,
+                    available
+            );
+            return first;
+        });
+
+        // The upsert has committed here; inside an outer transaction both wait for its commit instead.
+        if (created[0]) {
+            productCount.added();
+        }
+        if (singleSlot[0]) {
+            stockLedger.register(saved);
+        }
+
+        InventoryResponse response = inventoryResponse(saved.getId(), saved.getProductId(), available);
 
         JsonApiData<InventoryResponse> data =
                 new JsonApiData<>("inventories", String.valueOf(saved.getId()), response);
@@ -56,38 +167,145 @@ public class InventoryService {
     }
 
     public JsonApiResponse<InventoryResponse> findByProductId(Long productId) {
-        Inventory inventory = repository.findByProductId(productId)
+        return findTaggedByProductId(productId).body();
+    }
+
+    /**
+     * The ETag covers the slot rows' versions plus the ledger quantity and the reserved units,
+     * which change without touching those rows.
+     */
+    public ETagged<JsonApiResponse<InventoryResponse>> findTaggedByProductId(Long productId) {
+        InventoryTotal inventory = transactions.execute("find", status -> repository.findTotalByProductId(productId))
                 .orElseThrow(() ->
                         new InventoryNotFoundException("Inventory for product " + productId + " not found"));
 
-        InventoryResponse response =
-                new InventoryResponse(inventory.getId(), inventory.getProductId(), inventory.getQuantity());
+        Integer quantity = stockLedger.quantityOf(productId).orElse(inventory.quantity().intValue());
+
+        InventoryResponse response = inventoryResponse(inventory.id(), inventory.productId(), quantity);
 
         JsonApiData<InventoryResponse> data =
-                new JsonApiData<>("inventories", String.valueOf(inventory.getId()), response);
+                new JsonApiData<>("inventories", String.valueOf(inventory.id()), response);
 
-        return new JsonApiResponse<>(data);
+        return new ETagged<>(new JsonApiResponse<>(data), ETags.of(rowHash(inventory, response)));
     }
 
     public JsonApiListResponse<InventoryResponse> findPage(int pageNumber, int pageSize) {
-        Page<Inventory> page = repository.findAll(PageRequest.of(pageNumber, pageSize));
-
-        var data = page.getContent().stream()
-                .map(inv -> new JsonApiData<>(
-                        "inventories",
-                        String.valueOf(inv.getId()),
-                        new InventoryResponse(inv.getId(), inv.getProductId(), inv.getQuantity())
-                ))
-                .toList();
-
-        JsonApiPaginationMeta meta = new JsonApiPaginationMeta(
-                pageNumber,
-                pageSize,
-                page.getTotalElements(),
-                page.getTotalPages()
+        return findTaggedPage(pageNumber, pageSize).body();
+    }
+
+    public ETagged<JsonApiListResponse<InventoryResponse>> findTaggedPage(int pageNumber, int pageSize) {
+        return findTaggedPage(pageNumber, pageSize, PageCount.EXACT);
+    }
+
+    /**
+     * Only {@link PageCount#EXACT} runs the count query; the other modes read the page as a
+     * {@link Slice} and take the total from the planner, the cached counter or nowhere.
+     */
+    public ETagged<JsonApiListResponse<InventoryResponse>> findTaggedPage(int pageNumber, int pageSize, PageCount count) {
+        return findTaggedPage(pageNumber, pageSize, count, SparseFields.ALL);
+    }
+
+    /**
+     * When {@code fields} asks for nothing beyond the ids the page is read without the stock sums
+     * and the ETag covers only the ids.
+     */
+    public ETagged<JsonApiListResponse<InventoryResponse>> findTaggedPage(int pageNumber, int pageSize, PageCount count,
+                                                                         SparseFields fields) {
+        PageRequest request = PageRequest.of(pageNumber, pageSize);
+        boolean idsOnly = idsOnly(fields);
+        Slice<InventoryTotal> page = transactions.execute("page", status -> {
+            if (idsOnly) {
+                return count == PageCount.EXACT
+                        ? repository.findTotalIds(request)
+                        : repository.findTotalIdSlice(request);
+            }
+            return count == PageCount.EXACT
+                    ? repository.findTotals(request)
+                    : repository.findTotalSlice(request);
+        });
+        Long total = totalOf(page, count);
+
+        List<JsonApiData<InventoryResponse>> data = new ArrayList<>(page.getNumberOfElements());
+        long rows = 0;
+        for (InventoryTotal inv : page) {
+            InventoryResponse response = inventoryResponse(inv, idsOnly);
+            data.add(new JsonApiData<>("inventories", String.valueOf(inv.id()), response.only(fields)));
+            rows += idsOnly ? ETags.hash(inv.id(), inv.productId()) : rowHash(inv, response);
+        }
+
+        JsonApiPaginationMeta meta = JsonApiPaginationMeta.of(pageNumber, pageSize, total, page.hasNext(), count);
+
+        String etag = ETags.of(pageNumber, pageSize, total == null ? -1 : total, page.hasNext() ? 1 : 0, rows,
+                fields.hash());
+        return new ETagged<>(new JsonApiListResponse<>(data, meta), etag);
+    }
+
+    public JsonApiCursorResponse<InventoryResponse> findPageAfter(long afterProductId, int pageSize) {
+        return findPageAfter(afterProductId, pageSize, SparseFields.ALL);
+    }
+
+    /**
+     * Keyset variant of {@link #findPage}. The cursor is the product id, which leads the
+     * (product_id, slot) unique index, so each page is a range scan of that index.
+     */
+    public JsonApiCursorResponse<InventoryResponse> findPageAfter(long afterProductId, int pageSize,
+                                                                  SparseFields fields) {
+        if (afterProductId < 0 || pageSize < 1 || pageSize > MAX_CURSOR_PAGE) {
+            throw new IllegalArgumentException(
+                    "page[after] must not be negative and page[size] must be between 1 and " + MAX_CURSOR_PAGE);
+        }
+
+        boolean idsOnly = idsOnly(fields);
+        PageRequest request = PageRequest.of(0, pageSize + 1);
+        List<InventoryTotal> page = transactions.execute("page", status -> idsOnly
+                ? repository.findTotalIdsAfter(afterProductId, request)
+                : repository.findTotalsAfter(afterProductId, request));
+        boolean hasMore = page.size() > pageSize;
+        if (hasMore) {
+            page = page.subList(0, pageSize);
+        }
+
+        List<JsonApiData<InventoryResponse>> data = new ArrayList<>(page.size());
+        for (InventoryTotal inv : page) {
+            InventoryResponse response = inventoryResponse(inv, idsOnly);
+            data.add(new JsonApiData<>("inventories", String.valueOf(inv.id()), response.only(fields)));
+        }
+
+        long nextAfter = page.isEmpty() ? afterProductId : page.get(page.size() - 1).productId();
+        JsonApiCursorMeta meta = new JsonApiCursorMeta(afterProductId, nextAfter, pageSize, hasMore);
+        JsonApiLinks links = new JsonApiLinks(
+                pageLink(afterProductId, pageSize, fields),
+                hasMore ? pageLink(nextAfter, pageSize, fields) : null
         );
+        return new JsonApiCursorResponse<>(data, meta, links);
+    }
+
+    public long export(ExportRange range, Consumer<JsonApiData<InventoryResponse>> sink) {
+        return export(range, SparseFields.ALL, sink);
+    }
 
-        return new JsonApiListResponse<>(data, meta);
+    /**
+     * Passes the inventory of every product in the range to {@code sink} in product id order,
+     * reading the totals from a database cursor so memory use does not depend on the size of the
+     * range. The connection is held for the whole export. Returns how many were exported.
+     */
+    public long export(ExportRange range, SparseFields fields, Consumer<JsonApiData<InventoryResponse>> sink) {
+        boolean idsOnly = idsOnly(fields);
+        return transactions.execute("export", status -> {
+            long exported = 0;
+            try (Stream<InventoryTotal> rows = idsOnly
+                    ? repository.streamTotalIds(range.fromProductId(), range.toProductId())
+                    : repository.streamTotals(range.fromProductId(), range.toProductId())) {
+                Iterator<InventoryTotal> iterator = rows.iterator();
+                while (iterator.hasNext()) {
+                    InventoryTotal inv = iterator.next();
+                    InventoryResponse response = inventoryResponse(inv, idsOnly);
+                    sink.accept(new JsonApiData<>("inventories", String.valueOf(inv.id()), response.only(fields)));
+                    exported++;
+                }
+            }
+            return exported;
+        });
     }
 
     public JsonApiResponse<InventoryResponse> purchase(Long productId, Integer quantity) {
@@ -97,33 +315,235 @@ public class InventoryService {
 
         productsClient.validateProductExists(productId);
 
-        Inventory inventory = repository.findByProductId(productId)
-                .orElseThrow(() -> new RuntimeException("Inventory for product " + productId + " not found"));
-
-        if (inventory.getQuantity() < quantity) {
-            throw new RuntimeException("Not enough stock for product " + productId);
-        }
-
-        int previousQuantity = inventory.getQuantity();
-        int newQuantity = previousQuantity - quantity;
-        inventory.setQuantity(newQuantity);
-
-        Inventory saved = repository.save(inventory);
+        PurchaseResult result = stockLedger.tracks(productId)
+                ? stockLedger.purchase(productId, quantity)
+                : purchaseRouter.purchase(productId, quantity);
 
         log.info(
                 "InventoryChangedEvent productId={} previousQuantity={} newQuantity={} purchasedQuantity={}",
-                saved.getProductId(),
-                previousQuantity,
-                saved.getQuantity(),
+                result.productId(),
+                result.previousQuantity(),
+                result.newQuantity(),
                 quantity
         );
 
         InventoryResponse response =
-                new InventoryResponse(saved.getId(), saved.getProductId(), saved.getQuantity());
+                inventoryResponse(result.inventoryId(), result.productId(), result.newQuantity());
 
         JsonApiData<InventoryResponse> data =
-                new JsonApiData<>("inventories", String.valueOf(saved.getId()), response);
+                new JsonApiData<>("inventories", String.valueOf(result.inventoryId()), response);
 
         return new JsonApiResponse<>(data);
     }
+
+    public JsonApiResponse<InventorySlotsResponse> changeSlots(Long productId, int slotCount) {
+        if (stockLedger.tracks(productId)) {
+            throw new InventorySlotsConflictException(
+                    "Inventory for product " + productId + " is kept in the stock ledger and cannot be split");
+        }
+
+        int[] quantities = transactions.execute("slots", status -> resizeSlots(productId, slotCount));
+
+        InventorySlotsResponse response = new InventorySlotsResponse(
+                productId,
+                slotCount,
+                Arrays.stream(quantities).boxed().toList()
+        );
+
+        JsonApiData<InventorySlotsResponse> data =
+                new JsonApiData<>("inventory-slots", String.valueOf(productId), response);
+
+        return new JsonApiResponse<>(data);
+    }
+
+    /**
+     * A rejected batch reports every failing line, pointing at its index in the request, so a
+     * product spread over several lines gets one error per line. When ledger lines fail, the
+     * database lines are still checked, without being bought, so both groups are reported.
+     */
+    public JsonApiPurchaseResponse<PurchaseLineResponse> purchaseAll(List<PurchaseLineRequest> lines) {
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (PurchaseLineRequest line : lines) {
+            quantities.merge(line.productId(), line.quantity(), Integer::sum);
+        }
+
+        productsClient.validateProductsExist(quantities.keySet());
+
+        SortedMap<Long, Integer> ledgerQuantities = new TreeMap<>();
+        SortedMap<Long, Integer> databaseQuantities = new TreeMap<>();
+        quantities.forEach((productId, quantity) ->
+                (stockLedger.tracks(productId) ? ledgerQuantities : databaseQuantities).put(productId, quantity));
+
+        Map<Long, PurchaseResult> results;
+        try {
+            results = purchaseFromLedger(ledgerQuantities);
+        } catch (BatchPurchaseRejectedException ex) {
+            List<PurchaseLineFailure> failures = new ArrayList<>(ex.getFailures());
+            if (!databaseQuantities.isEmpty()) {
+                failures.addAll(batchPurchaseExecutor.findFailures(databaseQuantities));
+            }
+            throw new BatchPurchaseRejectedException(byLine(failures, lines));
+        }
+        try {
+            if (!databaseQuantities.isEmpty()) {
+                results.putAll(batchPurchaseExecutor.purchaseAll(databaseQuantities));
+            }
+        } catch (RuntimeException ex) {
+            ledgerQuantities.forEach(stockLedger::credit);
+            if (ex instanceof BatchPurchaseRejectedException rejected) {
+                throw new BatchPurchaseRejectedException(byLine(rejected.getFailures(), lines));
+            }
+            throw ex;
+        }
+
+        results.values().forEach(result -> log.info(
+                "InventoryChangedEvent productId={} previousQuantity={} newQuantity={} purchasedQuantity={}",
+                result.productId(),
+                result.previousQuantity(),
+                result.newQuantity(),
+                result.previousQuantity() - result.newQuantity()
+        ));
+
+        List<JsonApiData<PurchaseLineResponse>> data = new ArrayList<>(lines.size());
+        long purchased = 0;
+        for (int index = 0; index < lines.size(); index++) {
+            PurchaseLineRequest line = lines.get(index);
+            PurchaseResult result = results.get(line.productId());
+            data.add(new JsonApiData<>(
+                    "purchases",
+                    String.valueOf(index),
+                    new PurchaseLineResponse(
+                            result.inventoryId(),
+                            line.productId(),
+                            line.quantity(),
+                            result.newQuantity()
+                    )
+            ));
+            purchased += line.quantity();
+        }
+
+        return new JsonApiPurchaseResponse<>(data, new JsonApiPurchaseMeta(lines.size(), quantities.size(), purchased));
+    }
+
+    private static List<PurchaseLineFailure> byLine(List<PurchaseLineFailure> failures, List<PurchaseLineRequest> lines) {
+        Map<Long, PurchaseLineFailure> byProduct = new HashMap<>();
+        failures.forEach(failure -> byProduct.put(failure.productId(), failure));
+        List<PurchaseLineFailure> byLine = new ArrayList<>();
+        for (int index = 0; index < lines.size(); index++) {
+            PurchaseLineFailure failure = byProduct.get(lines.get(index).productId());
+            if (failure != null) {
+                byLine.add(failure.atLine(index));
+            }
+        }
+        return byLine;
+    }
+
+    private int[] resizeSlots(Long productId, int slotCount) {
+        List<Inventory> rows = repository.findAllForUpdateByProductId(productId);
+        if (rows.isEmpty()) {
+            throw new InventoryNotFoundException("Inventory for product " + productId + " not found");
+        }
+
+        int total = SlotAllocation.total(rows);
+        List<Inventory> slots = new ArrayList<>(rows.subList(0, Math.min(rows.size(), slotCount)));
+        if (rows.size() > slotCount) {
+            repository.deleteAll(rows.subList(slotCount, rows.size()));
+            repository.flush();
+        }
+        for (int slot = slots.size(); slot < slotCount; slot++) {
+            Inventory inventory = new Inventory();
+            inventory.setProductId(productId);
+            inventory.setSlot(slot);
+            slots.add(inventory);
+        }
+
+        int[] quantities = SlotAllocation.spread(total, slotCount);
+        for (int index = 0; index < quantities.length; index++) {
+            slots.get(index).setQuantity(quantities[index]);
+        }
+        repository.saveAll(slots);
+        slotCounts.update(productId, slotCount);
+
+        log.info(
+                "InventorySlotsChangedEvent productId={} previousSlots={} slots={} quantity={}",
+                productId,
+                rows.size(),
+                slotCount,
+                total
+        );
+        return quantities;
+    }
+
+    private Map<Long, PurchaseResult> purchaseFromLedger(SortedMap<Long, Integer> quantities) {
+        Map<Long, PurchaseResult> results = new HashMap<>();
+        List<PurchaseLineFailure> failures = new ArrayList<>();
+        try {
+            quantities.forEach((productId, quantity) -> {
+                try {
+                    results.put(productId, stockLedger.purchase(productId, quantity));
+                } catch (InsufficientStockException ex) {
+                    failures.add(new PurchaseLineFailure(productId, 400, "Not enough stock", ex.getMessage()));
+                }
+            });
+            if (!failures.isEmpty()) {
+                throw new BatchPurchaseRejectedException(failures);
+            }
+        } catch (RuntimeException ex) {
+            results.keySet().forEach(productId -> stockLedger.credit(productId, quantities.get(productId)));
+            throw ex;
+        }
+        return results;
+    }
+
+    /**
+     * An estimate is never reported below what the page itself shows exists, and falls back to
+     * an exact count while the table has no statistics.
+     */
+    private Long totalOf(Slice<InventoryTotal> page, PageCount count) {
+        return switch (count) {
+            case EXACT -> ((Page<InventoryTotal>) page).getTotalElements();
+            case ESTIMATED -> {
+                long seen = (long) page.getNumber() * page.getSize() + page.getNumberOfElements()
+                        + (page.hasNext() ? 1 : 0);
+                yield transactions.execute("count", status -> repository.estimateProductCount()
+                        .map(estimate -> Math.max(estimate, seen))
+                        .orElseGet(repository::countProducts));
+            }
+            case CACHED -> productCount.get();
+            case NONE -> null;
+        };
+    }
+
+    private static String pageLink(long afterProductId, int pageSize, SparseFields fields) {
+        return "/api/v1/inventories/page?page[after]=" + afterProductId + "&page[size]=" + pageSize
+                + fields.toQuery("inventories");
+    }
+
+    private static boolean idsOnly(SparseFields fields) {
+        return !fields.needsMoreThan("id", "productId");
+    }
+
+    private static long rowHash(InventoryTotal inventory, InventoryResponse response) {
+        long version = inventory.version() == null ? 0 : inventory.version();
+        return ETags.hash(inventory.id(), version, response.quantity(), response.reservedQuantity());
+    }
+
+    /**
+     * The response for a listed total, without the stock figures when {@code idsOnly}.
+     */
+    private InventoryResponse inventoryResponse(InventoryTotal inv, boolean idsOnly) {
+        if (idsOnly) {
+            return new InventoryResponse(inv.id(), inv.productId(), null, null, null);
+        }
+        return inventoryResponse(
+                inv.id(),
+                inv.productId(),
+                stockLedger.quantityOf(inv.productId()).orElse(inv.quantity().intValue())
+        );
+    }
+
+    private InventoryResponse inventoryResponse(Long id, Long productId, int available) {
+        int reserved = reservedStock.of(productId);
+        return new InventoryResponse(id, productId, available + reserved, reserved, available);
+    }
 }
@@ -0,0 +1,54 @@
+package com.storeflow.inventory.domain;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class InventorySlotCounts {
+
+    private static final int MAX_ENTRIES = 100_000;
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final InventoryRepository repository;
+    private final Map<Long, SlotCount> counts = new ConcurrentHashMap<>();
+
+    public InventorySlotCounts(InventoryRepository repository) {
+        this.repository = repository;
+    }
+
+    public int count(Long productId) {
+        long now = System.nanoTime();
+        SlotCount cached = counts.get(productId);
+        if (cached != null && now - cached.loadedAt() < TTL_NANOS) {
+            return cached.count();
+        }
+
+        if (counts.size() >= MAX_ENTRIES) {
+            counts.clear();
+        }
+        int count = (int) Math.max(1, repository.countByProductId(productId));
+        counts.put(productId, new SlotCount(count, now));
+        return count;
+    }
+
+    public void update(Long productId, int count) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counts.put(productId, new SlotCount(count, System.nanoTime()));
+                }
+            });
+        } else {
+            counts.put(productId, new SlotCount(count, System.nanoTime()));
+        }
+    }
+
+    private record SlotCount(int count, long loadedAt) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.storeflow.inventory.domain;
+
+public class InventorySlotsConflictException extends RuntimeException {
+
+    public InventorySlotsConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.storeflow.inventory.domain;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record InventorySlotsRequest(
+        @NotNull Long productId,
+        @NotNull @Min(1) @Max(64) Integer slots
+) {
+}
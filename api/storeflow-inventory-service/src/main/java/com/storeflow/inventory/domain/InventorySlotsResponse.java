@@ -0,0 +1,10 @@
+package com.storeflow.inventory.domain;
+
+import java.util.List;
+
+public record InventorySlotsResponse(
+        Long productId,
+        Integer slots,
+        List<Integer> slotQuantities
+) {
+}
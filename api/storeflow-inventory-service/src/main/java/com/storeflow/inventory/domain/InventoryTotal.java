@@ -0,0 +1,20 @@
+package com.storeflow.inventory.domain;
+
+public record InventoryTotal(
+        Long id,
+        Long productId,
+        Long quantity,
+        Long version
+) {
+
+    public InventoryTotal(Long id, Long productId, Long quantity) {
+        this(id, productId, quantity, 0L);
+    }
+
+    /**
+     * Ids only, for listings that return no stock figures.
+     */
+    public InventoryTotal(Long id, Long productId) {
+        this(id, productId, null, null);
+    }
+}
@@ -0,0 +1,39 @@
+package com.storeflow.inventory.domain;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs the database part of an inventory operation in its own short transaction and records how
+ * long it kept the pooled connection, tagged by operation. Remote calls must happen before.
+ */
+@Component
+public class InventoryTransactions {
+
+    private final TransactionOperations transactions;
+    private final MeterRegistry registry;
+    private final Map<String, Timer> holdTimes = new ConcurrentHashMap<>();
+
+    public InventoryTransactions(TransactionOperations transactions, MeterRegistry registry) {
+        this.transactions = transactions;
+        this.registry = registry;
+    }
+
+    public <T> T execute(String operation, TransactionCallback<T> callback) {
+        Timer.Sample sample = Timer.start(registry);
+        try {
+            return transactions.execute(callback);
+        } finally {
+            sample.stop(holdTimes.computeIfAbsent(operation, name -> Timer.builder("inventory.db.connection.hold")
+                    .tag("operation", name)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry)));
+        }
+    }
+}
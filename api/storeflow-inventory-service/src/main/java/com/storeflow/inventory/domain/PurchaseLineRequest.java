@@ -0,0 +1,10 @@
+package com.storeflow.inventory.domain;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record PurchaseLineRequest(
+        @NotNull Long productId,
+        @NotNull @Min(1) Integer quantity
+) {
+}
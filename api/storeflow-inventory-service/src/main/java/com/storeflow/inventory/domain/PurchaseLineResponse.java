@@ -0,0 +1,9 @@
+package com.storeflow.inventory.domain;
+
+public record PurchaseLineResponse(
+        Long inventoryId,
+        Long productId,
+        Integer purchasedQuantity,
+        Integer remainingQuantity
+) {
+}
@@ -0,0 +1,38 @@
+package com.storeflow.inventory.domain;
+
+import java.util.List;
+
+public final class SlotAllocation {
+
+    private SlotAllocation() {
+    }
+
+    public static int total(List<Inventory> slots) {
+        int total = 0;
+        for (Inventory slot : slots) {
+            total += slot.getQuantity();
+        }
+        return total;
+    }
+
+    public static int[] take(List<Inventory> slots, int quantity) {
+        int[] taken = new int[slots.size()];
+        int remaining = quantity;
+        for (int index = 0; index < slots.size() && remaining > 0; index++) {
+            taken[index] = Math.min(remaining, slots.get(index).getQuantity());
+            remaining -= taken[index];
+        }
+        if (remaining > 0) {
+            throw new IllegalArgumentException("Slots hold less than " + quantity + " units");
+        }
+        return taken;
+    }
+
+    public static int[] spread(int quantity, int slotCount) {
+        int[] quantities = new int[slotCount];
+        for (int index = 0; index < slotCount; index++) {
+            quantities[index] = quantity / slotCount + (index < quantity % slotCount ? 1 : 0);
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,12 @@
+package com.storeflow.inventory.idempotency;
+
+public record IdempotencyEntry(long fingerprint, int status, byte[] body) {
+
+    public static IdempotencyEntry inProgress(long fingerprint) {
+        return new IdempotencyEntry(fingerprint, 0, null);
+    }
+
+    public boolean completed() {
+        return status != 0;
+    }
+}
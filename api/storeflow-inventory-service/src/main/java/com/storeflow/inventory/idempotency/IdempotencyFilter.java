@@ -0,0 +1,182 @@
+package com.storeflow.inventory.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeflow.inventory.jsonapi.JsonApiError;
+import com.storeflow.inventory.jsonapi.JsonApiErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Replays the stored response when a POST arrives again with the same {@code Idempotency-Key},
+ * before the request reaches the controller, so a retried purchase neither touches the database
+ * nor calls products-service. Responses with a 5xx status are not stored and can be retried.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Counter replays;
+
+    public IdempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper, MeterRegistry registry) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.replays = registry.counter("inventory.idempotency.replays");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || request.getHeader(HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        String key = request.getHeader(HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key",
+                    "Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        String scope = request.getRequestURI() + " " + key;
+        long fingerprint = fingerprint(body);
+
+        IdempotencyStore.Claim claim = store.claim(scope, fingerprint);
+        switch (claim.outcome()) {
+            case REPLAY -> {
+                replays.increment();
+                response.setStatus(claim.entry().status());
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setHeader(REPLAYED_HEADER, "true");
+                response.getOutputStream().write(claim.entry().body());
+                return;
+            }
+            case IN_PROGRESS -> {
+                writeError(response, HttpStatus.CONFLICT, "Request in progress",
+                        "A request with this Idempotency-Key is still being processed");
+                return;
+            }
+            case MISMATCH -> {
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key reused",
+                        "This Idempotency-Key was already used with a different request body");
+                return;
+            }
+            default -> {
+            }
+        }
+
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+        } catch (ServletException | IOException | RuntimeException ex) {
+            store.abandon(scope);
+            throw ex;
+        }
+
+        int status = cachingResponse.getStatus();
+        if (status < 500) {
+            store.complete(scope, fingerprint, status, cachingResponse.getContentAsByteArray());
+        } else {
+            store.abandon(scope);
+        }
+        cachingResponse.copyBodyToResponse();
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String title, String detail)
+            throws IOException {
+        JsonApiError error = new JsonApiError(String.valueOf(status.value()), title, detail);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new JsonApiErrorResponse(List.of(error)));
+    }
+
+    private static long fingerprint(byte[] body) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(body)).getLong();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The body is already in memory, so it is all available at once.
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException ex) {
+                        listener.onError(ex);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.storeflow.inventory.idempotency;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(
+        name = "idempotency_records",
+        indexes = @Index(name = "idx_idempotency_records_created_at", columnList = "createdAt")
+)
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 512)
+    private String scope;
+
+    @Column(nullable = false)
+    private Long fingerprint;
+
+    @Column(nullable = false)
+    private Integer status;
+
+    @Column(nullable = false, length = 1_048_576)
+    private byte[] body;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String scope, Long fingerprint, Integer status, byte[] body, Instant createdAt) {
+        this.scope = scope;
+        this.fingerprint = fingerprint;
+        this.status = status;
+        this.body = body;
+        this.createdAt = createdAt;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public Long getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
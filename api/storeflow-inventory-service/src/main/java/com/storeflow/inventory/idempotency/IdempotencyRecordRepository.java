@@ -0,0 +1,49 @@
+package com.storeflow.inventory.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims {@code scope} with a pending row (status 0). Returns 0 when another request holds it.
+     */
+    @Modifying
+    @Query(value = """
+            insert into idempotency_records (scope, fingerprint, status, body, created_at)
+            values (:scope, :fingerprint, 0, '', :createdAt)
+            on conflict (scope) do nothing
+            """,
+            nativeQuery = true)
+    int insertPending(@Param("scope") String scope,
+                      @Param("fingerprint") long fingerprint,
+                      @Param("createdAt") Instant createdAt);
+
+    /**
+     * Turns a row older than {@code cutoff} back into a pending claim for a new request.
+     */
+    @Modifying
+    @Query("""
+            update IdempotencyRecord r
+               set r.fingerprint = :fingerprint, r.status = 0, r.body = :body, r.createdAt = :createdAt
+             where r.scope = :scope
+               and r.createdAt < :cutoff
+            """)
+    int reclaimExpired(@Param("scope") String scope,
+                       @Param("fingerprint") long fingerprint,
+                       @Param("body") byte[] body,
+                       @Param("createdAt") Instant createdAt,
+                       @Param("cutoff") Instant cutoff);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.scope = :scope and r.status = 0")
+    int deletePending(@Param("scope") String scope);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,232 @@
+package com.storeflow.inventory.idempotency;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the response of every request sent with an {@code Idempotency-Key}. Entries live in
+ * two generations of maps: new keys go to the current one and, once it is older than the TTL or
+ * holds half of {@code max-entries}, the previous generation is dropped as a whole and the current
+ * one takes its place. Expiry therefore needs no per-key timers or sweeps, and memory stays bounded
+ * however fast keys churn.
+ *
+ * <p>With {@code persistent} set, a key is also claimed in {@code idempotency_records} with a
+ * pending row before the request runs, so two instances never run the same key. The response is
+ * written over that row afterwards, retried in the background if the database write fails so a
+ * response that was already produced is never turned into an error. A pending row left by an
+ * instance that died mid-request keeps the key answering "in progress" until it expires, since
+ * whether that request was applied is unknown.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    private final IdempotencyProperties properties;
+    private final IdempotencyRecordRepository records;
+    private final TransactionOperations transactions;
+    private final ScheduledExecutorService cleaner;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    public IdempotencyStore(IdempotencyProperties properties,
+                            IdempotencyRecordRepository records,
+                            TransactionOperations transactions,
+                            MeterRegistry registry) {
+        this.properties = properties;
+        this.records = records;
+        this.transactions = transactions;
+        this.current = new Generation(System.nanoTime());
+        this.previous = new Generation(System.nanoTime());
+        this.cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("inventory.idempotency.entries", this, IdempotencyStore::size).register(registry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        cleaner.shutdownNow();
+    }
+
+    public Claim claim(String scope, long fingerprint) {
+        rotateIfNeeded();
+
+        Generation generation = current;
+        IdempotencyEntry existing = find(scope);
+        if (existing == null) {
+            IdempotencyEntry started = IdempotencyEntry.inProgress(fingerprint);
+            existing = generation.entries.putIfAbsent(scope, started);
+            if (existing == null) {
+                if (claimRecord(scope, fingerprint, started)) {
+                    return new Claim(Outcome.STARTED, null);
+                }
+                generation.entries.remove(scope, started);
+                existing = load(scope).orElse(started);
+            }
+        }
+
+        if (existing.fingerprint() != fingerprint) {
+            return new Claim(Outcome.MISMATCH, existing);
+        }
+        return new Claim(existing.completed() ? Outcome.REPLAY : Outcome.IN_PROGRESS, existing);
+    }
+
+    public void complete(String scope, long fingerprint, int status, byte[] body) {
+        current.entries.put(scope, new IdempotencyEntry(fingerprint, status, body));
+        previous.entries.remove(scope);
+
+        if (properties.isPersistent()) {
+            write(scope, () -> records.save(new IdempotencyRecord(scope, fingerprint, status, body, Instant.now())), 1);
+        }
+    }
+
+    public void abandon(String scope) {
+        current.entries.remove(scope);
+        previous.entries.remove(scope);
+
+        if (properties.isPersistent()) {
+            write(scope, () -> records.deletePending(scope), 1);
+        }
+    }
+
+    int size() {
+        return current.entries.size() + previous.entries.size();
+    }
+
+    private IdempotencyEntry find(String scope) {
+        IdempotencyEntry entry = current.entries.get(scope);
+        if (entry == null) {
+            entry = previous.entries.get(scope);
+        }
+        if (entry == null && properties.isPersistent()) {
+            entry = load(scope).orElse(null);
+            // Another instance's pending claim is not cached: it is only settled in the table.
+            if (entry != null && entry.completed()) {
+                current.entries.putIfAbsent(scope, entry);
+            }
+        }
+        return entry;
+    }
+
+    private Optional<IdempotencyEntry> load(String scope) {
+        Instant cutoff = Instant.now().minusSeconds(properties.getTtlSeconds());
+        return records.findById(scope)
+                .filter(record -> record.getCreatedAt().isAfter(cutoff))
+                .map(record -> new IdempotencyEntry(record.getFingerprint(), record.getStatus(), record.getBody()));
+    }
+
+    /**
+     * Inserts the pending row for a key, or takes over an expired one. Returns false when another
+     * request holds the key. Without persistence the in-memory claim is enough.
+     */
+    private boolean claimRecord(String scope, long fingerprint, IdempotencyEntry started) {
+        if (!properties.isPersistent()) {
+            return true;
+        }
+        Instant now = Instant.now();
+        Instant cutoff = now.minusSeconds(properties.getTtlSeconds());
+        try {
+            Integer claimed = transactions.execute(tx -> records.insertPending(scope, fingerprint, now) > 0
+                    ? 1
+                    : records.reclaimExpired(scope, fingerprint, new byte[0], now, cutoff));
+            return claimed != null && claimed > 0;
+        } catch (RuntimeException ex) {
+            current.entries.remove(scope, started);
+            previous.entries.remove(scope, started);
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes to the table without ever failing the caller: the request's response is already
+     * decided, so a failed write is retried in the background with backoff.
+     */
+    private void write(String scope, Runnable change, int attempt) {
+        try {
+            transactions.executeWithoutResult(tx -> change.run());
+        } catch (RuntimeException ex) {
+            if (attempt >= MAX_WRITE_ATTEMPTS) {
+                log.error("IdempotencyRecordWriteFailedEvent scope={} attempts={} reason={}",
+                        scope, attempt, ex.getMessage());
+                return;
+            }
+            log.warn("IdempotencyRecordWriteRetryEvent scope={} attempt={} reason={}", scope, attempt, ex.getMessage());
+            try {
+                cleaner.schedule(() -> write(scope, change, attempt + 1), 1L << attempt, TimeUnit.SECONDS);
+            } catch (RejectedExecutionException rejected) {
+                log.error("IdempotencyRecordWriteFailedEvent scope={} attempts={} reason=shutting down", scope, attempt);
+            }
+        }
+    }
+
+    private void rotateIfNeeded() {
+        Generation generation = current;
+        long age = System.nanoTime() - generation.startedAt;
+        if (age < TimeUnit.SECONDS.toNanos(properties.getTtlSeconds())
+                && generation.entries.size() < Math.max(1, properties.getMaxEntries() / 2)) {
+            return;
+        }
+
+        synchronized (this) {
+            if (current != generation) {
+                return;
+            }
+            previous = generation;
+            current = new Generation(System.nanoTime());
+        }
+
+        if (properties.isPersistent()) {
+            cleaner.execute(this::deleteExpiredRecords);
+        }
+    }
+
+    private void deleteExpiredRecords() {
+        try {
+            Instant cutoff = Instant.now().minusSeconds(properties.getTtlSeconds());
+            Integer deleted = transactions.execute(status -> records.deleteCreatedBefore(cutoff));
+            log.info("IdempotencyRecordsExpiredEvent deleted={}", deleted);
+        } catch (RuntimeException ex) {
+            log.warn("IdempotencyCleanupFailedEvent reason={}", ex.getMessage());
+        }
+    }
+
+    public enum Outcome {
+        STARTED,
+        REPLAY,
+        IN_PROGRESS,
+        MISMATCH
+    }
+
+    public record Claim(Outcome outcome, IdempotencyEntry entry) {
+    }
+
+    private static final class Generation {
+
+        private final long startedAt;
+        private final Map<String, IdempotencyEntry> entries = new ConcurrentHashMap<>();
+
+        private Generation(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
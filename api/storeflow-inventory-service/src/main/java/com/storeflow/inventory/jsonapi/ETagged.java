@@ -0,0 +1,7 @@
+package com.storeflow.inventory.jsonapi;
+
+public record ETagged<T>(
+        T body,
+        String etag
+) {
+}
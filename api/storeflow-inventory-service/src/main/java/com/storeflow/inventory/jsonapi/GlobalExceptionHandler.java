@@ -1,7 +1,13 @@
 package com.storeflow.inventory.jsonapi;
 
+import com.storeflow.inventory.domain.InsufficientStockException;
 import com.storeflow.inventory.domain.InventoryNotFoundException;
+import com.storeflow.inventory.domain.InventorySlotsConflictException;
 import com.storeflow.inventory.products.exception.RemoteProductNotFoundException;
+import com.storeflow.inventory.purchase.BatchPurchaseRejectedException;
+import com.storeflow.inventory.purchase.PurchaseConflictException;
+import com.storeflow.inventory.reservation.ReservationConflictException;
+import com.storeflow.inventory.reservation.ReservationNotFoundException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -42,15 +48,97 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(RemoteProductNotFoundException.class)
     public ResponseEntity<JsonApiErrorResponse> handleRemoteProductNotFound(RemoteProductNotFoundException ex) {
+        List<JsonApiError> errors = ex.getProductIds().stream()
+                .map(productId -> new JsonApiError(
+                        String.valueOf(HttpStatus.BAD_REQUEST.value()),
+                        "Product does not exist",
+                        "Product " + productId + " not found in products-service"
+                ))
+                .toList();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new JsonApiErrorResponse(errors));
+    }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<JsonApiErrorResponse> handleInsufficientStock(InsufficientStockException ex) {
+        JsonApiError error = new JsonApiError(
+                String.valueOf(HttpStatus.BAD_REQUEST.value()),
+                "Not enough stock",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new JsonApiErrorResponse(List.of(error)));
+    }
+
+    @ExceptionHandler(PurchaseConflictException.class)
+    public ResponseEntity<JsonApiErrorResponse> handlePurchaseConflict(PurchaseConflictException ex) {
+        JsonApiError error = new JsonApiError(
+                String.valueOf(HttpStatus.CONFLICT.value()),
+                "Purchase conflict",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new JsonApiErrorResponse(List.of(error)));
+    }
+
+    @ExceptionHandler(InventorySlotsConflictException.class)
+    public ResponseEntity<JsonApiErrorResponse> handleInventorySlotsConflict(InventorySlotsConflictException ex) {
+        JsonApiError error = new JsonApiError(
+                String.valueOf(HttpStatus.CONFLICT.value()),
+                "Inventory slots conflict",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new JsonApiErrorResponse(List.of(error)));
+    }
+
+    @ExceptionHandler(ReservationNotFoundException.class)
+    public ResponseEntity<JsonApiErrorResponse> handleReservationNotFound(ReservationNotFoundException ex) {
+        JsonApiError error = new JsonApiError(
+                String.valueOf(HttpStatus.NOT_FOUND.value()),
+                "Reservation not found",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new JsonApiErrorResponse(List.of(error)));
+    }
+
+    @ExceptionHandler(ReservationConflictException.class)
+    public ResponseEntity<JsonApiErrorResponse> handleReservationConflict(ReservationConflictException ex) {
+        JsonApiError error = new JsonApiError(
+                String.valueOf(HttpStatus.CONFLICT.value()),
+                "Reservation conflict",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(new JsonApiErrorResponse(List.of(error)));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<JsonApiErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
         JsonApiError error = new JsonApiError(
                 String.valueOf(HttpStatus.BAD_REQUEST.value()),
-                "Product does not exist",
+                "Invalid request",
                 ex.getMessage()
         );
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(new JsonApiErrorResponse(List.of(error)));
     }
 
+    @ExceptionHandler(BatchPurchaseRejectedException.class)
+    public ResponseEntity<JsonApiErrorResponse> handleBatchPurchaseRejected(BatchPurchaseRejectedException ex) {
+        List<JsonApiError> errors = ex.getFailures().stream()
+                .map(failure -> new JsonApiError(
+                        String.valueOf(failure.status()),
+                        failure.title(),
+                        failure.detail(),
+                        failure.line() == null ? null : new JsonApiErrorSource("/lines/" + failure.line())
+                ))
+                .toList();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new JsonApiErrorResponse(errors));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<JsonApiErrorResponse> handleGeneric(Exception ex) {
         JsonApiError error = new JsonApiError(
@@ -1,5 +1,8 @@
 package com.storeflow.inventory.jsonapi;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record JsonApiData<T>(
         String type,
         String id,
@@ -1,8 +1,16 @@
 package com.storeflow.inventory.jsonapi;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record JsonApiError(
         String status,
         String title,
-        String detail
+        String detail,
+        JsonApiErrorSource source
 ) {
+
+    public JsonApiError(String status, String title, String detail) {
+        this(status, title, detail, null);
+    }
 }
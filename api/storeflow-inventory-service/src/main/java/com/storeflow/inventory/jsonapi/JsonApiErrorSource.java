@@ -0,0 +1,9 @@
+package com.storeflow.inventory.jsonapi;
+
+/**
+ * Where in the request document an error comes from, as a JSON Pointer.
+ */
+public record JsonApiErrorSource(
+        String pointer
+) {
+}
@@ -0,0 +1,6 @@
+package com.storeflow.inventory.jsonapi;
+
+public record JsonApiExportMeta(
+        long count
+) {
+}
@@ -0,0 +1,7 @@
+package com.storeflow.inventory.jsonapi;
+
+public record JsonApiLinks(
+        String self,
+        String next
+) {
+}
@@ -0,0 +1,8 @@
+package com.storeflow.inventory.jsonapi;
+
+public record JsonApiPurchaseMeta(
+        int lines,
+        int products,
+        long quantity
+) {
+}
@@ -0,0 +1,9 @@
+package com.storeflow.inventory.jsonapi;
+
+import java.util.List;
+
+public record JsonApiPurchaseResponse<T>(
+        List<JsonApiData<T>> data,
+        JsonApiPurchaseMeta meta
+) {
+}
@@ -0,0 +1,39 @@
+package com.storeflow.inventory.ledger;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "stock_ledger_checkpoints")
+public class LedgerCheckpoint {
+
+    @Id
+    private Integer stripe;
+
+    private Long lastSequence;
+
+    public LedgerCheckpoint() {
+    }
+
+    public LedgerCheckpoint(Integer stripe, Long lastSequence) {
+        this.stripe = stripe;
+        this.lastSequence = lastSequence;
+    }
+
+    public Integer getStripe() {
+        return stripe;
+    }
+
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setStripe(Integer stripe) {
+        this.stripe = stripe;
+    }
+
+    public void setLastSequence(Long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+}
@@ -0,0 +1,6 @@
+package com.storeflow.inventory.ledger;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, Integer> {
+}
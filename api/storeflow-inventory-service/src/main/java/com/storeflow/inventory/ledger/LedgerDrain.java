@@ -0,0 +1,10 @@
+package com.storeflow.inventory.ledger;
+
+import java.util.Map;
+
+record LedgerDrain(
+        int stripe,
+        long sequence,
+        Map<Long, Long> deltas
+) {
+}
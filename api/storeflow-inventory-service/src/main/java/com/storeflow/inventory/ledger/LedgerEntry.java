@@ -0,0 +1,10 @@
+package com.storeflow.inventory.ledger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+record LedgerEntry(
+        Long inventoryId,
+        Long productId,
+        AtomicLong quantity
+) {
+}
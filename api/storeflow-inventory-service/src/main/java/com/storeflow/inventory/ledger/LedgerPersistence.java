@@ -0,0 +1,58 @@
+package com.storeflow.inventory.ledger;
+
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+public class LedgerPersistence {
+
+    private static final String ADJUST_SQL =
+            "UPDATE inventories SET quantity = quantity + ?, version = version + 1 WHERE product_id = ? AND slot = 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactions;
+    private final LedgerCheckpointRepository checkpoints;
+    private final InventoryRepository inventories;
+
+    public LedgerPersistence(JdbcTemplate jdbcTemplate,
+                             TransactionOperations transactions,
+                             LedgerCheckpointRepository checkpoints,
+                             InventoryRepository inventories) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = transactions;
+        this.checkpoints = checkpoints;
+        this.inventories = inventories;
+    }
+
+    public long lastSequence(int stripe) {
+        return checkpoints.findById(stripe)
+                .map(LedgerCheckpoint::getLastSequence)
+                .orElse(0L);
+    }
+
+    public Optional<Inventory> load(Long productId) {
+        List<Inventory> slots = inventories.findAllByProductIdOrderBySlot(productId);
+        return slots.size() == 1 ? Optional.of(slots.get(0)) : Optional.empty();
+    }
+
+    public void apply(int stripe, long sequence, Map<Long, Long> deltas) {
+        List<Object[]> arguments = deltas.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new Object[]{Math.toIntExact(entry.getValue()), entry.getKey()})
+                .toList();
+
+        transactions.executeWithoutResult(status -> {
+            if (!arguments.isEmpty()) {
+                jdbcTemplate.batchUpdate(ADJUST_SQL, arguments);
+            }
+            checkpoints.save(new LedgerCheckpoint(stripe, sequence));
+        });
+    }
+}
@@ -0,0 +1,199 @@
+package com.storeflow.inventory.ledger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * One stripe of the write-ahead log. Each record is {@code sequence, productId, delta, crc32}
+ * and the stripe rotates to a new segment file every time its pending deltas are drained, so a
+ * segment can be deleted as soon as the database checkpoint covers its last sequence.
+ */
+final class LedgerStripe {
+
+    static final int RECORD_SIZE = Long.BYTES * 3 + Integer.BYTES;
+
+    private static final int PAYLOAD_SIZE = Long.BYTES * 3;
+
+    private final int index;
+    private final Path directory;
+    private final boolean fsync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final Deque<SealedSegment> sealed = new ArrayDeque<>();
+
+    private Map<Long, Long> pending = new HashMap<>();
+    private FileChannel channel;
+    private Path segment;
+    private long sequence;
+
+    LedgerStripe(int index, Path directory, boolean fsync) {
+        this.index = index;
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    int index() {
+        return index;
+    }
+
+    synchronized void open(long lastSequence) throws IOException {
+        this.sequence = lastSequence;
+        openSegment();
+    }
+
+    synchronized void append(long productId, long delta) throws IOException {
+        long next = sequence + 1;
+
+        buffer.clear();
+        buffer.putLong(next).putLong(productId).putLong(delta);
+        crc.reset();
+        crc.update(buffer.array(), 0, PAYLOAD_SIZE);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            rotate();
+            throw ex;
+        }
+
+        sequence = next;
+        pending.merge(productId, delta, Long::sum);
+    }
+
+    synchronized LedgerDrain drain() throws IOException {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        rotate();
+        Map<Long, Long> deltas = pending;
+        pending = new HashMap<>();
+        return new LedgerDrain(index, sequence, deltas);
+    }
+
+    synchronized void restore(LedgerDrain drain) {
+        drain.deltas().forEach((productId, delta) -> pending.merge(productId, delta, Long::sum));
+    }
+
+    synchronized void release(long upToSequence) throws IOException {
+        while (!sealed.isEmpty() && sealed.peekFirst().lastSequence() <= upToSequence) {
+            Files.deleteIfExists(sealed.pollFirst().path());
+        }
+    }
+
+    synchronized int pendingProducts() {
+        return pending.size();
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        sealed.addLast(new SealedSegment(segment, sequence));
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        int generation = 0;
+        do {
+            segment = directory.resolve(segmentName(index, sequence + 1, generation++));
+        } while (Files.exists(segment));
+        channel = FileChannel.open(
+                segment,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND
+        );
+    }
+
+    static String segmentName(int stripe, long firstSequence, int generation) {
+        return String.format("stripe-%03d-%020d-%03d.wal", stripe, firstSequence, generation);
+    }
+
+    static int highestStripeIndex(Path directory) throws IOException {
+        int highest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "stripe-*.wal")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                highest = Math.max(highest, Integer.parseInt(name.substring(7, 10)));
+            }
+        }
+        return highest;
+    }
+
+    static Replay replay(Path directory, int stripe, long checkpoint) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files =
+                     Files.newDirectoryStream(directory, String.format("stripe-%03d-*.wal", stripe))) {
+            files.forEach(segments::add);
+        }
+        segments.sort(null);
+
+        Map<Long, Long> deltas = new HashMap<>();
+        long lastSequence = checkpoint;
+        int records = 0;
+        CRC32 checksum = new CRC32();
+
+        for (Path file : segments) {
+            ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+            while (content.remaining() >= RECORD_SIZE) {
+                int start = content.position();
+                long recordSequence = content.getLong();
+                long productId = content.getLong();
+                long delta = content.getLong();
+                int storedCrc = content.getInt();
+
+                checksum.reset();
+                checksum.update(content.array(), start, PAYLOAD_SIZE);
+                if ((int) checksum.getValue() != storedCrc) {
+                    break;
+                }
+
+                if (recordSequence > checkpoint) {
+                    deltas.merge(productId, delta, Long::sum);
+                    records++;
+                }
+                lastSequence = Math.max(lastSequence, recordSequence);
+            }
+        }
+
+        return new Replay(segments, deltas, lastSequence, records);
+    }
+
+    record SealedSegment(Path path, long lastSequence) {
+    }
+
+    record Replay(List<Path> segments, Map<Long, Long> deltas, long lastSequence, int records) {
+
+        void deleteSegments() throws IOException {
+            for (Path file : segments) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
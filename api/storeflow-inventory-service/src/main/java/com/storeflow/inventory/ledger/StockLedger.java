@@ -0,0 +1,319 @@
+package com.storeflow.inventory.ledger;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.purchase.PurchaseResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Authoritative in-memory stock for hot products. Every change is a signed delta: it is applied
+ * to the counter with a CAS, appended to the write-ahead log of the product's stripe and later
+ * summed and written to {@code inventories} by the flusher. Deltas commute, so neither the flusher
+ * nor a replay after restart depends on the order in which concurrent requests were logged.
+ */
+@Component
+public class StockLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    private final StockLedgerProperties properties;
+    private final LedgerPersistence persistence;
+    private final Map<Long, LedgerEntry> entries = new ConcurrentHashMap<>();
+    private final Counter rejections;
+    private final Counter flushFailures;
+    private final Timer flushTimer;
+
+    private volatile LedgerStripe[] stripes = new LedgerStripe[0];
+    private ScheduledExecutorService flusher;
+
+    public StockLedger(StockLedgerProperties properties,
+                       LedgerPersistence persistence,
+                       MeterRegistry registry) {
+        this.properties = properties;
+        this.persistence = persistence;
+        this.rejections = registry.counter("inventory.ledger.rejections");
+        this.flushFailures = registry.counter("inventory.ledger.flush.failures");
+        this.flushTimer = registry.timer("inventory.ledger.flush");
+        Gauge.builder("inventory.ledger.tracked", entries, Map::size).register(registry);
+        Gauge.builder("inventory.ledger.pending", this, StockLedger::pendingProducts).register(registry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        Path directory = Path.of(properties.getWalDirectory());
+        Files.createDirectories(directory);
+
+        int stripeCount = Math.max(properties.getStripes(), LedgerStripe.highestStripeIndex(directory) + 1);
+        LedgerStripe[] opened = new LedgerStripe[stripeCount];
+
+        for (int index = 0; index < stripeCount; index++) {
+            long checkpoint = persistence.lastSequence(index);
+            LedgerStripe.Replay replay = LedgerStripe.replay(directory, index, checkpoint);
+
+            if (replay.records() > 0) {
+                persistence.apply(index, replay.lastSequence(), replay.deltas());
+                log.info(
+                        "StockLedgerReplayEvent stripe={} records={} products={} lastSequence={}",
+                        index,
+                        replay.records(),
+                        replay.deltas().size(),
+                        replay.lastSequence()
+                );
+            }
+            replay.deleteSegments();
+
+            opened[index] = new LedgerStripe(index, directory, properties.isFsync());
+            opened[index].open(replay.lastSequence());
+        }
+        stripes = opened;
+
+        for (Long productId : properties.getHotProductIds()) {
+            persistence.load(productId).ifPresent(this::track);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-ledger-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(
+                this::flush,
+                properties.getFlushIntervalMs(),
+                properties.getFlushIntervalMs(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (flusher == null) {
+            return;
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+        for (LedgerStripe stripe : stripes) {
+            stripe.close();
+        }
+    }
+
+    /**
+     * Whether the product's stock is, or will be once it has inventory, kept by the ledger.
+     */
+    public boolean isHot(Long productId) {
+        return properties.isEnabled() && properties.getHotProductIds().contains(productId);
+    }
+
+    public boolean tracks(Long productId) {
+        return entries.containsKey(productId);
+    }
+
+    public Optional<Integer> quantityOf(Long productId) {
+        LedgerEntry entry = entries.get(productId);
+        return entry == null ? Optional.empty() : Optional.of((int) entry.quantity().get());
+    }
+
+    public PurchaseResult purchase(Long productId, int quantity) {
+        LedgerEntry entry = entry(productId);
+        long previous = take(entry, quantity);
+
+        append(entry, -quantity);
+
+        return new PurchaseResult(entry.inventoryId(), productId, (int) previous, (int) (previous - quantity));
+    }
+
+    /**
+     * Takes the units straight away, like {@link #purchase}, but logs the change only when the
+     * surrounding transaction commits and puts the units back if it rolls back, so a write that
+     * never committed leaves nothing in the log to replay.
+     */
+    public PurchaseResult purchaseOnCommit(Long productId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return purchase(productId, quantity);
+        }
+
+        LedgerEntry entry = entry(productId);
+        long previous = take(entry, quantity);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    appendCommitted(entry, -quantity);
+                } else {
+                    entry.quantity().addAndGet(quantity);
+                }
+            }
+        });
+
+        return new PurchaseResult(entry.inventoryId(), productId, (int) previous, (int) (previous - quantity));
+    }
+
+    public void credit(Long productId, int quantity) {
+        LedgerEntry entry = entry(productId);
+        entry.quantity().addAndGet(quantity);
+        append(entry, quantity);
+    }
+
+    /**
+     * Gives the units back once the surrounding transaction commits; nothing happens if it rolls back.
+     */
+    public void creditOnCommit(Long productId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            credit(productId, quantity);
+            return;
+        }
+
+        LedgerEntry entry = entry(productId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entry.quantity().addAndGet(quantity);
+                appendCommitted(entry, quantity);
+            }
+        });
+    }
+
+    public PurchaseResult set(Long productId, int quantity) {
+        LedgerEntry entry = entry(productId);
+
+        long previous = entry.quantity().getAndSet(quantity);
+        append(entry, quantity - previous);
+
+        return new PurchaseResult(entry.inventoryId(), productId, (int) previous, quantity);
+    }
+
+    public void register(Inventory inventory) {
+        if (!properties.isEnabled()
+                || !properties.getHotProductIds().contains(inventory.getProductId())
+                || tracks(inventory.getProductId())) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    track(inventory);
+                }
+            });
+        } else {
+            track(inventory);
+        }
+    }
+
+    void flush() {
+        for (LedgerStripe stripe : stripes) {
+            LedgerDrain drain;
+            try {
+                drain = stripe.drain();
+            } catch (IOException ex) {
+                flushFailures.increment();
+                log.warn("StockLedgerFlushFailedEvent stripe={} reason={}", stripe.index(), ex.getMessage());
+                continue;
+            }
+            if (drain == null) {
+                continue;
+            }
+
+            try {
+                flushTimer.record(() -> persistence.apply(drain.stripe(), drain.sequence(), drain.deltas()));
+            } catch (RuntimeException ex) {
+                flushFailures.increment();
+                stripe.restore(drain);
+                log.warn("StockLedgerFlushFailedEvent stripe={} reason={}", stripe.index(), ex.getMessage());
+                continue;
+            }
+
+            try {
+                stripe.release(drain.sequence());
+            } catch (IOException ex) {
+                log.warn("StockLedgerReleaseFailedEvent stripe={} reason={}", stripe.index(), ex.getMessage());
+            }
+        }
+    }
+
+    private void track(Inventory inventory) {
+        entries.putIfAbsent(
+                inventory.getProductId(),
+                new LedgerEntry(inventory.getId(), inventory.getProductId(), new AtomicLong(inventory.getQuantity()))
+        );
+    }
+
+    private LedgerEntry entry(Long productId) {
+        LedgerEntry entry = entries.get(productId);
+        if (entry == null) {
+            throw new IllegalStateException("Product " + productId + " is not tracked by the stock ledger");
+        }
+        return entry;
+    }
+
+    private long take(LedgerEntry entry, int quantity) {
+        long previous;
+        do {
+            previous = entry.quantity().get();
+            if (previous < quantity) {
+                rejections.increment();
+                throw new InsufficientStockException(entry.productId());
+            }
+        } while (!entry.quantity().compareAndSet(previous, previous - quantity));
+        return previous;
+    }
+
+    private void appendCommitted(LedgerEntry entry, long delta) {
+        LedgerStripe[] current = stripes;
+        LedgerStripe stripe = current[Math.floorMod(Long.hashCode(entry.productId()), current.length)];
+        try {
+            stripe.append(entry.productId(), delta);
+        } catch (IOException ex) {
+            // The database write it belongs to has committed, so the counter keeps the change.
+            log.warn(
+                    "StockLedgerAppendFailedEvent productId={} delta={} reason={}",
+                    entry.productId(),
+                    delta,
+                    ex.getMessage()
+            );
+        }
+    }
+
+    private void append(LedgerEntry entry, long delta) {
+        LedgerStripe[] current = stripes;
+        LedgerStripe stripe = current[Math.floorMod(Long.hashCode(entry.productId()), current.length)];
+        try {
+            stripe.append(entry.productId(), delta);
+        } catch (IOException ex) {
+            entry.quantity().addAndGet(-delta);
+            throw new StockLedgerException("Could not append to the stock ledger for product " + entry.productId(), ex);
+        }
+    }
+
+    private double pendingProducts() {
+        return Arrays.stream(stripes).mapToInt(LedgerStripe::pendingProducts).sum();
+    }
+}
@@ -0,0 +1,8 @@
+package com.storeflow.inventory.ledger;
+
+public class StockLedgerException extends RuntimeException {
+
+    public StockLedgerException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,67 @@
+package com.storeflow.inventory.ledger;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Component
+@ConfigurationProperties(prefix = "inventory.ledger")
+public class StockLedgerProperties {
+
+    private boolean enabled;
+    private Set<Long> hotProductIds = new HashSet<>();
+    private int stripes = 16;
+    private String walDirectory = "data/ledger";
+    private long flushIntervalMs = 200;
+    private boolean fsync = true;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Set<Long> getHotProductIds() {
+        return hotProductIds;
+    }
+
+    public void setHotProductIds(Set<Long> hotProductIds) {
+        this.hotProductIds = hotProductIds;
+    }
+
+    public int getStripes() {
+        return stripes;
+    }
+
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    public String getWalDirectory() {
+        return walDirectory;
+    }
+
+    public void setWalDirectory(String walDirectory) {
+        this.walDirectory = walDirectory;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public boolean isFsync() {
+        return fsync;
+    }
+
+    public void setFsync(boolean fsync) {
+        this.fsync = fsync;
+    }
+}
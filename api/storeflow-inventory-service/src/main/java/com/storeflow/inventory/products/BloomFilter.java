@@ -0,0 +1,72 @@
+package com.storeflow.inventory.products;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over long keys. Sized from the expected number of entries and the
+ * target false-positive rate, capped at a memory budget. Safe for concurrent adds and lookups.
+ */
+final class BloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    private BloomFilter(long bits, int hashes) {
+        this.words = new AtomicLongArray((int) (bits / Long.SIZE));
+        this.bits = bits;
+        this.hashes = hashes;
+    }
+
+    static BloomFilter forCapacity(long expectedEntries, double falsePositiveRate, long maxBytes) {
+        long entries = Math.max(1, expectedEntries);
+        long wanted = (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (LN2 * LN2));
+        long bits = Math.max(Long.SIZE, Math.min(wanted, maxBytes * Byte.SIZE));
+        bits = (bits + Long.SIZE - 1) / Long.SIZE * Long.SIZE;
+        int hashes = (int) Math.max(1, Math.min(16, Math.round((double) bits / entries * LN2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    void add(long key) {
+        long h1 = mix(key + GOLDEN_GAMMA);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            long mask = 1L << bit;
+            words.accumulateAndGet((int) (bit >>> 6), mask, (word, m) -> word | m);
+        }
+    }
+
+    boolean mightContain(long key) {
+        long h1 = mix(key + GOLDEN_GAMMA);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    double expectedFalsePositiveRate(long entries) {
+        return Math.pow(1 - Math.exp(-(double) hashes * entries / bits), hashes);
+    }
+
+    long sizeBytes() {
+        return bits / Byte.SIZE;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,331 @@
+package com.storeflow.inventory.products;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sends a second copy of a products-service request when the first has not answered within the
+ * observed latency percentile. The first successful answer wins and the other call is cancelled;
+ * its elapsed time still goes into the latency window, so slow answers that lose keep raising the
+ * threshold. Every request earns {@code budget-percent} of a hedge and each hedge that starts spends
+ * a whole one, so hedging adds at most that share of extra load on products-service.
+ *
+ * <p>Calls run on one thread per products-service connection with no queue in front, so time
+ * spent waiting for a thread never counts towards the hedge threshold. When every thread is busy
+ * a request runs unhedged on the caller's thread, and a hedge is skipped and its budget kept.
+ */
+@Component
+public class HedgedRequests {
+
+    private static final long MILLI_TOKENS_PER_HEDGE = 1000;
+    private static final long MAX_MILLI_TOKENS = 10 * MILLI_TOKENS_PER_HEDGE;
+    private static final ThreadLocal<Call<?>> CURRENT = new ThreadLocal<>();
+
+    private final ProductsHedgingProperties properties;
+    private final Executor executor;
+    private final LatencyHistogram latencies;
+    private final AtomicLong budget = new AtomicLong();
+    private final Counter hedges;
+    private final Counter hedgeWins;
+    private final Counter budgetExhausted;
+    private final Counter saturated;
+
+    @Autowired
+    public HedgedRequests(ProductsHedgingProperties properties,
+                          ProductsHttpProperties http,
+                          MeterRegistry registry) {
+        this(properties, registry, new ThreadPoolExecutor(
+                http.getMaxConnections(), http.getMaxConnections(), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "products-hedge");
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+    }
+
+    HedgedRequests(ProductsHedgingProperties properties, MeterRegistry registry, Executor executor) {
+        this.properties = properties;
+        this.executor = executor;
+        this.latencies = new LatencyHistogram(
+                TimeUnit.SECONDS.toNanos(properties.getWindowSeconds()), System.nanoTime());
+        this.hedges = registry.counter("inventory.products.hedge.sent");
+        this.hedgeWins = registry.counter("inventory.products.hedge.wins");
+        this.budgetExhausted = registry.counter("inventory.products.hedge.budget.exhausted");
+        this.saturated = registry.counter("inventory.products.hedge.saturated");
+        Gauge.builder("inventory.products.hedge.threshold", this, HedgedRequests::thresholdMillis)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    public <T> T execute(Supplier<T> request) {
+        if (!properties.isEnabled()) {
+            return request.get();
+        }
+
+        deposit();
+        Call<T> primary = submit(request);
+        if (primary == null) {
+            saturated.increment();
+            return request.get();
+        }
+
+        long threshold = thresholdNanos();
+        if (threshold < 0) {
+            return join(primary.result());
+        }
+        try {
+            return primary.result().get(threshold, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // slower than usual: hedge below
+        } catch (ExecutionException ex) {
+            throw unwrap(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            primary.abandon();
+            throw new ResourceAccessException("Interrupted waiting for products-service");
+        }
+
+        if (!withdraw()) {
+            budgetExhausted.increment();
+            return join(primary.result());
+        }
+
+        Call<T> hedge = submit(request);
+        if (hedge == null) {
+            refund();
+            saturated.increment();
+            return join(primary.result());
+        }
+
+        hedges.increment();
+        try {
+            Answer<T> answer = join(firstAnswer(primary.result(), hedge.result()));
+            if (answer.fromHedge()) {
+                hedgeWins.increment();
+            }
+            return answer.value();
+        } finally {
+            primary.abandon();
+            hedge.abandon();
+        }
+    }
+
+    /**
+     * Registers how to abort the transport request being sent on the current thread, for the
+     * request factories to call. Interrupting a thread does not unblock a socket read, so this is
+     * what actually frees the losing call and its connection. Does nothing outside a hedged call.
+     */
+    public static void onAbort(Runnable abort) {
+        Call<?> call = CURRENT.get();
+        if (call != null) {
+            call.onAbort(abort);
+        }
+    }
+
+    /**
+     * Starts a call, or returns null when no thread is free to run it right away.
+     */
+    private <T> Call<T> submit(Supplier<T> request) {
+        Call<T> call = new Call<>(request);
+        try {
+            executor.execute(call);
+        } catch (RejectedExecutionException ex) {
+            return null;
+        }
+        return call;
+    }
+
+    /**
+     * Completes with the first success, or with the first failure that a retry would not fix.
+     * A connection failure only wins once the other call has failed as well.
+     */
+    private static <T> CompletableFuture<Answer<T>> firstAnswer(CompletableFuture<T> primary,
+                                                                CompletableFuture<T> hedge) {
+        CompletableFuture<Answer<T>> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        primary.whenComplete((value, error) -> settle(winner, value, error, false, failures));
+        hedge.whenComplete((value, error) -> settle(winner, value, error, true, failures));
+        return winner;
+    }
+
+    private static <T> void settle(CompletableFuture<Answer<T>> winner,
+                                   T value,
+                                   Throwable error,
+                                   boolean fromHedge,
+                                   AtomicInteger failures) {
+        if (error == null) {
+            winner.complete(new Answer<>(value, fromHedge));
+            return;
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof ResourceAccessException) || failures.incrementAndGet() == 2) {
+            winner.completeExceptionally(cause);
+        }
+    }
+
+    long thresholdNanos() {
+        long percentile = latencies.percentile(
+                properties.getPercentile(), properties.getMinSamples(), System.nanoTime());
+        if (percentile < 0) {
+            return -1;
+        }
+        return Math.max(percentile, TimeUnit.MILLISECONDS.toNanos(properties.getMinDelayMs()));
+    }
+
+    void recordLatency(long latencyNanos) {
+        latencies.record(latencyNanos, System.nanoTime());
+    }
+
+    private double thresholdMillis() {
+        long threshold = thresholdNanos();
+        return threshold < 0 ? Double.NaN : threshold / 1_000_000.0;
+    }
+
+    private void deposit() {
+        long earned = Math.round(properties.getBudgetPercent() * MILLI_TOKENS_PER_HEDGE / 100);
+        budget.getAndUpdate(balance -> Math.min(MAX_MILLI_TOKENS, balance + earned));
+    }
+
+    private boolean withdraw() {
+        while (true) {
+            long balance = budget.get();
+            if (balance < MILLI_TOKENS_PER_HEDGE) {
+                return false;
+            }
+            if (budget.compareAndSet(balance, balance - MILLI_TOKENS_PER_HEDGE)) {
+                return true;
+            }
+        }
+    }
+
+    private void refund() {
+        budget.getAndUpdate(balance -> Math.min(MAX_MILLI_TOKENS, balance + MILLI_TOKENS_PER_HEDGE));
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            throw unwrap(ex.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new CompletionException(cause);
+    }
+
+    private record Answer<T>(T value, boolean fromHedge) {
+    }
+
+    /**
+     * One copy of a request, run as a {@link FutureTask} so that abandoning it interrupts the
+     * thread and aborts the transport request registered through {@link #onAbort}.
+     */
+    private final class Call<T> extends FutureTask<T> {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private volatile long startedAt;
+        private Runnable abort;
+        private boolean abandoned;
+
+        private Call(Supplier<T> request) {
+            super(request::get);
+        }
+
+        CompletableFuture<T> result() {
+            return result;
+        }
+
+        @Override
+        public void run() {
+            startedAt = System.nanoTime();
+            CURRENT.set(this);
+            try {
+                super.run();
+            } finally {
+                CURRENT.remove();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) {
+                result.cancel(false);
+                return;
+            }
+            try {
+                T value = get();
+                long end = System.nanoTime();
+                latencies.record(end - startedAt, end);
+                result.complete(value);
+            } catch (ExecutionException ex) {
+                result.completeExceptionally(ex.getCause());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(ex);
+            }
+        }
+
+        void abandon() {
+            long started = startedAt;
+            if (!cancel(true)) {
+                return;
+            }
+            if (started != 0) {
+                // A lower bound on how long this call would have taken.
+                long now = System.nanoTime();
+                latencies.record(now - started, now);
+            }
+
+            Runnable registered;
+            synchronized (this) {
+                abandoned = true;
+                registered = abort;
+            }
+            if (registered != null) {
+                registered.run();
+            }
+        }
+
+        private void onAbort(Runnable action) {
+            synchronized (this) {
+                if (!abandoned) {
+                    abort = action;
+                    return;
+                }
+            }
+            action.run();
+        }
+    }
+}
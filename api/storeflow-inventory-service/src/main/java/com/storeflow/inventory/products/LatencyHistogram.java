@@ -0,0 +1,100 @@
+package com.storeflow.inventory.products;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-bucketed latency histogram over a sliding window. Samples go to the current generation;
+ * once it is older than the window it replaces the previous one, so percentiles always cover
+ * between one and two windows of traffic without keeping individual samples.
+ */
+final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+    private static final long SMALLEST_BOUND_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final double GROWTH = 1.25;
+    private static final long[] UPPER_BOUNDS = new long[BUCKETS];
+
+    static {
+        double bound = SMALLEST_BOUND_NANOS;
+        for (int index = 0; index < BUCKETS; index++) {
+            UPPER_BOUNDS[index] = (long) bound;
+            bound *= GROWTH;
+        }
+    }
+
+    private final long windowNanos;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    LatencyHistogram(long windowNanos, long nowNanos) {
+        this.windowNanos = windowNanos;
+        this.current = new Generation(nowNanos);
+        this.previous = new Generation(nowNanos);
+    }
+
+    void record(long latencyNanos, long nowNanos) {
+        rotateIfNeeded(nowNanos);
+        int index = Arrays.binarySearch(UPPER_BOUNDS, latencyNanos);
+        if (index < 0) {
+            index = Math.min(BUCKETS - 1, -index - 1);
+        }
+        current.counts.incrementAndGet(index);
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile, or -1 with fewer than
+     * {@code minSamples} samples in the window.
+     */
+    long percentile(double percentile, int minSamples, long nowNanos) {
+        rotateIfNeeded(nowNanos);
+        Generation newer = current;
+        Generation older = previous;
+
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            counts[index] = newer.counts.get(index) + older.counts.get(index);
+            total += counts[index];
+        }
+        if (total == 0 || total < minSamples) {
+            return -1;
+        }
+
+        long target = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            seen += counts[index];
+            if (seen >= target) {
+                return UPPER_BOUNDS[index];
+            }
+        }
+        return UPPER_BOUNDS[BUCKETS - 1];
+    }
+
+    private void rotateIfNeeded(long nowNanos) {
+        Generation generation = current;
+        if (nowNanos - generation.startedAt < windowNanos) {
+            return;
+        }
+        synchronized (this) {
+            if (current != generation) {
+                return;
+            }
+            previous = generation;
+            current = new Generation(nowNanos);
+        }
+    }
+
+    private static final class Generation {
+
+        private final long startedAt;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        private Generation(long startedAt) {
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.storeflow.inventory.products;
+
+import java.util.List;
+
+/**
+ * The part of products-service's {@code filter[id]} response that inventory needs.
+ */
+public record ProductBatchResponse(Meta meta) {
+
+    public record Meta(List<Long> missingIds) {
+    }
+}
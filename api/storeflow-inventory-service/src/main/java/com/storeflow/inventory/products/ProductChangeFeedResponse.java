@@ -0,0 +1,18 @@
+package com.storeflow.inventory.products;
+
+import java.util.List;
+
+/**
+ * The part of products-service's change feed page that the replica needs.
+ */
+public record ProductChangeFeedResponse(List<Item> data, Meta meta) {
+
+    public record Item(Change attributes) {
+    }
+
+    public record Change(Long seq, Long productId, String type) {
+    }
+
+    public record Meta(long nextSince, long lastSeq, boolean hasMore) {
+    }
+}
@@ -0,0 +1,260 @@
+package com.storeflow.inventory.products;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.storeflow.inventory.products.exception.ProductsServiceException;
+import com.storeflow.inventory.products.exception.ProductsServiceUnavailableException;
+import com.storeflow.inventory.products.exception.RemoteProductNotFoundException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Remembers whether product ids exist. Positive answers are fresh for {@code positive-ttl} and
+ * refreshed in the background once they pass {@code refresh-ahead-ratio} of it; after that they
+ * are still kept for {@code max-stale} so they can be served while products-service is down.
+ * Not-found answers live for {@code negative-ttl} only.
+ */
+@Component
+public class ProductExistenceCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductExistenceCache.class);
+
+    private final ProductsCacheProperties properties;
+    private final Ticker ticker;
+    private final Executor refresher;
+    private final Cache<Long, Existence> entries;
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter staleServed;
+    private final Counter refreshes;
+    private final Counter refreshFailures;
+
+    @Autowired
+    public ProductExistenceCache(ProductsCacheProperties properties, MeterRegistry registry) {
+        this(properties, registry, Ticker.systemTicker(), Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "products-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ProductExistenceCache(ProductsCacheProperties properties,
+                          MeterRegistry registry,
+                          Ticker ticker,
+                          Executor refresher) {
+        this.properties = properties;
+        this.ticker = ticker;
+        this.refresher = refresher;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxEntries())
+                .ticker(ticker)
+                .expireAfter(new Expiry<Long, Existence>() {
+                    @Override
+                    public long expireAfterCreate(Long productId, Existence existence, long currentTime) {
+                        return existence.exists()
+                                ? TimeUnit.SECONDS.toNanos(properties.getPositiveTtlSeconds() + properties.getMaxStaleSeconds())
+                                : TimeUnit.SECONDS.toNanos(properties.getNegativeTtlSeconds());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long productId, Existence existence,
+                                                  long currentTime, long currentDuration) {
+                        return expireAfterCreate(productId, existence, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long productId, Existence existence,
+                                                long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        this.staleServed = registry.counter("inventory.products.cache.stale");
+        this.refreshes = registry.counter("inventory.products.cache.refreshes");
+        this.refreshFailures = registry.counter("inventory.products.cache.refresh.failures");
+        CaffeineCacheMetrics.monitor(registry, entries, "products.existence");
+    }
+
+    /**
+     * Throws {@link RemoteProductNotFoundException} when the product does not exist. The lookup
+     * returns whether the product exists and is only called on a miss, a refresh or a stale entry.
+     */
+    public void check(Long productId, Predicate<Long> lookup) {
+        if (!properties.isEnabled()) {
+            if (!lookup.test(productId)) {
+                throw new RemoteProductNotFoundException(productId);
+            }
+            return;
+        }
+
+        Existence cached = entries.getIfPresent(productId);
+        if (cached == null) {
+            load(productId, lookup);
+            return;
+        }
+        if (!cached.exists()) {
+            throw new RemoteProductNotFoundException(productId);
+        }
+
+        long positiveTtl = TimeUnit.SECONDS.toNanos(properties.getPositiveTtlSeconds());
+        long age = ticker.read() - cached.loadedAt();
+        if (age < positiveTtl) {
+            if (age >= positiveTtl * properties.getRefreshAheadRatio()) {
+                refreshAsync(productId, lookup);
+            }
+            return;
+        }
+
+        try {
+            load(productId, lookup);
+        } catch (ProductsServiceUnavailableException | ProductsServiceException ex) {
+            staleServed.increment();
+            log.warn("ProductExistenceStaleEvent productId={} ageSeconds={} reason={}",
+                    productId, TimeUnit.NANOSECONDS.toSeconds(age), ex.getMessage());
+        }
+    }
+
+    /**
+     * Batch variant of {@link #check}: unknown and stale ids are resolved with a single call to
+     * {@code lookupMissing}, which returns the ids that do not exist.
+     */
+    public void checkAll(Collection<Long> productIds, Function<Collection<Long>, Set<Long>> lookupMissing) {
+        if (!properties.isEnabled()) {
+            throwIfAnyMissing(lookupMissing.apply(productIds));
+            return;
+        }
+
+        long now = ticker.read();
+        long positiveTtl = TimeUnit.SECONDS.toNanos(properties.getPositiveTtlSeconds());
+        List<Long> unknown = new ArrayList<>();
+        List<Long> stale = new ArrayList<>();
+        List<Long> refreshAhead = new ArrayList<>();
+        Set<Long> knownMissing = new TreeSet<>();
+        for (Long productId : productIds) {
+            Existence cached = entries.getIfPresent(productId);
+            if (cached == null) {
+                unknown.add(productId);
+            } else if (!cached.exists()) {
+                knownMissing.add(productId);
+            } else if (now - cached.loadedAt() >= positiveTtl) {
+                stale.add(productId);
+            } else if (now - cached.loadedAt() >= positiveTtl * properties.getRefreshAheadRatio()) {
+                refreshAhead.add(productId);
+            }
+        }
+
+        if (unknown.isEmpty() && stale.isEmpty()) {
+            if (!refreshAhead.isEmpty()) {
+                refreshAllAsync(refreshAhead, lookupMissing);
+            }
+            throwIfAnyMissing(knownMissing);
+            return;
+        }
+
+        List<Long> toLoad = new ArrayList<>(unknown);
+        toLoad.addAll(stale);
+        toLoad.addAll(refreshAhead);
+
+        Set<Long> missing;
+        try {
+            missing = lookupMissing.apply(toLoad);
+        } catch (ProductsServiceUnavailableException | ProductsServiceException ex) {
+            if (!unknown.isEmpty()) {
+                throw ex;
+            }
+            staleServed.increment(stale.size());
+            log.warn("ProductExistenceStaleEvent productIds={} reason={}", stale, ex.getMessage());
+            throwIfAnyMissing(knownMissing);
+            return;
+        }
+
+        put(toLoad, missing);
+        knownMissing.addAll(missing);
+        throwIfAnyMissing(knownMissing);
+    }
+
+    private void load(Long productId, Predicate<Long> lookup) {
+        boolean exists = lookup.test(productId);
+        entries.put(productId, new Existence(exists, ticker.read()));
+        if (!exists) {
+            throw new RemoteProductNotFoundException(productId);
+        }
+    }
+
+    private void refreshAsync(Long productId, Predicate<Long> lookup) {
+        if (!refreshing.add(productId)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    entries.put(productId, new Existence(lookup.test(productId), ticker.read()));
+                    refreshes.increment();
+                } catch (RuntimeException ex) {
+                    refreshFailures.increment();
+                } finally {
+                    refreshing.remove(productId);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            refreshing.remove(productId);
+        }
+    }
+
+    private void refreshAllAsync(List<Long> productIds, Function<Collection<Long>, Set<Long>> lookupMissing) {
+        List<Long> claimed = productIds.stream().filter(refreshing::add).toList();
+        if (claimed.isEmpty()) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    put(claimed, lookupMissing.apply(claimed));
+                    refreshes.increment(claimed.size());
+                } catch (RuntimeException ex) {
+                    refreshFailures.increment();
+                } finally {
+                    claimed.forEach(refreshing::remove);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            claimed.forEach(refreshing::remove);
+        }
+    }
+
+    private void put(List<Long> productIds, Set<Long> missing) {
+        long loadedAt = ticker.read();
+        for (Long productId : productIds) {
+            entries.put(productId, new Existence(!missing.contains(productId), loadedAt));
+        }
+    }
+
+    private static void throwIfAnyMissing(Set<Long> missing) {
+        if (!missing.isEmpty()) {
+            throw new RemoteProductNotFoundException(new TreeSet<>(missing));
+        }
+    }
+
+    private record Existence(boolean exists, long loadedAt) {
+    }
+}
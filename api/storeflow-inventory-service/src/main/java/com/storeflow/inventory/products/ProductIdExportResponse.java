@@ -0,0 +1,12 @@
+package com.storeflow.inventory.products;
+
+import java.util.List;
+
+/**
+ * One page of products-service's product id export.
+ */
+public record ProductIdExportResponse(List<Long> data, Meta meta) {
+
+    public record Meta(long nextAfter, long total, boolean hasMore, long lastSeq) {
+    }
+}
@@ -0,0 +1,218 @@
+package com.storeflow.inventory.products;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bloom filter of the product ids products-service knows, bulk-loaded from its id export and
+ * rebuilt every {@code rebuild-interval-seconds}. Products created since the last export are
+ * added by {@link ProductReplica} as it applies the change feed, and ids above the highest one
+ * seen are never rejected. Ids are not committed in id order (transactions overlap and every
+ * products-service instance allocates ids in blocks), so an absent id below the highest may belong
+ * to a product created since the last sync; a rejection is therefore never final and callers
+ * confirm it with products-service. Deleted products stay in the filter until the next rebuild.
+ */
+@Component
+public class ProductIdPrefilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIdPrefilter.class);
+
+    private final RestTemplate restTemplate;
+    private final ProductsServiceProperties serviceProperties;
+    private final ProductsPrefilterProperties properties;
+    private final Object lock = new Object();
+    private final Counter rejections;
+    private final Counter passes;
+
+    private volatile BloomFilter current;
+    private volatile long highestId = -1;
+    private volatile long entries;
+    private List<Long> addedWhileRebuilding;
+    private volatile boolean failing;
+    private ScheduledExecutorService rebuilder;
+
+    public ProductIdPrefilter(RestTemplate productsRestTemplate,
+                              ProductsServiceProperties serviceProperties,
+                              ProductsPrefilterProperties properties,
+                              MeterRegistry registry) {
+        this.restTemplate = productsRestTemplate;
+        this.serviceProperties = serviceProperties;
+        this.properties = properties;
+        this.rejections = registry.counter("inventory.products.prefilter.rejections");
+        this.passes = registry.counter("inventory.products.prefilter.passes");
+        Gauge.builder("inventory.products.prefilter.size", this, ProductIdPrefilter::sizeBytes)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("inventory.products.prefilter.false.positive.rate", this,
+                        ProductIdPrefilter::expectedFalsePositiveRate)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        rebuilder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "products-prefilter-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        rebuilder.scheduleWithFixedDelay(
+                this::rebuildQuietly, 0, properties.getRebuildIntervalSeconds(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    /**
+     * True when the filter does not hold the product. A false answer means "ask products-service":
+     * the filter may not be loaded yet, the id may be newer than the filter, or it is a false positive.
+     * A true answer means "probably missing": the product may have been created since the last sync.
+     */
+    public boolean rejects(Long productId) {
+        BloomFilter filter = current;
+        if (!properties.isEnabled() || filter == null || productId == null || productId > highestId) {
+            return false;
+        }
+        if (filter.mightContain(productId)) {
+            passes.increment();
+            return false;
+        }
+        rejections.increment();
+        return true;
+    }
+
+    /**
+     * Adds a product created after the last export.
+     */
+    public void add(Long productId) {
+        if (productId == null) {
+            return;
+        }
+        synchronized (lock) {
+            BloomFilter filter = current;
+            if (filter != null) {
+                filter.add(productId);
+                entries++;
+            }
+            if (addedWhileRebuilding != null) {
+                addedWhileRebuilding.add(productId);
+            }
+            highestId = Math.max(highestId, productId);
+        }
+    }
+
+    /**
+     * Loads every id from products-service into a new filter and swaps it in. Ids added while the
+     * export runs are replayed into the new filter so none is lost to the swap. Returns how many
+     * ids were exported.
+     */
+    public long rebuild() {
+        synchronized (lock) {
+            addedWhileRebuilding = new ArrayList<>();
+        }
+        try {
+            ProductIdExportResponse page = fetch(0);
+            long capacity = (long) Math.ceil(Math.max(1, page.meta().total()) * (1 + properties.getCapacityHeadroom()));
+            BloomFilter next = BloomFilter.forCapacity(
+                    capacity, properties.getFalsePositiveRate(), properties.getMaxMemoryBytes());
+
+            long exported = 0;
+            long highest = -1;
+            while (true) {
+                for (Long productId : page.data()) {
+                    next.add(productId);
+                    highest = Math.max(highest, productId);
+                    exported++;
+                }
+                if (!page.meta().hasMore() || page.data().isEmpty()) {
+                    break;
+                }
+                page = fetch(page.meta().nextAfter());
+            }
+
+            synchronized (lock) {
+                for (Long productId : addedWhileRebuilding) {
+                    next.add(productId);
+                    highest = Math.max(highest, productId);
+                }
+                current = next;
+                entries = exported + addedWhileRebuilding.size();
+                highestId = Math.max(highestId, highest);
+            }
+
+            log.info("ProductPrefilterRebuiltEvent ids={} sizeBytes={} hashes={} expectedFalsePositiveRate={}",
+                    exported, next.sizeBytes(), next.hashes(), next.expectedFalsePositiveRate(exported));
+            return exported;
+        } finally {
+            synchronized (lock) {
+                addedWhileRebuilding = null;
+            }
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+            failing = false;
+        } catch (RuntimeException ex) {
+            if (!failing) {
+                failing = true;
+                log.warn("ProductPrefilterRebuildFailedEvent reason={}", ex.getMessage());
+            }
+        }
+    }
+
+    private ProductIdExportResponse fetch(long after) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-API-KEY", serviceProperties.getApiKey());
+
+        ResponseEntity<ProductIdExportResponse> response = restTemplate.exchange(
+                serviceProperties.getBaseUrl() + "/api/v1/products/ids?page[after]={after}&page[size]={size}",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                ProductIdExportResponse.class,
+                after,
+                properties.getPageSize()
+        );
+
+        ProductIdExportResponse body = response.getBody();
+        if (body == null || body.data() == null || body.meta() == null) {
+            throw new RestClientException("Empty id export page from products-service");
+        }
+        return body;
+    }
+
+    private double sizeBytes() {
+        BloomFilter filter = current;
+        return filter == null ? 0 : filter.sizeBytes();
+    }
+
+    private double expectedFalsePositiveRate() {
+        BloomFilter filter = current;
+        return filter == null ? Double.NaN : filter.expectedFalsePositiveRate(entries);
+    }
+}
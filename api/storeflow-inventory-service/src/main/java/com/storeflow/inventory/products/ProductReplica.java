@@ -0,0 +1,281 @@
+package com.storeflow.inventory.products;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local copy of the set of existing product ids, kept as a compressed bitmap so its size follows
+ * the number of products rather than the highest id. It is loaded from products-service's id
+ * export, then follows the change feed from the sequence the export reported; when the feed
+ * answers 410 because the changes it needs were pruned, it loads the export again. It only answers
+ * while it is caught up and its last sync is recent; otherwise callers fall back to products-service.
+ */
+@Component
+public class ProductReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductReplica.class);
+
+    private final RestTemplate restTemplate;
+    private final ProductsServiceProperties serviceProperties;
+    private final ProductsReplicaProperties properties;
+    private final ProductIdPrefilter prefilter;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter hits;
+    private final Counter fallbacks;
+
+    private Roaring64Bitmap ids = new Roaring64Bitmap();
+    private volatile long appliedSeq;
+    private volatile long lastSeq;
+    private volatile long syncedAtNanos;
+    private volatile boolean loaded;
+    private volatile boolean ready;
+    private volatile boolean failing;
+    private ScheduledExecutorService poller;
+
+    public ProductReplica(RestTemplate productsRestTemplate,
+                          ProductsServiceProperties serviceProperties,
+                          ProductsReplicaProperties properties,
+                          ProductIdPrefilter prefilter,
+                          MeterRegistry registry) {
+        this.restTemplate = productsRestTemplate;
+        this.serviceProperties = serviceProperties;
+        this.properties = properties;
+        this.prefilter = prefilter;
+        this.hits = registry.counter("inventory.products.replica.hits");
+        this.fallbacks = registry.counter("inventory.products.replica.fallbacks");
+        Gauge.builder("inventory.products.replica.lag", this, replica -> replica.lastSeq - replica.appliedSeq)
+                .description("Product changes published by products-service and not yet applied")
+                .register(registry);
+        Gauge.builder("inventory.products.replica.staleness", this, ProductReplica::stalenessSeconds)
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("inventory.products.replica.size", this, ProductReplica::size).register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "products-replica-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::syncQuietly, 0, properties.getPollIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    /**
+     * True when the replica is trusted and holds the product. A false answer means "ask
+     * products-service": the product may be missing or may just not have reached the replica yet.
+     */
+    public boolean confirms(Long productId) {
+        if (!isCaughtUp() || productId == null || productId < 0) {
+            fallbacks.increment();
+            return false;
+        }
+        boolean present;
+        lock.readLock().lock();
+        try {
+            present = ids.contains(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        (present ? hits : fallbacks).increment();
+        return present;
+    }
+
+    /**
+     * Pulls and applies every change after the last applied sequence, loading the id export first
+     * when there is nothing to resume from. Returns how many changes were applied.
+     */
+    public int sync() {
+        if (!loaded) {
+            bootstrap();
+        }
+        int applied = 0;
+        ProductChangeFeedResponse page;
+        do {
+            try {
+                page = fetch(appliedSeq);
+            } catch (HttpClientErrorException.Gone ex) {
+                log.warn("ProductReplicaFeedPrunedEvent appliedSeq={}", appliedSeq);
+                bootstrap();
+                page = fetch(appliedSeq);
+            }
+            lock.writeLock().lock();
+            try {
+                for (ProductChangeFeedResponse.Item item : page.data()) {
+                    apply(item.attributes());
+                    applied++;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            appliedSeq = Math.max(appliedSeq, page.meta().nextSince());
+            lastSeq = Math.max(page.meta().lastSeq(), appliedSeq);
+        } while (page.meta().hasMore() && !page.data().isEmpty());
+
+        syncedAtNanos = System.nanoTime();
+        ready = true;
+        return applied;
+    }
+
+    long appliedSeq() {
+        return appliedSeq;
+    }
+
+    /**
+     * Replaces the replica with products-service's id export and resumes the feed from the
+     * sequence its first page reported, which was read before any id, so no change is missed.
+     */
+    private void bootstrap() {
+        ProductIdExportResponse page = fetchIds(0);
+        long snapshotSeq = page.meta().lastSeq();
+        Roaring64Bitmap snapshot = new Roaring64Bitmap();
+        while (true) {
+            for (Long productId : page.data()) {
+                if (productId != null && productId >= 0) {
+                    snapshot.addLong(productId);
+                }
+            }
+            if (!page.meta().hasMore() || page.data().isEmpty()) {
+                break;
+            }
+            page = fetchIds(page.meta().nextAfter());
+        }
+        snapshot.runOptimize();
+
+        lock.writeLock().lock();
+        try {
+            ids = snapshot;
+            appliedSeq = snapshotSeq;
+            lastSeq = Math.max(lastSeq, snapshotSeq);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("ProductReplicaLoadedEvent ids={} appliedSeq={}", snapshot.getLongCardinality(), snapshotSeq);
+    }
+
+    private void syncQuietly() {
+        try {
+            int applied = sync();
+            if (failing) {
+                failing = false;
+                log.info("ProductReplicaRecoveredEvent appliedSeq={}", appliedSeq);
+            }
+            if (applied > 0) {
+                log.debug("ProductReplicaSyncedEvent applied={} appliedSeq={}", applied, appliedSeq);
+            }
+        } catch (RuntimeException ex) {
+            if (!failing) {
+                failing = true;
+                log.warn("ProductReplicaSyncFailedEvent appliedSeq={} reason={}", appliedSeq, ex.getMessage());
+            }
+        }
+    }
+
+    private void apply(ProductChangeFeedResponse.Change change) {
+        if (change.productId() == null || change.productId() < 0) {
+            return;
+        }
+        if ("deleted".equals(change.type())) {
+            ids.removeLong(change.productId());
+        } else {
+            ids.addLong(change.productId());
+            prefilter.add(change.productId());
+        }
+    }
+
+    private ProductChangeFeedResponse fetch(long since) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-API-KEY", serviceProperties.getApiKey());
+
+        ResponseEntity<ProductChangeFeedResponse> response = restTemplate.exchange(
+                serviceProperties.getBaseUrl() + "/api/v1/products/changes?since={since}&page[size]={size}",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                ProductChangeFeedResponse.class,
+                since,
+                properties.getPageSize()
+        );
+
+        ProductChangeFeedResponse body = response.getBody();
+        if (body == null || body.data() == null || body.meta() == null) {
+            throw new RestClientException("Empty change feed page from products-service");
+        }
+        return body;
+    }
+
+    private ProductIdExportResponse fetchIds(long after) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-API-KEY", serviceProperties.getApiKey());
+
+        ResponseEntity<ProductIdExportResponse> response = restTemplate.exchange(
+                serviceProperties.getBaseUrl() + "/api/v1/products/ids?page[after]={after}&page[size]={size}",
+                HttpMethod.GET,
+                new HttpEntity<>(headers),
+                ProductIdExportResponse.class,
+                after,
+                properties.getSnapshotPageSize()
+        );
+
+        ProductIdExportResponse body = response.getBody();
+        if (body == null || body.data() == null || body.meta() == null) {
+            throw new RestClientException("Empty id export page from products-service");
+        }
+        return body;
+    }
+
+    /**
+     * True while the replica has applied every change published so far and synced recently, so
+     * every product created before that sync has reached it and {@link ProductIdPrefilter}.
+     */
+    public boolean isCaughtUp() {
+        return properties.isEnabled()
+                && ready
+                && appliedSeq >= lastSeq
+                && System.nanoTime() - syncedAtNanos <= TimeUnit.SECONDS.toNanos(properties.getMaxLagSeconds());
+    }
+
+    private double stalenessSeconds() {
+        return ready ? (System.nanoTime() - syncedAtNanos) / 1e9 : Double.NaN;
+    }
+
+    private long size() {
+        lock.readLock().lock();
+        try {
+            return ids.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.storeflow.inventory.products;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "products-service.cache")
+public class ProductsCacheProperties {
+
+    private boolean enabled = true;
+    private int maxEntries = 100_000;
+    private long positiveTtlSeconds = 300;
+    private long negativeTtlSeconds = 30;
+    private double refreshAheadRatio = 0.8;
+    private long maxStaleSeconds = 3600;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getPositiveTtlSeconds() {
+        return positiveTtlSeconds;
+    }
+
+    public void setPositiveTtlSeconds(long positiveTtlSeconds) {
+        this.positiveTtlSeconds = positiveTtlSeconds;
+    }
+
+    public long getNegativeTtlSeconds() {
+        return negativeTtlSeconds;
+    }
+
+    public void setNegativeTtlSeconds(long negativeTtlSeconds) {
+        this.negativeTtlSeconds = negativeTtlSeconds;
+    }
+
+    public double getRefreshAheadRatio() {
+        return refreshAheadRatio;
+    }
+
+    public void setRefreshAheadRatio(double refreshAheadRatio) {
+        this.refreshAheadRatio = refreshAheadRatio;
+    }
+
+    public long getMaxStaleSeconds() {
+        return maxStaleSeconds;
+    }
+
+    public void setMaxStaleSeconds(long maxStaleSeconds) {
+        this.maxStaleSeconds = maxStaleSeconds;
+    }
+}
@@ -3,6 +3,8 @@ package com.storeflow.inventory.products;
 import com.storeflow.inventory.products.exception.ProductsServiceException;
 import com.storeflow.inventory.products.exception.ProductsServiceUnavailableException;
 import com.storeflow.inventory.products.exception.RemoteProductNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -10,34 +12,153 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
 @Component
 public class ProductsClient {
 
     private final RestTemplate restTemplate;
     private final ProductsServiceProperties properties;
+    private final ProductExistenceCache cache;
+    private final HedgedRequests hedging;
+    private final ProductReplica replica;
+    private final ProductIdPrefilter prefilter;
+    private final Executor executor;
+
+    private volatile HttpEntity<Void> requestEntity;
 
     private static final int MAX_ATTEMPTS = 3;
 
+    @Autowired
     public ProductsClient(RestTemplate productsRestTemplate,
-                          ProductsServiceProperties properties) {
+                          ProductsServiceProperties properties,
+                          ProductsHttpProperties http,
+                          ProductExistenceCache cache,
+                          HedgedRequests hedging,
+                          ProductReplica replica,
+                          ProductIdPrefilter prefilter) {
+        this(productsRestTemplate, properties, cache, hedging, replica, prefilter, Executors.newFixedThreadPool(http.getAsyncThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "products-client");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ProductsClient(RestTemplate productsRestTemplate,
+                   ProductsServiceProperties properties,
+                   ProductExistenceCache cache,
+                   HedgedRequests hedging,
+                   ProductReplica replica,
+                   ProductIdPrefilter prefilter,
+                   Executor executor) {
         this.restTemplate = productsRestTemplate;
         this.properties = properties;
+        this.cache = cache;
+        this.hedging = hedging;
+        this.replica = replica;
+        this.prefilter = prefilter;
+        this.executor = executor;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
     }
 
+    /**
+     * Products the replica holds are accepted locally. Every other id, including one the prefilter
+     * rejects, is confirmed with products-service through the cache, which keeps not-found answers
+     * for {@code negative-ttl-seconds}.
+     */
     public void validateProductExists(Long productId) {
-        assertProductExists(productId);
+        if (confirmedLocally(productId)) {
+            return;
+        }
+        cache.check(productId, this::exists);
+    }
+
+    /**
+     * Throws a single {@link RemoteProductNotFoundException} naming every id that does not exist.
+     */
+    public void validateProductsExist(Collection<Long> productIds) {
+        Set<Long> unconfirmed = new LinkedHashSet<>();
+        for (Long productId : productIds) {
+            if (!confirmedLocally(productId)) {
+                unconfirmed.add(productId);
+            }
+        }
+        if (!unconfirmed.isEmpty()) {
+            cache.checkAll(unconfirmed, this::findMissing);
+        }
+    }
+
+    public CompletableFuture<Void> validateProductExistsAsync(Long productId) {
+        return CompletableFuture.runAsync(() -> validateProductExists(productId), executor);
+    }
+
+    public CompletableFuture<Void> validateProductsExistAsync(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(productIds);
+        return CompletableFuture.runAsync(() -> validateProductsExist(ids), executor);
     }
 
     public void assertProductExists(Long productId) {
+        withRetries(() -> {
+            doRequest(productId);
+            return null;
+        });
+    }
+
+    /**
+     * Like {@link #findMissing}, but ids confirmed by the replica are settled locally and only the
+     * rest are sent to products-service.
+     */
+    public Set<Long> findUnknown(Collection<Long> productIds) {
+        Set<Long> unconfirmed = new LinkedHashSet<>();
+        for (Long productId : productIds) {
+            if (!confirmedLocally(productId)) {
+                unconfirmed.add(productId);
+            }
+        }
+        return unconfirmed.isEmpty() ? new LinkedHashSet<>() : findMissing(unconfirmed);
+    }
+
+    /**
+     * Returns the ids that products-service does not know, asking for at most
+     * {@code batch-size} ids per request.
+     */
+    public Set<Long> findMissing(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(new LinkedHashSet<>(productIds));
+        int chunkSize = Math.max(1, properties.getBatchSize());
+
+        Set<Long> missing = new LinkedHashSet<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+            missing.addAll(withRetries(() -> doBatchRequest(chunk)));
+        }
+        return missing;
+    }
+
+    private <T> T withRetries(Supplier<T> request) {
         int attempt = 0;
         while (true) {
             attempt++;
             try {
-                doRequest(productId);
-                return;
+                return hedging.execute(request);
             } catch (ResourceAccessException ex) {
                 if (attempt >= MAX_ATTEMPTS) {
                     throw new ProductsServiceUnavailableException(
@@ -50,16 +171,29 @@ public class ProductsClient {
         }
     }
 
+    /**
+     * A product missing from the prefilter may have been created after the replica's last sync,
+     * so a rejection is never final; it only skips the replica, which would not hold it either.
+     */
+    private boolean confirmedLocally(Long productId) {
+        return !prefilter.rejects(productId) && replica.confirms(productId);
+    }
+
+    private boolean exists(Long productId) {
+        try {
+            assertProductExists(productId);
+            return true;
+        } catch (RemoteProductNotFoundException ex) {
+            return false;
+        }
+    }
+
     private void doRequest(Long productId) {
         String url = properties.getBaseUrl() + "/api/v1/products/" + productId;
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("X-API-KEY", properties.getApiKey());
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-
         try {
-            ResponseEntity<String> response =
-                    restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+            ResponseEntity<Void> response =
+                    restTemplate.exchange(url, HttpMethod.HEAD, requestEntity(), Void.class);
 
             int status = response.getStatusCode().value();
 
@@ -77,7 +211,52 @@ public class ProductsClient {
                 throw new RemoteProductNotFoundException(productId);
             }
             throw ex;
+        } catch (HttpServerErrorException ex) {
+            throw unavailable(ex);
+        }
+    }
+
+    private List<Long> doBatchRequest(List<Long> productIds) {
+        String url = properties.getBaseUrl() + "/api/v1/products?filter[id]={ids}";
+        String ids = productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+
+        ResponseEntity<ProductBatchResponse> response;
+        try {
+            response = restTemplate.exchange(
+                    url,
+                    HttpMethod.GET,
+                    requestEntity(),
+                    ProductBatchResponse.class,
+                    ids
+            );
+        } catch (HttpServerErrorException ex) {
+            throw unavailable(ex);
+        }
+
+        ProductBatchResponse body = response.getBody();
+        if (!response.getStatusCode().is2xxSuccessful() || body == null || body.meta() == null) {
+            throw new ProductsServiceException(
+                    "Unexpected response calling products-service: " + response.getStatusCode().value()
+            );
+        }
+        return body.meta().missingIds();
+    }
+
+    private static ProductsServiceUnavailableException unavailable(HttpServerErrorException ex) {
+        return new ProductsServiceUnavailableException(
+                "Products-service answered " + ex.getStatusCode().value(), ex
+        );
+    }
+
+    private HttpEntity<Void> requestEntity() {
+        HttpEntity<Void> entity = requestEntity;
+        if (entity == null) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-API-KEY", properties.getApiKey());
+            entity = new HttpEntity<>(HttpHeaders.readOnlyHttpHeaders(headers));
+            requestEntity = entity;
         }
+        return entity;
     }
 
     private void sleepBackoff(int attempt) {
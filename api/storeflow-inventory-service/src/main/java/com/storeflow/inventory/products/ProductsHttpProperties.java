@@ -0,0 +1,55 @@
+package com.storeflow.inventory.products;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "products-service.http")
+public class ProductsHttpProperties {
+
+    private ProductsHttpTransport transport = ProductsHttpTransport.POOLED;
+    private int maxConnections = 50;
+    private long keepAliveSeconds = 30;
+    private long connectionRequestTimeoutMs = 500;
+    private int asyncThreads = 16;
+
+    public ProductsHttpTransport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(ProductsHttpTransport transport) {
+        this.transport = transport;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public long getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    public void setKeepAliveSeconds(long keepAliveSeconds) {
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    public long getConnectionRequestTimeoutMs() {
+        return connectionRequestTimeoutMs;
+    }
+
+    public void setConnectionRequestTimeoutMs(long connectionRequestTimeoutMs) {
+        this.connectionRequestTimeoutMs = connectionRequestTimeoutMs;
+    }
+
+    public int getAsyncThreads() {
+        return asyncThreads;
+    }
+
+    public void setAsyncThreads(int asyncThreads) {
+        this.asyncThreads = asyncThreads;
+    }
+}
@@ -0,0 +1,10 @@
+package com.storeflow.inventory.products;
+
+public enum ProductsHttpTransport {
+    /** JDK {@code HttpURLConnection}, one connection per request unless the JVM reuses it. */
+    SIMPLE,
+    /** Apache HttpClient with a bounded keep-alive connection pool. */
+    POOLED,
+    /** JDK {@code HttpClient} negotiating HTTP/2, multiplexing calls over one connection. */
+    HTTP2
+}
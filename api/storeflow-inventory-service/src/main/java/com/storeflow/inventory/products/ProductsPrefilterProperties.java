@@ -0,0 +1,64 @@
+package com.storeflow.inventory.products;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "products-service.prefilter")
+public class ProductsPrefilterProperties {
+
+    private boolean enabled = true;
+    private double falsePositiveRate = 0.01;
+    private long maxMemoryBytes = 8 * 1024 * 1024;
+    private double capacityHeadroom = 0.25;
+    private long rebuildIntervalSeconds = 300;
+    private int pageSize = 10000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    public void setFalsePositiveRate(double falsePositiveRate) {
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public long getMaxMemoryBytes() {
+        return maxMemoryBytes;
+    }
+
+    public void setMaxMemoryBytes(long maxMemoryBytes) {
+        this.maxMemoryBytes = maxMemoryBytes;
+    }
+
+    public double getCapacityHeadroom() {
+        return capacityHeadroom;
+    }
+
+    public void setCapacityHeadroom(double capacityHeadroom) {
+        this.capacityHeadroom = capacityHeadroom;
+    }
+
+    public long getRebuildIntervalSeconds() {
+        return rebuildIntervalSeconds;
+    }
+
+    public void setRebuildIntervalSeconds(long rebuildIntervalSeconds) {
+        this.rebuildIntervalSeconds = rebuildIntervalSeconds;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+}
@@ -0,0 +1,55 @@
+package com.storeflow.inventory.products;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "products-service.replica")
+public class ProductsReplicaProperties {
+
+    private boolean enabled = true;
+    private long pollIntervalMs = 1000;
+    private int pageSize = 1000;
+    private int snapshotPageSize = 10000;
+    private long maxLagSeconds = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getSnapshotPageSize() {
+        return snapshotPageSize;
+    }
+
+    public void setSnapshotPageSize(int snapshotPageSize) {
+        this.snapshotPageSize = snapshotPageSize;
+    }
+
+    public long getMaxLagSeconds() {
+        return maxLagSeconds;
+    }
+
+    public void setMaxLagSeconds(long maxLagSeconds) {
+        this.maxLagSeconds = maxLagSeconds;
+    }
+}
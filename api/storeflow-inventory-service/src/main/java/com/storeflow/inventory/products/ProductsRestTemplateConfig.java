@@ -1,9 +1,29 @@
 package com.storeflow.inventory.products;
 
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URL;
+import java.net.http.HttpClient;
 import java.time.Duration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
@@ -12,11 +32,85 @@ public class ProductsRestTemplateConfig {
     @Bean
     public RestTemplate productsRestTemplate(
             RestTemplateBuilder builder,
-            ProductsServiceProperties properties
+            ClientHttpRequestFactory productsRequestFactory
     ) {
         return builder
-                .setConnectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
-                .setReadTimeout(Duration.ofMillis(properties.getReadTimeoutMs()))
+                .requestFactory(() -> productsRequestFactory)
                 .build();
     }
+
+    @Bean
+    public ClientHttpRequestFactory productsRequestFactory(
+            ProductsServiceProperties properties,
+            ProductsHttpProperties http,
+            MeterRegistry registry
+    ) {
+        return switch (http.getTransport()) {
+            case SIMPLE -> simpleRequestFactory(properties);
+            case POOLED -> pooledRequestFactory(properties, http, registry);
+            case HTTP2 -> http2RequestFactory(properties);
+        };
+    }
+
+    private static ClientHttpRequestFactory simpleRequestFactory(ProductsServiceProperties properties) {
+        // A hedged call that loses closes its socket, which is what unblocks the pending read
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory() {
+            @Override
+            protected HttpURLConnection openConnection(URL url, Proxy proxy) throws IOException {
+                HttpURLConnection connection = super.openConnection(url, proxy);
+                HedgedRequests.onAbort(connection::disconnect);
+                return connection;
+            }
+        };
+        factory.setConnectTimeout(properties.getConnectTimeoutMs());
+        factory.setReadTimeout(properties.getReadTimeoutMs());
+        return factory;
+    }
+
+    private static ClientHttpRequestFactory pooledRequestFactory(
+            ProductsServiceProperties properties,
+            ProductsHttpProperties http,
+            MeterRegistry registry
+    ) {
+        TimeValue keepAlive = TimeValue.ofSeconds(http.getKeepAliveSeconds());
+        PoolingHttpClientConnectionManager connections = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxConnections())
+                .setMaxConnPerRoute(http.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(properties.getConnectTimeoutMs()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(properties.getReadTimeoutMs()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connections, "products-service").bindTo(registry);
+
+        // ProductsClient retries on its own, so the client must not replay requests as well
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(connections)
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictIdleConnections(keepAlive)
+                .disableAutomaticRetries()
+                .build();
+
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(client) {
+            @Override
+            protected void postProcessHttpRequest(ClassicHttpRequest request) {
+                if (request instanceof HttpUriRequestBase abortable) {
+                    HedgedRequests.onAbort(abortable::abort);
+                }
+            }
+        };
+        factory.setConnectionRequestTimeout((int) http.getConnectionRequestTimeoutMs());
+        return factory;
+    }
+
+    private static ClientHttpRequestFactory http2RequestFactory(ProductsServiceProperties properties) {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(properties.getConnectTimeoutMs()))
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+        factory.setReadTimeout(Duration.ofMillis(properties.getReadTimeoutMs()));
+        return factory;
+    }
 }
@@ -11,6 +11,7 @@ public class ProductsServiceProperties {
     private String apiKey;
     private int connectTimeoutMs;
     private int readTimeoutMs;
+    private int batchSize = 100;
 
     public String getBaseUrl() {
         return baseUrl;
@@ -43,4 +44,12 @@ public class ProductsServiceProperties {
     public void setReadTimeoutMs(int readTimeoutMs) {
         this.readTimeoutMs = readTimeoutMs;
     }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
 }
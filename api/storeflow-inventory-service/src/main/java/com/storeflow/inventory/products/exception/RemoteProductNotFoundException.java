@@ -1,8 +1,31 @@
 package com.storeflow.inventory.products.exception;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class RemoteProductNotFoundException extends RuntimeException {
 
+    private final List<Long> productIds;
+
     public RemoteProductNotFoundException(Long productId) {
-        super("Product " + productId + " not found in products-service");
+        this(List.of(productId));
+    }
+
+    public RemoteProductNotFoundException(Collection<Long> productIds) {
+        super(message(productIds));
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+
+    private static String message(Collection<Long> productIds) {
+        if (productIds.size() == 1) {
+            return "Product " + productIds.iterator().next() + " not found in products-service";
+        }
+        return "Products " + productIds.stream().map(String::valueOf).collect(Collectors.joining(", "))
+                + " not found in products-service";
     }
 }
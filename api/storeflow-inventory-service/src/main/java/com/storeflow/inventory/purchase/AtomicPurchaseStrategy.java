@@ -0,0 +1,55 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryNotFoundException;
+import com.storeflow.inventory.domain.InventoryRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+@Component
+public class AtomicPurchaseStrategy implements PurchaseStrategy {
+
+    private final InventoryRepository repository;
+    private final TransactionOperations transactions;
+    private final PurchaseMetrics metrics;
+
+    public AtomicPurchaseStrategy(InventoryRepository repository,
+                                  TransactionOperations transactions,
+                                  PurchaseMetrics metrics) {
+        this.repository = repository;
+        this.transactions = transactions;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public PurchaseStrategyType type() {
+        return PurchaseStrategyType.ATOMIC;
+    }
+
+    @Override
+    public PurchaseResult purchase(Long productId, int slot, int quantity) {
+        metrics.attempt(type());
+        return transactions.execute(status -> {
+            long start = System.nanoTime();
+            int updated = repository.decrementIfAvailable(productId, slot, quantity);
+            metrics.lockWait(type(), start);
+
+            Inventory inventory = repository.findByProductIdAndSlot(productId, slot)
+                    .orElseThrow(() ->
+                            new InventoryNotFoundException("Inventory for product " + productId + " not found"));
+
+            if (updated == 0) {
+                metrics.rejection(type());
+                throw new InsufficientStockException(productId);
+            }
+
+            return new PurchaseResult(
+                    inventory.getId(),
+                    inventory.getProductId(),
+                    inventory.getQuantity() + quantity,
+                    inventory.getQuantity()
+            );
+        });
+    }
+}
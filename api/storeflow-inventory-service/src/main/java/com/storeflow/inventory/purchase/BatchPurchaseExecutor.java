@@ -0,0 +1,95 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryRepository;
+import com.storeflow.inventory.domain.SlotAllocation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+
+@Component
+public class BatchPurchaseExecutor {
+
+    private static final String DECREMENT_SQL =
+            "UPDATE inventories SET quantity = quantity - ?, version = version + 1 WHERE id = ?";
+
+    private final InventoryRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactions;
+
+    public BatchPurchaseExecutor(InventoryRepository repository,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionOperations transactions) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = transactions;
+    }
+
+    /**
+     * Locks every slot row in ascending productId and slot order, checks the totals and applies
+     * the decrements as one JDBC batch. Nothing is written unless every product has enough stock.
+     */
+    public Map<Long, PurchaseResult> purchaseAll(SortedMap<Long, Integer> quantities) {
+        return transactions.execute(status -> {
+            Map<Long, List<Inventory>> rows = repository.findAllForUpdateByProductIdIn(quantities.keySet()).stream()
+                    .collect(Collectors.groupingBy(Inventory::getProductId));
+
+            List<PurchaseLineFailure> failures = failures(quantities, rows);
+            if (!failures.isEmpty()) {
+                throw new BatchPurchaseRejectedException(failures);
+            }
+
+            List<Object[]> arguments = new ArrayList<>();
+            Map<Long, PurchaseResult> results = new LinkedHashMap<>();
+            quantities.forEach((productId, quantity) -> {
+                List<Inventory> slots = rows.get(productId);
+                int[] taken = SlotAllocation.take(slots, quantity);
+                for (int index = 0; index < taken.length; index++) {
+                    if (taken[index] > 0) {
+                        arguments.add(new Object[]{taken[index], slots.get(index).getId()});
+                    }
+                }
+
+                int total = SlotAllocation.total(slots);
+                results.put(productId, new PurchaseResult(slots.get(0).getId(), productId, total, total - quantity));
+            });
+            jdbcTemplate.batchUpdate(DECREMENT_SQL, arguments);
+            return results;
+        });
+    }
+
+    /**
+     * The lines {@link #purchaseAll} would reject, checked without locking or writing anything, so
+     * a batch already rejected elsewhere can still report every failing line.
+     */
+    public List<PurchaseLineFailure> findFailures(SortedMap<Long, Integer> quantities) {
+        return transactions.execute(status -> failures(quantities,
+                repository.findAllByProductIdIn(quantities.keySet()).stream()
+                        .collect(Collectors.groupingBy(Inventory::getProductId))));
+    }
+
+    private static List<PurchaseLineFailure> failures(SortedMap<Long, Integer> quantities,
+                                                      Map<Long, List<Inventory>> rows) {
+        List<PurchaseLineFailure> failures = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            List<Inventory> slots = rows.get(productId);
+            if (slots == null) {
+                failures.add(new PurchaseLineFailure(
+                        productId, 404, "Inventory not found",
+                        "Inventory for product " + productId + " not found"));
+            } else if (SlotAllocation.total(slots) < quantity) {
+                failures.add(new PurchaseLineFailure(
+                        productId, 400, "Not enough stock",
+                        "Not enough stock for product " + productId));
+            }
+        });
+        return failures;
+    }
+}
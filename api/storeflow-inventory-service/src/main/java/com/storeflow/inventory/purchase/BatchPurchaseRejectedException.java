@@ -0,0 +1,17 @@
+package com.storeflow.inventory.purchase;
+
+import java.util.List;
+
+public class BatchPurchaseRejectedException extends RuntimeException {
+
+    private final List<PurchaseLineFailure> failures;
+
+    public BatchPurchaseRejectedException(List<PurchaseLineFailure> failures) {
+        super("Batch purchase rejected: " + failures.size() + " line(s) cannot be fulfilled");
+        this.failures = List.copyOf(failures);
+    }
+
+    public List<PurchaseLineFailure> getFailures() {
+        return failures;
+    }
+}
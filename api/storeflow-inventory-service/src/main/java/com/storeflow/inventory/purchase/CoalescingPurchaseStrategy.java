@@ -0,0 +1,180 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryNotFoundException;
+import com.storeflow.inventory.domain.InventoryRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for hot rows. The first purchase for a product slot opens a batch and waits for
+ * the coalescing window (or until the batch is full) while later purchases join it. It then reads
+ * the slot once, hands out stock in arrival order and writes the sum of the granted quantities
+ * with a single conditional update, completing every caller with its own result.
+ */
+@Component
+public class CoalescingPurchaseStrategy implements PurchaseStrategy {
+
+    private final InventoryRepository repository;
+    private final TransactionOperations transactions;
+    private final PurchaseMetrics metrics;
+    private final PurchaseProperties properties;
+    private final DistributionSummary batchSizes;
+    private final Map<SlotKey, Batch> open = new ConcurrentHashMap<>();
+
+    public CoalescingPurchaseStrategy(InventoryRepository repository,
+                                      TransactionOperations transactions,
+                                      PurchaseMetrics metrics,
+                                      PurchaseProperties properties,
+                                      MeterRegistry registry) {
+        this.repository = repository;
+        this.transactions = transactions;
+        this.metrics = metrics;
+        this.properties = properties;
+        this.batchSizes = DistributionSummary.builder("inventory.purchase.batch.size")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+    }
+
+    @Override
+    public PurchaseStrategyType type() {
+        return PurchaseStrategyType.COALESCING;
+    }
+
+    @Override
+    public PurchaseResult purchase(Long productId, int slot, int quantity) {
+        metrics.attempt(type());
+
+        SlotKey key = new SlotKey(productId, slot);
+        PendingPurchase pending = new PendingPurchase(quantity, new CompletableFuture<>());
+        boolean[] leader = new boolean[1];
+        Batch joined = open.compute(key, (k, current) -> {
+            leader[0] = current == null;
+            Batch batch = leader[0] ? new Batch() : current;
+            batch.pending.add(pending);
+            if (batch.pending.size() >= properties.getCoalescingMaxBatch()) {
+                batch.full.complete(null);
+            }
+            return batch;
+        });
+
+        if (leader[0]) {
+            lead(key, joined);
+        }
+
+        try {
+            return pending.result().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void lead(SlotKey key, Batch batch) {
+        try {
+            batch.full.get(properties.getCoalescingWindowMicros(), TimeUnit.MICROSECONDS);
+        } catch (TimeoutException | ExecutionException ignored) {
+            // window elapsed
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        open.remove(key, batch);
+        batchSizes.record(batch.pending.size());
+        execute(key, batch.pending);
+    }
+
+    private void execute(SlotKey key, List<PendingPurchase> pending) {
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            try {
+                List<PurchaseResult> results = transactions.execute(status -> allocate(key, pending));
+                for (int index = 0; index < pending.size(); index++) {
+                    PurchaseResult result = results.get(index);
+                    if (result == null) {
+                        metrics.rejection(type());
+                        pending.get(index).result().completeExceptionally(
+                                new InsufficientStockException(key.productId()));
+                    } else {
+                        pending.get(index).result().complete(result);
+                    }
+                }
+                return;
+            } catch (OptimisticLockingFailureException ex) {
+                metrics.conflict(type());
+                if (attempt > properties.getMaxRetries()) {
+                    failAll(pending, new PurchaseConflictException(key.productId(), attempt, ex));
+                    return;
+                }
+                metrics.retry(type());
+            } catch (RuntimeException ex) {
+                failAll(pending, ex);
+                return;
+            }
+        }
+    }
+
+    private List<PurchaseResult> allocate(SlotKey key, List<PendingPurchase> pending) {
+        long start = System.nanoTime();
+        Inventory inventory = repository.findByProductIdAndSlot(key.productId(), key.slot())
+                .orElseThrow(() ->
+                        new InventoryNotFoundException("Inventory for product " + key.productId() + " not found"));
+
+        int remaining = inventory.getQuantity();
+        List<PurchaseResult> results = new ArrayList<>(pending.size());
+        for (PendingPurchase purchase : pending) {
+            if (purchase.quantity() <= remaining) {
+                results.add(new PurchaseResult(
+                        inventory.getId(),
+                        key.productId(),
+                        remaining,
+                        remaining - purchase.quantity()
+                ));
+                remaining -= purchase.quantity();
+            } else {
+                results.add(null);
+            }
+        }
+
+        int granted = inventory.getQuantity() - remaining;
+        if (granted > 0 && repository.decrementIfAvailable(key.productId(), key.slot(), granted) == 0) {
+            throw new OptimisticLockingFailureException(
+                    "Stock of product " + key.productId() + " changed while coalescing purchases");
+        }
+        metrics.lockWait(type(), start);
+        return results;
+    }
+
+    private static void failAll(List<PendingPurchase> pending, RuntimeException ex) {
+        pending.forEach(purchase -> purchase.result().completeExceptionally(ex));
+    }
+
+    private record SlotKey(Long productId, int slot) {
+    }
+
+    private record PendingPurchase(int quantity, CompletableFuture<PurchaseResult> result) {
+    }
+
+    private static final class Batch {
+
+        private final List<PendingPurchase> pending = new ArrayList<>();
+        private final CompletableFuture<Void> full = new CompletableFuture<>();
+    }
+}
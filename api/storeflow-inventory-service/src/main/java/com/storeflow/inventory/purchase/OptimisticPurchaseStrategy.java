@@ -0,0 +1,85 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryNotFoundException;
+import com.storeflow.inventory.domain.InventoryRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class OptimisticPurchaseStrategy implements PurchaseStrategy {
+
+    private final InventoryRepository repository;
+    private final TransactionOperations transactions;
+    private final PurchaseMetrics metrics;
+    private final PurchaseProperties properties;
+
+    public OptimisticPurchaseStrategy(InventoryRepository repository,
+                                      TransactionOperations transactions,
+                                      PurchaseMetrics metrics,
+                                      PurchaseProperties properties) {
+        this.repository = repository;
+        this.transactions = transactions;
+        this.metrics = metrics;
+        this.properties = properties;
+    }
+
+    @Override
+    public PurchaseStrategyType type() {
+        return PurchaseStrategyType.OPTIMISTIC;
+    }
+
+    @Override
+    public PurchaseResult purchase(Long productId, int slot, int quantity) {
+        int attempt = 0;
+        while (true) {
+            attempt++;
+            metrics.attempt(type());
+            try {
+                return transactions.execute(status -> decrement(productId, slot, quantity));
+            } catch (OptimisticLockingFailureException ex) {
+                metrics.conflict(type());
+                if (attempt > properties.getMaxRetries()) {
+                    throw new PurchaseConflictException(productId, attempt, ex);
+                }
+                metrics.retry(type());
+                sleepBackoff(productId, attempt, ex);
+            }
+        }
+    }
+
+    private PurchaseResult decrement(Long productId, int slot, int quantity) {
+        Inventory inventory = repository.findByProductIdAndSlot(productId, slot)
+                .orElseThrow(() ->
+                        new InventoryNotFoundException("Inventory for product " + productId + " not found"));
+
+        if (inventory.getQuantity() < quantity) {
+            metrics.rejection(type());
+            throw new InsufficientStockException(productId);
+        }
+
+        int previousQuantity = inventory.getQuantity();
+        inventory.setQuantity(previousQuantity - quantity);
+
+        Inventory saved = repository.saveAndFlush(inventory);
+
+        return new PurchaseResult(saved.getId(), saved.getProductId(), previousQuantity, saved.getQuantity());
+    }
+
+    private void sleepBackoff(Long productId, int attempt, RuntimeException cause) {
+        long maxDelayMs = properties.getRetryBackoffMs() * attempt;
+        if (maxDelayMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelayMs + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PurchaseConflictException(productId, attempt, cause);
+        }
+    }
+}
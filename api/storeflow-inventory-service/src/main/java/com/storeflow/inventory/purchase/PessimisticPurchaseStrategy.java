@@ -0,0 +1,56 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryNotFoundException;
+import com.storeflow.inventory.domain.InventoryRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+@Component
+public class PessimisticPurchaseStrategy implements PurchaseStrategy {
+
+    private final InventoryRepository repository;
+    private final TransactionOperations transactions;
+    private final PurchaseMetrics metrics;
+
+    public PessimisticPurchaseStrategy(InventoryRepository repository,
+                                       TransactionOperations transactions,
+                                       PurchaseMetrics metrics) {
+        this.repository = repository;
+        this.transactions = transactions;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public PurchaseStrategyType type() {
+        return PurchaseStrategyType.PESSIMISTIC;
+    }
+
+    @Override
+    public PurchaseResult purchase(Long productId, int slot, int quantity) {
+        metrics.attempt(type());
+        return transactions.execute(status -> {
+            long start = System.nanoTime();
+            Inventory inventory = repository.findForUpdateByProductIdAndSlot(productId, slot)
+                    .orElseThrow(() ->
+                            new InventoryNotFoundException("Inventory for product " + productId + " not found"));
+            metrics.lockWait(type(), start);
+
+            if (inventory.getQuantity() < quantity) {
+                metrics.rejection(type());
+                throw new InsufficientStockException(productId);
+            }
+
+            int previousQuantity = inventory.getQuantity();
+            inventory.setQuantity(previousQuantity - quantity);
+
+            return new PurchaseResult(
+                    inventory.getId(),
+                    inventory.getProductId(),
+                    previousQuantity,
+                    inventory.getQuantity()
+            );
+        });
+    }
+}
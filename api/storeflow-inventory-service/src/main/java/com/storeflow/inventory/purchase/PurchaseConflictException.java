@@ -0,0 +1,8 @@
+package com.storeflow.inventory.purchase;
+
+public class PurchaseConflictException extends RuntimeException {
+
+    public PurchaseConflictException(Long productId, int attempts, Throwable cause) {
+        super("Purchase for product " + productId + " kept conflicting after " + attempts + " attempts", cause);
+    }
+}
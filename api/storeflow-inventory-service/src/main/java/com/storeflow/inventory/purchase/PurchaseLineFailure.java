@@ -0,0 +1,21 @@
+package com.storeflow.inventory.purchase;
+
+public record PurchaseLineFailure(
+        Long productId,
+        int status,
+        String title,
+        String detail,
+        Integer line
+) {
+
+    public PurchaseLineFailure(Long productId, int status, String title, String detail) {
+        this(productId, status, title, detail, null);
+    }
+
+    /**
+     * This failure reported against one line of the request, by its index.
+     */
+    public PurchaseLineFailure atLine(int line) {
+        return new PurchaseLineFailure(productId, status, title, detail, line);
+    }
+}
@@ -0,0 +1,65 @@
+package com.storeflow.inventory.purchase;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class PurchaseMetrics {
+
+    private final Map<PurchaseStrategyType, Counter> attempts = new EnumMap<>(PurchaseStrategyType.class);
+    private final Map<PurchaseStrategyType, Counter> retries = new EnumMap<>(PurchaseStrategyType.class);
+    private final Map<PurchaseStrategyType, Counter> conflicts = new EnumMap<>(PurchaseStrategyType.class);
+    private final Map<PurchaseStrategyType, Counter> rejections = new EnumMap<>(PurchaseStrategyType.class);
+    private final Map<PurchaseStrategyType, Timer> lockWaits = new EnumMap<>(PurchaseStrategyType.class);
+    private final Map<PurchaseStrategyType, Counter> slotMisses = new EnumMap<>(PurchaseStrategyType.class);
+    private final Map<PurchaseStrategyType, Counter> slotFallbacks = new EnumMap<>(PurchaseStrategyType.class);
+
+    public PurchaseMetrics(MeterRegistry registry) {
+        for (PurchaseStrategyType type : PurchaseStrategyType.values()) {
+            attempts.put(type, registry.counter("inventory.purchase.attempts", "strategy", type.tag()));
+            retries.put(type, registry.counter("inventory.purchase.retries", "strategy", type.tag()));
+            conflicts.put(type, registry.counter("inventory.purchase.conflicts", "strategy", type.tag()));
+            rejections.put(type, registry.counter("inventory.purchase.rejections", "strategy", type.tag()));
+            lockWaits.put(type, Timer.builder("inventory.purchase.lock.wait")
+                    .tag("strategy", type.tag())
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry));
+            slotMisses.put(type, registry.counter("inventory.purchase.slot.misses", "strategy", type.tag()));
+            slotFallbacks.put(type, registry.counter("inventory.purchase.slot.fallbacks", "strategy", type.tag()));
+        }
+    }
+
+    public void attempt(PurchaseStrategyType type) {
+        attempts.get(type).increment();
+    }
+
+    public void retry(PurchaseStrategyType type) {
+        retries.get(type).increment();
+    }
+
+    public void conflict(PurchaseStrategyType type) {
+        conflicts.get(type).increment();
+    }
+
+    public void rejection(PurchaseStrategyType type) {
+        rejections.get(type).increment();
+    }
+
+    public void lockWait(PurchaseStrategyType type, long startNanos) {
+        lockWaits.get(type).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void slotMiss(PurchaseStrategyType type) {
+        slotMisses.get(type).increment();
+    }
+
+    public void slotFallback(PurchaseStrategyType type) {
+        slotFallbacks.get(type).increment();
+    }
+}
@@ -0,0 +1,55 @@
+package com.storeflow.inventory.purchase;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "inventory.purchase")
+public class PurchaseProperties {
+
+    private PurchaseStrategyType strategy = PurchaseStrategyType.ATOMIC;
+    private int maxRetries = 5;
+    private long retryBackoffMs = 5;
+    private long coalescingWindowMicros = 1000;
+    private int coalescingMaxBatch = 64;
+
+    public PurchaseStrategyType getStrategy() {
+        return strategy;
+    }
+
+    public void setStrategy(PurchaseStrategyType strategy) {
+        this.strategy = strategy;
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    public void setRetryBackoffMs(long retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+
+    public long getCoalescingWindowMicros() {
+        return coalescingWindowMicros;
+    }
+
+    public void setCoalescingWindowMicros(long coalescingWindowMicros) {
+        this.coalescingWindowMicros = coalescingWindowMicros;
+    }
+
+    public int getCoalescingMaxBatch() {
+        return coalescingMaxBatch;
+    }
+
+    public void setCoalescingMaxBatch(int coalescingMaxBatch) {
+        this.coalescingMaxBatch = coalescingMaxBatch;
+    }
+}
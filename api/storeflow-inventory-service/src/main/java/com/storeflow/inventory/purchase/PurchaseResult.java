@@ -0,0 +1,9 @@
+package com.storeflow.inventory.purchase;
+
+public record PurchaseResult(
+        Long inventoryId,
+        Long productId,
+        int previousQuantity,
+        int newQuantity
+) {
+}
@@ -0,0 +1,29 @@
+package com.storeflow.inventory.purchase;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class PurchaseStrategies {
+
+    private final Map<PurchaseStrategyType, PurchaseStrategy> strategies = new EnumMap<>(PurchaseStrategyType.class);
+    private final PurchaseProperties properties;
+
+    public PurchaseStrategies(List<PurchaseStrategy> strategies, PurchaseProperties properties) {
+        for (PurchaseStrategy strategy : strategies) {
+            this.strategies.put(strategy.type(), strategy);
+        }
+        this.properties = properties;
+    }
+
+    public PurchaseStrategy active() {
+        PurchaseStrategy strategy = strategies.get(properties.getStrategy());
+        if (strategy == null) {
+            throw new IllegalStateException("No purchase strategy registered for " + properties.getStrategy());
+        }
+        return strategy;
+    }
+}
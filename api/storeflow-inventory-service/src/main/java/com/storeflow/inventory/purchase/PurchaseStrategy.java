@@ -0,0 +1,14 @@
+package com.storeflow.inventory.purchase;
+
+public interface PurchaseStrategy {
+
+    PurchaseStrategyType type();
+
+    /**
+     * Decrements the stock held by one slot of the given product inside its own transaction.
+     * Implementations throw {@link com.storeflow.inventory.domain.InventoryNotFoundException}
+     * when there is no inventory and {@link com.storeflow.inventory.domain.InsufficientStockException}
+     * when the remaining quantity is lower than the requested one.
+     */
+    PurchaseResult purchase(Long productId, int slot, int quantity);
+}
@@ -0,0 +1,12 @@
+package com.storeflow.inventory.purchase;
+
+public enum PurchaseStrategyType {
+    ATOMIC,
+    OPTIMISTIC,
+    PESSIMISTIC,
+    COALESCING;
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,122 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryNotFoundException;
+import com.storeflow.inventory.domain.InventoryRepository;
+import com.storeflow.inventory.domain.InventorySlotCounts;
+import com.storeflow.inventory.domain.SlotAllocation;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads purchases of a product over its counter slots. A purchase starts on a random slot and
+ * walks the others when that slot runs dry; only when no single slot can cover the quantity are
+ * all slots locked together and drained in slot order. A purchase served by one slot reports that
+ * slot's quantities, read in the transaction that changed it, rather than re-reading the total
+ * after commit, when other purchases may already have moved it.
+ */
+@Component
+public class SlotPurchaseRouter {
+
+    private final InventoryRepository repository;
+    private final PurchaseStrategies strategies;
+    private final InventorySlotCounts slotCounts;
+    private final TransactionOperations transactions;
+    private final PurchaseMetrics metrics;
+
+    public SlotPurchaseRouter(InventoryRepository repository,
+                              PurchaseStrategies strategies,
+                              InventorySlotCounts slotCounts,
+                              TransactionOperations transactions,
+                              PurchaseMetrics metrics) {
+        this.repository = repository;
+        this.strategies = strategies;
+        this.slotCounts = slotCounts;
+        this.transactions = transactions;
+        this.metrics = metrics;
+    }
+
+    public PurchaseResult purchase(Long productId, int quantity) {
+        PurchaseStrategy strategy = strategies.active();
+        int slots = slotCounts.count(productId);
+        if (slots <= 1) {
+            return strategy.purchase(productId, 0, quantity);
+        }
+
+        int first = ThreadLocalRandom.current().nextInt(slots);
+        for (int offset = 0; offset < slots; offset++) {
+            try {
+                return strategy.purchase(productId, (first + offset) % slots, quantity);
+            } catch (InsufficientStockException | InventoryNotFoundException ex) {
+                metrics.slotMiss(strategy.type());
+            }
+        }
+
+        metrics.slotFallback(strategy.type());
+        return purchaseAcrossSlots(strategy.type(), productId, quantity);
+    }
+
+    /**
+     * Purchase for callers that run it inside their own transaction, so the stock and the caller's
+     * writes commit or roll back together. Slots are tried with conditional updates, which never
+     * mark the caller's transaction rollback-only on a miss, instead of through the active strategy,
+     * whose retries and cross-request batches cannot join another transaction.
+     */
+    public PurchaseResult purchaseInTransaction(Long productId, int quantity) {
+        int slots = Math.max(1, slotCounts.count(productId));
+        int first = slots == 1 ? 0 : ThreadLocalRandom.current().nextInt(slots);
+        for (int offset = 0; offset < slots; offset++) {
+            int slot = (first + offset) % slots;
+            if (repository.decrementIfAvailable(productId, slot, quantity) > 0) {
+                // The update keeps the row locked until the caller commits, so this is our write.
+                Inventory row = repository.findByProductIdAndSlot(productId, slot)
+                        .orElseThrow(() -> new InventoryNotFoundException(
+                                "Inventory for product " + productId + " not found"));
+                return new PurchaseResult(row.getId(), productId, row.getQuantity() + quantity, row.getQuantity());
+            }
+        }
+
+        return purchaseAcrossSlots(strategies.active().type(), productId, quantity);
+    }
+
+    public void credit(Long productId, int quantity) {
+        int slots = slotCounts.count(productId);
+        int slot = slots <= 1 ? 0 : ThreadLocalRandom.current().nextInt(slots);
+        transactions.executeWithoutResult(status -> {
+            if (repository.increment(productId, slot, quantity) == 0
+                    && repository.increment(productId, 0, quantity) == 0) {
+                throw new InventoryNotFoundException("Inventory for product " + productId + " not found");
+            }
+        });
+    }
+
+    private PurchaseResult purchaseAcrossSlots(PurchaseStrategyType type, Long productId, int quantity) {
+        return transactions.execute(status -> {
+            long start = System.nanoTime();
+            List<Inventory> rows = repository.findAllForUpdateByProductId(productId);
+            metrics.lockWait(type, start);
+
+            if (rows.isEmpty()) {
+                throw new InventoryNotFoundException("Inventory for product " + productId + " not found");
+            }
+
+            int total = SlotAllocation.total(rows);
+            if (total < quantity) {
+                metrics.rejection(type);
+                throw new InsufficientStockException(productId);
+            }
+
+            int[] taken = SlotAllocation.take(rows, quantity);
+            for (int index = 0; index < taken.length; index++) {
+                Inventory row = rows.get(index);
+                row.setQuantity(row.getQuantity() - taken[index]);
+            }
+
+            return new PurchaseResult(rows.get(0).getId(), productId, total, total - quantity);
+        });
+    }
+}
@@ -0,0 +1,8 @@
+package com.storeflow.inventory.reservation;
+
+public class ReservationConflictException extends RuntimeException {
+
+    public ReservationConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,106 @@
+package com.storeflow.inventory.reservation;
+
+import com.storeflow.inventory.jsonapi.JsonApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "Reservations", description = "Temporary stock holds for checkout")
+@RestController
+@RequestMapping("/api/v1/inventories/reservations")
+public class ReservationController {
+
+    private final ReservationService service;
+
+    public ReservationController(ReservationService service) {
+        this.service = service;
+    }
+
+    @Operation(
+            summary = "Reserve stock",
+            description = "Holds stock for a product until the reservation is confirmed, released or expires."
+    )
+    @ApiResponse(
+            responseCode = "201",
+            description = "Stock reserved",
+            content = @Content(schema = @Schema(implementation = JsonApiResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Not enough stock to reserve"
+    )
+    @PostMapping
+    public ResponseEntity<JsonApiResponse<ReservationResponse>> reserve(
+            @Valid @RequestBody ReservationRequest request
+    ) {
+        JsonApiResponse<ReservationResponse> response = service.reserve(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @Operation(summary = "Get reservation", description = "Returns a reservation and its current status.")
+    @ApiResponse(
+            responseCode = "200",
+            description = "Reservation retrieved successfully",
+            content = @Content(schema = @Schema(implementation = JsonApiResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "404",
+            description = "Reservation not found"
+    )
+    @GetMapping("/{id}")
+    public ResponseEntity<JsonApiResponse<ReservationResponse>> findById(
+            @Parameter(description = "Reservation identifier", example = "1")
+            @PathVariable Long id
+    ) {
+        return ResponseEntity.ok(service.findById(id));
+    }
+
+    @Operation(
+            summary = "Confirm reservation",
+            description = "Turns a held reservation into a purchase. The stock stays taken."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Reservation confirmed",
+            content = @Content(schema = @Schema(implementation = JsonApiResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "409",
+            description = "Reservation already confirmed, released or expired"
+    )
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<JsonApiResponse<ReservationResponse>> confirm(
+            @Parameter(description = "Reservation identifier", example = "1")
+            @PathVariable Long id
+    ) {
+        return ResponseEntity.ok(service.confirm(id));
+    }
+
+    @Operation(
+            summary = "Release reservation",
+            description = "Cancels a held reservation and gives its stock back."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Reservation released",
+            content = @Content(schema = @Schema(implementation = JsonApiResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "409",
+            description = "Reservation already confirmed, released or expired"
+    )
+    @DeleteMapping("/{id}")
+    public ResponseEntity<JsonApiResponse<ReservationResponse>> release(
+            @Parameter(description = "Reservation identifier", example = "1")
+            @PathVariable Long id
+    ) {
+        return ResponseEntity.ok(service.release(id));
+    }
+}
@@ -0,0 +1,4 @@
+package com.storeflow.inventory.reservation;
+
+record ReservationHold(Long id, Long productId, int quantity) {
+}
@@ -0,0 +1,8 @@
+package com.storeflow.inventory.reservation;
+
+public class ReservationNotFoundException extends RuntimeException {
+
+    public ReservationNotFoundException(Long reservationId) {
+        super("Reservation " + reservationId + " not found");
+    }
+}
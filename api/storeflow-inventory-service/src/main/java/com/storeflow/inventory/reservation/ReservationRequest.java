@@ -0,0 +1,11 @@
+package com.storeflow.inventory.reservation;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record ReservationRequest(
+        @NotNull Long productId,
+        @NotNull @Min(1) Integer quantity,
+        @Min(1) Integer ttlSeconds
+) {
+}
@@ -0,0 +1,12 @@
+package com.storeflow.inventory.reservation;
+
+import java.time.Instant;
+
+public record ReservationResponse(
+        Long id,
+        Long productId,
+        Integer quantity,
+        String status,
+        Instant expiresAt
+) {
+}
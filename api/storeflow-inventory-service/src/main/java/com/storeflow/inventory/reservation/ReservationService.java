@@ -0,0 +1,276 @@
+package com.storeflow.inventory.reservation;
+
+import com.storeflow.inventory.jsonapi.JsonApiData;
+import com.storeflow.inventory.jsonapi.JsonApiResponse;
+import com.storeflow.inventory.ledger.StockLedger;
+import com.storeflow.inventory.products.ProductsClient;
+import com.storeflow.inventory.purchase.SlotPurchaseRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds stock for a while before it is bought. Reserving takes the units out of the available
+ * quantity straight away; confirming keeps them taken, while releasing or letting the hold expire
+ * gives them back. Expiry is driven by an in-memory timing wheel that is rebuilt from the held
+ * rows on startup, so no polling query runs against {@code stock_reservations}. Taking and giving
+ * back stock happen in the same transaction as the reservation row; for products kept by the
+ * stock ledger the change is logged once that transaction commits.
+ */
+@Service
+public class ReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationService.class);
+    private static final long RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final StockReservationRepository reservations;
+    private final ProductsClient productsClient;
+    private final SlotPurchaseRouter purchaseRouter;
+    private final StockLedger stockLedger;
+    private final ReservedStock reservedStock;
+    private final TransactionOperations transactions;
+    private final ReservationProperties properties;
+    private final Clock clock;
+    private final TimingWheel<ReservationHold> wheel;
+    private final Map<Long, TimingWheel.Timeout<ReservationHold>> timeouts = new ConcurrentHashMap<>();
+    private final Counter expirations;
+
+    private ScheduledExecutorService timer;
+
+    @Autowired
+    public ReservationService(StockReservationRepository reservations,
+                              ProductsClient productsClient,
+                              SlotPurchaseRouter purchaseRouter,
+                              StockLedger stockLedger,
+                              ReservedStock reservedStock,
+                              TransactionOperations transactions,
+                              ReservationProperties properties,
+                              MeterRegistry registry) {
+        this(reservations, productsClient, purchaseRouter, stockLedger, reservedStock,
+                transactions, properties, registry, Clock.systemUTC());
+    }
+
+    ReservationService(StockReservationRepository reservations,
+                       ProductsClient productsClient,
+                       SlotPurchaseRouter purchaseRouter,
+                       StockLedger stockLedger,
+                       ReservedStock reservedStock,
+                       TransactionOperations transactions,
+                       ReservationProperties properties,
+                       MeterRegistry registry,
+                       Clock clock) {
+        this.reservations = reservations;
+        this.productsClient = productsClient;
+        this.purchaseRouter = purchaseRouter;
+        this.stockLedger = stockLedger;
+        this.reservedStock = reservedStock;
+        this.transactions = transactions;
+        this.properties = properties;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(TimeUnit.MILLISECONDS.toNanos(properties.getTickMs()), System.nanoTime());
+        this.expirations = registry.counter("inventory.reservations.expired");
+        Gauge.builder("inventory.reservations.held", timeouts, Map::size).register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        long lastId = 0;
+        List<StockReservation> held;
+        do {
+            held = reservations.findTop1000ByStatusAndIdGreaterThanOrderById(ReservationStatus.HELD, lastId);
+            for (StockReservation reservation : held) {
+                reservedStock.add(reservation.getProductId(), reservation.getQuantity());
+                track(reservation);
+                lastId = reservation.getId();
+            }
+        } while (!held.isEmpty());
+
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::tick, properties.getTickMs(), properties.getTickMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    public JsonApiResponse<ReservationResponse> reserve(ReservationRequest request) {
+        int ttlSeconds = request.ttlSeconds() == null ? properties.getDefaultTtlSeconds() : request.ttlSeconds();
+        if (ttlSeconds > properties.getMaxTtlSeconds()) {
+            throw new IllegalArgumentException("ttlSeconds must not exceed " + properties.getMaxTtlSeconds());
+        }
+
+        Long productId = request.productId();
+        int quantity = request.quantity();
+
+        productsClient.validateProductExists(productId);
+
+        Instant now = clock.instant();
+        StockReservation reservation = transactions.execute(status -> {
+            if (stockLedger.tracks(productId)) {
+                stockLedger.purchaseOnCommit(productId, quantity);
+            } else {
+                purchaseRouter.purchaseInTransaction(productId, quantity);
+            }
+            return reservations.save(new StockReservation(productId, quantity, now, now.plusSeconds(ttlSeconds)));
+        });
+
+        reservedStock.add(productId, quantity);
+        track(reservation);
+
+        log.info(
+                "StockReservedEvent reservationId={} productId={} quantity={} expiresAt={}",
+                reservation.getId(),
+                productId,
+                quantity,
+                reservation.getExpiresAt()
+        );
+
+        return response(reservation);
+    }
+
+    public JsonApiResponse<ReservationResponse> findById(Long id) {
+        return response(reservations.findById(id).orElseThrow(() -> new ReservationNotFoundException(id)));
+    }
+
+    public JsonApiResponse<ReservationResponse> confirm(Long id) {
+        StockReservation reservation = transactions.execute(status -> {
+            int updated = reservations.transitionBeforeExpiry(
+                    id, ReservationStatus.HELD, ReservationStatus.CONFIRMED, clock.instant());
+            return finished(id, updated);
+        });
+
+        untrack(reservation);
+        log.info(
+                "StockReservationConfirmedEvent reservationId={} productId={} quantity={}",
+                id,
+                reservation.getProductId(),
+                reservation.getQuantity()
+        );
+        return response(reservation);
+    }
+
+    public JsonApiResponse<ReservationResponse> release(Long id) {
+        StockReservation reservation = transactions.execute(status -> {
+            int updated = reservations.transition(id, ReservationStatus.HELD, ReservationStatus.RELEASED);
+            StockReservation released = finished(id, updated);
+            giveBack(released.getProductId(), released.getQuantity());
+            return released;
+        });
+
+        untrack(reservation);
+        log.info(
+                "StockReservationReleasedEvent reservationId={} productId={} quantity={}",
+                id,
+                reservation.getProductId(),
+                reservation.getQuantity()
+        );
+        return response(reservation);
+    }
+
+    void tick() {
+        for (ReservationHold hold : wheel.advance(System.nanoTime())) {
+            timeouts.remove(hold.id());
+            try {
+                expire(hold);
+            } catch (RuntimeException ex) {
+                log.warn("StockReservationExpiryFailedEvent reservationId={} reason={}", hold.id(), ex.getMessage());
+                timeouts.put(hold.id(), wheel.schedule(hold, System.nanoTime() + RETRY_NANOS));
+            }
+        }
+    }
+
+    void expire(ReservationHold hold) {
+        Boolean expired = transactions.execute(status -> {
+            if (reservations.transition(hold.id(), ReservationStatus.HELD, ReservationStatus.EXPIRED) == 0) {
+                return false;
+            }
+            giveBack(hold.productId(), hold.quantity());
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(expired)) {
+            reservedStock.remove(hold.productId(), hold.quantity());
+            expirations.increment();
+            log.info(
+                    "StockReservationExpiredEvent reservationId={} productId={} quantity={}",
+                    hold.id(),
+                    hold.productId(),
+                    hold.quantity()
+            );
+        }
+    }
+
+    private StockReservation finished(Long id, int updated) {
+        StockReservation reservation = reservations.findById(id)
+                .orElseThrow(() -> new ReservationNotFoundException(id));
+        if (updated == 0) {
+            String state = reservation.getStatus() == ReservationStatus.HELD
+                    ? "expired"
+                    : reservation.getStatus().name().toLowerCase();
+            throw new ReservationConflictException("Reservation " + id + " is already " + state);
+        }
+        return reservation;
+    }
+
+    private void giveBack(Long productId, int quantity) {
+        if (stockLedger.tracks(productId)) {
+            stockLedger.creditOnCommit(productId, quantity);
+        } else {
+            purchaseRouter.credit(productId, quantity);
+        }
+    }
+
+    private void track(StockReservation reservation) {
+        long remainingNanos = Math.max(0, Duration.between(clock.instant(), reservation.getExpiresAt()).toNanos());
+        ReservationHold hold =
+                new ReservationHold(reservation.getId(), reservation.getProductId(), reservation.getQuantity());
+        timeouts.put(hold.id(), wheel.schedule(hold, System.nanoTime() + remainingNanos));
+    }
+
+    private void untrack(StockReservation reservation) {
+        TimingWheel.Timeout<ReservationHold> timeout = timeouts.remove(reservation.getId());
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        reservedStock.remove(reservation.getProductId(), reservation.getQuantity());
+    }
+
+    private JsonApiResponse<ReservationResponse> response(StockReservation reservation) {
+        ReservationResponse response = new ReservationResponse(
+                reservation.getId(),
+                reservation.getProductId(),
+                reservation.getQuantity(),
+                reservation.getStatus().name().toLowerCase(),
+                reservation.getExpiresAt()
+        );
+
+        JsonApiData<ReservationResponse> data =
+                new JsonApiData<>("reservations", String.valueOf(reservation.getId()), response);
+
+        return new JsonApiResponse<>(data);
+    }
+}
@@ -0,0 +1,8 @@
+package com.storeflow.inventory.reservation;
+
+public enum ReservationStatus {
+    HELD,
+    CONFIRMED,
+    RELEASED,
+    EXPIRED
+}
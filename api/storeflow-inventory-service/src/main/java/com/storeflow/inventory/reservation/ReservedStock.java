@@ -0,0 +1,24 @@
+package com.storeflow.inventory.reservation;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class ReservedStock {
+
+    private final Map<Long, Integer> reserved = new ConcurrentHashMap<>();
+
+    public int of(Long productId) {
+        return reserved.getOrDefault(productId, 0);
+    }
+
+    void add(Long productId, int quantity) {
+        reserved.merge(productId, quantity, Integer::sum);
+    }
+
+    void remove(Long productId, int quantity) {
+        reserved.merge(productId, -quantity, (current, delta) -> current + delta <= 0 ? null : current + delta);
+    }
+}
@@ -0,0 +1,38 @@
+package com.storeflow.inventory.reservation;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findTop1000ByStatusAndIdGreaterThanOrderById(ReservationStatus status, Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update StockReservation r
+               set r.status = :target
+             where r.id = :id
+               and r.status = :expected
+            """)
+    int transition(@Param("id") Long id,
+                   @Param("expected") ReservationStatus expected,
+                   @Param("target") ReservationStatus target);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update StockReservation r
+               set r.status = :target
+             where r.id = :id
+               and r.status = :expected
+               and r.expiresAt > :now
+            """)
+    int transitionBeforeExpiry(@Param("id") Long id,
+                               @Param("expected") ReservationStatus expected,
+                               @Param("target") ReservationStatus target,
+                               @Param("now") Instant now);
+}
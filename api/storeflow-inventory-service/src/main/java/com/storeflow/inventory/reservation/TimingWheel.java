@@ -0,0 +1,150 @@
+package com.storeflow.inventory.reservation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel with five levels of 64 buckets. Scheduling and cancelling are O(1);
+ * advancing costs one bucket per tick plus the cascade of a higher-level bucket every 64^n ticks,
+ * so the work per tick does not depend on how many timeouts are outstanding. Timeouts never fire
+ * before their deadline and fire at most one tick after it.
+ */
+public final class TimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SIZE = 1 << BITS;
+    private static final int MASK = SIZE - 1;
+    private static final int LEVELS = 5;
+
+    private final long tickNanos;
+    private final long originNanos;
+    private final List<Timeout<T>> buckets = new ArrayList<>(LEVELS * SIZE);
+
+    private long currentTick;
+    private int size;
+
+    public TimingWheel(long tickNanos, long originNanos) {
+        this.tickNanos = tickNanos;
+        this.originNanos = originNanos;
+        for (int index = 0; index < LEVELS * SIZE; index++) {
+            buckets.add(new Timeout<>(this, null, 0));
+        }
+    }
+
+    public synchronized Timeout<T> schedule(T payload, long deadlineNanos) {
+        long deadlineTick = Math.max(0, ceilDiv(deadlineNanos - originNanos, tickNanos));
+        Timeout<T> timeout = new Timeout<>(this, payload, deadlineTick);
+        place(timeout, currentTick + 1);
+        size++;
+        return timeout;
+    }
+
+    public List<T> advance(long nowNanos) {
+        long targetTick = (nowNanos - originNanos) / tickNanos;
+        List<T> expired = new ArrayList<>();
+
+        synchronized (this) {
+            while (currentTick < targetTick) {
+                currentTick++;
+
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                        for (Timeout<T> timeout : detach(level, slot(currentTick, level))) {
+                            place(timeout, currentTick);
+                        }
+                    }
+                }
+
+                for (Timeout<T> timeout : detach(0, slot(currentTick, 0))) {
+                    if (timeout.deadlineTick <= currentTick) {
+                        size--;
+                        expired.add(timeout.payload);
+                    } else {
+                        place(timeout, currentTick);
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void place(Timeout<T> timeout, long earliestTick) {
+        long deadline = Math.max(timeout.deadlineTick, earliestTick);
+        long delta = deadline - currentTick;
+
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+
+        Timeout<T> head = buckets.get(level * SIZE + slot(deadline, level));
+        timeout.prev = head.prev;
+        timeout.next = head;
+        head.prev.next = timeout;
+        head.prev = timeout;
+    }
+
+    private List<Timeout<T>> detach(int level, int slot) {
+        Timeout<T> head = buckets.get(level * SIZE + slot);
+        List<Timeout<T>> detached = new ArrayList<>();
+        Timeout<T> node = head.next;
+        while (node != head) {
+            Timeout<T> next = node.next;
+            node.prev = null;
+            node.next = null;
+            detached.add(node);
+            node = next;
+        }
+        head.next = head;
+        head.prev = head;
+        return detached;
+    }
+
+    private static int slot(long tick, int level) {
+        return (int) (tick >>> (BITS * level)) & MASK;
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return -Math.floorDiv(-value, divisor);
+    }
+
+    public static final class Timeout<T> {
+
+        private final TimingWheel<T> wheel;
+        private final T payload;
+        private final long deadlineTick;
+
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(TimingWheel<T> wheel, T payload, long deadlineTick) {
+            this.wheel = wheel;
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+            this.prev = this;
+            this.next = this;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        public boolean cancel() {
+            synchronized (wheel) {
+                if (prev == null) {
+                    return false;
+                }
+                prev.next = next;
+                next.prev = prev;
+                prev = null;
+                next = null;
+                wheel.size--;
+                return true;
+            }
+        }
+    }
+}
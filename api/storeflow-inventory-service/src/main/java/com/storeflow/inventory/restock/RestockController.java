@@ -0,0 +1,48 @@
+package com.storeflow.inventory.restock;
+
+import com.storeflow.inventory.jsonapi.JsonApiData;
+import com.storeflow.inventory.jsonapi.JsonApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@Tag(name = "Restock", description = "Bulk stock updates from warehouse files")
+@RestController
+@RequestMapping("/api/v1/inventories/restock")
+public class RestockController {
+
+    static final String CSV = "text/csv";
+
+    private final RestockService service;
+
+    public RestockController(RestockService service) {
+        this.service = service;
+    }
+
+    @Operation(
+            summary = "Restock from a stock file",
+            description = "Sets the stock of every product listed in a CSV body of product_id,quantity lines "
+                    + "(an optional header line is skipped). Lines for unknown products or that do not parse are "
+                    + "skipped and counted; the response summarizes what changed."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Stock file applied",
+            content = @Content(schema = @Schema(implementation = JsonApiResponse.class))
+    )
+    @PostMapping(consumes = CSV)
+    public ResponseEntity<JsonApiResponse<RestockSummary>> restock(HttpServletRequest request) throws IOException {
+        RestockSummary summary = service.restock(request.getInputStream());
+        JsonApiData<RestockSummary> data = new JsonApiData<>("inventory-restocks", summary.loadId(), summary);
+        return ResponseEntity.ok(new JsonApiResponse<>(data));
+    }
+}
@@ -0,0 +1,8 @@
+package com.storeflow.inventory.restock;
+
+record RestockCounts(long staged, long inserted, long unchanged) {
+
+    long updated() {
+        return staged - inserted - unchanged;
+    }
+}
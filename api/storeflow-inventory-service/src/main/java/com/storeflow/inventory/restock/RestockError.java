@@ -0,0 +1,7 @@
+package com.storeflow.inventory.restock;
+
+public record RestockError(
+        long line,
+        String detail
+) {
+}
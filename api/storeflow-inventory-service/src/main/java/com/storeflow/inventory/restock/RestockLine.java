@@ -0,0 +1,4 @@
+package com.storeflow.inventory.restock;
+
+record RestockLine(long line, long productId, int quantity) {
+}
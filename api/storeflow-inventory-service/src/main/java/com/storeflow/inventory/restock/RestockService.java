@@ -0,0 +1,199 @@
+package com.storeflow.inventory.restock;
+
+import com.storeflow.inventory.domain.InventoryProductCount;
+import com.storeflow.inventory.domain.InventoryService;
+import com.storeflow.inventory.domain.InventoryTransactions;
+import com.storeflow.inventory.ledger.StockLedger;
+import com.storeflow.inventory.products.ProductsClient;
+import com.storeflow.inventory.reservation.ReservationConflictException;
+import com.storeflow.inventory.reservation.ReservedStock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies a full stock file of {@code product_id,quantity} lines. The file is read as a stream
+ * and staged in chunks, its product ids are checked against products-service as one set once the
+ * whole file is staged, and the staged lines are then merged into {@code inventories} with one
+ * statement. Later lines for the same product win. Products whose stock lives in the ledger, is
+ * reserved or is split across slots go through {@link InventoryService#setQuantity} one by one.
+ */
+@Service
+public class RestockService {
+
+    private static final Logger log = LoggerFactory.getLogger(RestockService.class);
+
+    private final RestockStaging staging;
+    private final ProductsClient productsClient;
+    private final InventoryService inventoryService;
+    private final StockLedger stockLedger;
+    private final ReservedStock reservedStock;
+    private final InventoryProductCount productCount;
+    private final InventoryTransactions transactions;
+    private final RestockProperties properties;
+
+    public RestockService(RestockStaging staging,
+                          ProductsClient productsClient,
+                          InventoryService inventoryService,
+                          StockLedger stockLedger,
+                          ReservedStock reservedStock,
+                          InventoryProductCount productCount,
+                          InventoryTransactions transactions,
+                          RestockProperties properties) {
+        this.staging = staging;
+        this.productsClient = productsClient;
+        this.inventoryService = inventoryService;
+        this.stockLedger = stockLedger;
+        this.reservedStock = reservedStock;
+        this.productCount = productCount;
+        this.transactions = transactions;
+        this.properties = properties;
+    }
+
+    public RestockSummary restock(InputStream csv) throws IOException {
+        long started = System.nanoTime();
+        String loadId = UUID.randomUUID().toString();
+        int chunkSize = Math.max(1, properties.getChunkSize());
+
+        List<RestockError> errors = new ArrayList<>();
+        Set<Long> productIds = new HashSet<>();
+        Map<Long, Integer> individually = new LinkedHashMap<>();
+        long lines = 0;
+        long invalid = 0;
+
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+            List<RestockLine> chunk = new ArrayList<>(chunkSize);
+            String text;
+            long number = 0;
+            while ((text = reader.readLine()) != null) {
+                number++;
+                if (text.isBlank() || (number == 1 && isHeader(text))) {
+                    continue;
+                }
+                lines++;
+
+                RestockLine line;
+                try {
+                    line = parse(number, text);
+                } catch (IllegalArgumentException ex) {
+                    invalid++;
+                    addError(errors, new RestockError(number, ex.getMessage()));
+                    continue;
+                }
+
+                productIds.add(line.productId());
+                if (stockLedger.isHot(line.productId()) || reservedStock.of(line.productId()) > 0) {
+                    individually.remove(line.productId());
+                    individually.put(line.productId(), line.quantity());
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    stage(loadId, chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                stage(loadId, chunk);
+            }
+
+            Set<Long> unknown = productIds.isEmpty() ? Set.of() : productsClient.findUnknown(productIds);
+            individually.keySet().removeAll(unknown);
+
+            RestockCounts counts = transactions.execute("restock-merge", status -> {
+                if (!unknown.isEmpty()) {
+                    staging.removeProducts(loadId, unknown);
+                }
+                staging.removeSuperseded(loadId);
+                individually.putAll(staging.takeSlotted(loadId));
+                RestockCounts merged = staging.count(loadId);
+                staging.merge(loadId);
+                productCount.added(merged.inserted());
+                return merged;
+            });
+
+            long applied = 0;
+            long rejected = 0;
+            for (Map.Entry<Long, Integer> entry : individually.entrySet()) {
+                try {
+                    inventoryService.setQuantity(entry.getKey(), entry.getValue());
+                    applied++;
+                } catch (ReservationConflictException ex) {
+                    rejected++;
+                    addError(errors, new RestockError(0, ex.getMessage()));
+                }
+            }
+
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            log.info(
+                    "InventoryRestockCompletedEvent loadId={} lines={} invalid={} unknownProducts={} inserted={} "
+                            + "updated={} unchanged={} appliedIndividually={} rejected={} elapsedMs={}",
+                    loadId, lines, invalid, unknown.size(), counts.inserted(), counts.updated(),
+                    counts.unchanged(), applied, rejected, elapsedMs
+            );
+
+            return new RestockSummary(loadId, lines, invalid, unknown.size(), counts.inserted(), counts.updated(),
+                    counts.unchanged(), applied, rejected, elapsedMs, errors);
+        } finally {
+            transactions.execute("restock-clear", status -> {
+                staging.clear(loadId);
+                return null;
+            });
+        }
+    }
+
+    private void stage(String loadId, List<RestockLine> chunk) {
+        transactions.execute("restock-load", status -> {
+            staging.load(loadId, chunk);
+            return null;
+        });
+    }
+
+    private void addError(List<RestockError> errors, RestockError error) {
+        if (errors.size() < properties.getMaxErrors()) {
+            errors.add(error);
+        }
+    }
+
+    private static boolean isHeader(String text) {
+        return text.strip().toLowerCase().startsWith("product");
+    }
+
+    static RestockLine parse(long number, String text) {
+        String[] fields = text.split(",", -1);
+        if (fields.length != 2) {
+            throw new IllegalArgumentException("Expected product_id,quantity");
+        }
+
+        long productId;
+        int quantity;
+        try {
+            productId = Long.parseLong(fields[0].strip());
+            quantity = Integer.parseInt(fields[1].strip());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("product_id and quantity must be integers");
+        }
+        if (productId <= 0) {
+            throw new IllegalArgumentException("product_id must be positive");
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("quantity must not be negative");
+        }
+        return new RestockLine(number, productId, quantity);
+    }
+}
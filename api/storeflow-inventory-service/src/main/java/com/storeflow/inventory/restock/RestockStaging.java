@@ -0,0 +1,197 @@
+package com.storeflow.inventory.restock;
+
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based side of a restock. Lines are loaded into {@code inventory_restock_lines} under a load
+ * id, with {@code COPY} on PostgreSQL and batched inserts elsewhere, and then merged into
+ * {@code inventories} with a single statement. Every method must run inside a transaction.
+ */
+@Component
+public class RestockStaging {
+
+    static final String TABLE = "inventory_restock_lines";
+
+    private static final String COPY = "copy " + TABLE + " (load_id, line, product_id, quantity) "
+            + "from stdin with (format csv)";
+
+    private static final String INSERT = "insert into " + TABLE + " (load_id, line, product_id, quantity) "
+            + "values (?, ?, ?, ?)";
+
+    private static final String SUPERSEDED = """
+            delete from inventory_restock_lines s
+             where s.load_id = ?
+               and exists (select 1
+                             from inventory_restock_lines t
+                            where t.load_id = s.load_id
+                              and t.product_id = s.product_id
+                              and t.line > s.line)
+            """;
+
+    private static final String SLOTTED = """
+            select s.product_id, s.quantity
+              from inventory_restock_lines s
+             where s.load_id = ?
+               and exists (select 1 from inventories i where i.product_id = s.product_id and i.slot > 0)
+            """;
+
+    private static final String DELETE_SLOTTED = """
+            delete from inventory_restock_lines s
+             where s.load_id = ?
+               and exists (select 1 from inventories i where i.product_id = s.product_id and i.slot > 0)
+            """;
+
+    private static final String COUNT = """
+            select count(*),
+                   coalesce(sum(case when i.id is null then 1 else 0 end), 0),
+                   coalesce(sum(case when i.quantity = s.quantity then 1 else 0 end), 0)
+              from inventory_restock_lines s
+              left join inventories i on i.product_id = s.product_id and i.slot = 0
+             where s.load_id = ?
+            """;
+
+    private static final String UPSERT = """
+            insert into inventories (product_id, slot, quantity, version)
+            select s.product_id, 0, s.quantity, 0
+              from inventory_restock_lines s
+             where s.load_id = ?
+            on conflict (product_id, slot) do update
+               set quantity = excluded.quantity,
+                   version = inventories.version + 1
+             where inventories.quantity is distinct from excluded.quantity
+            """;
+
+    private static final String MERGE = """
+            merge into inventories i
+            using (select product_id, quantity from inventory_restock_lines where load_id = ?) s
+               on i.product_id = s.product_id and i.slot = 0
+             when matched and (i.quantity is null or i.quantity <> s.quantity) then
+                  update set quantity = s.quantity, version = i.version + 1
+             when not matched then
+                  insert (product_id, slot, quantity, version) values (s.product_id, 0, s.quantity, 0)
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final RestockProperties properties;
+
+    public RestockStaging(JdbcTemplate jdbc, RestockProperties properties) {
+        this.jdbc = jdbc;
+        this.properties = properties;
+    }
+
+    public void load(String loadId, List<RestockLine> lines) {
+        jdbc.execute((ConnectionCallback<Void>) connection -> {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                copy(connection.unwrap(PGConnection.class), loadId, lines);
+            } else {
+                insert(connection, loadId, lines);
+            }
+            return null;
+        });
+    }
+
+    public void removeProducts(String loadId, Collection<Long> productIds) {
+        List<Object[]> args = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            args.add(new Object[]{loadId, productId});
+        }
+        jdbc.batchUpdate("delete from " + TABLE + " where load_id = ? and product_id = ?", args);
+    }
+
+    /**
+     * Keeps only the last line of each product, so the file can be applied as one statement.
+     */
+    public void removeSuperseded(String loadId) {
+        jdbc.update(SUPERSEDED, loadId);
+    }
+
+    /**
+     * Takes out the lines of products whose stock is split across several slots, which the merge
+     * does not handle, and returns their quantities.
+     */
+    public Map<Long, Integer> takeSlotted(String loadId) {
+        Map<Long, Integer> slotted = new LinkedHashMap<>();
+        jdbc.query(SLOTTED, rs -> {
+            slotted.put(rs.getLong(1), rs.getInt(2));
+        }, loadId);
+        if (!slotted.isEmpty()) {
+            jdbc.update(DELETE_SLOTTED, loadId);
+        }
+        return slotted;
+    }
+
+    public RestockCounts count(String loadId) {
+        return jdbc.queryForObject(COUNT, (rs, row) -> new RestockCounts(rs.getLong(1), rs.getLong(2), rs.getLong(3)),
+                loadId);
+    }
+
+    /**
+     * Creates slot 0 for new products and overwrites the quantity of existing ones, bumping the
+     * version only when it changes. Uses {@code INSERT ... ON CONFLICT} on the (product_id, slot)
+     * unique index on PostgreSQL and a standard {@code MERGE} elsewhere.
+     */
+    public void merge(String loadId) {
+        jdbc.execute((ConnectionCallback<Void>) connection -> {
+            String sql = connection.isWrapperFor(PGConnection.class) ? UPSERT : MERGE;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, loadId);
+                statement.executeUpdate();
+            }
+            return null;
+        });
+    }
+
+    public void clear(String loadId) {
+        jdbc.update("delete from " + TABLE + " where load_id = ?", loadId);
+    }
+
+    private static void copy(PGConnection connection, String loadId, List<RestockLine> lines) throws SQLException {
+        StringBuilder csv = new StringBuilder(lines.size() * 64);
+        for (RestockLine line : lines) {
+            csv.append(loadId).append(',')
+                    .append(line.line()).append(',')
+                    .append(line.productId()).append(',')
+                    .append(line.quantity()).append('\n');
+        }
+        try {
+            connection.getCopyAPI().copyIn(COPY, new StringReader(csv.toString()));
+        } catch (IOException ex) {
+            throw new SQLException("COPY into " + TABLE + " failed", ex);
+        }
+    }
+
+    private void insert(Connection connection, String loadId, List<RestockLine> lines) throws SQLException {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            int pending = 0;
+            for (RestockLine line : lines) {
+                statement.setString(1, loadId);
+                statement.setLong(2, line.line());
+                statement.setLong(3, line.productId());
+                statement.setInt(4, line.quantity());
+                statement.addBatch();
+                if (++pending == batchSize) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.storeflow.inventory.restock;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Line of a stock file being loaded. Only declared so the schema update creates the staging
+ * table; {@link RestockStaging} reads and writes it with plain SQL.
+ */
+@Entity
+@Table(
+        name = RestockStaging.TABLE,
+        indexes = @Index(name = "idx_inventory_restock_lines_load_product", columnList = "load_id, product_id")
+)
+public class RestockStagingLine {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "load_id", nullable = false, length = 36)
+    private String loadId;
+
+    @Column(nullable = false)
+    private Long line;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    protected RestockStagingLine() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getLoadId() {
+        return loadId;
+    }
+
+    public Long getLine() {
+        return line;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+}
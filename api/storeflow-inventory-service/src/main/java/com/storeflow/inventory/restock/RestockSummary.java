@@ -0,0 +1,22 @@
+package com.storeflow.inventory.restock;
+
+import java.util.List;
+
+/**
+ * Outcome of a stock file. {@code errors} lists at most {@code inventory.restock.max-errors}
+ * entries; the counters always cover the whole file.
+ */
+public record RestockSummary(
+        String loadId,
+        long lines,
+        long invalid,
+        long unknownProducts,
+        long inserted,
+        long updated,
+        long unchanged,
+        long appliedIndividually,
+        long rejected,
+        long elapsedMs,
+        List<RestockError> errors
+) {
+}
@@ -1,9 +1,19 @@
 package com.storeflow.inventory.domain;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeflow.inventory.jsonapi.ETagged;
+import com.storeflow.inventory.jsonapi.JsonApiCursorMeta;
+import com.storeflow.inventory.jsonapi.JsonApiCursorResponse;
 import com.storeflow.inventory.jsonapi.JsonApiData;
+import com.storeflow.inventory.jsonapi.JsonApiLinks;
 import com.storeflow.inventory.jsonapi.JsonApiListResponse;
+import com.storeflow.inventory.jsonapi.JsonApiPurchaseMeta;
+import com.storeflow.inventory.jsonapi.JsonApiPurchaseResponse;
 import com.storeflow.inventory.jsonapi.JsonApiResponse;
+import com.storeflow.inventory.jsonapi.PageCount;
+import com.storeflow.inventory.jsonapi.SparseFields;
+import com.storeflow.inventory.purchase.BatchPurchaseRejectedException;
+import com.storeflow.inventory.purchase.PurchaseLineFailure;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -14,11 +24,16 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(InventoryController.class)
@@ -88,8 +103,8 @@ class InventoryControllerTest {
         JsonApiResponse<InventoryResponse> serviceResponse =
                 new JsonApiResponse<>(data);
 
-        when(inventoryService.findByProductId(10L))
-                .thenReturn(serviceResponse);
+        when(inventoryService.findTaggedByProductId(10L))
+                .thenReturn(new ETagged<>(serviceResponse, "\"v1\""));
 
         mockMvc.perform(
                         get("/api/v1/inventories")
@@ -99,10 +114,28 @@ class InventoryControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data.type").value("inventories"))
                 .andExpect(jsonPath("$.data.id").value("3"))
+                .andExpect(header().string("ETag", "\"v1\""))
                 .andExpect(jsonPath("$.data.attributes.productId").value(10))
                 .andExpect(jsonPath("$.data.attributes.quantity").value(7));
     }
 
+    @Test
+    void findByProductId_withMatchingIfNoneMatch_shouldReturn304WithoutBody() throws Exception {
+        JsonApiResponse<InventoryResponse> serviceResponse = new JsonApiResponse<>(
+                new JsonApiData<>("inventories", "3", new InventoryResponse(3L, 10L, 7)));
+        when(inventoryService.findTaggedByProductId(10L))
+                .thenReturn(new ETagged<>(serviceResponse, "\"v1\""));
+
+        mockMvc.perform(
+                        get("/api/v1/inventories")
+                                .param("productId", "10")
+                                .header("If-None-Match", "\"v1\"")
+                )
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"v1\""))
+                .andExpect(content().string(""));
+    }
+
     @Test
     void findPage_shouldReturn200AndJsonApiListResponse() throws Exception {
         InventoryResponse firstInventory = new InventoryResponse(
@@ -135,8 +168,8 @@ class InventoryControllerTest {
                         null
                 );
 
-        when(inventoryService.findPage(0, 10))
-                .thenReturn(serviceResponse);
+        when(inventoryService.findTaggedPage(0, 10, PageCount.EXACT, SparseFields.ALL))
+                .thenReturn(new ETagged<>(serviceResponse, "\"p1\""));
 
         mockMvc.perform(
                         get("/api/v1/inventories/page")
@@ -151,4 +184,203 @@ class InventoryControllerTest {
                 .andExpect(jsonPath("$.data[0].attributes.quantity").value(5))
                 .andExpect(jsonPath("$.data[1].id").value("2"));
     }
+
+    @Test
+    void findPage_withUnknownPageCount_shouldReturn400() throws Exception {
+        mockMvc.perform(
+                        get("/api/v1/inventories/page")
+                                .param("page[count]", "sometimes")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void export_shouldStreamOneInventoryPerLine() throws Exception {
+        when(inventoryService.export(eq(new ExportRange(0L, 3L)), eq(SparseFields.ALL), any())).thenAnswer(invocation -> {
+            Consumer<JsonApiData<InventoryResponse>> sink = invocation.getArgument(2);
+            sink.accept(new JsonApiData<>("inventories", "1", new InventoryResponse(1L, 1L, 5)));
+            sink.accept(new JsonApiData<>("inventories", "2", new InventoryResponse(2L, 2L, 0)));
+            return 2L;
+        });
+
+        String body = mockMvc.perform(
+                        get("/api/v1/inventories/export")
+                                .param("filter[productId][lt]", "3")
+                )
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        List<String> lines = body.lines().toList();
+        assertEquals(List.of("1", "2"), lines.subList(0, 2).stream().map(line -> readId(line)).toList());
+        assertEquals("{\"meta\":{\"count\":2}}", lines.get(2));
+        assertEquals(3, lines.size());
+    }
+
+    @Test
+    void findPageAfter_withFields_shouldPassThemToTheService() throws Exception {
+        SparseFields fields = new SparseFields(Set.of("productId"));
+        JsonApiCursorResponse<InventoryResponse> serviceResponse = new JsonApiCursorResponse<>(
+                List.of(new JsonApiData<>("inventories", "3", new InventoryResponse(null, 5L, null, null, null))),
+                new JsonApiCursorMeta(0L, 5L, 10, false),
+                new JsonApiLinks("/api/v1/inventories/page?page[after]=0&page[size]=10&fields[inventories]=productId",
+                        null)
+        );
+
+        when(inventoryService.findPageAfter(0L, 10, fields)).thenReturn(serviceResponse);
+
+        mockMvc.perform(
+                        get("/api/v1/inventories/page")
+                                .param("page[after]", "0")
+                                .param("fields[inventories]", "productId")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].attributes.productId").value(5))
+                .andExpect(jsonPath("$.data[0].attributes.quantity").doesNotExist())
+                .andExpect(jsonPath("$.links.next").doesNotExist());
+    }
+
+    @Test
+    void findPage_withUnknownField_shouldReturn400() throws Exception {
+        mockMvc.perform(
+                        get("/api/v1/inventories/page")
+                                .param("fields[inventories]", "price")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void export_withEmptyRange_shouldReturn400() throws Exception {
+        mockMvc.perform(
+                        get("/api/v1/inventories/export")
+                                .param("filter[productId][gte]", "3")
+                                .param("filter[productId][lt]", "3")
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findPageAfter_shouldReturn200AndNextLink() throws Exception {
+        JsonApiCursorResponse<InventoryResponse> serviceResponse = new JsonApiCursorResponse<>(
+                List.of(new JsonApiData<>("inventories", "3", new InventoryResponse(3L, 5L, 2))),
+                new JsonApiCursorMeta(4L, 5L, 1, true),
+                new JsonApiLinks("/api/v1/inventories/page?page[after]=4&page[size]=1",
+                        "/api/v1/inventories/page?page[after]=5&page[size]=1")
+        );
+
+        when(inventoryService.findPageAfter(4L, 1, SparseFields.ALL)).thenReturn(serviceResponse);
+
+        mockMvc.perform(
+                        get("/api/v1/inventories/page")
+                                .param("page[after]", "4")
+                                .param("page[size]", "1")
+                                .accept(MediaType.APPLICATION_JSON)
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].attributes.productId").value(5))
+                .andExpect(jsonPath("$.meta.nextAfter").value(5))
+                .andExpect(jsonPath("$.links.next").value("/api/v1/inventories/page?page[after]=5&page[size]=1"));
+    }
+
+    @Test
+    void purchaseAll_shouldReturn200AndOneResultPerLine() throws Exception {
+        BatchPurchaseRequest request = new BatchPurchaseRequest(List.of(
+                new PurchaseLineRequest(1L, 2),
+                new PurchaseLineRequest(2L, 1)
+        ));
+
+        JsonApiPurchaseResponse<PurchaseLineResponse> serviceResponse =
+                new JsonApiPurchaseResponse<>(
+                        List.of(
+                                new JsonApiData<>("purchases", "0", new PurchaseLineResponse(10L, 1L, 2, 8)),
+                                new JsonApiData<>("purchases", "1", new PurchaseLineResponse(20L, 2L, 1, 4))
+                        ),
+                        new JsonApiPurchaseMeta(2, 2, 3)
+                );
+
+        when(inventoryService.purchaseAll(request.lines()))
+                .thenReturn(serviceResponse);
+
+        mockMvc.perform(
+                        post("/api/v1/inventories/purchase/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request))
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].type").value("purchases"))
+                .andExpect(jsonPath("$.data[0].attributes.remainingQuantity").value(8))
+                .andExpect(jsonPath("$.data[1].attributes.productId").value(2))
+                .andExpect(jsonPath("$.meta.lines").value(2))
+                .andExpect(jsonPath("$.meta.quantity").value(3));
+    }
+
+    @Test
+    void purchaseAll_rejectedLines_shouldReturn400WithLinePointers() throws Exception {
+        BatchPurchaseRequest request = new BatchPurchaseRequest(List.of(
+                new PurchaseLineRequest(1L, 2),
+                new PurchaseLineRequest(2L, 9)
+        ));
+
+        when(inventoryService.purchaseAll(request.lines()))
+                .thenThrow(new BatchPurchaseRejectedException(List.of(
+                        new PurchaseLineFailure(2L, 400, "Not enough stock", "Not enough stock for product 2").atLine(1)
+                )));
+
+        mockMvc.perform(
+                        post("/api/v1/inventories/purchase/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request))
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].title").value("Not enough stock"))
+                .andExpect(jsonPath("$.errors[0].source.pointer").value("/lines/1"));
+    }
+
+    @Test
+    void purchaseAll_emptyLines_shouldReturn400() throws Exception {
+        mockMvc.perform(
+                        post("/api/v1/inventories/purchase/batch")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"lines\":[]}")
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].title").value("Validation error"));
+    }
+
+    @Test
+    void changeSlots_shouldReturn200WithSlotQuantities() throws Exception {
+        when(inventoryService.changeSlots(1L, 3))
+                .thenReturn(new JsonApiResponse<>(new JsonApiData<>(
+                        "inventory-slots", "1", new InventorySlotsResponse(1L, 3, List.of(4, 3, 3)))));
+
+        mockMvc.perform(
+                        put("/api/v1/inventories/slots")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"productId\":1,\"slots\":3}")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.type").value("inventory-slots"))
+                .andExpect(jsonPath("$.data.attributes.slotQuantities[0]").value(4));
+    }
+
+    @Test
+    void changeSlots_tooManySlots_shouldReturn400() throws Exception {
+        mockMvc.perform(
+                        put("/api/v1/inventories/slots")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"productId\":1,\"slots\":65}")
+                )
+                .andExpect(status().isBadRequest());
+    }
+
+    private String readId(String line) {
+        try {
+            return objectMapper.readTree(line).path("id").asText();
+        } catch (Exception ex) {
+            throw new AssertionError(ex);
+        }
+    }
 }
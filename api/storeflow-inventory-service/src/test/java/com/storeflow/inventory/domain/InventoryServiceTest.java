@@ -1,16 +1,50 @@
 package com.storeflow.inventory.domain;
 
+import com.storeflow.inventory.jsonapi.ETagged;
+import com.storeflow.inventory.jsonapi.JsonApiCursorResponse;
+import com.storeflow.inventory.jsonapi.JsonApiData;
+import com.storeflow.inventory.jsonapi.JsonApiListResponse;
+import com.storeflow.inventory.jsonapi.JsonApiPaginationMeta;
+import com.storeflow.inventory.jsonapi.JsonApiPurchaseMeta;
+import com.storeflow.inventory.jsonapi.PageCount;
+import com.storeflow.inventory.jsonapi.SparseFields;
+import com.storeflow.inventory.ledger.StockLedger;
 import com.storeflow.inventory.products.ProductsClient;
 import com.storeflow.inventory.products.exception.RemoteProductNotFoundException;
+import com.storeflow.inventory.purchase.BatchPurchaseExecutor;
+import com.storeflow.inventory.purchase.BatchPurchaseRejectedException;
+import com.storeflow.inventory.purchase.PurchaseLineFailure;
+import com.storeflow.inventory.purchase.PurchaseResult;
+import com.storeflow.inventory.purchase.SlotPurchaseRouter;
+import com.storeflow.inventory.reservation.ReservationConflictException;
+import com.storeflow.inventory.reservation.ReservedStock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
@@ -24,26 +58,64 @@ class InventoryServiceTest {
     @Mock
     ProductsClient productsClient;
 
+    @Mock
+    SlotPurchaseRouter purchaseRouter;
+
+    @Mock
+    StockLedger stockLedger;
+
+    @Mock
+    BatchPurchaseExecutor batchPurchaseExecutor;
+
+    @Mock
+    InventorySlotCounts slotCounts;
+
+    @Mock
+    ReservedStock reservedStock;
+
+    @Mock
+    InventoryProductCount productCount;
+
     InventoryService service;
 
+    AtomicInteger transactionsOpened = new AtomicInteger();
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
     @BeforeEach
     void setUp() {
-        service = new InventoryService(inventoryRepository, productsClient);
+        TransactionOperations countingTransactions = new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                transactionsOpened.incrementAndGet();
+                return action.doInTransaction(new SimpleTransactionStatus());
+            }
+        };
+
+        service = new InventoryService(
+                inventoryRepository,
+                productsClient,
+                purchaseRouter,
+                stockLedger,
+                batchPurchaseExecutor,
+                slotCounts,
+                reservedStock,
+                new InventoryTransactions(countingTransactions, registry),
+                productCount
+        );
     }
 
     @Test
     void purchaseValidProductDoesNotThrow() {
-        Inventory inventory = mock(Inventory.class);
-        when(inventory.getQuantity()).thenReturn(10);
-        when(inventoryRepository.findByProductId(1L))
-                .thenReturn(Optional.of(inventory));
-        when(inventoryRepository.save(any(Inventory.class)))
-                .thenReturn(inventory);
+        when(purchaseRouter.purchase(1L, 2))
+                .thenReturn(new PurchaseResult(5L, 1L, 10, 8));
 
-        assertDoesNotThrow(() -> service.purchase(1L, 2));
+        var response = assertDoesNotThrow(() -> service.purchase(1L, 2));
 
         verify(productsClient).validateProductExists(1L);
-        verify(inventoryRepository).save(inventory);
+        verify(purchaseRouter).purchase(1L, 2);
+        assertEquals("5", response.data().id());
+        assertEquals(8, response.data().attributes().quantity());
     }
 
     @Test
@@ -53,5 +125,370 @@ class InventoryServiceTest {
 
         assertThrows(RemoteProductNotFoundException.class,
                 () -> service.purchase(99L, 1));
+
+        verifyNoInteractions(purchaseRouter);
+    }
+
+    @Test
+    void purchaseTrackedProductUsesStockLedger() {
+        when(stockLedger.tracks(3L)).thenReturn(true);
+        when(stockLedger.purchase(3L, 1)).thenReturn(new PurchaseResult(9L, 3L, 4, 3));
+
+        var response = service.purchase(3L, 1);
+
+        assertEquals(3, response.data().attributes().quantity());
+        verifyNoInteractions(purchaseRouter);
+    }
+
+    @Test
+    void createOrUpdateTrackedProductSetsLedgerWithoutWritingRow() {
+        when(stockLedger.tracks(3L)).thenReturn(true);
+        when(stockLedger.set(3L, 40)).thenReturn(new PurchaseResult(9L, 3L, 2, 40));
+
+        var response = service.createOrUpdate(new InventoryRequest(3L, 40));
+
+        assertEquals("9", response.data().id());
+        assertEquals(40, response.data().attributes().quantity());
+        verify(inventoryRepository, never()).save(any());
+    }
+
+    @Test
+    void purchaseAllAggregatesLinesPerProductInProductIdOrder() {
+        when(batchPurchaseExecutor.purchaseAll(new TreeMap<>(Map.of(1L, 3, 2L, 1))))
+                .thenReturn(Map.of(
+                        1L, new PurchaseResult(10L, 1L, 10, 7),
+                        2L, new PurchaseResult(20L, 2L, 5, 4)
+                ));
+
+        var response = service.purchaseAll(List.of(
+                new PurchaseLineRequest(2L, 1),
+                new PurchaseLineRequest(1L, 1),
+                new PurchaseLineRequest(1L, 2)
+        ));
+
+        verify(productsClient).validateProductsExist(Set.of(1L, 2L));
+        assertEquals(3, response.data().size());
+        assertEquals(4, response.data().get(0).attributes().remainingQuantity());
+        assertEquals(2, response.data().get(2).attributes().purchasedQuantity());
+        assertEquals(7, response.data().get(2).attributes().remainingQuantity());
+        assertEquals(new JsonApiPurchaseMeta(3, 2, 4), response.meta());
+    }
+
+    @Test
+    void purchaseAllCreditsLedgerWhenDatabaseLinesAreRejected() {
+        when(stockLedger.tracks(1L)).thenReturn(true);
+        when(stockLedger.purchase(1L, 2)).thenReturn(new PurchaseResult(10L, 1L, 5, 3));
+        when(batchPurchaseExecutor.purchaseAll(new TreeMap<>(Map.of(2L, 9))))
+                .thenThrow(new BatchPurchaseRejectedException(List.of(
+                        new PurchaseLineFailure(2L, 400, "Not enough stock", "Not enough stock for product 2")
+                )));
+
+        BatchPurchaseRejectedException ex = assertThrows(BatchPurchaseRejectedException.class, () -> service.purchaseAll(List.of(
+                new PurchaseLineRequest(1L, 2),
+                new PurchaseLineRequest(2L, 5),
+                new PurchaseLineRequest(2L, 4)
+        )));
+
+        verify(stockLedger).credit(1L, 2);
+        assertEquals(List.of(1, 2), ex.getFailures().stream().map(PurchaseLineFailure::line).toList());
+    }
+
+    @Test
+    void purchaseAllReportsDatabaseFailuresWhenLedgerLinesAreRejected() {
+        when(stockLedger.tracks(1L)).thenReturn(true);
+        when(stockLedger.purchase(1L, 8)).thenThrow(new InsufficientStockException(1L));
+        when(batchPurchaseExecutor.findFailures(new TreeMap<>(Map.of(2L, 9, 3L, 1))))
+                .thenReturn(List.of(
+                        new PurchaseLineFailure(2L, 404, "Inventory not found", "Inventory for product 2 not found")
+                ));
+
+        BatchPurchaseRejectedException ex = assertThrows(BatchPurchaseRejectedException.class, () -> service.purchaseAll(List.of(
+                new PurchaseLineRequest(3L, 1),
+                new PurchaseLineRequest(2L, 9),
+                new PurchaseLineRequest(1L, 8)
+        )));
+
+        assertEquals(List.of(1, 2), ex.getFailures().stream().map(PurchaseLineFailure::line).toList());
+        assertEquals(List.of(404, 400), ex.getFailures().stream().map(PurchaseLineFailure::status).toList());
+        verify(batchPurchaseExecutor, never()).purchaseAll(any());
+    }
+
+    @Test
+    void createOrUpdateSpreadsQuantityOverExistingSlots() {
+        Inventory first = slot(1L, 0, 4);
+        Inventory second = slot(1L, 1, 6);
+        when(inventoryRepository.findAllForUpdateByProductId(1L)).thenReturn(List.of(first, second));
+
+        var response = service.createOrUpdate(new InventoryRequest(1L, 15));
+
+        assertEquals(15, response.data().attributes().quantity());
+        assertEquals(8, first.getQuantity());
+        assertEquals(7, second.getQuantity());
+        verify(stockLedger, never()).register(any());
+    }
+
+    @Test
+    void changeSlotsAddsRowsAndRedistributesTotal() {
+        when(inventoryRepository.findAllForUpdateByProductId(1L))
+                .thenReturn(List.of(slot(1L, 0, 10)));
+
+        var response = service.changeSlots(1L, 3);
+
+        assertEquals(List.of(4, 3, 3), response.data().attributes().slotQuantities());
+        verify(inventoryRepository).saveAll(argThat(slots -> ((List<?>) slots).size() == 3));
+        verify(slotCounts).update(1L, 3);
+    }
+
+    @Test
+    void changeSlotsRejectsLedgerTrackedProduct() {
+        when(stockLedger.tracks(3L)).thenReturn(true);
+
+        assertThrows(InventorySlotsConflictException.class, () -> service.changeSlots(3L, 4));
+
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void createOrUpdateKeepsReservedUnitsOutOfAvailableStock() {
+        when(reservedStock.of(1L)).thenReturn(4);
+        Inventory inventory = slot(1L, 0, 2);
+        when(inventoryRepository.findAllForUpdateByProductId(1L)).thenReturn(List.of(inventory));
+
+        var response = service.createOrUpdate(new InventoryRequest(1L, 10));
+
+        assertEquals(6, inventory.getQuantity());
+        assertEquals(10, response.data().attributes().quantity());
+        assertEquals(4, response.data().attributes().reservedQuantity());
+        assertEquals(6, response.data().attributes().availableQuantity());
+    }
+
+    @Test
+    void createOrUpdateBelowReservedQuantityIsRejected() {
+        when(reservedStock.of(1L)).thenReturn(4);
+
+        assertThrows(ReservationConflictException.class,
+                () -> service.createOrUpdate(new InventoryRequest(1L, 3)));
+
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void createOrUpdateValidatesProductBeforeOpeningTransaction() {
+        doThrow(new RemoteProductNotFoundException(99L))
+                .when(productsClient).validateProductExists(99L);
+
+        assertThrows(RemoteProductNotFoundException.class,
+                () -> service.createOrUpdate(new InventoryRequest(99L, 5)));
+
+        assertEquals(0, transactionsOpened.get());
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    @Test
+    void createOrUpdateRecordsConnectionHoldTime() {
+        when(inventoryRepository.findAllForUpdateByProductId(1L)).thenReturn(List.of(slot(1L, 0, 2)));
+
+        service.createOrUpdate(new InventoryRequest(1L, 5));
+
+        assertEquals(1, transactionsOpened.get());
+        assertEquals(1, registry.get("inventory.db.connection.hold").tag("operation", "upsert").timer().count());
+    }
+
+    @Test
+    void findTaggedByProductIdChangesETagWhenRowsOrReservationsChange() {
+        when(inventoryRepository.findTotalByProductId(1L))
+                .thenReturn(Optional.of(new InventoryTotal(10L, 1L, 7L, 3L)));
+        String etag = service.findTaggedByProductId(1L).etag();
+
+        assertEquals(etag, service.findTaggedByProductId(1L).etag());
+
+        when(reservedStock.of(1L)).thenReturn(2);
+        assertNotEquals(etag, service.findTaggedByProductId(1L).etag());
+
+        when(reservedStock.of(1L)).thenReturn(0);
+        when(inventoryRepository.findTotalByProductId(1L))
+                .thenReturn(Optional.of(new InventoryTotal(10L, 1L, 7L, 4L)));
+        assertNotEquals(etag, service.findTaggedByProductId(1L).etag());
+    }
+
+    @Test
+    void findTaggedPageChangesETagWhenAnyRowChanges() {
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        when(inventoryRepository.findTotals(pageRequest)).thenReturn(new PageImpl<>(
+                List.of(new InventoryTotal(10L, 1L, 7L, 3L), new InventoryTotal(20L, 2L, 5L, 1L)), pageRequest, 2));
+        String etag = service.findTaggedPage(0, 2).etag();
+
+        when(inventoryRepository.findTotals(pageRequest)).thenReturn(new PageImpl<>(
+                List.of(new InventoryTotal(10L, 1L, 7L, 3L), new InventoryTotal(20L, 2L, 4L, 2L)), pageRequest, 2));
+
+        assertNotEquals(etag, service.findTaggedPage(0, 2).etag());
+    }
+
+    @Test
+    void findTaggedPageWithCountNoneSkipsTheCountQuery() {
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        when(inventoryRepository.findTotalSlice(pageRequest))
+                .thenReturn(new SliceImpl<>(List.of(new InventoryTotal(10L, 1L, 7L)), pageRequest, true));
+
+        JsonApiPaginationMeta meta = service.findTaggedPage(0, 1, PageCount.NONE).body().meta();
+
+        assertNull(meta.totalElements());
+        assertEquals(true, meta.hasNext());
+        verify(inventoryRepository, never()).findTotals(any());
+        verify(inventoryRepository, never()).countProducts();
+    }
+
+    @Test
+    void findTaggedPageWithCountCachedReadsTheCounter() {
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        when(inventoryRepository.findTotalSlice(pageRequest))
+                .thenReturn(new SliceImpl<>(List.of(new InventoryTotal(10L, 1L, 7L)), pageRequest, true));
+        when(productCount.get()).thenReturn(4L);
+
+        JsonApiPaginationMeta meta = service.findTaggedPage(0, 1, PageCount.CACHED).body().meta();
+
+        assertEquals(4L, meta.totalElements());
+        assertEquals(4, meta.totalPages());
+    }
+
+    @Test
+    void findTaggedPageWithCountEstimatedFallsBackToExactWithoutStatistics() {
+        PageRequest pageRequest = PageRequest.of(0, 1);
+        when(inventoryRepository.findTotalSlice(pageRequest))
+                .thenReturn(new SliceImpl<>(List.of(new InventoryTotal(10L, 1L, 7L)), pageRequest, false));
+        when(inventoryRepository.estimateProductCount()).thenReturn(Optional.empty());
+        when(inventoryRepository.countProducts()).thenReturn(1L);
+
+        assertEquals(1L, service.findTaggedPage(0, 1, PageCount.ESTIMATED).body().meta().totalElements());
+    }
+
+    @Test
+    void createOrUpdateCountsNewProducts() {
+        when(inventoryRepository.findAllForUpdateByProductId(8L)).thenReturn(List.of());
+        when(inventoryRepository.save(any(Inventory.class))).thenAnswer(invocation -> {
+            Inventory inventory = invocation.getArgument(0);
+            inventory.setId(80L);
+            return inventory;
+        });
+
+        service.createOrUpdate(new InventoryRequest(8L, 5));
+
+        verify(productCount).added();
+        verify(stockLedger).register(any(Inventory.class));
+    }
+
+    @Test
+    void createOrUpdateLeavesInMemoryStateAloneWhenTheUpsertFails() {
+        when(inventoryRepository.findAllForUpdateByProductId(8L)).thenReturn(List.of());
+        when(inventoryRepository.save(any(Inventory.class))).thenThrow(new IllegalStateException("constraint"));
+
+        assertThrows(IllegalStateException.class, () -> service.createOrUpdate(new InventoryRequest(8L, 5)));
+
+        verify(productCount, never()).added();
+        verify(stockLedger, never()).register(any());
+    }
+
+    @Test
+    void exportPassesEveryProductToTheSinkInOneTransaction() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(inventoryRepository.streamTotals(0L, 10L)).thenReturn(Stream.of(
+                new InventoryTotal(10L, 1L, 7L), new InventoryTotal(20L, 2L, 5L)
+        ).onClose(() -> closed.set(true)));
+        when(stockLedger.quantityOf(1L)).thenReturn(Optional.empty());
+        when(stockLedger.quantityOf(2L)).thenReturn(Optional.of(3));
+
+        List<InventoryResponse> exported = new ArrayList<>();
+        long count = service.export(new ExportRange(0L, 10L), data -> exported.add(data.attributes()));
+
+        assertEquals(2L, count);
+        assertEquals(7, exported.get(0).quantity());
+        assertEquals(3, exported.get(1).quantity());
+        assertEquals(1, transactionsOpened.get());
+        assertEquals(true, closed.get());
+    }
+
+    @Test
+    void exportRangeRejectsEmptyRange() {
+        assertThrows(IllegalArgumentException.class, () -> new ExportRange(5L, 5L));
+    }
+
+    @Test
+    void findPageAfterResumesFromLastProductId() {
+        when(inventoryRepository.findTotalsAfter(4L, PageRequest.of(0, 3))).thenReturn(List.of(
+                new InventoryTotal(10L, 5L, 7L), new InventoryTotal(30L, 8L, 2L), new InventoryTotal(20L, 9L, 1L)));
+
+        JsonApiCursorResponse<InventoryResponse> page = service.findPageAfter(4L, 2);
+
+        assertEquals(List.of("10", "30"), page.data().stream().map(data -> data.id()).toList());
+        assertEquals(8L, page.meta().nextAfter());
+        assertEquals("/api/v1/inventories/page?page[after]=8&page[size]=2", page.links().next());
+    }
+
+    @Test
+    void findPageAfterLastPageHasNoNextLink() {
+        when(inventoryRepository.findTotalsAfter(8L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(new InventoryTotal(20L, 9L, 1L)));
+
+        JsonApiCursorResponse<InventoryResponse> page = service.findPageAfter(8L, 2);
+
+        assertEquals(9L, page.meta().nextAfter());
+        assertNull(page.links().next());
+    }
+
+    @Test
+    void findPageAfterWithIdOnlyFieldsSkipsTheStockFigures() {
+        when(inventoryRepository.findTotalIdsAfter(0L, PageRequest.of(0, 3))).thenReturn(List.of(
+                new InventoryTotal(10L, 5L), new InventoryTotal(30L, 8L)));
+
+        JsonApiCursorResponse<InventoryResponse> page =
+                service.findPageAfter(0L, 2, new SparseFields(Set.of("productId")));
+
+        assertEquals(new InventoryResponse(null, 5L, null, null, null), page.data().get(0).attributes());
+        assertEquals("/api/v1/inventories/page?page[after]=0&page[size]=2&fields[inventories]=productId",
+                page.links().self());
+        verify(inventoryRepository, never()).findTotalsAfter(anyLong(), any());
+        verifyNoInteractions(stockLedger);
+    }
+
+    @Test
+    void findTaggedPageWithFieldsKeepsOnlyThoseAttributesAndChangesTheETag() {
+        when(inventoryRepository.findTotals(PageRequest.of(0, 1))).thenReturn(
+                new PageImpl<>(List.of(new InventoryTotal(10L, 1L, 7L)), PageRequest.of(0, 1), 1));
+        when(stockLedger.quantityOf(1L)).thenReturn(Optional.empty());
+
+        String all = service.findTaggedPage(0, 1, PageCount.EXACT).etag();
+        ETagged<JsonApiListResponse<InventoryResponse>> quantities =
+                service.findTaggedPage(0, 1, PageCount.EXACT, new SparseFields(Set.of("quantity")));
+
+        assertEquals(new InventoryResponse(null, null, 7, null, null), quantities.body().data().get(0).attributes());
+        assertNotEquals(all, quantities.etag());
+    }
+
+    @Test
+    void exportWithNoFieldsStreamsOnlyIds() {
+        when(inventoryRepository.streamTotalIds(0L, 10L)).thenReturn(Stream.of(new InventoryTotal(10L, 1L)));
+
+        List<JsonApiData<InventoryResponse>> exported = new ArrayList<>();
+        service.export(new ExportRange(0L, 10L), new SparseFields(Set.of()), exported::add);
+
+        assertEquals("10", exported.get(0).id());
+        assertNull(exported.get(0).attributes());
+        verify(inventoryRepository, never()).streamTotals(anyLong(), anyLong());
+    }
+
+    @Test
+    void findPageAfterRejectsPageSizeOutOfRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.findPageAfter(0L, InventoryService.MAX_CURSOR_PAGE + 1));
+        verifyNoInteractions(inventoryRepository);
+    }
+
+    private static Inventory slot(Long productId, int slot, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setId(productId * 10 + slot);
+        inventory.setProductId(productId);
+        inventory.setSlot(slot);
+        inventory.setQuantity(quantity);
+        return inventory;
     }
 }
@@ -0,0 +1,127 @@
+package com.storeflow.inventory.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class IdempotencyFilterTest {
+
+    IdempotencyFilter filter;
+    AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyStore store = new IdempotencyStore(
+                new IdempotencyProperties(),
+                mock(IdempotencyRecordRepository.class),
+                TransactionOperations.withoutTransaction(),
+                new SimpleMeterRegistry()
+        );
+        filter = new IdempotencyFilter(store, new ObjectMapper(), new SimpleMeterRegistry());
+        calls = new AtomicInteger();
+    }
+
+    @Test
+    void duplicateRequestIsReplayedWithoutReachingController() throws Exception {
+        MockHttpServletResponse first = perform("key-1", "{\"productId\":1,\"quantity\":2}", 200);
+        MockHttpServletResponse second = perform("key-1", "{\"productId\":1,\"quantity\":2}", 200);
+
+        assertEquals(1, calls.get());
+        assertEquals(200, second.getStatus());
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void sameKeyWithDifferentBodyIsRejected() throws Exception {
+        perform("key-1", "{\"productId\":1,\"quantity\":2}", 200);
+        MockHttpServletResponse second = perform("key-1", "{\"productId\":1,\"quantity\":3}", 200);
+
+        assertEquals(1, calls.get());
+        assertEquals(422, second.getStatus());
+    }
+
+    @Test
+    void serverErrorsAreNotStored() throws Exception {
+        perform("key-1", "{}", 503);
+        MockHttpServletResponse second = perform("key-1", "{}", 200);
+
+        assertEquals(2, calls.get());
+        assertEquals(200, second.getStatus());
+    }
+
+    @Test
+    void cachedBodyCanBeReadThroughReadListener() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/inventories/purchase");
+        request.addHeader(IdempotencyFilter.HEADER, "key-1");
+        request.setContent("{}".getBytes(StandardCharsets.UTF_8));
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        AtomicInteger allDataRead = new AtomicInteger();
+
+        HttpServlet controller = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                ServletInputStream input = req.getInputStream();
+                input.setReadListener(new ReadListener() {
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        while (input.isReady() && !input.isFinished()) {
+                            received.write(input.read());
+                        }
+                    }
+
+                    @Override
+                    public void onAllDataRead() {
+                        allDataRead.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        throw new AssertionError(t);
+                    }
+                });
+            }
+        };
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(controller));
+
+        assertEquals("{}", received.toString(StandardCharsets.UTF_8));
+        assertEquals(1, allDataRead.get());
+    }
+
+    private MockHttpServletResponse perform(String key, String body, int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/inventories/purchase");
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        HttpServlet controller = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                int call = calls.incrementAndGet();
+                String received = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                res.setStatus(status);
+                res.getWriter().write("{\"call\":" + call + ",\"body\":" + received + "}");
+            }
+        };
+        filter.doFilter(request, response, new MockFilterChain(controller));
+        return response;
+    }
+}
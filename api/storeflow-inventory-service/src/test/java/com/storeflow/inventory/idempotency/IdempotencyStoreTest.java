@@ -0,0 +1,144 @@
+package com.storeflow.inventory.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+    @Mock
+    IdempotencyRecordRepository records;
+
+    IdempotencyProperties properties;
+
+    IdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IdempotencyProperties();
+        store = new IdempotencyStore(
+                properties,
+                records,
+                TransactionOperations.withoutTransaction(),
+                new SimpleMeterRegistry()
+        );
+    }
+
+    @Test
+    void completedKeyIsReplayed() {
+        assertEquals(IdempotencyStore.Outcome.STARTED, store.claim("k", 1L).outcome());
+        assertEquals(IdempotencyStore.Outcome.IN_PROGRESS, store.claim("k", 1L).outcome());
+
+        store.complete("k", 1L, 200, new byte[]{1, 2});
+
+        IdempotencyStore.Claim claim = store.claim("k", 1L);
+        assertEquals(IdempotencyStore.Outcome.REPLAY, claim.outcome());
+        assertArrayEquals(new byte[]{1, 2}, claim.entry().body());
+        assertEquals(IdempotencyStore.Outcome.MISMATCH, store.claim("k", 2L).outcome());
+        verifyNoInteractions(records);
+    }
+
+    @Test
+    void abandonedKeyCanBeRetried() {
+        store.claim("k", 1L);
+        store.abandon("k");
+
+        assertEquals(IdempotencyStore.Outcome.STARTED, store.claim("k", 1L).outcome());
+    }
+
+    @Test
+    void oldestGenerationIsDroppedWhenFull() {
+        properties.setMaxEntries(4);
+
+        store.claim("a", 1L);
+        store.complete("a", 1L, 200, new byte[0]);
+        store.claim("b", 1L);
+        store.claim("c", 1L);
+        store.claim("d", 1L);
+        store.claim("e", 1L);
+
+        assertEquals(IdempotencyStore.Outcome.STARTED, store.claim("a", 1L).outcome());
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    void persistentRecordIsReplayedAfterRestart() {
+        properties.setPersistent(true);
+        when(records.findById("k")).thenReturn(Optional.of(
+                new IdempotencyRecord("k", 1L, 201, new byte[]{9}, Instant.now().minusSeconds(5))));
+
+        IdempotencyStore.Claim claim = store.claim("k", 1L);
+
+        assertEquals(IdempotencyStore.Outcome.REPLAY, claim.outcome());
+        assertEquals(201, claim.entry().status());
+    }
+
+    @Test
+    void persistentStoreSavesCompletedResponses() {
+        properties.setPersistent(true);
+        when(records.insertPending(eq("k"), eq(1L), any(Instant.class))).thenReturn(1);
+
+        assertEquals(IdempotencyStore.Outcome.STARTED, store.claim("k", 1L).outcome());
+        store.complete("k", 1L, 200, new byte[]{1});
+
+        verify(records).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void persistentKeyClaimedByAnotherInstanceIsInProgress() {
+        properties.setPersistent(true);
+        when(records.findById("k")).thenReturn(Optional.empty(), Optional.of(
+                new IdempotencyRecord("k", 1L, 0, new byte[0], Instant.now())));
+        when(records.insertPending(eq("k"), eq(1L), any(Instant.class))).thenReturn(0);
+
+        assertEquals(IdempotencyStore.Outcome.IN_PROGRESS, store.claim("k", 1L).outcome());
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void persistentExpiredKeyIsClaimedAgain() {
+        properties.setPersistent(true);
+        when(records.insertPending(eq("k"), eq(1L), any(Instant.class))).thenReturn(0);
+        when(records.reclaimExpired(eq("k"), eq(1L), any(byte[].class), any(Instant.class), any(Instant.class)))
+                .thenReturn(1);
+
+        assertEquals(IdempotencyStore.Outcome.STARTED, store.claim("k", 1L).outcome());
+    }
+
+    @Test
+    void persistentSaveFailureDoesNotFailTheRequest() {
+        properties.setPersistent(true);
+        when(records.insertPending(eq("k"), eq(1L), any(Instant.class))).thenReturn(1);
+        when(records.save(any(IdempotencyRecord.class))).thenThrow(new IllegalStateException("database down"));
+
+        store.claim("k", 1L);
+        store.complete("k", 1L, 200, new byte[]{1});
+
+        assertEquals(IdempotencyStore.Outcome.REPLAY, store.claim("k", 1L).outcome());
+    }
+
+    @Test
+    void persistentAbandonReleasesThePendingRow() {
+        properties.setPersistent(true);
+        when(records.insertPending(eq("k"), eq(1L), any(Instant.class))).thenReturn(1);
+
+        store.claim("k", 1L);
+        store.abandon("k");
+
+        verify(records).deletePending("k");
+    }
+}
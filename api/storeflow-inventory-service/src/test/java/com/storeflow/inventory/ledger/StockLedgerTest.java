@@ -0,0 +1,137 @@
+package com.storeflow.inventory.ledger;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerTest {
+
+    @Mock
+    LedgerPersistence persistence;
+
+    @TempDir
+    Path walDirectory;
+
+    StockLedgerProperties properties;
+
+    StockLedger ledger;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        properties = new StockLedgerProperties();
+        properties.setEnabled(true);
+        properties.setHotProductIds(Set.of(1L));
+        properties.setStripes(4);
+        properties.setWalDirectory(walDirectory.toString());
+        properties.setFlushIntervalMs(60_000);
+
+        when(persistence.load(1L)).thenReturn(Optional.of(inventory(10)));
+
+        ledger = new StockLedger(properties, persistence, new SimpleMeterRegistry());
+        ledger.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.stop();
+    }
+
+    @Test
+    void purchase_decrementsCounterAndRejectsOversell() {
+        ledger.purchase(1L, 4);
+        ledger.purchase(1L, 6);
+
+        assertEquals(0, ledger.quantityOf(1L).orElseThrow());
+        assertThrows(InsufficientStockException.class, () -> ledger.purchase(1L, 1));
+    }
+
+    @Test
+    void purchaseOnCommit_logsOnlyCommittedPurchasesAndReturnsRolledBackUnits() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            ledger.purchaseOnCommit(1L, 3);
+            assertEquals(7, ledger.quantityOf(1L).orElseThrow());
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+            assertEquals(10, ledger.quantityOf(1L).orElseThrow());
+
+            TransactionSynchronizationManager.initSynchronization();
+            ledger.purchaseOnCommit(1L, 4);
+            complete(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clear();
+        }
+
+        ledger.flush();
+
+        assertEquals(6, ledger.quantityOf(1L).orElseThrow());
+        verify(persistence).apply(anyInt(), eq(1L), eq(Map.of(1L, -4L)));
+    }
+
+    @Test
+    void flush_appliesNetDeltaPerProduct() {
+        ledger.purchase(1L, 2);
+        ledger.purchase(1L, 3);
+        ledger.set(1L, 20);
+
+        ledger.flush();
+
+        verify(persistence).apply(anyInt(), eq(3L), eq(Map.of(1L, 10L)));
+    }
+
+    @Test
+    void start_replaysUnflushedDeltasFromWriteAheadLog() throws Exception {
+        ledger.purchase(1L, 2);
+        ledger.purchase(1L, 1);
+
+        // The first instance is left running, as after a crash, until the restart has replayed its log.
+        StockLedger crashed = ledger;
+        try {
+            ledger = new StockLedger(properties, persistence, new SimpleMeterRegistry());
+            ledger.start();
+
+            verify(persistence).apply(anyInt(), eq(2L), eq(Map.of(1L, -3L)));
+            verify(persistence, never()).apply(anyInt(), anyLong(), eq(Map.of()));
+        } finally {
+            crashed.stop();
+        }
+    }
+
+    private static void complete(int status) {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    private static Inventory inventory(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setId(5L);
+        inventory.setProductId(1L);
+        inventory.setQuantity(quantity);
+        return inventory;
+    }
+}
@@ -0,0 +1,46 @@
+package com.storeflow.inventory.products;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_neverMissesAnAddedKey() {
+        BloomFilter filter = BloomFilter.forCapacity(10_000, 0.01, 1 << 20);
+        for (long id = 1; id <= 10_000; id++) {
+            filter.add(id);
+        }
+
+        for (long id = 1; id <= 10_000; id++) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void mightContain_falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = BloomFilter.forCapacity(10_000, 0.01, 1 << 20);
+        for (long id = 1; id <= 10_000; id++) {
+            filter.add(id);
+        }
+
+        int falsePositives = 0;
+        for (long id = 10_001; id <= 110_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void forCapacity_respectsMemoryBudget() {
+        BloomFilter filter = BloomFilter.forCapacity(1_000_000, 0.001, 4096);
+
+        assertEquals(4096, filter.sizeBytes());
+        assertTrue(filter.expectedFalsePositiveRate(1_000_000) > 0.001);
+    }
+}
@@ -0,0 +1,212 @@
+package com.storeflow.inventory.products;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HedgedRequestsTest {
+
+    ProductsHedgingProperties properties;
+    SimpleMeterRegistry registry;
+    ExecutorService executor;
+    HedgedRequests hedging;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductsHedgingProperties();
+        properties.setEnabled(true);
+        properties.setMinSamples(100);
+        properties.setMinDelayMs(5);
+        properties.setBudgetPercent(100);
+        registry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+        hedging = new HedgedRequests(properties, registry, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_disabled_runsOnCallerThread() {
+        properties.setEnabled(false);
+
+        String thread = hedging.execute(() -> Thread.currentThread().getName());
+
+        assertEquals(Thread.currentThread().getName(), thread);
+    }
+
+    @Test
+    void execute_withoutEnoughSamples_neverHedges() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = hedging.execute(() -> {
+            calls.incrementAndGet();
+            sleep(50);
+            return "primary";
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+        assertEquals(0.0, registry.counter("inventory.products.hedge.sent").count());
+    }
+
+    @Test
+    void execute_slowPrimary_hedgeWinsAndPrimaryIsInterrupted() throws Exception {
+        primeWithFastSamples();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch primaryInterrupted = new CountDownLatch(1);
+
+        String result = hedging.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException ex) {
+                    primaryInterrupted.countDown();
+                    throw new ResourceAccessException("interrupted");
+                }
+                return "primary";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertEquals(1.0, registry.counter("inventory.products.hedge.sent").count());
+        assertEquals(1.0, registry.counter("inventory.products.hedge.wins").count());
+        assertTrue(primaryInterrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_slowPrimary_abortsItsTransportRequestAndRecordsItsLatency() throws Exception {
+        properties.setMinSamples(1);
+        hedging.recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch aborted = new CountDownLatch(1);
+
+        String result = hedging.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                HedgedRequests.onAbort(aborted::countDown);
+                awaitIgnoringInterrupts(aborted);
+                throw new ResourceAccessException("aborted");
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertTrue(aborted.await(1, TimeUnit.SECONDS));
+        properties.setMinSamples(3);
+        assertTrue(hedging.thresholdNanos() >= 0, "the abandoned primary should be a latency sample");
+    }
+
+    @Test
+    void execute_primaryConnectionFailureAfterHedge_usesHedgeAnswer() {
+        primeWithFastSamples();
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = hedging.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(100);
+                throw new ResourceAccessException("reset");
+            }
+            sleep(200);
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+    }
+
+    @Test
+    void execute_budgetExhausted_waitsForPrimary() {
+        properties.setBudgetPercent(0);
+        primeWithFastSamples();
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = hedging.execute(() -> {
+            calls.incrementAndGet();
+            sleep(50);
+            return "primary";
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+        assertEquals(1.0, registry.counter("inventory.products.hedge.budget.exhausted").count());
+    }
+
+    @Test
+    void execute_noThreadForTheHedge_skipsItAndKeepsTheBudget() {
+        executor.shutdownNow();
+        ThreadPoolExecutor single = new ThreadPoolExecutor(
+                1, 1, 60, TimeUnit.SECONDS, new SynchronousQueue<>());
+        executor = single;
+        hedging = new HedgedRequests(properties, registry, single);
+        primeWithFastSamples();
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = hedging.execute(() -> {
+            calls.incrementAndGet();
+            sleep(50);
+            return "primary";
+        });
+
+        assertEquals("primary", result);
+        assertEquals(1, calls.get());
+        assertEquals(0.0, registry.counter("inventory.products.hedge.sent").count());
+        assertEquals(1.0, registry.counter("inventory.products.hedge.saturated").count());
+        assertEquals(0.0, registry.counter("inventory.products.hedge.budget.exhausted").count());
+    }
+
+    @Test
+    void execute_noThreadForThePrimary_runsOnCallerThread() {
+        executor.shutdownNow();
+        executor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new SynchronousQueue<>());
+        executor.shutdown();
+        hedging = new HedgedRequests(properties, registry, executor);
+
+        String thread = hedging.execute(() -> Thread.currentThread().getName());
+
+        assertEquals(Thread.currentThread().getName(), thread);
+        assertEquals(1.0, registry.counter("inventory.products.hedge.saturated").count());
+    }
+
+    private void primeWithFastSamples() {
+        for (int sample = 0; sample < 200; sample++) {
+            hedging.recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Blocks like a socket read does: interrupts are ignored and only an abort releases it.
+     */
+    private static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (latch.getCount() > 0 && System.nanoTime() < deadline) {
+            try {
+                latch.await(10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ignored) {
+                // keep blocking
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.storeflow.inventory.products;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    static final long WINDOW = TimeUnit.SECONDS.toNanos(60);
+
+    @Test
+    void percentile_belowMinSamples_isUnknown() {
+        LatencyHistogram histogram = new LatencyHistogram(WINDOW, 0);
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(5), 0);
+
+        assertEquals(-1, histogram.percentile(0.95, 10, 0));
+    }
+
+    @Test
+    void percentile_returnsUpperBoundOfBucketWithinGrowthFactor() {
+        LatencyHistogram histogram = new LatencyHistogram(WINDOW, 0);
+        for (int sample = 0; sample < 95; sample++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(10), 0);
+        }
+        for (int sample = 0; sample < 5; sample++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(900), 0);
+        }
+
+        long p95 = histogram.percentile(0.95, 10, 0);
+
+        assertTrue(p95 >= TimeUnit.MILLISECONDS.toNanos(10), "p95=" + p95);
+        assertTrue(p95 < TimeUnit.MILLISECONDS.toNanos(13), "p95=" + p95);
+    }
+
+    @Test
+    void percentile_forgetsSamplesOlderThanTwoWindows() {
+        LatencyHistogram histogram = new LatencyHistogram(WINDOW, 0);
+        for (int sample = 0; sample < 20; sample++) {
+            histogram.record(TimeUnit.SECONDS.toNanos(1), 0);
+        }
+
+        assertTrue(histogram.percentile(0.5, 10, WINDOW) > 0);
+        assertEquals(-1, histogram.percentile(0.5, 10, 2 * WINDOW));
+    }
+}
@@ -0,0 +1,178 @@
+package com.storeflow.inventory.products;
+
+import com.storeflow.inventory.products.exception.ProductsServiceUnavailableException;
+import com.storeflow.inventory.products.exception.RemoteProductNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProductExistenceCacheTest {
+
+    ProductsCacheProperties properties;
+    SimpleMeterRegistry registry;
+    AtomicLong now;
+    List<Runnable> refreshes;
+    ProductExistenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductsCacheProperties();
+        properties.setPositiveTtlSeconds(100);
+        properties.setNegativeTtlSeconds(10);
+        properties.setRefreshAheadRatio(0.8);
+        properties.setMaxStaleSeconds(1000);
+        registry = new SimpleMeterRegistry();
+        now = new AtomicLong(1);
+        refreshes = new ArrayList<>();
+        cache = new ProductExistenceCache(properties, registry, now::get, refreshes::add);
+    }
+
+    @Test
+    void check_freshEntry_doesNotCallLookup() {
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.check(1L, id -> calls.incrementAndGet() > 0);
+        advanceSeconds(50);
+        cache.check(1L, id -> calls.incrementAndGet() > 0);
+
+        assertEquals(1, calls.get());
+        assertEquals(0, refreshes.size());
+    }
+
+    @Test
+    void check_negativeEntry_expiresAfterNegativeTtl() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(RemoteProductNotFoundException.class,
+                () -> cache.check(2L, id -> calls.incrementAndGet() < 0));
+        assertThrows(RemoteProductNotFoundException.class,
+                () -> cache.check(2L, id -> calls.incrementAndGet() < 0));
+        assertEquals(1, calls.get());
+
+        advanceSeconds(11);
+        assertDoesNotThrow(() -> cache.check(2L, id -> calls.incrementAndGet() > 0));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void check_pastRefreshAhead_refreshesOnceInBackground() {
+        AtomicInteger calls = new AtomicInteger();
+        cache.check(1L, id -> calls.incrementAndGet() > 0);
+
+        advanceSeconds(85);
+        cache.check(1L, id -> calls.incrementAndGet() > 0);
+        cache.check(1L, id -> calls.incrementAndGet() > 0);
+
+        assertEquals(1, calls.get());
+        assertEquals(1, refreshes.size());
+
+        refreshes.get(0).run();
+        assertEquals(2, calls.get());
+        assertEquals(1.0, registry.counter("inventory.products.cache.refreshes").count());
+
+        advanceSeconds(50);
+        cache.check(1L, id -> calls.incrementAndGet() > 0);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void check_staleEntry_servedWhenProductsServiceIsDown() {
+        cache.check(1L, id -> true);
+        advanceSeconds(200);
+
+        assertDoesNotThrow(() -> cache.check(1L, id -> {
+            throw new ProductsServiceUnavailableException("down", null);
+        }));
+        assertEquals(1.0, registry.counter("inventory.products.cache.stale").count());
+    }
+
+    @Test
+    void check_entryPastMaxStale_isLoadedAgain() {
+        cache.check(1L, id -> true);
+        advanceSeconds(1200);
+
+        assertThrows(ProductsServiceUnavailableException.class, () -> cache.check(1L, id -> {
+            throw new ProductsServiceUnavailableException("down", null);
+        }));
+    }
+
+    @Test
+    void check_disabled_alwaysCallsLookup() {
+        properties.setEnabled(false);
+        AtomicInteger calls = new AtomicInteger();
+
+        cache.check(1L, id -> calls.incrementAndGet() > 0);
+        cache.check(1L, id -> calls.incrementAndGet() > 0);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void checkAll_loadsOnlyUnknownAndStaleIdsInOneCall() {
+        cache.check(1L, id -> true);
+        cache.check(2L, id -> true);
+        advanceSeconds(150);
+        cache.check(2L, id -> true);
+
+        List<Collection<Long>> calls = new ArrayList<>();
+        cache.checkAll(List.of(1L, 2L, 3L), ids -> {
+            calls.add(ids);
+            return Set.of();
+        });
+
+        assertEquals(List.of(List.of(3L, 1L)), calls);
+    }
+
+    @Test
+    void checkAll_missingId_isCachedAsNegative() {
+        assertThrows(RemoteProductNotFoundException.class,
+                () -> cache.checkAll(List.of(1L, 2L), ids -> Set.of(2L)));
+
+        assertDoesNotThrow(() -> cache.check(1L, id -> {
+            throw new AssertionError("should be cached");
+        }));
+        assertThrows(RemoteProductNotFoundException.class, () -> cache.check(2L, id -> {
+            throw new AssertionError("should be cached");
+        }));
+    }
+
+    @Test
+    void checkAll_reportsEveryMissingId() {
+        assertThrows(RemoteProductNotFoundException.class,
+                () -> cache.checkAll(List.of(5L), ids -> Set.of(5L)));
+
+        RemoteProductNotFoundException ex = assertThrows(RemoteProductNotFoundException.class,
+                () -> cache.checkAll(List.of(5L, 1L, 9L, 4L), ids -> Set.of(9L, 4L)));
+
+        assertEquals(List.of(4L, 5L, 9L), ex.getProductIds());
+    }
+
+    @Test
+    void checkAll_productsServiceDown_servesStaleButNotUnknownIds() {
+        cache.check(1L, id -> true);
+        advanceSeconds(200);
+
+        assertDoesNotThrow(() -> cache.checkAll(List.of(1L), ids -> {
+            throw new ProductsServiceUnavailableException("down");
+        }));
+        assertThrows(ProductsServiceUnavailableException.class, () -> cache.checkAll(List.of(1L, 2L), ids -> {
+            throw new ProductsServiceUnavailableException("down");
+        }));
+    }
+
+    private void advanceSeconds(long seconds) {
+        now.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+}
@@ -0,0 +1,111 @@
+package com.storeflow.inventory.products;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductIdPrefilterTest {
+
+    @Mock
+    RestTemplate restTemplate;
+
+    SimpleMeterRegistry registry;
+    ProductIdPrefilter prefilter;
+
+    @BeforeEach
+    void setUp() {
+        ProductsServiceProperties serviceProperties = new ProductsServiceProperties();
+        serviceProperties.setBaseUrl("http://products-service:8081");
+        serviceProperties.setApiKey("test-api-key");
+        ProductsPrefilterProperties properties = new ProductsPrefilterProperties();
+        properties.setPageSize(2);
+        registry = new SimpleMeterRegistry();
+        prefilter = new ProductIdPrefilter(restTemplate, serviceProperties, properties, registry);
+    }
+
+    @Test
+    void rejects_beforeFirstRebuild_letsEverythingThrough() {
+        assertFalse(prefilter.rejects(3L));
+    }
+
+    @Test
+    void rebuild_loadsEveryPageAndRejectsUnknownIds() {
+        stubPage(0L, page(List.of(1L, 2L), 2, true));
+        stubPage(2L, page(List.of(5L), 5, false));
+
+        assertEquals(3, prefilter.rebuild());
+
+        assertFalse(prefilter.rejects(1L));
+        assertFalse(prefilter.rejects(5L));
+        assertTrue(prefilter.rejects(3L));
+        assertEquals(1.0, registry.counter("inventory.products.prefilter.rejections").count());
+        assertTrue(registry.get("inventory.products.prefilter.size").gauge().value() > 0);
+    }
+
+    @Test
+    void rejects_idAboveHighestKnown_letsItThrough() {
+        stubPage(0L, page(List.of(1L, 2L), 2, false));
+        prefilter.rebuild();
+
+        assertFalse(prefilter.rejects(3L));
+    }
+
+    @Test
+    void add_productCreatedAfterExport_isNoLongerRejected() {
+        stubPage(0L, page(List.of(1L, 5L), 5, false));
+        prefilter.rebuild();
+
+        prefilter.add(3L);
+
+        assertFalse(prefilter.rejects(3L));
+    }
+
+    @Test
+    void add_whileRebuilding_survivesTheSwap() {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ProductIdExportResponse.class), eq(0L), eq(2)))
+                .thenAnswer(invocation -> {
+                    prefilter.add(3L);
+                    return new ResponseEntity<>(page(List.of(1L, 5L), 5, false), HttpStatus.OK);
+                });
+
+        prefilter.rebuild();
+
+        assertFalse(prefilter.rejects(3L));
+        assertTrue(prefilter.rejects(4L));
+    }
+
+    private void stubPage(long after, ProductIdExportResponse page) {
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(ProductIdExportResponse.class),
+                eq(after),
+                eq(2)
+        )).thenReturn(new ResponseEntity<>(page, HttpStatus.OK));
+    }
+
+    private static ProductIdExportResponse page(List<Long> ids, long nextAfter, boolean hasMore) {
+        return new ProductIdExportResponse(ids, new ProductIdExportResponse.Meta(nextAfter, 3, hasMore, 0L));
+    }
+}
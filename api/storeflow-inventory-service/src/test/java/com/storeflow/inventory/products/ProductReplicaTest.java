@@ -0,0 +1,183 @@
+package com.storeflow.inventory.products;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductReplicaTest {
+
+    @Mock
+    RestTemplate restTemplate;
+
+    ProductsReplicaProperties properties;
+    SimpleMeterRegistry registry;
+    ProductIdPrefilter prefilter;
+    ProductReplica replica;
+
+    @BeforeEach
+    void setUp() {
+        ProductsServiceProperties serviceProperties = new ProductsServiceProperties();
+        serviceProperties.setBaseUrl("http://products-service:8081");
+        serviceProperties.setApiKey("test-api-key");
+        properties = new ProductsReplicaProperties();
+        properties.setPageSize(2);
+        properties.setSnapshotPageSize(2);
+        registry = new SimpleMeterRegistry();
+        prefilter = new ProductIdPrefilter(restTemplate, serviceProperties, new ProductsPrefilterProperties(), registry);
+        replica = new ProductReplica(restTemplate, serviceProperties, properties, prefilter, registry);
+    }
+
+    @Test
+    void confirms_beforeFirstSync_fallsBackToRemote() {
+        assertFalse(replica.confirms(1L));
+        assertEquals(1.0, registry.counter("inventory.products.replica.fallbacks").count());
+    }
+
+    @Test
+    void sync_appliesCreatesAndDeletesAcrossPages() {
+        stubIds(0L, ids(0L, 0, false));
+        stubPage(0L, page(2, 3, true, change(1, 1, "created"), change(2, 2, "created")));
+        stubPage(2L, page(3, 3, false, change(3, 2, "deleted")));
+
+        assertEquals(3, replica.sync());
+
+        assertTrue(replica.confirms(1L));
+        assertFalse(replica.confirms(2L));
+        assertFalse(replica.confirms(3L));
+        assertEquals(3L, replica.appliedSeq());
+        assertEquals(0.0, registry.get("inventory.products.replica.lag").gauge().value());
+        assertEquals(1.0, registry.get("inventory.products.replica.size").gauge().value());
+    }
+
+    @Test
+    void sync_resumesFromLastAppliedSequence() {
+        stubIds(0L, ids(0L, 0, false));
+        stubPage(0L, page(1, 1, false, change(1, 1, "created")));
+        stubPage(1L, page(2, 2, false, change(2, 5, "created")));
+
+        replica.sync();
+        replica.sync();
+
+        assertTrue(replica.confirms(5L));
+        assertEquals(2L, replica.appliedSeq());
+    }
+
+    @Test
+    void confirms_whenLastSyncIsTooOld_fallsBackToRemote() {
+        properties.setMaxLagSeconds(0);
+        stubIds(0L, ids(0L, 0, false));
+        stubPage(0L, page(1, 1, false, change(1, 1, "created")));
+
+        replica.sync();
+
+        assertFalse(replica.confirms(1L));
+    }
+
+    @Test
+    void sync_loadsTheIdExportAndFollowsTheFeedFromItsSequence() {
+        stubIds(0L, ids(4L, 40, true, 1L, 4L));
+        stubIds(4L, ids(9L, 41, false, 9L));
+        stubPage(40L, page(41, 41, false, change(41, 4, "deleted")));
+
+        assertEquals(1, replica.sync());
+
+        assertTrue(replica.confirms(1L));
+        assertFalse(replica.confirms(4L));
+        assertTrue(replica.confirms(9L));
+        assertEquals(41L, replica.appliedSeq());
+        assertEquals(2.0, registry.get("inventory.products.replica.size").gauge().value());
+    }
+
+    @Test
+    void sync_whenTheFeedWasPrunedPastTheReplica_reloadsTheIdExport() {
+        stubIds(0L, ids(1L, 0, false, 1L));
+        stubPage(0L, page(0, 0, false));
+        replica.sync();
+        stubIds(0L, ids(2L, 90, false, 2L));
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(ProductChangeFeedResponse.class),
+                eq(0L),
+                eq(2)
+        )).thenThrow(HttpClientErrorException.create(HttpStatus.GONE, "Gone", null, null, null));
+        stubPage(90L, page(91, 91, false, change(91, 3, "created")));
+
+        assertEquals(1, replica.sync());
+
+        assertFalse(replica.confirms(1L));
+        assertTrue(replica.confirms(2L));
+        assertTrue(replica.confirms(3L));
+        assertEquals(91L, replica.appliedSeq());
+    }
+
+    @Test
+    void confirms_idsAboveTheIntRange_areTracked() {
+        stubIds(0L, ids(5_000_000_000L, 1, false, 5_000_000_000L));
+        stubPage(1L, page(1, 1, false));
+
+        replica.sync();
+
+        assertTrue(replica.confirms(5_000_000_000L));
+    }
+
+    private void stubIds(long after, ProductIdExportResponse page) {
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(ProductIdExportResponse.class),
+                eq(after),
+                eq(2)
+        )).thenReturn(new ResponseEntity<>(page, HttpStatus.OK));
+    }
+
+    private static ProductIdExportResponse ids(long nextAfter, long lastSeq, boolean hasMore, Long... ids) {
+        return new ProductIdExportResponse(
+                List.of(ids), new ProductIdExportResponse.Meta(nextAfter, ids.length, hasMore, lastSeq));
+    }
+
+    private void stubPage(long since, ProductChangeFeedResponse page) {
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(ProductChangeFeedResponse.class),
+                eq(since),
+                eq(2)
+        )).thenReturn(new ResponseEntity<>(page, HttpStatus.OK));
+    }
+
+    private static ProductChangeFeedResponse page(long nextSince,
+                                                  long lastSeq,
+                                                  boolean hasMore,
+                                                  ProductChangeFeedResponse.Item... items) {
+        return new ProductChangeFeedResponse(
+                List.of(items), new ProductChangeFeedResponse.Meta(nextSince, lastSeq, hasMore));
+    }
+
+    private static ProductChangeFeedResponse.Item change(long seq, long productId, String type) {
+        return new ProductChangeFeedResponse.Item(new ProductChangeFeedResponse.Change(seq, productId, type));
+    }
+}
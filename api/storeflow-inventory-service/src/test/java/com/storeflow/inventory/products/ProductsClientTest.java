@@ -2,21 +2,31 @@ package com.storeflow.inventory.products;
 
 import com.storeflow.inventory.products.exception.ProductsServiceUnavailableException;
 import com.storeflow.inventory.products.exception.RemoteProductNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -29,11 +39,26 @@ class ProductsClientTest {
     @Mock
     ProductsServiceProperties properties;
 
+    ProductsCacheProperties cacheProperties;
+
     ProductsClient client;
 
     @BeforeEach
     void setUp() {
-        client = new ProductsClient(restTemplate, properties);
+        cacheProperties = new ProductsCacheProperties();
+        ProductExistenceCache cache =
+                new ProductExistenceCache(cacheProperties, new SimpleMeterRegistry());
+        HedgedRequests hedging =
+                new HedgedRequests(new ProductsHedgingProperties(), new SimpleMeterRegistry(), Runnable::run);
+        ProductsReplicaProperties replicaProperties = new ProductsReplicaProperties();
+        replicaProperties.setEnabled(false);
+        ProductsPrefilterProperties prefilterProperties = new ProductsPrefilterProperties();
+        prefilterProperties.setEnabled(false);
+        ProductIdPrefilter prefilter =
+                new ProductIdPrefilter(restTemplate, properties, prefilterProperties, new SimpleMeterRegistry());
+        ProductReplica replica =
+                new ProductReplica(restTemplate, properties, replicaProperties, prefilter, new SimpleMeterRegistry());
+        client = new ProductsClient(restTemplate, properties, cache, hedging, replica, prefilter, Runnable::run);
     }
 
     @Test
@@ -41,23 +66,22 @@ class ProductsClientTest {
         when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
         when(properties.getApiKey()).thenReturn("test-api-key");
 
-        ResponseEntity<String> response =
-                new ResponseEntity<>("{\"data\":{\"id\":\"1\"}}", HttpStatus.OK);
+        ResponseEntity<Void> response = new ResponseEntity<>(HttpStatus.OK);
 
         when(restTemplate.exchange(
                 anyString(),
-                eq(HttpMethod.GET),
+                eq(HttpMethod.HEAD),
                 any(HttpEntity.class),
-                eq(String.class)
+                eq(Void.class)
         )).thenReturn(response);
 
         assertDoesNotThrow(() -> client.assertProductExists(1L));
 
         verify(restTemplate, times(1)).exchange(
                 contains("/api/v1/products/1"),
-                eq(HttpMethod.GET),
+                eq(HttpMethod.HEAD),
                 any(HttpEntity.class),
-                eq(String.class)
+                eq(Void.class)
         );
     }
 
@@ -68,9 +92,9 @@ class ProductsClientTest {
 
         when(restTemplate.exchange(
                 anyString(),
-                eq(HttpMethod.GET),
+                eq(HttpMethod.HEAD),
                 any(HttpEntity.class),
-                eq(String.class)
+                eq(Void.class)
         )).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
 
         assertThrows(RemoteProductNotFoundException.class,
@@ -82,14 +106,13 @@ class ProductsClientTest {
         when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
         when(properties.getApiKey()).thenReturn("test-api-key");
 
-        ResponseEntity<String> okResponse =
-                new ResponseEntity<>("{\"data\":{\"id\":\"1\"}}", HttpStatus.OK);
+        ResponseEntity<Void> okResponse = new ResponseEntity<>(HttpStatus.OK);
 
         when(restTemplate.exchange(
                 anyString(),
-                eq(HttpMethod.GET),
+                eq(HttpMethod.HEAD),
                 any(HttpEntity.class),
-                eq(String.class)
+                eq(Void.class)
         ))
                 .thenThrow(new ResourceAccessException("timeout"))
                 .thenReturn(okResponse);
@@ -98,9 +121,9 @@ class ProductsClientTest {
 
         verify(restTemplate, times(2)).exchange(
                 anyString(),
-                eq(HttpMethod.GET),
+                eq(HttpMethod.HEAD),
                 any(HttpEntity.class),
-                eq(String.class)
+                eq(Void.class)
         );
     }
 
@@ -111,9 +134,9 @@ class ProductsClientTest {
 
         when(restTemplate.exchange(
                 anyString(),
-                eq(HttpMethod.GET),
+                eq(HttpMethod.HEAD),
                 any(HttpEntity.class),
-                eq(String.class)
+                eq(Void.class)
         )).thenThrow(new ResourceAccessException("timeout"));
 
         assertThrows(ProductsServiceUnavailableException.class,
@@ -121,9 +144,265 @@ class ProductsClientTest {
 
         verify(restTemplate, times(3)).exchange(
                 anyString(),
-                eq(HttpMethod.GET),
+                eq(HttpMethod.HEAD),
+                any(HttpEntity.class),
+                eq(Void.class)
+        );
+    }
+
+    @Test
+    void assertProductExists_serviceUnavailable_throwsUnavailable() {
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.HEAD),
+                any(HttpEntity.class),
+                eq(Void.class)
+        )).thenThrow(HttpServerErrorException.create(
+                HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", HttpHeaders.EMPTY, null, null));
+
+        assertThrows(ProductsServiceUnavailableException.class,
+                () -> client.assertProductExists(1L));
+    }
+
+    @Test
+    void validateProductExists_serviceUnavailableAfterExpiry_servesStalePositive() {
+        cacheProperties.setPositiveTtlSeconds(0);
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.HEAD),
+                any(HttpEntity.class),
+                eq(Void.class)
+        )).thenReturn(new ResponseEntity<>(HttpStatus.OK))
+                .thenThrow(HttpServerErrorException.create(
+                        HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", HttpHeaders.EMPTY, null, null));
+
+        client.validateProductExists(1L);
+        assertDoesNotThrow(() -> client.validateProductExists(1L));
+
+        verify(restTemplate, times(2)).exchange(
+                anyString(),
+                eq(HttpMethod.HEAD),
                 any(HttpEntity.class),
-                eq(String.class)
+                eq(Void.class)
         );
     }
+
+    @Test
+    void validateProductExists_secondCallIsServedFromCache() {
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+
+        ResponseEntity<Void> response = new ResponseEntity<>(HttpStatus.OK);
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.HEAD),
+                any(HttpEntity.class),
+                eq(Void.class)
+        )).thenReturn(response);
+
+        client.validateProductExists(1L);
+        client.validateProductExists(1L);
+
+        verify(restTemplate, times(1)).exchange(
+                anyString(),
+                eq(HttpMethod.HEAD),
+                any(HttpEntity.class),
+                eq(Void.class)
+        );
+    }
+
+    @Test
+    void validateProductExists_notFound_isCachedAsNegative() {
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.HEAD),
+                any(HttpEntity.class),
+                eq(Void.class)
+        )).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        assertThrows(RemoteProductNotFoundException.class, () -> client.validateProductExists(99L));
+        assertThrows(RemoteProductNotFoundException.class, () -> client.validateProductExists(99L));
+
+        verify(restTemplate, times(1)).exchange(
+                anyString(),
+                eq(HttpMethod.HEAD),
+                any(HttpEntity.class),
+                eq(Void.class)
+        );
+    }
+
+    @Test
+    void validateProductsExist_splitsIdsIntoBatchRequests() {
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+        when(properties.getBatchSize()).thenReturn(2);
+
+        ResponseEntity<ProductBatchResponse> response = new ResponseEntity<>(
+                new ProductBatchResponse(new ProductBatchResponse.Meta(List.of())), HttpStatus.OK);
+
+        when(restTemplate.exchange(
+                contains("filter[id]"),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(ProductBatchResponse.class),
+                anyString()
+        )).thenReturn(response);
+
+        client.validateProductsExist(List.of(1L, 2L, 3L, 2L, 4L, 5L));
+        client.validateProductsExist(List.of(5L, 1L));
+
+        verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ProductBatchResponse.class), eq("1,2"));
+        verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ProductBatchResponse.class), eq("3,4"));
+        verify(restTemplate).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ProductBatchResponse.class), eq("5"));
+        verifyNoMoreInteractions(restTemplate);
+    }
+
+    @Test
+    void validateProductsExist_missingId_throwsRemoteProductNotFoundException() {
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+        when(properties.getBatchSize()).thenReturn(100);
+
+        ResponseEntity<ProductBatchResponse> response = new ResponseEntity<>(
+                new ProductBatchResponse(new ProductBatchResponse.Meta(List.of(7L))), HttpStatus.OK);
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(ProductBatchResponse.class),
+                anyString()
+        )).thenReturn(response);
+
+        RemoteProductNotFoundException ex = assertThrows(RemoteProductNotFoundException.class,
+                () -> client.validateProductsExist(List.of(1L, 7L)));
+        assertTrue(ex.getMessage().contains("7"));
+        assertThrows(RemoteProductNotFoundException.class, () -> client.validateProductExists(7L));
+        client.validateProductExists(1L);
+
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ProductBatchResponse.class), anyString());
+        verifyNoMoreInteractions(restTemplate);
+    }
+
+    @Test
+    void findUnknown_returnsMissingIdsWithoutThrowing() {
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+        when(properties.getBatchSize()).thenReturn(100);
+
+        ResponseEntity<ProductBatchResponse> response = new ResponseEntity<>(
+                new ProductBatchResponse(new ProductBatchResponse.Meta(List.of(7L))), HttpStatus.OK);
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(ProductBatchResponse.class),
+                eq("1,7,9")
+        )).thenReturn(response);
+
+        assertEquals(Set.of(7L), client.findUnknown(List.of(1L, 7L, 9L)));
+    }
+
+    @Test
+    void validateProductExistsAsync_notFound_completesExceptionally() {
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.HEAD),
+                any(HttpEntity.class),
+                eq(Void.class)
+        )).thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        CompletionException ex = assertThrows(CompletionException.class,
+                () -> client.validateProductExistsAsync(99L).join());
+        assertInstanceOf(RemoteProductNotFoundException.class, ex.getCause());
+    }
+
+    @Test
+    void validateProductExists_rejectedByPrefilter_isConfirmedThroughTheNegativeCache() {
+        ProductIdPrefilter prefilter = mock(ProductIdPrefilter.class);
+        when(prefilter.rejects(42L)).thenReturn(true);
+        ProductReplica replica = mock(ProductReplica.class);
+        ProductsClient prefiltered = new ProductsClient(restTemplate, properties,
+                new ProductExistenceCache(cacheProperties, new SimpleMeterRegistry()),
+                new HedgedRequests(new ProductsHedgingProperties(), new SimpleMeterRegistry(), Runnable::run),
+                replica, prefilter, Runnable::run);
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.HEAD), any(HttpEntity.class), eq(Void.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+
+        assertThrows(RemoteProductNotFoundException.class, () -> prefiltered.validateProductExists(42L));
+        assertThrows(RemoteProductNotFoundException.class,
+                () -> prefiltered.validateProductsExist(List.of(42L)));
+
+        verify(restTemplate, times(1)).exchange(anyString(), eq(HttpMethod.HEAD), any(HttpEntity.class),
+                eq(Void.class));
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void validateProductExists_productCreatedBelowHighestIdAfterLastSync_stillValidates() {
+        ProductsServiceProperties serviceProperties = new ProductsServiceProperties();
+        serviceProperties.setBaseUrl("http://products-service:8081");
+        serviceProperties.setApiKey("test-api-key");
+        ProductsPrefilterProperties prefilterProperties = new ProductsPrefilterProperties();
+        ProductIdPrefilter prefilter =
+                new ProductIdPrefilter(restTemplate, serviceProperties, prefilterProperties, new SimpleMeterRegistry());
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+                eq(ProductIdExportResponse.class), eq(0L), eq(prefilterProperties.getPageSize())))
+                .thenReturn(new ResponseEntity<>(new ProductIdExportResponse(List.of(1L, 50L),
+                        new ProductIdExportResponse.Meta(50L, 2, false, 0L)), HttpStatus.OK));
+        prefilter.rebuild();
+        ProductReplica replica = mock(ProductReplica.class);
+        ProductsClient prefiltered = new ProductsClient(restTemplate, serviceProperties,
+                new ProductExistenceCache(cacheProperties, new SimpleMeterRegistry()),
+                new HedgedRequests(new ProductsHedgingProperties(), new SimpleMeterRegistry(), Runnable::run),
+                replica, prefilter, Runnable::run);
+        when(restTemplate.exchange(eq("http://products-service:8081/api/v1/products/7"), eq(HttpMethod.HEAD),
+                any(HttpEntity.class), eq(Void.class))).thenReturn(ResponseEntity.ok().build());
+
+        assertTrue(prefilter.rejects(7L));
+        assertDoesNotThrow(() -> prefiltered.validateProductExists(7L));
+    }
+
+    @Test
+    void findUnknown_rejectedByPrefilter_asksProductsService() {
+        when(properties.getBaseUrl()).thenReturn("http://products-service:8081");
+        when(properties.getApiKey()).thenReturn("test-api-key");
+        when(properties.getBatchSize()).thenReturn(100);
+        ProductIdPrefilter prefilter = mock(ProductIdPrefilter.class);
+        when(prefilter.rejects(42L)).thenReturn(true);
+        ProductsClient prefiltered = new ProductsClient(restTemplate, properties,
+                mock(ProductExistenceCache.class), new HedgedRequests(new ProductsHedgingProperties(),
+                new SimpleMeterRegistry(), Runnable::run), mock(ProductReplica.class), prefilter, Runnable::run);
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                any(HttpEntity.class),
+                eq(ProductBatchResponse.class),
+                eq("42")
+        )).thenReturn(new ResponseEntity<>(
+                new ProductBatchResponse(new ProductBatchResponse.Meta(List.of())), HttpStatus.OK));
+
+        assertEquals(Set.of(), prefiltered.findUnknown(List.of(42L)));
+    }
 }
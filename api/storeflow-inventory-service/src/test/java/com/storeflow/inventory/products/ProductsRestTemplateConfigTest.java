@@ -0,0 +1,56 @@
+package com.storeflow.inventory.products;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class ProductsRestTemplateConfigTest {
+
+    ProductsRestTemplateConfig config = new ProductsRestTemplateConfig();
+    ProductsServiceProperties properties;
+    ProductsHttpProperties http;
+    SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ProductsServiceProperties();
+        properties.setConnectTimeoutMs(2000);
+        properties.setReadTimeoutMs(2000);
+        http = new ProductsHttpProperties();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void productsRequestFactory_pooled_usesHttpComponentsAndPublishesPoolMetrics() throws Exception {
+        http.setTransport(ProductsHttpTransport.POOLED);
+
+        ClientHttpRequestFactory factory = config.productsRequestFactory(properties, http, registry);
+
+        assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, factory);
+        assertNotNull(registry.find("httpcomponents.httpclient.pool.total.max").gauge());
+        ((HttpComponentsClientHttpRequestFactory) factory).destroy();
+    }
+
+    @Test
+    void productsRequestFactory_http2_usesJdkHttpClient() {
+        http.setTransport(ProductsHttpTransport.HTTP2);
+
+        assertInstanceOf(JdkClientHttpRequestFactory.class,
+                config.productsRequestFactory(properties, http, registry));
+    }
+
+    @Test
+    void productsRequestFactory_simple_usesHttpUrlConnection() {
+        http.setTransport(ProductsHttpTransport.SIMPLE);
+
+        assertInstanceOf(SimpleClientHttpRequestFactory.class,
+                config.productsRequestFactory(properties, http, registry));
+    }
+}
@@ -0,0 +1,78 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryNotFoundException;
+import com.storeflow.inventory.domain.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AtomicPurchaseStrategyTest {
+
+    @Mock
+    InventoryRepository repository;
+
+    SimpleMeterRegistry registry;
+
+    AtomicPurchaseStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        strategy = new AtomicPurchaseStrategy(
+                repository,
+                TransactionOperations.withoutTransaction(),
+                new PurchaseMetrics(registry)
+        );
+    }
+
+    @Test
+    void purchase_conditionalUpdateApplied_returnsNewQuantity() {
+        when(repository.decrementIfAvailable(1L, 0, 3)).thenReturn(1);
+        when(repository.findByProductIdAndSlot(1L, 0)).thenReturn(Optional.of(inventory(7L, 1L, 7)));
+
+        PurchaseResult result = strategy.purchase(1L, 0, 3);
+
+        assertEquals(7L, result.inventoryId());
+        assertEquals(10, result.previousQuantity());
+        assertEquals(7, result.newQuantity());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void purchase_noRowUpdated_throwsInsufficientStock() {
+        when(repository.decrementIfAvailable(1L, 0, 30)).thenReturn(0);
+        when(repository.findByProductIdAndSlot(1L, 0)).thenReturn(Optional.of(inventory(7L, 1L, 7)));
+
+        assertThrows(InsufficientStockException.class, () -> strategy.purchase(1L, 0, 30));
+        assertEquals(1.0, registry.get("inventory.purchase.rejections").tag("strategy", "atomic").counter().count());
+    }
+
+    @Test
+    void purchase_missingInventory_throwsInventoryNotFound() {
+        when(repository.decrementIfAvailable(2L, 0, 1)).thenReturn(0);
+        when(repository.findByProductIdAndSlot(2L, 0)).thenReturn(Optional.empty());
+
+        assertThrows(InventoryNotFoundException.class, () -> strategy.purchase(2L, 0, 1));
+    }
+
+    private static Inventory inventory(Long id, Long productId, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setId(id);
+        inventory.setProductId(productId);
+        inventory.setQuantity(quantity);
+        return inventory;
+    }
+}
@@ -0,0 +1,114 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CoalescingPurchaseStrategyTest {
+
+    @Mock
+    InventoryRepository repository;
+
+    SimpleMeterRegistry registry;
+
+    PurchaseProperties properties;
+
+    CoalescingPurchaseStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        properties = new PurchaseProperties();
+        strategy = new CoalescingPurchaseStrategy(
+                repository,
+                TransactionOperations.withoutTransaction(),
+                new PurchaseMetrics(registry),
+                properties,
+                registry
+        );
+    }
+
+    @Test
+    void concurrentPurchasesShareOneConditionalUpdate() throws Exception {
+        properties.setCoalescingWindowMicros(5_000_000);
+        properties.setCoalescingMaxBatch(3);
+        when(repository.findByProductIdAndSlot(1L, 0)).thenReturn(Optional.of(inventory(5)));
+        when(repository.decrementIfAvailable(1L, 0, 4)).thenReturn(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<Future<PurchaseResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(executor.submit(() -> strategy.purchase(1L, 0, 2)));
+        }
+
+        int succeeded = 0;
+        int rejected = 0;
+        for (Future<PurchaseResult> future : futures) {
+            try {
+                future.get();
+                succeeded++;
+            } catch (Exception ex) {
+                assertInstanceOf(InsufficientStockException.class, ex.getCause());
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(2, succeeded);
+        assertEquals(1, rejected);
+        verify(repository, times(1)).decrementIfAvailable(1L, 0, 4);
+        assertEquals(1, registry.summary("inventory.purchase.batch.size").count());
+        assertEquals(3.0, registry.summary("inventory.purchase.batch.size").totalAmount());
+    }
+
+    @Test
+    void singlePurchaseIsAppliedAfterWindow() {
+        properties.setCoalescingWindowMicros(100);
+        when(repository.findByProductIdAndSlot(1L, 0)).thenReturn(Optional.of(inventory(5)));
+        when(repository.decrementIfAvailable(1L, 0, 3)).thenReturn(1);
+
+        PurchaseResult result = strategy.purchase(1L, 0, 3);
+
+        assertEquals(5, result.previousQuantity());
+        assertEquals(2, result.newQuantity());
+    }
+
+    @Test
+    void lostConditionalUpdateIsRetried() {
+        properties.setCoalescingWindowMicros(100);
+        when(repository.findByProductIdAndSlot(1L, 0)).thenReturn(Optional.of(inventory(5)));
+        when(repository.decrementIfAvailable(1L, 0, 3)).thenReturn(0, 1);
+
+        strategy.purchase(1L, 0, 3);
+
+        verify(repository, times(2)).decrementIfAvailable(1L, 0, 3);
+        assertEquals(1.0, registry.counter("inventory.purchase.retries", "strategy", "coalescing").count());
+    }
+
+    private static Inventory inventory(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setId(7L);
+        inventory.setProductId(1L);
+        inventory.setQuantity(quantity);
+        return inventory;
+    }
+}
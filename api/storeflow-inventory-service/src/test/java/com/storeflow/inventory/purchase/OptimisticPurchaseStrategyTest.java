@@ -0,0 +1,82 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticPurchaseStrategyTest {
+
+    @Mock
+    InventoryRepository repository;
+
+    SimpleMeterRegistry registry;
+
+    PurchaseProperties properties;
+
+    OptimisticPurchaseStrategy strategy;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        properties = new PurchaseProperties();
+        properties.setMaxRetries(2);
+        properties.setRetryBackoffMs(0);
+        strategy = new OptimisticPurchaseStrategy(
+                repository,
+                TransactionOperations.withoutTransaction(),
+                new PurchaseMetrics(registry),
+                properties
+        );
+    }
+
+    @Test
+    void purchase_versionConflict_retriesAndSucceeds() {
+        when(repository.findByProductIdAndSlot(1L, 0))
+                .thenAnswer(invocation -> Optional.of(inventory(10)));
+        when(repository.saveAndFlush(any(Inventory.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Inventory.class, 1L))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        PurchaseResult result = strategy.purchase(1L, 0, 4);
+
+        assertEquals(6, result.newQuantity());
+        assertEquals(1.0, registry.get("inventory.purchase.retries").tag("strategy", "optimistic").counter().count());
+        assertEquals(1.0, registry.get("inventory.purchase.conflicts").tag("strategy", "optimistic").counter().count());
+    }
+
+    @Test
+    void purchase_conflictsBeyondRetryBudget_throwsPurchaseConflict() {
+        when(repository.findByProductIdAndSlot(1L, 0))
+                .thenAnswer(invocation -> Optional.of(inventory(10)));
+        when(repository.saveAndFlush(any(Inventory.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Inventory.class, 1L));
+
+        assertThrows(PurchaseConflictException.class, () -> strategy.purchase(1L, 0, 4));
+
+        verify(repository, times(3)).saveAndFlush(any(Inventory.class));
+        assertEquals(3.0, registry.get("inventory.purchase.attempts").tag("strategy", "optimistic").counter().count());
+    }
+
+    private static Inventory inventory(int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setId(1L);
+        inventory.setProductId(1L);
+        inventory.setQuantity(quantity);
+        return inventory;
+    }
+}
@@ -0,0 +1,131 @@
+package com.storeflow.inventory.purchase;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.domain.Inventory;
+import com.storeflow.inventory.domain.InventoryRepository;
+import com.storeflow.inventory.domain.InventorySlotCounts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SlotPurchaseRouterTest {
+
+    @Mock
+    InventoryRepository repository;
+
+    @Mock
+    PurchaseStrategies strategies;
+
+    @Mock
+    PurchaseStrategy strategy;
+
+    @Mock
+    InventorySlotCounts slotCounts;
+
+    SimpleMeterRegistry registry;
+
+    SlotPurchaseRouter router;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        router = new SlotPurchaseRouter(
+                repository,
+                strategies,
+                slotCounts,
+                TransactionOperations.withoutTransaction(),
+                new PurchaseMetrics(registry)
+        );
+        lenient().when(strategies.active()).thenReturn(strategy);
+    }
+
+    @Test
+    void singleSlotProductGoesStraightToStrategy() {
+        when(slotCounts.count(1L)).thenReturn(1);
+        when(strategy.purchase(1L, 0, 2)).thenReturn(new PurchaseResult(5L, 1L, 10, 8));
+
+        PurchaseResult result = router.purchase(1L, 2);
+
+        assertEquals(8, result.newQuantity());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void slottedProductReportsTheSlotItBoughtFrom() {
+        when(slotCounts.count(1L)).thenReturn(4);
+        when(strategy.purchase(eq(1L), anyInt(), eq(2))).thenReturn(new PurchaseResult(5L, 1L, 3, 1));
+
+        PurchaseResult result = router.purchase(1L, 2);
+
+        assertEquals(5L, result.inventoryId());
+        assertEquals(3, result.previousQuantity());
+        assertEquals(1, result.newQuantity());
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void purchaseInTransactionReportsTheSlotRowItUpdated() {
+        when(slotCounts.count(1L)).thenReturn(1);
+        when(repository.decrementIfAvailable(1L, 0, 2)).thenReturn(1);
+        when(repository.findByProductIdAndSlot(1L, 0)).thenReturn(Optional.of(slot(0, 6)));
+
+        PurchaseResult result = router.purchaseInTransaction(1L, 2);
+
+        assertEquals(10L, result.inventoryId());
+        assertEquals(8, result.previousQuantity());
+        assertEquals(6, result.newQuantity());
+        verify(repository, never()).findTotalByProductId(1L);
+    }
+
+    @Test
+    void drainsSeveralSlotsWhenNoSingleSlotHasEnough() {
+        when(strategy.type()).thenReturn(PurchaseStrategyType.ATOMIC);
+        when(slotCounts.count(1L)).thenReturn(2);
+        when(strategy.purchase(eq(1L), anyInt(), eq(5))).thenThrow(new InsufficientStockException(1L));
+        Inventory first = slot(0, 3);
+        Inventory second = slot(1, 4);
+        when(repository.findAllForUpdateByProductId(1L)).thenReturn(List.of(first, second));
+
+        PurchaseResult result = router.purchase(1L, 5);
+
+        assertEquals(7, result.previousQuantity());
+        assertEquals(2, result.newQuantity());
+        assertEquals(0, first.getQuantity());
+        assertEquals(2, second.getQuantity());
+        assertEquals(2.0, registry.counter("inventory.purchase.slot.misses", "strategy", "atomic").count());
+        assertEquals(1.0, registry.counter("inventory.purchase.slot.fallbacks", "strategy", "atomic").count());
+    }
+
+    @Test
+    void rejectsWhenAllSlotsTogetherAreShort() {
+        when(strategy.type()).thenReturn(PurchaseStrategyType.ATOMIC);
+        when(slotCounts.count(1L)).thenReturn(2);
+        when(strategy.purchase(eq(1L), anyInt(), eq(9))).thenThrow(new InsufficientStockException(1L));
+        when(repository.findAllForUpdateByProductId(1L)).thenReturn(List.of(slot(0, 3), slot(1, 4)));
+
+        assertThrows(InsufficientStockException.class, () -> router.purchase(1L, 9));
+    }
+
+    private static Inventory slot(int slot, int quantity) {
+        Inventory inventory = new Inventory();
+        inventory.setId(10L + slot);
+        inventory.setProductId(1L);
+        inventory.setSlot(slot);
+        inventory.setQuantity(quantity);
+        return inventory;
+    }
+}
@@ -0,0 +1,62 @@
+package com.storeflow.inventory.reservation;
+
+import com.storeflow.inventory.jsonapi.JsonApiData;
+import com.storeflow.inventory.jsonapi.JsonApiResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ReservationController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class ReservationControllerTest {
+
+    private static final Instant EXPIRES_AT = Instant.parse("2024-01-01T10:10:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ReservationService reservationService;
+
+    @Test
+    void reserve_shouldReturn201() throws Exception {
+        when(reservationService.reserve(new ReservationRequest(1L, 2, null)))
+                .thenReturn(reservation("held"));
+
+        mockMvc.perform(
+                        post("/api/v1/inventories/reservations")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"productId\":1,\"quantity\":2}")
+                )
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.type").value("reservations"))
+                .andExpect(jsonPath("$.data.attributes.status").value("held"))
+                .andExpect(jsonPath("$.data.attributes.expiresAt").value("2024-01-01T10:10:00Z"));
+    }
+
+    @Test
+    void release_alreadyConfirmed_shouldReturn409() throws Exception {
+        when(reservationService.release(7L))
+                .thenThrow(new ReservationConflictException("Reservation 7 is already confirmed"));
+
+        mockMvc.perform(delete("/api/v1/inventories/reservations/7"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errors[0].title").value("Reservation conflict"));
+    }
+
+    private static JsonApiResponse<ReservationResponse> reservation(String status) {
+        return new JsonApiResponse<>(new JsonApiData<>(
+                "reservations", "7", new ReservationResponse(7L, 1L, 2, status, EXPIRES_AT)));
+    }
+}
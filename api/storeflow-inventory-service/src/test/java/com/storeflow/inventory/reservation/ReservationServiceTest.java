@@ -0,0 +1,152 @@
+package com.storeflow.inventory.reservation;
+
+import com.storeflow.inventory.domain.InsufficientStockException;
+import com.storeflow.inventory.ledger.StockLedger;
+import com.storeflow.inventory.products.ProductsClient;
+import com.storeflow.inventory.purchase.SlotPurchaseRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T10:00:00Z");
+
+    @Mock
+    StockReservationRepository reservations;
+
+    @Mock
+    ProductsClient productsClient;
+
+    @Mock
+    SlotPurchaseRouter purchaseRouter;
+
+    @Mock
+    StockLedger stockLedger;
+
+    ReservedStock reservedStock;
+
+    ReservationService service;
+
+    @BeforeEach
+    void setUp() {
+        reservedStock = new ReservedStock();
+        service = new ReservationService(
+                reservations,
+                productsClient,
+                purchaseRouter,
+                stockLedger,
+                reservedStock,
+                TransactionOperations.withoutTransaction(),
+                new ReservationProperties(),
+                new SimpleMeterRegistry(),
+                Clock.fixed(NOW, ZoneOffset.UTC)
+        );
+    }
+
+    @Test
+    void reserveTakesStockAndCountsItAsReserved() {
+        when(reservations.save(any())).thenAnswer(invocation -> {
+            StockReservation reservation = invocation.getArgument(0);
+            reservation.setId(7L);
+            return reservation;
+        });
+
+        var response = service.reserve(new ReservationRequest(1L, 3, 60));
+
+        verify(productsClient).validateProductExists(1L);
+        verify(purchaseRouter).purchaseInTransaction(1L, 3);
+        assertEquals("held", response.data().attributes().status());
+        assertEquals(NOW.plusSeconds(60), response.data().attributes().expiresAt());
+        assertEquals(3, reservedStock.of(1L));
+    }
+
+    @Test
+    void reserveWithoutStockSavesNothing() {
+        when(purchaseRouter.purchaseInTransaction(1L, 3)).thenThrow(new InsufficientStockException(1L));
+
+        assertThrows(InsufficientStockException.class,
+                () -> service.reserve(new ReservationRequest(1L, 3, null)));
+
+        verifyNoInteractions(reservations);
+        assertEquals(0, reservedStock.of(1L));
+    }
+
+    @Test
+    void reserveAboveMaxTtlIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.reserve(new ReservationRequest(1L, 3, 7_200)));
+
+        verifyNoInteractions(purchaseRouter);
+    }
+
+    @Test
+    void releaseGivesStockBack() {
+        reservedStock.add(1L, 3);
+        when(reservations.transition(7L, ReservationStatus.HELD, ReservationStatus.RELEASED)).thenReturn(1);
+        when(reservations.findById(7L)).thenReturn(Optional.of(reservation(7L, ReservationStatus.RELEASED)));
+
+        var response = service.release(7L);
+
+        assertEquals("released", response.data().attributes().status());
+        verify(purchaseRouter).credit(1L, 3);
+        assertEquals(0, reservedStock.of(1L));
+    }
+
+    @Test
+    void confirmAfterExpiryIsRejected() {
+        when(reservations.transitionBeforeExpiry(
+                7L, ReservationStatus.HELD, ReservationStatus.CONFIRMED, NOW)).thenReturn(0);
+        when(reservations.findById(7L)).thenReturn(Optional.of(reservation(7L, ReservationStatus.HELD)));
+
+        ReservationConflictException ex =
+                assertThrows(ReservationConflictException.class, () -> service.confirm(7L));
+
+        assertEquals("Reservation 7 is already expired", ex.getMessage());
+    }
+
+    @Test
+    void expireGivesStockBackOnlyWhenStillHeld() {
+        reservedStock.add(1L, 3);
+        when(reservations.transition(7L, ReservationStatus.HELD, ReservationStatus.EXPIRED)).thenReturn(1, 0);
+
+        service.expire(new ReservationHold(7L, 1L, 3));
+        service.expire(new ReservationHold(7L, 1L, 3));
+
+        verify(purchaseRouter, times(1)).credit(1L, 3);
+        assertEquals(0, reservedStock.of(1L));
+    }
+
+    @Test
+    void ledgerTrackedProductIsCreditedInLedger() {
+        when(stockLedger.tracks(1L)).thenReturn(true);
+        when(reservations.transition(7L, ReservationStatus.HELD, ReservationStatus.EXPIRED)).thenReturn(1);
+
+        service.expire(new ReservationHold(7L, 1L, 3));
+
+        verify(stockLedger).creditOnCommit(1L, 3);
+        verifyNoInteractions(purchaseRouter);
+    }
+
+    private static StockReservation reservation(Long id, ReservationStatus status) {
+        StockReservation reservation = new StockReservation(1L, 3, NOW, NOW.plusSeconds(60));
+        reservation.setId(id);
+        reservation.setStatus(status);
+        return reservation;
+    }
+}
@@ -0,0 +1,63 @@
+package com.storeflow.inventory.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long TICK = 100;
+
+    @Test
+    void firesWithinOneTickOfDeadline() {
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 0);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            long deadline = ThreadLocalRandom.current().nextLong(1, TICK * 300_000);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        long now = 0;
+        int fired = 0;
+        while (fired < deadlines.size()) {
+            now += TICK * 37;
+            for (Long deadline : wheel.advance(now)) {
+                assertTrue(deadline <= now, "fired early");
+                assertTrue(now - deadline < TICK * 38, "fired late");
+                fired++;
+            }
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void cancelledTimeoutNeverFires() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        TimingWheel.Timeout<String> cancelled = wheel.schedule("cancelled", TICK * 5_000);
+        wheel.schedule("kept", TICK * 5_000);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+
+        assertEquals(List.of("kept"), wheel.advance(TICK * 5_001));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 0);
+        wheel.advance(TICK * 10);
+
+        wheel.schedule("late", 0);
+
+        assertEquals(List.of(), wheel.advance(TICK * 10));
+        assertEquals(List.of("late"), wheel.advance(TICK * 11));
+    }
+}
@@ -0,0 +1,41 @@
+package com.storeflow.inventory.restock;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RestockController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class RestockControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RestockService restockService;
+
+    @Test
+    void restock_shouldReturnSummary() throws Exception {
+        when(restockService.restock(any())).thenReturn(new RestockSummary("load-1", 3, 1, 0, 1, 1, 0, 0, 0, 12,
+                List.of(new RestockError(3, "quantity must not be negative"))));
+
+        mockMvc.perform(post("/api/v1/inventories/restock")
+                        .contentType("text/csv")
+                        .content("product_id,quantity\n1,5\n2,4\n3,-1\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.type").value("inventory-restocks"))
+                .andExpect(jsonPath("$.data.id").value("load-1"))
+                .andExpect(jsonPath("$.data.attributes.inserted").value(1))
+                .andExpect(jsonPath("$.data.attributes.errors[0].line").value(3));
+    }
+}
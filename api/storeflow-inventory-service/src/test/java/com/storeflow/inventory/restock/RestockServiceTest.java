@@ -0,0 +1,133 @@
+package com.storeflow.inventory.restock;
+
+import com.storeflow.inventory.domain.InventoryProductCount;
+import com.storeflow.inventory.domain.InventoryService;
+import com.storeflow.inventory.domain.InventoryTransactions;
+import com.storeflow.inventory.ledger.StockLedger;
+import com.storeflow.inventory.products.ProductsClient;
+import com.storeflow.inventory.reservation.ReservationConflictException;
+import com.storeflow.inventory.reservation.ReservedStock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RestockServiceTest {
+
+    @Mock
+    private RestockStaging staging;
+
+    @Mock
+    private ProductsClient productsClient;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private InventoryProductCount productCount;
+
+    private RestockService service;
+
+    @BeforeEach
+    void setUp() {
+        RestockProperties properties = new RestockProperties();
+        properties.setChunkSize(2);
+        service = new RestockService(staging, productsClient, inventoryService, stockLedger, new ReservedStock(),
+                productCount, new InventoryTransactions(TransactionOperations.withoutTransaction(),
+                new SimpleMeterRegistry()), properties);
+    }
+
+    @Test
+    void restock_shouldStageInChunksValidateOnceAndMergeOnce() throws Exception {
+        when(stockLedger.isHot(any())).thenAnswer(invocation -> invocation.getArgument(0).equals(500L));
+        when(productsClient.findUnknown(Set.of(1L, 2L, 9L, 500L))).thenReturn(Set.of(9L));
+        when(staging.takeSlotted(anyString())).thenReturn(Map.of());
+        when(staging.count(anyString())).thenReturn(new RestockCounts(2, 1, 0));
+
+        RestockSummary summary = service.restock(csv("product_id,quantity\n1,5\n2,6\n9,1\nx,1\n500,3\n"));
+
+        verify(staging).load(anyString(), eq(List.of(new RestockLine(2, 1L, 5), new RestockLine(3, 2L, 6))));
+        verify(staging).load(anyString(), eq(List.of(new RestockLine(4, 9L, 1))));
+        verify(staging).removeProducts(anyString(), eq(Set.of(9L)));
+        verify(staging).removeSuperseded(anyString());
+        verify(staging).merge(anyString());
+        verify(staging).clear(summary.loadId());
+        verify(productCount).added(1L);
+        verify(inventoryService).setQuantity(500L, 3);
+
+        assertEquals(5, summary.lines());
+        assertEquals(1, summary.invalid());
+        assertEquals(1, summary.unknownProducts());
+        assertEquals(1, summary.inserted());
+        assertEquals(1, summary.updated());
+        assertEquals(1, summary.appliedIndividually());
+        assertEquals(5L, summary.errors().get(0).line());
+    }
+
+    @Test
+    void restock_shouldApplySlottedProductsOneByOneAndCountRejections() throws Exception {
+        when(productsClient.findUnknown(Set.of(4L))).thenReturn(Set.of());
+        when(staging.takeSlotted(anyString())).thenReturn(Map.of(4L, 2));
+        when(staging.count(anyString())).thenReturn(new RestockCounts(0, 0, 0));
+        when(inventoryService.setQuantity(4L, 2))
+                .thenThrow(new ReservationConflictException("Product 4 has 3 units reserved"));
+
+        RestockSummary summary = service.restock(csv("4,2\n"));
+
+        verify(staging, never()).removeProducts(anyString(), any());
+        assertEquals(0, summary.appliedIndividually());
+        assertEquals(1, summary.rejected());
+        assertEquals("Product 4 has 3 units reserved", summary.errors().get(0).detail());
+    }
+
+    @Test
+    void restock_shouldClearStagedLinesWhenMergeFails() {
+        when(productsClient.findUnknown(Set.of(1L))).thenReturn(Set.of());
+        when(staging.takeSlotted(anyString())).thenReturn(Map.of());
+        when(staging.count(anyString())).thenReturn(new RestockCounts(1, 1, 0));
+        doThrow(new DataIntegrityViolationException("boom")).when(staging).merge(anyString());
+
+        assertThrows(DataIntegrityViolationException.class, () -> service.restock(csv("1,1\n")));
+
+        verify(staging).clear(anyString());
+        verify(productCount, never()).added(anyLong());
+    }
+
+    @Test
+    void parse_shouldRejectMalformedLines() {
+        assertEquals(new RestockLine(3, 12L, 0), RestockService.parse(3, " 12 , 0 "));
+        assertThrows(IllegalArgumentException.class, () -> RestockService.parse(1, "12"));
+        assertThrows(IllegalArgumentException.class, () -> RestockService.parse(1, "12,1,3"));
+        assertThrows(IllegalArgumentException.class, () -> RestockService.parse(1, "0,1"));
+        assertThrows(IllegalArgumentException.class, () -> RestockService.parse(1, "12,-1"));
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
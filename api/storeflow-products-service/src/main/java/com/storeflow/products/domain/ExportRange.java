@@ -0,0 +1,18 @@
+package com.storeflow.products.domain;
+
+/**
+ * Half-open id range {@code [fromId, toId)} of an export, so disjoint ranges can run in parallel
+ * without overlapping. Checked on construction, before any of the response is written.
+ */
+public record ExportRange(
+        long fromId,
+        long toId
+) {
+
+    public ExportRange {
+        if (fromId < 0 || toId <= fromId) {
+            throw new IllegalArgumentException(
+                    "filter[id][gte] must not be negative and must be lower than filter[id][lt]");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.storeflow.products.domain;
+
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inclusive price band of a sorted listing, from {@code filter[price][gte]} and
+ * {@code filter[price][lte]}. Either bound may be null.
+ */
+public record PriceRange(
+        BigDecimal min,
+        BigDecimal max
+) {
+
+    public static final PriceRange ANY = new PriceRange(null, null);
+
+    public PriceRange {
+        if ((min != null && min.signum() < 0) || (max != null && max.signum() < 0)
+                || (min != null && max != null && min.compareTo(max) > 0)) {
+            throw new IllegalArgumentException(
+                    "filter[price][gte] and filter[price][lte] must not be negative and gte must not exceed lte");
+        }
+    }
+
+    public Specification<Product> toSpecification() {
+        return (root, query, builder) -> {
+            List<Predicate> predicates = new ArrayList<>(2);
+            if (min != null) {
+                predicates.add(builder.greaterThanOrEqualTo(root.get("price"), min));
+            }
+            if (max != null) {
+                predicates.add(builder.lessThanOrEqualTo(root.get("price"), max));
+            }
+            return builder.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    /**
+     * The filter as query parameters for pagination links, each starting with {@code &}.
+     */
+    public String toQuery() {
+        return (min == null ? "" : "&filter[price][gte]=" + min.toPlainString())
+                + (max == null ? "" : "&filter[price][lte]=" + max.toPlainString());
+    }
+}
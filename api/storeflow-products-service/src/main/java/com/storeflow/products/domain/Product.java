@@ -1,24 +1,53 @@
 package com.storeflow.products.domain;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.ColumnDefault;
 import java.math.BigDecimal;
 
+/**
+ * The indexes serve the listing sorts: {@code price}, {@code name} and {@code price,name} in
+ * either direction, and {@code price,-name} in either direction. Each ends in {@code id}, which
+ * breaks ties in the direction of the last sort field.
+ */
 @Entity
-@Table(name = "products")
+@Table(
+        name = "products",
+        indexes = {
+                @Index(name = "idx_products_price_id", columnList = "price, id"),
+                @Index(name = "idx_products_name_id", columnList = "name, id"),
+                @Index(name = "idx_products_price_name_id", columnList = "price, name, id"),
+                @Index(name = "idx_products_price_name_desc_id_desc", columnList = "price, name desc, id desc")
+        }
+)
 public class Product {
 
+    static final String ID_SEQUENCE = "products_seq";
+    static final int ID_ALLOCATION_SIZE = 50;
+    static final int PRICE_SCALE = 2;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private String name;
 
+    @Column(precision = 38, scale = PRICE_SCALE)
     private BigDecimal price;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     public Product() {
     }
 
@@ -34,6 +63,10 @@ public class Product {
         return price;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -45,4 +78,8 @@ public class Product {
     public void setPrice(BigDecimal price) {
         this.price = price;
     }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,439 @@
+package com.storeflow.products.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeflow.products.jsonapi.ETags;
+import com.storeflow.products.jsonapi.JsonApiData;
+import com.storeflow.products.jsonapi.JsonApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Off-heap copy of the catalog for {@code GET /api/v1/products/{id}}, switched on with
+ * {@code products.catalog.enabled}. Each product is held as the JSON:API body that endpoint sends,
+ * serialized once when the product is written, so a read needs no transaction, entity or Jackson
+ * and allocates little more than the ETag. Bodies are appended to direct buffers of
+ * {@code products.catalog.segment-bytes}; a replaced or deleted body leaves a hole, and a segment
+ * that is half holes has its live bodies moved to the current one and is then reused. Ids are
+ * looked up in an off-heap table with one slot per id up to the highest one, which suits ids
+ * handed out by a sequence.
+ * <p>
+ * A body only replaces one of a lower version and deleted ids stay deleted, so writes can be
+ * applied in any order. That lets the catalog be loaded in pages while changes keep committing.
+ * Until the load finishes, and when the catalog is disabled, {@link #isReady()} is false and reads
+ * go to the database. Writes made by other instances arrive through {@link ProductChangePoller},
+ * so this instance may serve their previous body for up to one poll interval.
+ */
+@Component
+public class ProductCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductCatalog.class);
+    private static final int LOAD_PAGE_SIZE = 10000;
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final long DELETED = -1;
+
+    /**
+     * Each entry is the id, the version and the body length followed by the body.
+     */
+    private static final int HEADER = Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int VERSION = Long.BYTES;
+    private static final int LENGTH = Long.BYTES + Long.BYTES;
+
+    private final ProductRepository products;
+    private final ObjectMapper objectMapper;
+    private final ProductCatalogProperties properties;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<byte[]> buffers = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    private LongBuffer[] index = new LongBuffer[0];
+    private ByteBuffer[] segments = new ByteBuffer[0];
+    private int[] used = new int[0];
+    private int[] dead = new int[0];
+    private final Deque<Integer> free = new ArrayDeque<>();
+    private int tail = -1;
+    private long count;
+    private long liveBytes;
+
+    private volatile boolean ready;
+
+    public ProductCatalog(ProductRepository products,
+                          ObjectMapper objectMapper,
+                          ProductCatalogProperties properties) {
+        this.products = products;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void added(Product product) {
+        if (properties.isEnabled()) {
+            Entry entry = entryOf(product);
+            AfterCommit.run(() -> apply(List.of(entry)));
+        }
+    }
+
+    public void addedAll(Collection<Product> added) {
+        if (properties.isEnabled()) {
+            List<Entry> entries = added.stream().map(this::entryOf).toList();
+            AfterCommit.run(() -> apply(entries));
+        }
+    }
+
+    public void updated(Product product) {
+        added(product);
+    }
+
+    public void removed(Long productId) {
+        if (properties.isEnabled()) {
+            AfterCommit.run(() -> {
+                lock.writeLock().lock();
+                try {
+                    remove(productId);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+        }
+    }
+
+    /**
+     * Re-reads products changed on other instances. Bodies this instance already holds at the same
+     * or a newer version are kept, and products no longer in the table are removed.
+     */
+    public void refresh(Collection<Long> productIds) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(productIds.size());
+        Set<Long> missing = new HashSet<>(productIds);
+        for (Product product : products.findAllById(productIds)) {
+            entries.add(entryOf(product));
+            missing.remove(product.getId());
+        }
+        lock.writeLock().lock();
+        try {
+            entries.forEach(this::put);
+            missing.forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the product straight to {@code response}: its ETag and, unless {@code ifNoneMatch}
+     * matches it, its body. The body is copied out under the read lock into a buffer kept per
+     * thread and sent after the lock is released. Returns false when there is no such product.
+     */
+    public boolean writeTo(long productId, String ifNoneMatch, HttpServletResponse response) throws IOException {
+        byte[] buffer = buffers.get();
+        String etag;
+        int length;
+        lock.readLock().lock();
+        try {
+            long location = locationOf(productId);
+            if (location <= 0) {
+                return false;
+            }
+            ByteBuffer segment = segments[segmentOf(location)];
+            int offset = offsetOf(location);
+            etag = ETags.of(productId, segment.getLong(offset + VERSION));
+            if (ifNoneMatch != null && ETags.matchesWeakly(ifNoneMatch, etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                response.setHeader(HttpHeaders.ETAG, etag);
+                return true;
+            }
+            length = segment.getInt(offset + LENGTH);
+            if (length > buffer.length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+                buffers.set(buffer);
+            }
+            segment.get(offset + HEADER, buffer, 0, length);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(length);
+        response.getOutputStream().write(buffer, 0, length);
+        return true;
+    }
+
+    /**
+     * Reads and serializes every product in pages, each page applied under one write lock.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        long after = 0;
+        List<Product> page;
+        do {
+            page = products.findPageAfter(after, PageRequest.of(0, LOAD_PAGE_SIZE));
+            List<Entry> entries = new ArrayList<>(page.size());
+            for (Product product : page) {
+                entries.add(entryOf(product));
+            }
+            apply(entries);
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+
+        long loaded;
+        long bodyBytes;
+        long offHeapBytes;
+        lock.readLock().lock();
+        try {
+            loaded = count;
+            bodyBytes = liveBytes;
+            offHeapBytes = offHeapBytes();
+            ready = true;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        log.info("ProductCatalogLoadedEvent products={} liveBytes={} offHeapBytes={} elapsedMs={}",
+                loaded, bodyBytes, offHeapBytes, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    long size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.length - free.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The price is rounded to the column's scale, as the database does, so a body built from a
+     * request matches the one built when the product is read back.
+     */
+    private Entry entryOf(Product product) {
+        BigDecimal price = product.getPrice() == null
+                ? null
+                : product.getPrice().setScale(Product.PRICE_SCALE, RoundingMode.HALF_UP);
+        ProductResponse response = new ProductResponse(
+                product.getId(),
+                product.getName(),
+                price
+        );
+        JsonApiData<ProductResponse> data = new JsonApiData<>(
+                "products",
+                String.valueOf(product.getId()),
+                response
+        );
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(new JsonApiResponse<>(data));
+            if (HEADER + body.length > properties.getSegmentBytes()) {
+                throw new IllegalStateException("Product " + product.getId() + " does not fit in a catalog segment");
+            }
+            long version = product.getVersion() == null ? 0 : product.getVersion();
+            return new Entry(product.getId(), version, body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Product " + product.getId() + " could not be serialized", ex);
+        }
+    }
+
+    private void apply(List<Entry> entries) {
+        lock.writeLock().lock();
+        try {
+            for (Entry entry : entries) {
+                put(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Caller holds the write lock.
+     */
+    private void put(Entry entry) {
+        long location = locationOf(entry.id());
+        if (location == DELETED) {
+            return;
+        }
+        if (location > 0) {
+            if (segments[segmentOf(location)].getLong(offsetOf(location) + VERSION) >= entry.version()) {
+                return;
+            }
+        } else {
+            count++;
+        }
+
+        int size = HEADER + entry.body().length;
+        long target = reserve(size);
+        ByteBuffer segment = segments[segmentOf(target)];
+        int offset = offsetOf(target);
+        segment.putLong(offset, entry.id());
+        segment.putLong(offset + VERSION, entry.version());
+        segment.putInt(offset + LENGTH, entry.body().length);
+        segment.put(offset + HEADER, entry.body());
+        setLocation(entry.id(), target);
+        liveBytes += size;
+        if (location > 0) {
+            release(location);
+        }
+    }
+
+    /**
+     * Caller holds the write lock.
+     */
+    private void remove(long productId) {
+        long location = locationOf(productId);
+        if (location == DELETED || productId < 0) {
+            return;
+        }
+        setLocation(productId, DELETED);
+        if (location > 0) {
+            count--;
+            release(location);
+        }
+    }
+
+    /**
+     * Marks the entry at {@code location} as a hole, and compacts its segment once half of it is
+     * holes. The current segment is left alone, since it is still being filled.
+     */
+    private void release(long location) {
+        int segment = segmentOf(location);
+        int size = HEADER + segments[segment].getInt(offsetOf(location) + LENGTH);
+        dead[segment] += size;
+        liveBytes -= size;
+        if (segment != tail && dead[segment] * 2L >= segments[segment].capacity()) {
+            compact(segment);
+        }
+    }
+
+    private void compact(int segment) {
+        ByteBuffer source = segments[segment];
+        for (int offset = 0; offset < used[segment]; ) {
+            long id = source.getLong(offset);
+            int size = HEADER + source.getInt(offset + LENGTH);
+            if (locationOf(id) == location(segment, offset)) {
+                long target = reserve(size);
+                segments[segmentOf(target)].put(offsetOf(target), source, offset, size);
+                setLocation(id, target);
+            }
+            offset += size;
+        }
+        used[segment] = 0;
+        dead[segment] = 0;
+        free.push(segment);
+    }
+
+    /**
+     * Room for {@code size} bytes at the end of the current segment, moving to a free or new
+     * segment when it is full.
+     */
+    private long reserve(int size) {
+        if (tail < 0 || used[tail] + size > segments[tail].capacity()) {
+            tail = free.isEmpty() ? newSegment() : free.pop();
+        }
+        int offset = used[tail];
+        used[tail] += size;
+        return location(tail, offset);
+    }
+
+    private int newSegment() {
+        int segment = segments.length;
+        segments = Arrays.copyOf(segments, segment + 1);
+        used = Arrays.copyOf(used, segment + 1);
+        dead = Arrays.copyOf(dead, segment + 1);
+        segments[segment] = ByteBuffer.allocateDirect(properties.getSegmentBytes());
+        return segment;
+    }
+
+    private long locationOf(long productId) {
+        long page = productId >>> PAGE_BITS;
+        if (productId < 0 || page >= index.length || index[(int) page] == null) {
+            return 0;
+        }
+        return index[(int) page].get((int) (productId & (PAGE_SIZE - 1)));
+    }
+
+    private void setLocation(long productId, long location) {
+        int page = Math.toIntExact(productId >>> PAGE_BITS);
+        if (page >= index.length) {
+            index = Arrays.copyOf(index, Math.max(page + 1, index.length * 2));
+        }
+        if (index[page] == null) {
+            index[page] = ByteBuffer.allocateDirect(PAGE_SIZE * Long.BYTES).asLongBuffer();
+        }
+        index[page].put((int) (productId & (PAGE_SIZE - 1)), location);
+    }
+
+    private long offHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer segment : segments) {
+            bytes += segment.capacity();
+        }
+        for (LongBuffer page : index) {
+            if (page != null) {
+                bytes += (long) page.capacity() * Long.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Locations are the segment number plus one in the high half and the offset in the low half,
+     * so that 0 means no entry.
+     */
+    private static long location(int segment, int offset) {
+        return ((long) (segment + 1) << 32) | offset;
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32) - 1;
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    private record Entry(long id, long version, byte[] body) {
+    }
+}
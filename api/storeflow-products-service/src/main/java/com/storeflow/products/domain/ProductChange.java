@@ -0,0 +1,54 @@
+package com.storeflow.products.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "product_changes")
+public class ProductChange {
+
+    @Id
+    private Long seq;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ProductChangeType type;
+
+    @Column(name = "changed_at", nullable = false)
+    private Instant changedAt;
+
+    protected ProductChange() {
+    }
+
+    public ProductChange(Long seq, Long productId, ProductChangeType type, Instant changedAt) {
+        this.seq = seq;
+        this.productId = productId;
+        this.type = type;
+        this.changedAt = changedAt;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public ProductChangeType getType() {
+        return type;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,28 @@
+package com.storeflow.products.domain;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "products.change-feed")
+public class ProductChangeFeedProperties {
+
+    private long retentionHours = 168;
+    private long pruneIntervalMinutes = 60;
+
+    public long getRetentionHours() {
+        return retentionHours;
+    }
+
+    public void setRetentionHours(long retentionHours) {
+        this.retentionHours = retentionHours;
+    }
+
+    public long getPruneIntervalMinutes() {
+        return pruneIntervalMinutes;
+    }
+
+    public void setPruneIntervalMinutes(long pruneIntervalMinutes) {
+        this.pruneIntervalMinutes = pruneIntervalMinutes;
+    }
+}
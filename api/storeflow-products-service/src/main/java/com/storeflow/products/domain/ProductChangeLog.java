@@ -0,0 +1,139 @@
+package com.storeflow.products.domain;
+
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Appends product changes to the feed. Sequence numbers come from a single counter row that is
+ * locked until the writing transaction commits, so changes become visible in sequence order, with
+ * no gaps, and a reader that resumes from the last sequence it saw never skips one. Old changes
+ * are pruned from the front; a gap after a reader's position therefore means it fell behind.
+ */
+@Component
+public class ProductChangeLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeLog.class);
+
+    private final ProductChangeRepository changes;
+    private final ProductChangeSequenceRepository sequences;
+    private final ProductRepository products;
+    private final EntityManager entityManager;
+
+    public ProductChangeLog(ProductChangeRepository changes,
+                            ProductChangeSequenceRepository sequences,
+                            ProductRepository products,
+                            EntityManager entityManager) {
+        this.changes = changes;
+        this.sequences = sequences;
+        this.products = products;
+        this.entityManager = entityManager;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long productId, ProductChangeType type) {
+        ProductChangeSequence sequence = lockSequence(List.of(productId));
+        changes.save(new ProductChange(sequence.next(), productId, type, Instant.now()));
+    }
+
+    /**
+     * Records the same change for several products under a single lock of the counter row. The
+     * changes are persisted directly, as their sequence numbers are new, so no row is read back
+     * before it is inserted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(Collection<Long> productIds, ProductChangeType type) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        ProductChangeSequence sequence = lockSequence(productIds);
+        Instant now = Instant.now();
+        for (Long productId : productIds) {
+            entityManager.persist(new ProductChange(sequence.next(), productId, type, now));
+        }
+    }
+
+    /**
+     * Deletes every change made before {@code before}. Returns how many were deleted.
+     */
+    @Transactional
+    public int prune(Instant before) {
+        Optional<Long> through = changes.findLastSeqBefore(before);
+        if (through.isEmpty()) {
+            return 0;
+        }
+        int deleted = changes.deleteThrough(through.get());
+        if (deleted > 0) {
+            log.info("ProductChangesPrunedEvent throughSeq={} deleted={}", through.get(), deleted);
+        }
+        return deleted;
+    }
+
+    public long lastSeq() {
+        return sequences.findById(ProductChangeSequence.ID)
+                .map(ProductChangeSequence::getLastSeq)
+                .orElse(0L);
+    }
+
+    /**
+     * Creates the counter row the first time the service starts with a feed, recording every
+     * product that already exists as created so replicas can start from sequence 0. Writes that
+     * come before this runs create the row themselves.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialize() {
+        if (!sequences.existsById(ProductChangeSequence.ID)) {
+            lockSequence(List.of());
+        }
+    }
+
+    private ProductChangeSequence lockSequence(Collection<Long> recording) {
+        Optional<ProductChangeSequence> existing = sequences.findForUpdate(ProductChangeSequence.ID);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        if (sequences.insertIfAbsent(ProductChangeSequence.ID) == 0) {
+            return sequences.findForUpdate(ProductChangeSequence.ID)
+                    .orElseThrow(() -> new IllegalStateException("Product change sequence is missing"));
+        }
+
+        // The row is new and held by this transaction until it commits. Products this transaction is
+        // about to record are left to the caller, so they are not listed twice.
+        ProductChangeSequence sequence = sequences.findForUpdate(ProductChangeSequence.ID)
+                .orElseThrow(() -> new IllegalStateException("Product change sequence is missing"));
+        Set<Long> skipped = new HashSet<>(recording);
+        Instant now = Instant.now();
+        Page<Product> page;
+        int pageNumber = 0;
+        do {
+            page = products.findAll(PageRequest.of(pageNumber++, 1000, Sort.by("id")));
+            List<ProductChange> created = new ArrayList<>(page.getNumberOfElements());
+            for (Product product : page) {
+                if (!skipped.contains(product.getId())) {
+                    created.add(new ProductChange(sequence.next(), product.getId(), ProductChangeType.CREATED, now));
+                }
+            }
+            changes.saveAll(created);
+        } while (page.hasNext());
+
+        log.info("ProductChangeFeedInitializedEvent lastSeq={}", sequence.getLastSeq());
+        return sequence;
+    }
+}
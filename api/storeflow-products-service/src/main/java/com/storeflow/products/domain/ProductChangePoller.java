@@ -0,0 +1,119 @@
+package com.storeflow.products.domain;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the change feed so the in-memory indexes also see products written by other instances;
+ * the commits of this one reach them directly. Reading starts from the last sequence when the
+ * bean is created, before the indexes load, so nothing committed after a load is missed. The
+ * indexes re-read the changed products from the table, so changes they already have, including
+ * this instance's own, are harmless.
+ */
+@Component
+public class ProductChangePoller {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangePoller.class);
+
+    private final ProductChangeRepository changes;
+    private final ProductChangeLog changeLog;
+    private final ProductNameIndex nameIndex;
+    private final ProductCatalog catalog;
+    private final ProductChangePollerProperties properties;
+
+    private volatile long since;
+    private volatile boolean failing;
+    private ScheduledExecutorService poller;
+
+    public ProductChangePoller(ProductChangeRepository changes,
+                               ProductChangeLog changeLog,
+                               ProductNameIndex nameIndex,
+                               ProductCatalog catalog,
+                               ProductChangePollerProperties properties) {
+        this.changes = changes;
+        this.changeLog = changeLog;
+        this.nameIndex = nameIndex;
+        this.catalog = catalog;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        since = changeLog.lastSeq();
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-change-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getPollIntervalMs();
+        poller.scheduleWithFixedDelay(this::pollQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    /**
+     * Applies every change after the last one read. Returns how many were read.
+     */
+    public int poll() {
+        int read = 0;
+        List<ProductChange> page;
+        do {
+            page = changes.findBySeqGreaterThanOrderBySeq(since, Limit.of(properties.getPageSize()));
+            if (page.isEmpty()) {
+                break;
+            }
+            Set<Long> productIds = new LinkedHashSet<>();
+            page.forEach(change -> productIds.add(change.getProductId()));
+            nameIndex.refresh(productIds);
+            catalog.refresh(productIds);
+            since = page.get(page.size() - 1).getSeq();
+            read += page.size();
+        } while (page.size() == properties.getPageSize());
+        return read;
+    }
+
+    long since() {
+        return since;
+    }
+
+    void startFrom(long seq) {
+        since = seq;
+    }
+
+    private void pollQuietly() {
+        try {
+            int read = poll();
+            if (failing) {
+                failing = false;
+                log.info("ProductChangePollerRecoveredEvent since={}", since);
+            }
+            if (read > 0) {
+                log.debug("ProductChangesAppliedEvent changes={} since={}", read, since);
+            }
+        } catch (RuntimeException ex) {
+            if (!failing) {
+                failing = true;
+                log.warn("ProductChangePollFailedEvent since={} reason={}", since, ex.getMessage());
+            }
+        }
+    }
+}
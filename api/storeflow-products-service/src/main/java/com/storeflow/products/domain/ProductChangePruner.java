@@ -0,0 +1,64 @@
+package com.storeflow.products.domain;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes changes older than {@code products.change-feed.retention-hours} every
+ * {@code prune-interval-minutes}, so the feed does not grow with the whole history. A reader
+ * asking for pruned changes gets a 410 and starts again from the id export. Several instances
+ * may prune at once; the deletes are idempotent.
+ */
+@Component
+public class ProductChangePruner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangePruner.class);
+
+    private final ProductChangeLog changeLog;
+    private final ProductChangeFeedProperties properties;
+
+    private ScheduledExecutorService pruner;
+
+    public ProductChangePruner(ProductChangeLog changeLog, ProductChangeFeedProperties properties) {
+        this.changeLog = changeLog;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.getPruneIntervalMinutes() <= 0) {
+            return;
+        }
+        pruner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-change-pruner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getPruneIntervalMinutes();
+        pruner.scheduleWithFixedDelay(this::pruneQuietly, interval, interval, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pruner != null) {
+            pruner.shutdownNow();
+        }
+    }
+
+    private void pruneQuietly() {
+        try {
+            changeLog.prune(Instant.now().minus(Duration.ofHours(properties.getRetentionHours())));
+        } catch (RuntimeException ex) {
+            log.warn("ProductChangePruneFailedEvent reason={}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.storeflow.products.domain;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductChangeRepository extends JpaRepository<ProductChange, Long> {
+
+    List<ProductChange> findBySeqGreaterThanOrderBySeq(Long since, Limit limit);
+
+    @Query("select max(c.seq) from ProductChange c where c.changedAt < :before")
+    Optional<Long> findLastSeqBefore(@Param("before") Instant before);
+
+    @Modifying
+    @Query("delete from ProductChange c where c.seq <= :seq")
+    int deleteThrough(@Param("seq") long seq);
+}
@@ -0,0 +1,11 @@
+package com.storeflow.products.domain;
+
+import java.time.Instant;
+
+public record ProductChangeResponse(
+        Long seq,
+        Long productId,
+        String type,
+        Instant changedAt
+) {
+}
@@ -0,0 +1,39 @@
+package com.storeflow.products.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "product_change_sequence")
+public class ProductChangeSequence {
+
+    public static final Long ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "last_seq", nullable = false)
+    private long lastSeq;
+
+    protected ProductChangeSequence() {
+    }
+
+    public ProductChangeSequence(Long id, long lastSeq) {
+        this.id = id;
+        this.lastSeq = lastSeq;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public long next() {
+        return ++lastSeq;
+    }
+}
@@ -0,0 +1,26 @@
+package com.storeflow.products.domain;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface ProductChangeSequenceRepository extends JpaRepository<ProductChangeSequence, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from ProductChangeSequence s where s.id = :id")
+    Optional<ProductChangeSequence> findForUpdate(@Param("id") Long id);
+
+    /**
+     * Creates the counter row unless it exists. A concurrent caller waits on the key until the
+     * first one commits and then inserts nothing, so exactly one caller sees 1.
+     */
+    @Modifying
+    @Query(value = "insert into product_change_sequence (id, last_seq) values (:id, 0) on conflict (id) do nothing",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("id") Long id);
+}
@@ -0,0 +1,7 @@
+package com.storeflow.products.domain;
+
+public enum ProductChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
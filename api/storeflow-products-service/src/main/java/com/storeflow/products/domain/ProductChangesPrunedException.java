@@ -0,0 +1,9 @@
+package com.storeflow.products.domain;
+
+public class ProductChangesPrunedException extends RuntimeException {
+
+    public ProductChangesPrunedException(long since) {
+        super("Changes after " + since + " have been pruned; reload the product ids from /api/v1/products/ids "
+                + "and resume from its meta.lastSeq");
+    }
+}
@@ -1,7 +1,25 @@
 package com.storeflow.products.domain;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.storeflow.products.jsonapi.ETagged;
+import com.storeflow.products.jsonapi.ETags;
+import com.storeflow.products.jsonapi.JsonApiBatchResponse;
+import com.storeflow.products.jsonapi.JsonApiCursorResponse;
+import com.storeflow.products.jsonapi.JsonApiExportMeta;
+import com.storeflow.products.jsonapi.JsonApiExportTrailer;
+import com.storeflow.products.jsonapi.JsonApiFeedResponse;
+import com.storeflow.products.jsonapi.JsonApiIdExportResponse;
+import com.storeflow.products.jsonapi.JsonApiImportResponse;
+import com.storeflow.products.jsonapi.JsonApiKeysetResponse;
 import com.storeflow.products.jsonapi.JsonApiListResponse;
 import com.storeflow.products.jsonapi.JsonApiResponse;
+import com.storeflow.products.jsonapi.JsonApiSearchResponse;
+import com.storeflow.products.jsonapi.NdjsonWriter;
+import com.storeflow.products.jsonapi.PageCount;
+import com.storeflow.products.jsonapi.SparseFields;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,7 +27,9 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,19 +37,34 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
 @Tag(name = "Products", description = "Operations related to product management")
 @RestController
 @RequestMapping("/api/v1/products")
 public class ProductController {
 
     private final ProductService service;
+    private final ObjectMapper objectMapper;
+    private final ProductImporter importer;
+    private final ProductCatalog catalog;
 
-    public ProductController(ProductService service) {
+    public ProductController(ProductService service,
+                             ObjectMapper objectMapper,
+                             ProductImporter importer,
+                             ProductCatalog catalog) {
         this.service = service;
+        this.objectMapper = objectMapper;
+        this.importer = importer;
+        this.catalog = catalog;
     }
 
     @Operation(
@@ -58,17 +93,57 @@ public class ProductController {
             description = "Product found",
             content = @Content(schema = @Schema(implementation = JsonApiResponse.class))
     )
+    @ApiResponse(
+            responseCode = "304",
+            description = "Product unchanged since the ETag in If-None-Match"
+    )
     @ApiResponse(
             responseCode = "404",
             description = "Product not found"
     )
     @GetMapping("/{id}")
     public ResponseEntity<JsonApiResponse<ProductResponse>> findById(
+            @Parameter(description = "Product identifier", example = "1")
+            @PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletResponse servletResponse
+    ) throws IOException {
+        if (catalog.isReady() && catalog.writeTo(id, ifNoneMatch, servletResponse)) {
+            // Already written from the catalog; a null entity tells Spring the response is complete.
+            return null;
+        }
+        // Not in the catalog: missing, or created on another instance and not polled yet.
+        if (ifNoneMatch != null) {
+            String etag = service.currentETag(id);
+            if (ETags.matchesWeakly(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        ETagged<JsonApiResponse<ProductResponse>> response = service.findTaggedById(id);
+        return ResponseEntity.ok().eTag(response.etag()).body(response.body());
+    }
+
+    @Operation(
+            summary = "Check product exists",
+            description = "Answers 200 when the product exists and 404 when it does not, without a body. "
+                    + "Served from an in-memory id index, so the product is not loaded."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Product exists"
+    )
+    @ApiResponse(
+            responseCode = "404",
+            description = "Product not found"
+    )
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> exists(
             @Parameter(description = "Product identifier", example = "1")
             @PathVariable Long id
     ) {
-        JsonApiResponse<ProductResponse> response = service.findById(id);
-        return ResponseEntity.ok(response);
+        return service.exists(id)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
     }
 
     @Operation(
@@ -80,17 +155,262 @@ public class ProductController {
             description = "Products page retrieved successfully",
             content = @Content(schema = @Schema(implementation = JsonApiListResponse.class))
     )
+    @ApiResponse(
+            responseCode = "304",
+            description = "Page unchanged since the ETag in If-None-Match"
+    )
     @GetMapping
     public ResponseEntity<JsonApiListResponse<ProductResponse>> findPage(
             @Parameter(description = "Page number (0-based)", example = "0")
             @RequestParam(name = "page[number]", defaultValue = "0") int pageNumber,
             @Parameter(description = "Page size", example = "10")
-            @RequestParam(name = "page[size]", defaultValue = "10") int pageSize
+            @RequestParam(name = "page[size]", defaultValue = "10") int pageSize,
+            @Parameter(description = "How meta.totalElements is obtained: exact, estimated, cached or none",
+                    example = "exact")
+            @RequestParam(name = "page[count]", defaultValue = "exact") String pageCount,
+            @Parameter(hidden = true)
+            @RequestParam(name = "filter[price][gte]", required = false) BigDecimal minPrice,
+            @Parameter(hidden = true)
+            @RequestParam(name = "filter[price][lte]", required = false) BigDecimal maxPrice,
+            @Parameter(description = "Attributes to return: any of id, name and price; empty for ids only",
+                    example = "name")
+            @RequestParam(name = "fields[products]", required = false) String fields,
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        if (minPrice != null || maxPrice != null) {
+            throw new IllegalArgumentException("filter[price] requires sort; use sort=id to keep id order");
+        }
+        PageCount count = PageCount.fromParameter(pageCount);
+        SparseFields sparseFields = productFields(fields);
+        if (ifNoneMatch != null) {
+            String etag = service.currentPageETag(pageNumber, pageSize, count, sparseFields);
+            if (ETags.matchesWeakly(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+        }
+        ETagged<JsonApiListResponse<ProductResponse>> response = service.findTaggedPage(pageNumber, pageSize, count,
+                sparseFields);
+        return ResponseEntity.ok().eTag(response.etag()).body(response.body());
+    }
+
+    @Operation(
+            summary = "List products after a cursor",
+            description = "Returns the products with an id greater than page[after], in id order. Follow "
+                    + "links.next to get the next page; it is null on the last one. Unlike page[number], "
+                    + "the cost of a page does not grow with its depth."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Products page retrieved successfully",
+            content = @Content(schema = @Schema(implementation = JsonApiCursorResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Negative cursor or page size out of range"
+    )
+    @GetMapping(params = {"page[after]", "!sort"})
+    public ResponseEntity<JsonApiCursorResponse<ProductResponse>> findPageAfter(
+            @Parameter(description = "Last product id already seen (0 for the first page)", example = "0")
+            @RequestParam(name = "page[after]") long after,
+            @Parameter(description = "Page size (max 1000)", example = "10")
+            @RequestParam(name = "page[size]", defaultValue = "10") int pageSize,
+            @Parameter(description = "Attributes to return: any of id, name and price; empty for ids only",
+                    example = "name")
+            @RequestParam(name = "fields[products]", required = false) String fields
+    ) {
+        JsonApiCursorResponse<ProductResponse> response = service.findPageAfter(after, pageSize, productFields(fields));
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "List products sorted",
+            description = "Returns products ordered by sort, a comma separated list of price, name and id, each "
+                    + "prefixed with - for descending order, optionally restricted to the price band given by "
+                    + "filter[price][gte] and filter[price][lte]. Follow links.next, which carries an opaque "
+                    + "page[after] cursor, to get the next page; it is null on the last one."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Products page retrieved successfully",
+            content = @Content(schema = @Schema(implementation = JsonApiKeysetResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Unknown sort field, invalid price band, cursor of another sort or page size out of range"
+    )
+    @GetMapping(params = "sort")
+    public ResponseEntity<JsonApiKeysetResponse<ProductResponse>> findSorted(
+            @Parameter(description = "Sort fields", example = "price,-name")
+            @RequestParam(name = "sort") String sort,
+            @Parameter(description = "Lowest price (inclusive)", example = "10")
+            @RequestParam(name = "filter[price][gte]", required = false) BigDecimal minPrice,
+            @Parameter(description = "Highest price (inclusive)", example = "100")
+            @RequestParam(name = "filter[price][lte]", required = false) BigDecimal maxPrice,
+            @Parameter(description = "Cursor from links.next; omit for the first page")
+            @RequestParam(name = "page[after]", required = false) String after,
+            @Parameter(description = "Page size (max 1000)", example = "10")
+            @RequestParam(name = "page[size]", defaultValue = "10") int pageSize,
+            @Parameter(description = "Attributes to return: any of id, name and price; empty for ids only",
+                    example = "name")
+            @RequestParam(name = "fields[products]", required = false) String fields
+    ) {
+        JsonApiKeysetResponse<ProductResponse> response = service.findSortedPage(ProductSort.fromParameter(sort),
+                new PriceRange(minPrice, maxPrice), after, pageSize, productFields(fields));
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Get products by ids",
+            description = "Returns the products whose ids are listed in filter[id] in a single query. "
+                    + "Ids that do not exist are listed in meta.missingIds."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Products retrieved successfully",
+            content = @Content(schema = @Schema(implementation = JsonApiBatchResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Empty, malformed or too many ids"
+    )
+    @GetMapping(params = "filter[id]")
+    public ResponseEntity<JsonApiBatchResponse<ProductResponse>> findByIds(
+            @Parameter(description = "Comma separated product identifiers (max 500)", example = "1,2,3")
+            @RequestParam(name = "filter[id]") List<Long> ids,
+            @Parameter(description = "Attributes to return: any of id, name and price; empty for ids only",
+                    example = "name")
+            @RequestParam(name = "fields[products]", required = false) String fields
+    ) {
+        JsonApiBatchResponse<ProductResponse> response = service.findByIds(ids, productFields(fields));
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Search products by name",
+            description = "Returns the products whose names best match filter[name], best first. Words of the "
+                    + "query match the start of words in the name, case and accents aside; close misspellings "
+                    + "are returned after exact matches."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Matching products",
+            content = @Content(schema = @Schema(implementation = JsonApiSearchResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Blank query or page size out of range"
+    )
+    @ApiResponse(
+            responseCode = "503",
+            description = "The name index is still loading"
+    )
+    @GetMapping(params = "filter[name]")
+    public ResponseEntity<JsonApiSearchResponse<ProductResponse>> search(
+            @Parameter(description = "Text to search for in product names", example = "monitor")
+            @RequestParam(name = "filter[name]") String name,
+            @Parameter(description = "Maximum number of results (max 100)", example = "20")
+            @RequestParam(name = "page[size]", defaultValue = "20") int pageSize
     ) {
-        JsonApiListResponse<ProductResponse> response = service.findPage(pageNumber, pageSize);
+        JsonApiSearchResponse<ProductResponse> response = service.search(name, pageSize);
         return ResponseEntity.ok(response);
     }
 
+    @Operation(
+            summary = "Product change feed",
+            description = "Returns product creations, updates and deletions with a sequence number greater "
+                    + "than since, in sequence order. Resume with meta.nextSince while meta.hasMore is true."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Changes retrieved successfully",
+            content = @Content(schema = @Schema(implementation = JsonApiFeedResponse.class))
+    )
+    @GetMapping("/changes")
+    public ResponseEntity<JsonApiFeedResponse<ProductChangeResponse>> findChanges(
+            @Parameter(description = "Last sequence number already seen", example = "0")
+            @RequestParam(name = "since", defaultValue = "0") long since,
+            @Parameter(description = "Maximum number of changes (max 1000)", example = "500")
+            @RequestParam(name = "page[size]", defaultValue = "500") int pageSize
+    ) {
+        JsonApiFeedResponse<ProductChangeResponse> response = service.findChanges(since, pageSize);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Export product ids",
+            description = "Returns the ids of existing products greater than page[after], in ascending order. "
+                    + "Resume with meta.nextAfter while meta.hasMore is true; meta.total is the current product count."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Product ids retrieved successfully",
+            content = @Content(schema = @Schema(implementation = JsonApiIdExportResponse.class))
+    )
+    @GetMapping("/ids")
+    public ResponseEntity<JsonApiIdExportResponse> exportIds(
+            @Parameter(description = "Last product id already seen", example = "0")
+            @RequestParam(name = "page[after]", defaultValue = "0") long after,
+            @Parameter(description = "Maximum number of ids (max 10000)", example = "10000")
+            @RequestParam(name = "page[size]", defaultValue = "10000") int pageSize
+    ) {
+        JsonApiIdExportResponse response = service.exportIds(after, pageSize);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(
+            summary = "Export products",
+            description = "Streams every product with filter[id][gte] <= id < filter[id][lt] as newline-delimited "
+                    + "JSON, one JSON:API resource object per line, in id order, followed by a {\"meta\":{\"count\":n}} "
+                    + "line. An export that ends without that line failed part way through. Disjoint id ranges "
+                    + "can be exported in parallel."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Products streamed",
+            content = @Content(mediaType = NdjsonWriter.CONTENT_TYPE)
+    )
+    @ApiResponse(
+            responseCode = "400",
+            description = "Empty or negative id range"
+    )
+    @GetMapping("/export")
+    public void export(
+            @Parameter(description = "Lowest product id to export (inclusive)", example = "0")
+            @RequestParam(name = "filter[id][gte]", defaultValue = "0") long fromId,
+            @Parameter(description = "Product id where the export stops (exclusive)", example = "1000000")
+            @RequestParam(name = "filter[id][lt]", defaultValue = "9223372036854775807") long toId,
+            @Parameter(description = "Attributes to return: any of id, name and price; empty for ids only",
+                    example = "name")
+            @RequestParam(name = "fields[products]", required = false) String fields,
+            HttpServletResponse response
+    ) throws IOException {
+        ExportRange range = new ExportRange(fromId, toId);
+        SparseFields sparseFields = productFields(fields);
+        response.setContentType(NdjsonWriter.CONTENT_TYPE);
+        try (NdjsonWriter writer = new NdjsonWriter(objectMapper, response.getOutputStream())) {
+            long count = service.export(range, sparseFields, writer::write);
+            writer.write(new JsonApiExportTrailer(new JsonApiExportMeta(count)));
+        }
+    }
+
+    @Operation(
+            summary = "Import products",
+            description = "Creates products from a JSON array or newline-delimited JSON body of product "
+                    + "attributes, read as a stream and committed in chunks. Rows that fail validation are "
+                    + "skipped; the response reports inserted and failed rows per chunk."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Import finished",
+            content = @Content(schema = @Schema(implementation = JsonApiImportResponse.class))
+    )
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, NdjsonWriter.CONTENT_TYPE})
+    public ResponseEntity<JsonApiImportResponse<ProductImportChunk>> importProducts(
+            HttpServletRequest request
+    ) throws IOException {
+        return ResponseEntity.ok(importer.importProducts(request.getInputStream()));
+    }
+
     @Operation(
             summary = "Update product",
             description = "Updates an existing product and returns it wrapped in a JSON:API response."
@@ -104,14 +424,20 @@ public class ProductController {
             responseCode = "404",
             description = "Product not found"
     )
+    @ApiResponse(
+            responseCode = "412",
+            description = "The product no longer matches the ETag in If-Match"
+    )
     @PatchMapping("/{id}")
     public ResponseEntity<JsonApiResponse<ProductResponse>> update(
             @Parameter(description = "Product identifier", example = "1")
             @PathVariable Long id,
+            @Parameter(description = "Only update if the product still has this ETag")
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody ProductRequest request
     ) {
-        JsonApiResponse<ProductResponse> response = service.update(id, request);
-        return ResponseEntity.ok(response);
+        ETagged<JsonApiResponse<ProductResponse>> response = service.update(id, request, ifMatch);
+        return ResponseEntity.ok().eTag(response.etag()).body(response.body());
     }
 
     @Operation(
@@ -134,4 +460,8 @@ public class ProductController {
         service.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    private static SparseFields productFields(String fields) {
+        return SparseFields.fromParameter("products", fields, ProductResponse.class);
+    }
 }
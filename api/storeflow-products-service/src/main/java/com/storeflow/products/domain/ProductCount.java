@@ -0,0 +1,55 @@
+package com.storeflow.products.domain;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Number of products for {@code page[count]=cached}. Creations and deletions made here adjust it
+ * when their transaction commits; it is counted again from the table once it is older than
+ * {@code TTL}, which also picks up the writes of other instances.
+ */
+@Component
+public class ProductCount {
+
+    private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final ProductRepository repository;
+    private final AtomicLong count = new AtomicLong();
+
+    private volatile long loadedAt;
+    private volatile boolean loaded;
+
+    public ProductCount(ProductRepository repository) {
+        this.repository = repository;
+    }
+
+    public long get() {
+        if (!loaded || System.nanoTime() - loadedAt >= TTL_NANOS) {
+            reload();
+        }
+        return Math.max(0, count.get());
+    }
+
+    public void added() {
+        AfterCommit.run(count::incrementAndGet);
+    }
+
+    public void added(long products) {
+        AfterCommit.run(() -> count.addAndGet(products));
+    }
+
+    public void removed() {
+        AfterCommit.run(count::decrementAndGet);
+    }
+
+    private synchronized void reload() {
+        if (loaded && System.nanoTime() - loadedAt < TTL_NANOS) {
+            return;
+        }
+        count.set(repository.count());
+        loadedAt = System.nanoTime();
+        loaded = true;
+    }
+}
@@ -0,0 +1,129 @@
+package com.storeflow.products.domain;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed bitmap of the ids of existing products, so existence checks are answered without
+ * touching the database. It is loaded once the application is ready; creations and deletions are
+ * applied when their transaction commits. Until the load finishes {@link #isReady()} is false and
+ * callers have to ask the database. Products created by other instances are not seen, so only a
+ * hit is final; a miss has to be confirmed by the database.
+ */
+@Component
+public class ProductIdIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIdIndex.class);
+    private static final int LOAD_PAGE_SIZE = 10000;
+
+    private final ProductRepository products;
+    private final Roaring64Bitmap ids = new Roaring64Bitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+    private Set<Long> removedWhileLoading = new HashSet<>();
+
+    public ProductIdIndex(ProductRepository products) {
+        this.products = products;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean contains(long productId) {
+        lock.readLock().lock();
+        try {
+            return ids.contains(productId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void added(Long productId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                ids.addLong(productId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void addedAll(Collection<Long> productIds) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                productIds.forEach(ids::addLong);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void removed(Long productId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                ids.removeLong(productId);
+                if (removedWhileLoading != null) {
+                    removedWhileLoading.add(productId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Reads every product id in pages. A product deleted while a later page is being read may
+     * already have been added by an earlier one, so deletions seen during the load are applied
+     * again at the end.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long after = 0;
+        List<Long> page;
+        do {
+            page = products.findIdsAfter(after, PageRequest.of(0, LOAD_PAGE_SIZE));
+            lock.writeLock().lock();
+            try {
+                page.forEach(ids::addLong);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1);
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+
+        long count;
+        long sizeBytes;
+        lock.writeLock().lock();
+        try {
+            removedWhileLoading.forEach(ids::removeLong);
+            removedWhileLoading = null;
+            ids.runOptimize();
+            count = ids.getLongCardinality();
+            sizeBytes = ids.getLongSizeInBytes();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("ProductIdIndexLoadedEvent ids={} sizeBytes={}", count, sizeBytes);
+    }
+}
@@ -0,0 +1,42 @@
+package com.storeflow.products.domain;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Product ids come from {@code products_seq} in blocks of {@link Product#ID_ALLOCATION_SIZE}, so
+ * a batch of inserts does not need a round trip per id. Databases created while ids were still
+ * generated by the identity column already hold rows above the sequence, so on startup, once the
+ * schema has been updated, the sequence is moved past the highest existing id.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ProductIdSequence {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIdSequence.class);
+
+    private final JdbcTemplate jdbc;
+
+    public ProductIdSequence(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void align() {
+        Long maxId = jdbc.queryForObject("select max(id) from products", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        Long lastValue = jdbc.queryForObject("select last_value from " + Product.ID_SEQUENCE, Long.class);
+        if (lastValue != null && lastValue >= maxId) {
+            return;
+        }
+        jdbc.queryForObject("select setval('" + Product.ID_SEQUENCE + "', ?)", Long.class, maxId);
+
+        log.info("ProductIdSequenceAlignedEvent lastValue={} maxId={}", lastValue, maxId);
+    }
+}
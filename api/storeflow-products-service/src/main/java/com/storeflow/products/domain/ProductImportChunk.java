@@ -0,0 +1,16 @@
+package com.storeflow.products.domain;
+
+import java.util.List;
+
+/**
+ * Outcome of one chunk of an import. Rows are numbered from 0 in the order they appear in the
+ * request body; a chunk that fails to commit reports every row it tried to insert as failed.
+ */
+public record ProductImportChunk(
+        int chunk,
+        long firstRow,
+        int inserted,
+        int failed,
+        List<ProductImportFailure> failures
+) {
+}
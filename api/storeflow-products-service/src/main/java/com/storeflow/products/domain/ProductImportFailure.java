@@ -0,0 +1,7 @@
+package com.storeflow.products.domain;
+
+public record ProductImportFailure(
+        long row,
+        String detail
+) {
+}
@@ -0,0 +1,198 @@
+package com.storeflow.products.domain;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.storeflow.products.jsonapi.JsonApiData;
+import com.storeflow.products.jsonapi.JsonApiImportMeta;
+import com.storeflow.products.jsonapi.JsonApiImportResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates products from a JSON array or newline-delimited JSON body, reading it as a stream so
+ * the whole body is never held in memory. Rows are committed in chunks of
+ * {@code products.import.chunk-size}, each in its own transaction, and inserted in JDBC batches of
+ * {@code products.import.batch-size}; the persistence context is flushed and cleared after every
+ * batch so it does not grow with the chunk. Ids come from the pooled products sequence, so
+ * Hibernate can batch the inserts instead of reading back an identity per row.
+ */
+@Component
+public class ProductImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImporter.class);
+
+    private final ObjectReader reader;
+    private final Validator validator;
+    private final TransactionOperations transactions;
+    private final EntityManager entityManager;
+    private final ProductChangeLog changeLog;
+    private final ProductIdIndex idIndex;
+    private final ProductCount productCount;
+    private final ProductNameIndex nameIndex;
+    private final ProductCatalog catalog;
+    private final ProductImportProperties properties;
+
+    public ProductImporter(ObjectMapper objectMapper,
+                           Validator validator,
+                           TransactionOperations transactions,
+                           EntityManager entityManager,
+                           ProductChangeLog changeLog,
+                           ProductIdIndex idIndex,
+                           ProductCount productCount,
+                           ProductNameIndex nameIndex,
+                           ProductCatalog catalog,
+                           ProductImportProperties properties) {
+        this.reader = objectMapper.readerFor(ProductRequest.class);
+        this.validator = validator;
+        this.transactions = transactions;
+        this.entityManager = entityManager;
+        this.changeLog = changeLog;
+        this.idIndex = idIndex;
+        this.productCount = productCount;
+        this.nameIndex = nameIndex;
+        this.catalog = catalog;
+        this.properties = properties;
+    }
+
+    /**
+     * Rows that do not bind or validate are reported and skipped. A body that is not well-formed
+     * JSON stops the import at that point; chunks committed before it stay committed.
+     */
+    public JsonApiImportResponse<ProductImportChunk> importProducts(InputStream body) throws IOException {
+        long started = System.nanoTime();
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        List<JsonApiData<ProductImportChunk>> chunks = new ArrayList<>();
+        long rows = 0;
+        long inserted = 0;
+        long failed = 0;
+
+        try (MappingIterator<ProductRequest> values = reader.readValues(body)) {
+            boolean more = true;
+            while (more) {
+                long firstRow = rows;
+                List<ProductRequest> valid = new ArrayList<>(chunkSize);
+                List<ProductImportFailure> failures = new ArrayList<>();
+                while (rows - firstRow < chunkSize) {
+                    try {
+                        if (!values.hasNextValue()) {
+                            more = false;
+                            break;
+                        }
+                        ProductRequest request = values.nextValue();
+                        String violation = violationOf(request);
+                        if (violation == null) {
+                            valid.add(request);
+                        } else {
+                            failures.add(new ProductImportFailure(rows, violation));
+                        }
+                    } catch (DatabindException ex) {
+                        failures.add(new ProductImportFailure(rows, ex.getOriginalMessage()));
+                    } catch (JsonProcessingException ex) {
+                        failures.add(new ProductImportFailure(rows++, "Malformed JSON: " + ex.getOriginalMessage()));
+                        more = false;
+                        break;
+                    }
+                    rows++;
+                }
+                if (valid.isEmpty() && failures.isEmpty()) {
+                    break;
+                }
+
+                ProductImportChunk chunk = write(chunks.size(), firstRow, valid, failures);
+                inserted += chunk.inserted();
+                failed += chunk.failed();
+                chunks.add(new JsonApiData<>("product-import-chunks", String.valueOf(chunk.chunk()), chunk));
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        long rowsPerSecond = elapsedNanos == 0 ? 0 : inserted * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        log.info("ProductImportCompletedEvent rows={} inserted={} failed={} chunks={} elapsedMs={} rowsPerSecond={}",
+                rows, inserted, failed, chunks.size(), elapsedMs, rowsPerSecond);
+
+        return new JsonApiImportResponse<>(
+                chunks,
+                new JsonApiImportMeta(rows, inserted, failed, chunks.size(), elapsedMs, rowsPerSecond)
+        );
+    }
+
+    private ProductImportChunk write(int number,
+                                     long firstRow,
+                                     List<ProductRequest> valid,
+                                     List<ProductImportFailure> failures) {
+        if (valid.isEmpty()) {
+            return new ProductImportChunk(number, firstRow, 0, failures.size(), failures);
+        }
+        try {
+            transactions.executeWithoutResult(status -> insert(valid));
+            return new ProductImportChunk(number, firstRow, valid.size(), failures.size(), failures);
+        } catch (RuntimeException ex) {
+            log.warn("ProductImportChunkFailedEvent chunk={} firstRow={} rows={} reason={}",
+                    number, firstRow, valid.size(), ex.getMessage());
+            List<ProductImportFailure> all = new ArrayList<>(failures);
+            all.add(new ProductImportFailure(firstRow, "Chunk not committed: " + ex.getMessage()));
+            return new ProductImportChunk(number, firstRow, 0, valid.size() + failures.size(), all);
+        }
+    }
+
+    private void insert(List<ProductRequest> requests) {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+        List<Long> ids = new ArrayList<>(requests.size());
+        List<ProductName> names = new ArrayList<>(requests.size());
+        List<Product> created = new ArrayList<>(requests.size());
+        int pending = 0;
+        for (ProductRequest request : requests) {
+            Product product = new Product();
+            product.setName(request.name());
+            product.setPrice(request.price());
+            entityManager.persist(product);
+            ids.add(product.getId());
+            names.add(new ProductName(product.getId(), product.getName()));
+            created.add(product);
+            if (++pending == batchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        changeLog.recordAll(ids, ProductChangeType.CREATED);
+        idIndex.addedAll(ids);
+        productCount.added(ids.size());
+        nameIndex.addedAll(names);
+        catalog.addedAll(created);
+    }
+
+    private String violationOf(ProductRequest request) {
+        if (request == null) {
+            return "Row is null";
+        }
+        Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        ConstraintViolation<ProductRequest> violation = violations.iterator().next();
+        return violation.getPropertyPath() + " " + violation.getMessage();
+    }
+}
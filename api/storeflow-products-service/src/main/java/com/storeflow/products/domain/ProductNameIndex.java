@@ -0,0 +1,384 @@
+package com.storeflow.products.domain;
+
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory n-gram index of product names for {@code filter[name]}. Every word of a name is
+ * indexed as the trigrams of the word with a leading space plus the space and its first letter,
+ * so a query matches names with words that start with each of its words, and the first one to
+ * three letters of the name are indexed on their own so names starting with the query are ranked
+ * before the rest. When that finds fewer results than asked for, names sharing all but about one
+ * in three of the query's trigrams are added as fuzzy matches. Products whose whole name is the
+ * query are looked up by name first, so they are found however many other names contain it.
+ * Loaded once the application is ready and kept up to date as changes commit here and, through
+ * {@link ProductChangePoller}, on other instances; until then {@link #isReady()} is false.
+ */
+@Component
+public class ProductNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductNameIndex.class);
+    private static final int LOAD_PAGE_SIZE = 10000;
+    private static final int MAX_SCORED = 2000;
+    private static final char START = '^';
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORDS = 2;
+    private static final int GRAMS = 3;
+    private static final int FUZZY = 4;
+
+    private static final Comparator<Match> RANK = Comparator.comparingInt(Match::tier)
+            .thenComparing(Comparator.comparingInt(Match::shared).reversed())
+            .thenComparingInt(Match::length)
+            .thenComparingLong(Match::id);
+
+    private final ProductRepository products;
+    private final Map<String, Roaring64Bitmap> postings = new HashMap<>();
+    private final Map<Long, String> names = new HashMap<>();
+    private final Map<String, Roaring64Bitmap> byName = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile boolean ready;
+    private Map<Long, String> changedWhileLoading = new HashMap<>();
+
+    public ProductNameIndex(ProductRepository products) {
+        this.products = products;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void added(Long productId, String name) {
+        AfterCommit.run(() -> apply(productId, name));
+    }
+
+    public void addedAll(Collection<ProductName> added) {
+        AfterCommit.run(() -> added.forEach(product -> apply(product.id(), product.name())));
+    }
+
+    public void updated(Long productId, String name) {
+        AfterCommit.run(() -> apply(productId, name));
+    }
+
+    public void removed(Long productId) {
+        AfterCommit.run(() -> apply(productId, null));
+    }
+
+    /**
+     * Re-reads the names of products changed elsewhere; products no longer in the table are dropped.
+     */
+    public void refresh(Collection<Long> productIds) {
+        Map<Long, String> current = new HashMap<>();
+        for (ProductName product : products.findNamesByIdIn(productIds)) {
+            current.put(product.id(), product.name());
+        }
+        for (Long productId : productIds) {
+            apply(productId, current.get(productId));
+        }
+    }
+
+    /**
+     * Ids of the best matches for {@code query}, best first: the whole name, then names starting
+     * with the query, then names whose words start with the query's words, then fuzzy matches.
+     * Ties go to the shorter name. A later kind is only looked at while the earlier ones leave
+     * room, and at most {@code MAX_SCORED} candidates of each kind are ranked, so very common
+     * queries rank a sample of their matches rather than all of them.
+     */
+    public List<Long> search(String query, int limit) {
+        String normalized = normalize(query);
+        List<String> grams = queryGrams(normalized);
+        if (grams.isEmpty()) {
+            return List.of();
+        }
+
+        String wordStart = " " + normalized;
+        int tokens = grams.size();
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, RANK.reversed());
+        lock.readLock().lock();
+        try {
+            Roaring64Bitmap named = byName.get(normalized);
+            if (named != null) {
+                LongIterator ids = named.getLongIterator();
+                while (ids.hasNext()) {
+                    offer(best, new Match(ids.next(), EXACT, tokens, normalized.length()), limit);
+                }
+            }
+
+            List<Roaring64Bitmap> lists = new ArrayList<>(tokens);
+            for (String gram : grams) {
+                Roaring64Bitmap ids = postings.get(gram);
+                if (ids != null) {
+                    lists.add(ids);
+                }
+            }
+            lists.sort(Comparator.comparingLong(Roaring64Bitmap::getLongCardinality));
+
+            Roaring64Bitmap exact = lists.size() == tokens ? and(lists) : new Roaring64Bitmap();
+            if (named != null) {
+                exact.andNot(named);
+            }
+            Roaring64Bitmap starting = postings.get(START + normalized.substring(0, Math.min(3, normalized.length())));
+            if (starting != null && !exact.isEmpty()) {
+                Roaring64Bitmap prefixes = Roaring64Bitmap.and(exact, starting);
+                score(best, prefixes, normalized, wordStart, tokens, limit);
+                exact.andNot(prefixes);
+            }
+            if (best.size() < limit || best.peek().tier() > PREFIX) {
+                score(best, exact, normalized, wordStart, tokens, limit);
+            }
+
+            int allowedMisses = Math.max(1, tokens / 3);
+            int required = tokens - allowedMisses;
+            if (best.size() < limit && required > 0 && lists.size() >= required) {
+                fuzzy(best, lists, required, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> ranked = new ArrayList<>(best);
+        ranked.sort(RANK);
+        List<Long> ids = new ArrayList<>(ranked.size());
+        for (Match match : ranked) {
+            ids.add(match.id());
+        }
+        return ids;
+    }
+
+    /**
+     * Reads every product name in pages. Changes committed while the load is running may be
+     * overwritten by a page read before them, so they are applied again at the end.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long after = 0;
+        List<ProductName> page;
+        do {
+            page = products.findNamesAfter(after, PageRequest.of(0, LOAD_PAGE_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (ProductName product : page) {
+                    put(product.id(), product.name());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).id();
+            }
+        } while (page.size() == LOAD_PAGE_SIZE);
+
+        int count;
+        int gramCount;
+        lock.writeLock().lock();
+        try {
+            changedWhileLoading.forEach(this::put);
+            changedWhileLoading = null;
+            postings.values().forEach(Roaring64Bitmap::runOptimize);
+            count = names.size();
+            gramCount = postings.size();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("ProductNameIndexLoadedEvent names={} grams={}", count, gramCount);
+    }
+
+    static String normalize(String text) {
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    private void apply(Long productId, String name) {
+        lock.writeLock().lock();
+        try {
+            put(productId, name);
+            if (changedWhileLoading != null) {
+                changedWhileLoading.put(productId, name);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes {@code name} for the product, or drops it when {@code name} is null. Caller holds
+     * the write lock.
+     */
+    private void put(Long productId, String name) {
+        String normalized = name == null ? null : normalize(name);
+        String previous = normalized == null ? names.remove(productId) : names.put(productId, normalized);
+        Set<String> kept = normalized == null ? Set.of() : nameGrams(normalized);
+        if (previous != null) {
+            Roaring64Bitmap sameName = byName.get(previous);
+            if (sameName != null) {
+                sameName.removeLong(productId);
+                if (sameName.isEmpty()) {
+                    byName.remove(previous);
+                }
+            }
+            for (String gram : nameGrams(previous)) {
+                if (kept.contains(gram)) {
+                    continue;
+                }
+                Roaring64Bitmap ids = postings.get(gram);
+                if (ids != null) {
+                    ids.removeLong(productId);
+                    if (ids.isEmpty()) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+        }
+        for (String gram : kept) {
+            postings.computeIfAbsent(gram, key -> new Roaring64Bitmap()).addLong(productId);
+        }
+        if (normalized != null) {
+            byName.computeIfAbsent(normalized, key -> new Roaring64Bitmap()).addLong(productId);
+        }
+    }
+
+    private void score(PriorityQueue<Match> best, Roaring64Bitmap candidates, String query, String wordStart,
+                       int tokens, int limit) {
+        LongIterator ids = candidates.getLongIterator();
+        for (int scored = 0; scored < MAX_SCORED && ids.hasNext(); scored++) {
+            long id = ids.next();
+            String name = names.get(id);
+            Match worst = best.size() == limit ? best.peek() : null;
+            if (worst != null && name.length() >= worst.length() && worst.tier() <= PREFIX) {
+                continue;
+            }
+            offer(best, new Match(id, tier(name, query, wordStart), tokens, name.length()), limit);
+        }
+    }
+
+    /**
+     * Adds names found in at least {@code required} of the query's gram lists, which are sorted
+     * rarest first. When every list must match that is a plain intersection; otherwise candidates
+     * come from the rarest lists, one of which any such name must be in.
+     */
+    private void fuzzy(PriorityQueue<Match> best, List<Roaring64Bitmap> lists, int required, int limit) {
+        Set<Long> seen = new HashSet<>();
+        best.forEach(match -> seen.add(match.id()));
+        Roaring64Bitmap probe;
+        if (required == lists.size()) {
+            probe = and(lists);
+        } else {
+            probe = new Roaring64Bitmap();
+            for (int i = 0; i <= lists.size() - required; i++) {
+                probe.or(lists.get(i));
+            }
+        }
+
+        LongIterator ids = probe.getLongIterator();
+        for (int scored = 0; scored < MAX_SCORED && ids.hasNext(); ) {
+            long id = ids.next();
+            if (seen.contains(id)) {
+                continue;
+            }
+            scored++;
+            int shared = 0;
+            for (Roaring64Bitmap list : lists) {
+                if (list.contains(id)) {
+                    shared++;
+                }
+            }
+            if (shared >= required) {
+                offer(best, new Match(id, FUZZY, shared, names.get(id).length()), limit);
+            }
+        }
+    }
+
+    private static Roaring64Bitmap and(List<Roaring64Bitmap> lists) {
+        Roaring64Bitmap result = new Roaring64Bitmap();
+        result.or(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.and(lists.get(i));
+        }
+        return result;
+    }
+
+    private static int tier(String name, String query, String wordStart) {
+        if (name.equals(query)) {
+            return EXACT;
+        }
+        if (name.startsWith(query)) {
+            return PREFIX;
+        }
+        return name.contains(wordStart) ? WORDS : GRAMS;
+    }
+
+    private static void offer(PriorityQueue<Match> best, Match match, int limit) {
+        if (best.size() < limit) {
+            best.add(match);
+        } else if (RANK.compare(match, best.peek()) < 0) {
+            best.poll();
+            best.add(match);
+        }
+    }
+
+    private static Set<String> nameGrams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 1; i <= Math.min(3, normalized.length()); i++) {
+            grams.add(START + normalized.substring(0, i));
+        }
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = " " + word;
+            grams.add(padded.substring(0, 2));
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    private static List<String> queryGrams(String normalized) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = " " + word;
+            if (padded.length() == 2) {
+                grams.add(padded);
+            }
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return new ArrayList<>(grams);
+    }
+
+    private record Match(long id, int tier, int shared, int length) {
+    }
+}
@@ -1,6 +1,73 @@
 package com.storeflow.products.domain;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    @Query("select p.version from Product p where p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query(value = "select new com.storeflow.products.domain.ProductVersion(p.id, p.version) from Product p",
+            countQuery = "select count(p) from Product p")
+    Page<ProductVersion> findVersions(Pageable pageable);
+
+    @Query("select new com.storeflow.products.domain.ProductVersion(p.id, p.version) from Product p")
+    Slice<ProductVersion> findVersionSlice(Pageable pageable);
+
+    Slice<Product> findSliceBy(Pageable pageable);
+
+    /**
+     * The planner's row estimate for the products table, or -1 when it has not been analyzed yet.
+     */
+    @Query(value = "select cast(reltuples as bigint) from pg_class where oid = to_regclass('products')",
+            nativeQuery = true)
+    Optional<Long> estimateCount();
+
+    /**
+     * Rows come through a database cursor as DTOs, so nothing accumulates in the persistence
+     * context. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+            select new com.storeflow.products.domain.ProductResponse(p.id, p.name, p.price)
+              from Product p
+             where p.id >= :fromId and p.id < :toId
+             order by p.id
+            """)
+    Stream<ProductResponse> streamRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select p.id from Product p where p.id >= :fromId and p.id < :toId order by p.id")
+    Stream<Long> streamIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("select p from Product p where p.id > :after order by p.id")
+    List<Product> findPageAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("select p.id from Product p where p.id > :after order by p.id")
+    List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("""
+            select new com.storeflow.products.domain.ProductName(p.id, p.name)
+              from Product p
+             where p.id > :after
+             order by p.id
+            """)
+    List<ProductName> findNamesAfter(@Param("after") long after, Pageable pageable);
+
+    @Query("select new com.storeflow.products.domain.ProductName(p.id, p.name) from Product p where p.id in :ids")
+    List<ProductName> findNamesByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,11 +1,32 @@
 package com.storeflow.products.domain;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.storeflow.products.jsonapi.SparseFields;
+
 import java.math.BigDecimal;
 
 
 
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record ProductResponse(
         Long id,
         String name,
         BigDecimal price
 ) {
+
+    /**
+     * This response cut down to the attributes in {@code fields}, or null when none are asked for.
+     */
+    public ProductResponse only(SparseFields fields) {
+        if (fields.isAll()) {
+            return this;
+        }
+        if (fields.attributes().isEmpty()) {
+            return null;
+        }
+        return new ProductResponse(
+                fields.includes("id") ? id : null,
+                fields.includes("name") ? name : null,
+                fields.includes("price") ? price : null
+        );
+    }
 }
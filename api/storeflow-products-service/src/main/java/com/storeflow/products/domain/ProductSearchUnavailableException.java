@@ -0,0 +1,8 @@
+package com.storeflow.products.domain;
+
+public class ProductSearchUnavailableException extends RuntimeException {
+
+    public ProductSearchUnavailableException() {
+        super("The product name index is still loading");
+    }
+}
@@ -1,22 +1,81 @@
 package com.storeflow.products.domain;
 
+import com.storeflow.products.jsonapi.ETagged;
+import com.storeflow.products.jsonapi.ETags;
+import com.storeflow.products.jsonapi.JsonApiBatchMeta;
+import com.storeflow.products.jsonapi.JsonApiBatchResponse;
+import com.storeflow.products.jsonapi.JsonApiCursorMeta;
+import com.storeflow.products.jsonapi.JsonApiCursorResponse;
 import com.storeflow.products.jsonapi.JsonApiData;
+import com.storeflow.products.jsonapi.JsonApiFeedMeta;
+import com.storeflow.products.jsonapi.JsonApiFeedResponse;
+import com.storeflow.products.jsonapi.JsonApiIdExportMeta;
+import com.storeflow.products.jsonapi.JsonApiIdExportResponse;
+import com.storeflow.products.jsonapi.JsonApiKeysetMeta;
+import com.storeflow.products.jsonapi.JsonApiKeysetResponse;
+import com.storeflow.products.jsonapi.JsonApiLinks;
 import com.storeflow.products.jsonapi.JsonApiListResponse;
 import com.storeflow.products.jsonapi.JsonApiPaginationMeta;
 import com.storeflow.products.jsonapi.JsonApiResponse;
+import com.storeflow.products.jsonapi.JsonApiSearchMeta;
+import com.storeflow.products.jsonapi.JsonApiSearchResponse;
+import com.storeflow.products.jsonapi.PageCount;
+import com.storeflow.products.jsonapi.SparseFields;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 @Service
 @Transactional
 public class ProductService {
 
+    static final int MAX_BATCH_IDS = 500;
+    static final int MAX_CHANGES_PAGE = 1000;
+    static final int MAX_EXPORT_PAGE = 10000;
+    static final int MAX_CURSOR_PAGE = 1000;
+    static final int MAX_SEARCH_RESULTS = 100;
+
     private final ProductRepository repository;
+    private final ProductChangeRepository changes;
+    private final ProductChangeLog changeLog;
+    private final ProductIdIndex idIndex;
+    private final ProductCount productCount;
+    private final ProductNameIndex nameIndex;
+    private final ProductCatalog catalog;
 
-    public ProductService(ProductRepository repository) {
+    public ProductService(ProductRepository repository,
+                          ProductChangeRepository changes,
+                          ProductChangeLog changeLog,
+                          ProductIdIndex idIndex,
+                          ProductCount productCount,
+                          ProductNameIndex nameIndex,
+                          ProductCatalog catalog) {
         this.repository = repository;
+        this.changes = changes;
+        this.changeLog = changeLog;
+        this.idIndex = idIndex;
+        this.productCount = productCount;
+        this.nameIndex = nameIndex;
+        this.catalog = catalog;
     }
 
     public JsonApiResponse<ProductResponse> create(ProductRequest request) {
@@ -25,6 +84,11 @@ public class ProductService {
         product.setPrice(request.price());
 
         Product saved = repository.save(product);
+        changeLog.record(saved.getId(), ProductChangeType.CREATED);
+        idIndex.added(saved.getId());
+        productCount.added();
+        nameIndex.added(saved.getId(), saved.getName());
+        catalog.added(saved);
 
         ProductResponse response = new ProductResponse(
                 saved.getId(),
@@ -42,6 +106,10 @@ public class ProductService {
     }
 
     public JsonApiResponse<ProductResponse> findById(Long id) {
+        return findTaggedById(id).body();
+    }
+
+    public ETagged<JsonApiResponse<ProductResponse>> findTaggedById(Long id) {
         Product product = repository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException(id));
 
@@ -57,11 +125,60 @@ public class ProductService {
                 response
         );
 
-        return new JsonApiResponse<>(data);
+        return new ETagged<>(new JsonApiResponse<>(data), etagOf(product));
+    }
+
+    /**
+     * The product's current ETag, read from its version column without loading the entity.
+     */
+    public String currentETag(Long id) {
+        Long version = repository.findVersionById(id)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+        return ETags.of(id, version);
+    }
+
+    /**
+     * Answered from the in-memory id index without a transaction, so a product found there does
+     * not take a database connection. The index only sees this instance's commits, so a miss is
+     * checked against the database, which also finds products created by other instances.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public boolean exists(Long id) {
+        if (idIndex.isReady() && idIndex.contains(id)) {
+            return true;
+        }
+        return repository.existsById(id);
     }
 
     public JsonApiListResponse<ProductResponse> findPage(int pageNumber, int pageSize) {
-        Page<Product> page = repository.findAll(PageRequest.of(pageNumber, pageSize));
+        return findTaggedPage(pageNumber, pageSize).body();
+    }
+
+    public ETagged<JsonApiListResponse<ProductResponse>> findTaggedPage(int pageNumber, int pageSize) {
+        return findTaggedPage(pageNumber, pageSize, PageCount.EXACT);
+    }
+
+    /**
+     * Only {@link PageCount#EXACT} runs the count query; the other modes read the page as a
+     * {@link Slice} and take the total from the planner, the cached counter or nowhere.
+     */
+    public ETagged<JsonApiListResponse<ProductResponse>> findTaggedPage(int pageNumber, int pageSize, PageCount count) {
+        return findTaggedPage(pageNumber, pageSize, count, SparseFields.ALL);
+    }
+
+    /**
+     * When {@code fields} asks for nothing beyond the id, the page is read with the same id and
+     * version projection as {@link #currentPageETag} instead of loading the products.
+     */
+    public ETagged<JsonApiListResponse<ProductResponse>> findTaggedPage(int pageNumber, int pageSize, PageCount count,
+                                                                        SparseFields fields) {
+        if (!fields.needsMoreThan("id")) {
+            return findTaggedIdPage(pageNumber, pageSize, count, fields);
+        }
+
+        PageRequest request = PageRequest.of(pageNumber, pageSize);
+        Slice<Product> page = count == PageCount.EXACT ? repository.findAll(request) : repository.findSliceBy(request);
+        Long total = totalOf(page, count);
 
         var data = page.getContent().stream()
                 .map(product -> new JsonApiData<>(
@@ -71,28 +188,306 @@ public class ProductService {
                                 product.getId(),
                                 product.getName(),
                                 product.getPrice()
-                        )
+                        ).only(fields)
                 ))
                 .toList();
 
-        JsonApiPaginationMeta meta = new JsonApiPaginationMeta(
-                pageNumber,
-                pageSize,
-                page.getTotalElements(),
-                page.getTotalPages()
+        JsonApiPaginationMeta meta = JsonApiPaginationMeta.of(pageNumber, pageSize, total, page.hasNext(), count);
+
+        long rows = 0;
+        for (Product product : page) {
+            rows += ETags.hash(product.getId(), versionOf(product.getVersion()));
+        }
+        return new ETagged<>(new JsonApiListResponse<>(data, meta), pageETag(page, total, rows, fields));
+    }
+
+    private ETagged<JsonApiListResponse<ProductResponse>> findTaggedIdPage(int pageNumber, int pageSize,
+                                                                           PageCount count, SparseFields fields) {
+        PageRequest request = PageRequest.of(pageNumber, pageSize);
+        Slice<ProductVersion> page = count == PageCount.EXACT
+                ? repository.findVersions(request)
+                : repository.findVersionSlice(request);
+        Long total = totalOf(page, count);
+
+        List<JsonApiData<ProductResponse>> data = new ArrayList<>(page.getNumberOfElements());
+        long rows = 0;
+        for (ProductVersion product : page) {
+            data.add(idOnly(product.id(), fields));
+            rows += ETags.hash(product.id(), versionOf(product.version()));
+        }
+
+        JsonApiPaginationMeta meta = JsonApiPaginationMeta.of(pageNumber, pageSize, total, page.hasNext(), count);
+        return new ETagged<>(new JsonApiListResponse<>(data, meta), pageETag(page, total, rows, fields));
+    }
+
+    /**
+     * The page's current ETag, computed from the ids and versions of its rows without loading the
+     * products. Rows are combined in any order, since the page query itself is not sorted.
+     */
+    public String currentPageETag(int pageNumber, int pageSize) {
+        return currentPageETag(pageNumber, pageSize, PageCount.EXACT);
+    }
+
+    public String currentPageETag(int pageNumber, int pageSize, PageCount count) {
+        return currentPageETag(pageNumber, pageSize, count, SparseFields.ALL);
+    }
+
+    public String currentPageETag(int pageNumber, int pageSize, PageCount count, SparseFields fields) {
+        PageRequest request = PageRequest.of(pageNumber, pageSize);
+        Slice<ProductVersion> page = count == PageCount.EXACT
+                ? repository.findVersions(request)
+                : repository.findVersionSlice(request);
+        Long total = totalOf(page, count);
+
+        long rows = 0;
+        for (ProductVersion product : page) {
+            rows += ETags.hash(product.id(), versionOf(product.version()));
+        }
+        return pageETag(page, total, rows, fields);
+    }
+
+    /**
+     * Keyset variant of {@link #findPage}: returns the products with an id greater than
+     * {@code after}, so every page is an index range scan however deep the client has paged.
+     */
+    public JsonApiCursorResponse<ProductResponse> findPageAfter(long after, int pageSize) {
+        return findPageAfter(after, pageSize, SparseFields.ALL);
+    }
+
+    /**
+     * When {@code fields} asks for nothing beyond the id, only ids are read, from the primary key
+     * index alone.
+     */
+    public JsonApiCursorResponse<ProductResponse> findPageAfter(long after, int pageSize, SparseFields fields) {
+        if (after < 0 || pageSize < 1 || pageSize > MAX_CURSOR_PAGE) {
+            throw new IllegalArgumentException(
+                    "page[after] must not be negative and page[size] must be between 1 and " + MAX_CURSOR_PAGE);
+        }
+
+        List<Long> ids;
+        List<JsonApiData<ProductResponse>> data;
+        if (fields.needsMoreThan("id")) {
+            List<Product> page = repository.findPageAfter(after, PageRequest.of(0, pageSize + 1));
+            ids = page.stream().map(Product::getId).toList();
+            data = page.stream()
+                    .limit(pageSize)
+                    .map(product -> new JsonApiData<>(
+                            "products",
+                            String.valueOf(product.getId()),
+                            new ProductResponse(
+                                    product.getId(),
+                                    product.getName(),
+                                    product.getPrice()
+                            ).only(fields)
+                    ))
+                    .toList();
+        } else {
+            ids = repository.findIdsAfter(after, PageRequest.of(0, pageSize + 1));
+            data = ids.stream().limit(pageSize).map(id -> idOnly(id, fields)).toList();
+        }
+        boolean hasMore = ids.size() > pageSize;
+        if (hasMore) {
+            ids = ids.subList(0, pageSize);
+        }
+
+        long nextAfter = ids.isEmpty() ? after : ids.get(ids.size() - 1);
+        JsonApiCursorMeta meta = new JsonApiCursorMeta(after, nextAfter, pageSize, hasMore);
+        JsonApiLinks links = new JsonApiLinks(
+                pageLink(after, pageSize, fields),
+                hasMore ? pageLink(nextAfter, pageSize, fields) : null
+        );
+        return new JsonApiCursorResponse<>(data, meta, links);
+    }
+
+    /**
+     * Sorted and price-filtered listing, paginated with a keyset cursor over the sort fields so a
+     * deep page costs the same as the first one when an index matches the sort (see
+     * {@link Product}). Resume with the {@code page[after]} token in {@code links.next}.
+     */
+    @Transactional(readOnly = true)
+    public JsonApiKeysetResponse<ProductResponse> findSortedPage(ProductSort sort, PriceRange prices, String after,
+                                                                 int pageSize) {
+        return findSortedPage(sort, prices, after, pageSize, SparseFields.ALL);
+    }
+
+    @Transactional(readOnly = true)
+    public JsonApiKeysetResponse<ProductResponse> findSortedPage(ProductSort sort, PriceRange prices, String after,
+                                                                 int pageSize, SparseFields fields) {
+        if (pageSize < 1 || pageSize > MAX_CURSOR_PAGE) {
+            throw new IllegalArgumentException("page[size] must be between 1 and " + MAX_CURSOR_PAGE);
+        }
+
+        KeysetScrollPosition position = sort.positionAfter(after);
+        Specification<Product> filter = prices.toSpecification().and(sort.leadingBound(position));
+        Window<Product> window = repository.findBy(filter, query -> query
+                .sortBy(sort.toSort())
+                .limit(pageSize)
+                .scroll(position));
+
+        var data = window.stream()
+                .map(product -> new JsonApiData<>(
+                        "products",
+                        String.valueOf(product.getId()),
+                        new ProductResponse(
+                                product.getId(),
+                                product.getName(),
+                                product.getPrice()
+                        ).only(fields)
+                ))
+                .toList();
+
+        String nextAfter = window.isEmpty() ? after : sort.cursorOf(window.getContent().get(window.size() - 1));
+        JsonApiKeysetMeta meta = new JsonApiKeysetMeta(sort.parameter(), after, nextAfter, pageSize, window.hasNext());
+        JsonApiLinks links = new JsonApiLinks(
+                sortedPageLink(sort, prices, after, pageSize, fields),
+                window.hasNext() ? sortedPageLink(sort, prices, nextAfter, pageSize, fields) : null
         );
+        return new JsonApiKeysetResponse<>(data, meta, links);
+    }
 
-        return new JsonApiListResponse<>(data, meta);
+    /**
+     * Passes every product in the range to {@code sink} in id order, reading them from a database
+     * cursor so memory use does not depend on the size of the range. Returns how many were exported.
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportRange range, Consumer<JsonApiData<ProductResponse>> sink) {
+        return export(range, SparseFields.ALL, sink);
+    }
+
+    /**
+     * When {@code fields} asks for nothing beyond the id, only ids are streamed.
+     */
+    @Transactional(readOnly = true)
+    public long export(ExportRange range, SparseFields fields, Consumer<JsonApiData<ProductResponse>> sink) {
+        if (!fields.needsMoreThan("id")) {
+            long exported = 0;
+            try (Stream<Long> ids = repository.streamIdRange(range.fromId(), range.toId())) {
+                Iterator<Long> iterator = ids.iterator();
+                while (iterator.hasNext()) {
+                    sink.accept(idOnly(iterator.next(), fields));
+                    exported++;
+                }
+            }
+            return exported;
+        }
+
+        long exported = 0;
+        try (Stream<ProductResponse> rows = repository.streamRange(range.fromId(), range.toId())) {
+            Iterator<ProductResponse> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                ProductResponse product = iterator.next();
+                sink.accept(new JsonApiData<>("products", String.valueOf(product.id()), product.only(fields)));
+                exported++;
+            }
+        }
+        return exported;
+    }
+
+    public JsonApiBatchResponse<ProductResponse> findByIds(List<Long> ids) {
+        return findByIds(ids, SparseFields.ALL);
+    }
+
+    public JsonApiBatchResponse<ProductResponse> findByIds(List<Long> ids, SparseFields fields) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.isEmpty() || requested.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException(
+                    "filter[id] must contain between 1 and " + MAX_BATCH_IDS + " ids");
+        }
+
+        Map<Long, Product> found = repository.findAllById(requested).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<JsonApiData<ProductResponse>> data = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requested) {
+            Product product = found.get(id);
+            if (product == null) {
+                missingIds.add(id);
+                continue;
+            }
+            data.add(new JsonApiData<>(
+                    "products",
+                    String.valueOf(product.getId()),
+                    new ProductResponse(
+                            product.getId(),
+                            product.getName(),
+                            product.getPrice()
+                    ).only(fields)
+            ));
+        }
+
+        JsonApiBatchMeta meta = new JsonApiBatchMeta(requested.size(), data.size(), missingIds);
+        return new JsonApiBatchResponse<>(data, meta);
+    }
+
+    /**
+     * Ranks names with the in-memory {@link ProductNameIndex} and then reads only the matching
+     * products by primary key, so no pattern match runs in the database.
+     */
+    @Transactional(readOnly = true)
+    public JsonApiSearchResponse<ProductResponse> search(String name, int limit) {
+        if (name == null || name.isBlank() || limit < 1 || limit > MAX_SEARCH_RESULTS) {
+            throw new IllegalArgumentException(
+                    "filter[name] must not be blank and page[size] must be between 1 and " + MAX_SEARCH_RESULTS);
+        }
+        if (!nameIndex.isReady()) {
+            throw new ProductSearchUnavailableException();
+        }
+
+        List<Long> ranked = nameIndex.search(name, limit);
+        Map<Long, Product> found = ranked.isEmpty()
+                ? Map.of()
+                : repository.findAllById(ranked).stream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<JsonApiData<ProductResponse>> data = new ArrayList<>(found.size());
+        for (Long id : ranked) {
+            Product product = found.get(id);
+            if (product != null) {
+                data.add(new JsonApiData<>(
+                        "products",
+                        String.valueOf(product.getId()),
+                        new ProductResponse(
+                                product.getId(),
+                                product.getName(),
+                                product.getPrice()
+                        )
+                ));
+            }
+        }
+
+        return new JsonApiSearchResponse<>(data, new JsonApiSearchMeta(name, limit, data.size()));
     }
 
     public JsonApiResponse<ProductResponse> update(Long id, ProductRequest request) {
+        return update(id, request, null).body();
+    }
+
+    /**
+     * Updates the product only if {@code ifMatch} is null or matches its current ETag. The check is
+     * repeated by the version column when the change is flushed, so a concurrent update between
+     * the two is rejected as well.
+     */
+    public ETagged<JsonApiResponse<ProductResponse>> update(Long id, ProductRequest request, String ifMatch) {
         Product product = repository.findById(id)
                 .orElseThrow(() -> new ProductNotFoundException(id));
 
+        if (ifMatch != null && !ETags.matchesStrongly(ifMatch, etagOf(product))) {
+            throw new ProductVersionMismatchException(id);
+        }
+
         product.setName(request.name());
         product.setPrice(request.price());
 
         Product saved = repository.save(product);
+        try {
+            repository.flush();
+        } catch (OptimisticLockingFailureException ex) {
+            throw new ProductVersionMismatchException(id);
+        }
+        changeLog.record(saved.getId(), ProductChangeType.UPDATED);
+        nameIndex.updated(saved.getId(), saved.getName());
+        catalog.updated(saved);
 
         ProductResponse response = new ProductResponse(
                 saved.getId(),
@@ -106,7 +501,7 @@ public class ProductService {
                 response
         );
 
-        return new JsonApiResponse<>(data);
+        return new ETagged<>(new JsonApiResponse<>(data), etagOf(saved));
     }
 
     public void delete(Long id) {
@@ -114,5 +509,115 @@ public class ProductService {
             throw new ProductNotFoundException(id);
         }
         repository.deleteById(id);
+        changeLog.record(id, ProductChangeType.DELETED);
+        idIndex.removed(id);
+        productCount.removed();
+        nameIndex.removed(id);
+        catalog.removed(id);
+    }
+
+    public JsonApiFeedResponse<ProductChangeResponse> findChanges(long since, int limit) {
+        if (since < 0 || limit < 1 || limit > MAX_CHANGES_PAGE) {
+            throw new IllegalArgumentException(
+                    "since must not be negative and page[size] must be between 1 and " + MAX_CHANGES_PAGE);
+        }
+
+        long lastSeq = changeLog.lastSeq();
+        List<ProductChange> page = changes.findBySeqGreaterThanOrderBySeq(since, Limit.of(limit + 1));
+        // Sequence numbers have no gaps, so a missing next change was pruned.
+        if (page.isEmpty() ? since < lastSeq : page.get(0).getSeq() > since + 1) {
+            throw new ProductChangesPrunedException(since);
+        }
+        boolean hasMore = page.size() > limit;
+        if (hasMore) {
+            page = page.subList(0, limit);
+        }
+
+        var data = page.stream()
+                .map(change -> new JsonApiData<>(
+                        "product-changes",
+                        String.valueOf(change.getSeq()),
+                        new ProductChangeResponse(
+                                change.getSeq(),
+                                change.getProductId(),
+                                change.getType().name().toLowerCase(),
+                                change.getChangedAt()
+                        )
+                ))
+                .toList();
+
+        long nextSince = page.isEmpty() ? since : page.get(page.size() - 1).getSeq();
+        JsonApiFeedMeta meta = new JsonApiFeedMeta(since, nextSince, Math.max(lastSeq, nextSince), hasMore);
+        return new JsonApiFeedResponse<>(data, meta);
+    }
+
+    /**
+     * One page of ids in ascending order. {@code meta.total} is the cached product count, so
+     * paging through every id does not count the table once per page. {@code meta.lastSeq} is
+     * read before the ids, so a reader that loads every page and then follows the change feed
+     * from the first page's value misses nothing.
+     */
+    public JsonApiIdExportResponse exportIds(long after, int limit) {
+        if (after < 0 || limit < 1 || limit > MAX_EXPORT_PAGE) {
+            throw new IllegalArgumentException(
+                    "page[after] must not be negative and page[size] must be between 1 and " + MAX_EXPORT_PAGE);
+        }
+
+        long lastSeq = changeLog.lastSeq();
+        List<Long> ids = repository.findIdsAfter(after, PageRequest.of(0, limit + 1));
+        boolean hasMore = ids.size() > limit;
+        if (hasMore) {
+            ids = ids.subList(0, limit);
+        }
+
+        long nextAfter = ids.isEmpty() ? after : ids.get(ids.size() - 1);
+        JsonApiIdExportMeta meta = new JsonApiIdExportMeta(after, nextAfter, productCount.get(), hasMore, lastSeq);
+        return new JsonApiIdExportResponse(List.copyOf(ids), meta);
+    }
+
+    /**
+     * An estimate is never reported below what the page itself shows exists, and falls back to
+     * an exact count while the table has not been analyzed.
+     */
+    private Long totalOf(Slice<?> page, PageCount count) {
+        return switch (count) {
+            case EXACT -> ((Page<?>) page).getTotalElements();
+            case ESTIMATED -> {
+                long estimate = repository.estimateCount().orElse(-1L);
+                long seen = (long) page.getNumber() * page.getSize() + page.getNumberOfElements()
+                        + (page.hasNext() ? 1 : 0);
+                yield estimate < 0 ? repository.count() : Math.max(estimate, seen);
+            }
+            case CACHED -> productCount.get();
+            case NONE -> null;
+        };
+    }
+
+    private static String pageETag(Slice<?> page, Long total, long rows, SparseFields fields) {
+        return ETags.of(page.getNumber(), page.getSize(), total == null ? -1 : total, page.hasNext() ? 1 : 0, rows,
+                fields.hash());
+    }
+
+    private static JsonApiData<ProductResponse> idOnly(Long id, SparseFields fields) {
+        return new JsonApiData<>("products", String.valueOf(id), new ProductResponse(id, null, null).only(fields));
+    }
+
+    private static String pageLink(long after, int pageSize, SparseFields fields) {
+        return "/api/v1/products?page[after]=" + after + "&page[size]=" + pageSize + fields.toQuery("products");
+    }
+
+    private static String sortedPageLink(ProductSort sort, PriceRange prices, String after, int pageSize,
+                                         SparseFields fields) {
+        return "/api/v1/products?sort=" + sort.parameter() + prices.toQuery()
+                + (after == null ? "" : "&page[after]=" + after) + "&page[size]=" + pageSize
+                + fields.toQuery("products");
+    }
+
+    private static String etagOf(Product product) {
+        return ETags.of(product.getId(), versionOf(product.getVersion()));
+    }
+
+    private static long versionOf(Long version) {
+        return version == null ? 0 : version;
     }
 }
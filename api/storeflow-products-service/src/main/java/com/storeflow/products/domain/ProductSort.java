@@ -0,0 +1,171 @@
+package com.storeflow.products.domain;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Order of a sorted listing, from a JSON:API {@code sort} parameter such as {@code price,-name}.
+ * Unless {@code id} is one of the fields it is appended in the direction of the last one, so the
+ * order is total and can be resumed from a keyset cursor: the sort parameter and the last row's
+ * sort values, encoded as an opaque {@code page[after]} token that only this sort accepts. When
+ * the order is by ascending id alone the token is the id itself.
+ */
+public final class ProductSort {
+
+    private static final Set<String> PROPERTIES = Set.of("price", "name", "id");
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final String parameter;
+    private final List<Sort.Order> orders;
+
+    private ProductSort(String parameter, List<Sort.Order> orders) {
+        this.parameter = parameter;
+        this.orders = orders;
+    }
+
+    public static ProductSort fromParameter(String value) {
+        List<Sort.Order> orders = new ArrayList<>(PROPERTIES.size() + 1);
+        List<String> fields = new ArrayList<>(PROPERTIES.size());
+        Set<String> seen = new HashSet<>();
+        for (String field : value.split(",", -1)) {
+            String trimmed = field.trim();
+            boolean descending = trimmed.startsWith("-");
+            String property = descending ? trimmed.substring(1) : trimmed;
+            if (!PROPERTIES.contains(property) || !seen.add(property)) {
+                throw new IllegalArgumentException(
+                        "sort must list price, name or id at most once each, prefixed with - for descending order");
+            }
+            // Ids are unique, so fields after id would not change the order.
+            if (!seen.contains("id") || property.equals("id")) {
+                fields.add(trimmed);
+                orders.add(descending ? Sort.Order.desc(property) : Sort.Order.asc(property));
+            }
+        }
+        if (!seen.contains("id")) {
+            orders.add(new Sort.Order(orders.get(orders.size() - 1).getDirection(), "id"));
+        }
+        return new ProductSort(String.join(",", fields), List.copyOf(orders));
+    }
+
+    public String parameter() {
+        return parameter;
+    }
+
+    public Sort toSort() {
+        return Sort.by(orders);
+    }
+
+    public String cursorOf(Product product) {
+        if (byIdOnly()) {
+            return String.valueOf(product.getId());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(parameter);
+            for (Sort.Order order : orders) {
+                out.writeUTF(String.valueOf(valueOf(product, order.getProperty())));
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return ENCODER.encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Where to resume the listing: the start when {@code after} is null, or just after the row a
+     * {@link #cursorOf} token was taken from.
+     */
+    public KeysetScrollPosition positionAfter(String after) {
+        if (after == null) {
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            if (byIdOnly()) {
+                keys.put("id", Long.parseLong(after));
+            } else {
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(DECODER.decode(after)));
+                if (!in.readUTF().equals(parameter)) {
+                    throw new IOException("Cursor of another sort");
+                }
+                for (Sort.Order order : orders) {
+                    keys.put(order.getProperty(), parse(order.getProperty(), in.readUTF()));
+                }
+                if (in.available() > 0) {
+                    throw new IOException("Trailing bytes");
+                }
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            throw new IllegalArgumentException("page[after] is not a cursor of a listing sorted by " + parameter);
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Bound on the first sort field implied by {@code position}. The keyset condition Spring Data
+     * builds is an OR of one AND per field, which the planner cannot turn into an index range on
+     * its own; this redundant {@code >=} ({@code <=} when descending) gives it a start key.
+     */
+    public Specification<Product> leadingBound(KeysetScrollPosition position) {
+        Sort.Order first = orders.get(0);
+        Object value = position.getKeys().get(first.getProperty());
+        return (root, query, builder) -> {
+            if (value == null || orders.size() == 1) {
+                return builder.and();
+            }
+            boolean descending = first.isDescending();
+            return switch (first.getProperty()) {
+                case "price" -> bound(builder, root.<BigDecimal>get("price"), (BigDecimal) value, descending);
+                case "name" -> bound(builder, root.<String>get("name"), (String) value, descending);
+                default -> bound(builder, root.<Long>get("id"), (Long) value, descending);
+            };
+        };
+    }
+
+    private boolean byIdOnly() {
+        return orders.size() == 1 && orders.get(0).isAscending();
+    }
+
+    private static <T extends Comparable<? super T>> Predicate bound(CriteriaBuilder builder, Expression<T> column,
+                                                                     T value, boolean descending) {
+        return descending ? builder.lessThanOrEqualTo(column, value) : builder.greaterThanOrEqualTo(column, value);
+    }
+
+    private static Object valueOf(Product product, String property) {
+        return switch (property) {
+            case "price" -> product.getPrice().toPlainString();
+            case "name" -> product.getName();
+            default -> product.getId();
+        };
+    }
+
+    private static Object parse(String property, String value) {
+        return switch (property) {
+            case "price" -> new BigDecimal(value);
+            case "name" -> value;
+            default -> Long.parseLong(value);
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package com.storeflow.products.domain;
+
+public record ProductVersion(
+        Long id,
+        Long version
+) {
+}
@@ -0,0 +1,8 @@
+package com.storeflow.products.domain;
+
+public class ProductVersionMismatchException extends RuntimeException {
+
+    public ProductVersionMismatchException(Long id) {
+        super("Product " + id + " has been modified since it was read");
+    }
+}
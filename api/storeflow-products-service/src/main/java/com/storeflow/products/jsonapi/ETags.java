@@ -0,0 +1,58 @@
+package com.storeflow.products.jsonapi;
+
+/**
+ * Strong entity tags built from ids and versions, and the If-None-Match / If-Match comparisons.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(long... parts) {
+        return "\"" + Long.toHexString(hash(parts)) + "\"";
+    }
+
+    public static long hash(long... parts) {
+        long hash = 0x9e3779b97f4a7c15L;
+        for (long part : parts) {
+            hash = mix(hash ^ part);
+        }
+        return hash;
+    }
+
+    /**
+     * If-None-Match uses the weak comparison: {@code W/"x"} matches {@code "x"}.
+     */
+    public static boolean matchesWeakly(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Match uses the strong comparison: weak tags never match.
+     */
+    public static boolean matchesStrongly(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
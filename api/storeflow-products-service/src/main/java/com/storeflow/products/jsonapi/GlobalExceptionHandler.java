@@ -1,11 +1,16 @@
 package com.storeflow.products.jsonapi;
 
+import com.storeflow.products.domain.ProductChangesPrunedException;
 import com.storeflow.products.domain.ProductNotFoundException;
+import com.storeflow.products.domain.ProductSearchUnavailableException;
+import com.storeflow.products.domain.ProductVersionMismatchException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.List;
 
@@ -39,6 +44,51 @@ public class GlobalExceptionHandler {
                 .body(new JsonApiErrorResponse(List.of(error)));
     }
 
+    @ExceptionHandler(ProductVersionMismatchException.class)
+    public ResponseEntity<JsonApiErrorResponse> handleVersionMismatch(ProductVersionMismatchException ex) {
+        JsonApiError error = new JsonApiError(
+                String.valueOf(HttpStatus.PRECONDITION_FAILED.value()),
+                "Precondition failed",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(new JsonApiErrorResponse(List.of(error)));
+    }
+
+    @ExceptionHandler(ProductSearchUnavailableException.class)
+    public ResponseEntity<JsonApiErrorResponse> handleSearchUnavailable(ProductSearchUnavailableException ex) {
+        JsonApiError error = new JsonApiError(
+                String.valueOf(HttpStatus.SERVICE_UNAVAILABLE.value()),
+                "Search unavailable",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(new JsonApiErrorResponse(List.of(error)));
+    }
+
+    @ExceptionHandler(ProductChangesPrunedException.class)
+    public ResponseEntity<JsonApiErrorResponse> handleChangesPruned(ProductChangesPrunedException ex) {
+        JsonApiError error = new JsonApiError(
+                String.valueOf(HttpStatus.GONE.value()),
+                "Changes pruned",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.GONE)
+                .body(new JsonApiErrorResponse(List.of(error)));
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<JsonApiErrorResponse> handleInvalidRequest(Exception ex) {
+        JsonApiError error = new JsonApiError(
+                String.valueOf(HttpStatus.BAD_REQUEST.value()),
+                "Invalid request",
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(new JsonApiErrorResponse(List.of(error)));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<JsonApiErrorResponse> handleGeneric(Exception ex) {
         JsonApiError error = new JsonApiError(
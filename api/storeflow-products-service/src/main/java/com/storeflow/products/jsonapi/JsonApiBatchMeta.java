@@ -0,0 +1,10 @@
+package com.storeflow.products.jsonapi;
+
+import java.util.List;
+
+public record JsonApiBatchMeta(
+        int requested,
+        int found,
+        List<Long> missingIds
+) {
+}
@@ -0,0 +1,9 @@
+package com.storeflow.products.jsonapi;
+
+public record JsonApiCursorMeta(
+        long after,
+        long nextAfter,
+        int pageSize,
+        boolean hasMore
+) {
+}
@@ -0,0 +1,10 @@
+package com.storeflow.products.jsonapi;
+
+import java.util.List;
+
+public record JsonApiCursorResponse<T>(
+        List<JsonApiData<T>> data,
+        JsonApiCursorMeta meta,
+        JsonApiLinks links
+) {
+}
@@ -0,0 +1,6 @@
+package com.storeflow.products.jsonapi;
+
+public record JsonApiExportMeta(
+        long count
+) {
+}
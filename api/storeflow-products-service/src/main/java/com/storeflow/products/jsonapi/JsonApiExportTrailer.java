@@ -0,0 +1,10 @@
+package com.storeflow.products.jsonapi;
+
+/**
+ * Last line of an NDJSON export. Written only once every row has been streamed, so an export that
+ * ends without it was cut short.
+ */
+public record JsonApiExportTrailer(
+        JsonApiExportMeta meta
+) {
+}
@@ -0,0 +1,9 @@
+package com.storeflow.products.jsonapi;
+
+public record JsonApiFeedMeta(
+        long since,
+        long nextSince,
+        long lastSeq,
+        boolean hasMore
+) {
+}
@@ -0,0 +1,9 @@
+package com.storeflow.products.jsonapi;
+
+import java.util.List;
+
+public record JsonApiFeedResponse<T>(
+        List<JsonApiData<T>> data,
+        JsonApiFeedMeta meta
+) {
+}
@@ -0,0 +1,10 @@
+package com.storeflow.products.jsonapi;
+
+public record JsonApiIdExportMeta(
+        long after,
+        long nextAfter,
+        long total,
+        boolean hasMore,
+        long lastSeq
+) {
+}
@@ -0,0 +1,9 @@
+package com.storeflow.products.jsonapi;
+
+import java.util.List;
+
+public record JsonApiIdExportResponse(
+        List<Long> data,
+        JsonApiIdExportMeta meta
+) {
+}
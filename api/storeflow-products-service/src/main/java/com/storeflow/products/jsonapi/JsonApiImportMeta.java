@@ -0,0 +1,11 @@
+package com.storeflow.products.jsonapi;
+
+public record JsonApiImportMeta(
+        long rows,
+        long inserted,
+        long failed,
+        int chunks,
+        long elapsedMs,
+        long rowsPerSecond
+) {
+}
@@ -0,0 +1,10 @@
+package com.storeflow.products.jsonapi;
+
+public record JsonApiKeysetMeta(
+        String sort,
+        String after,
+        String nextAfter,
+        int pageSize,
+        boolean hasMore
+) {
+}
@@ -0,0 +1,10 @@
+package com.storeflow.products.jsonapi;
+
+import java.util.List;
+
+public record JsonApiKeysetResponse<T>(
+        List<JsonApiData<T>> data,
+        JsonApiKeysetMeta meta,
+        JsonApiLinks links
+) {
+}
@@ -0,0 +1,7 @@
+package com.storeflow.products.jsonapi;
+
+public record JsonApiLinks(
+        String self,
+        String next
+) {
+}
@@ -1,9 +1,27 @@
 package com.storeflow.products.jsonapi;
 
+/**
+ * {@code totalElements} and {@code totalPages} are null when the listing was requested with
+ * {@code page[count]=none}, and approximate for {@code estimated} and {@code cached}.
+ */
 public record JsonApiPaginationMeta(
         int pageNumber,
         int pageSize,
-        long totalElements,
-        int totalPages
+        Long totalElements,
+        Integer totalPages,
+        String count,
+        boolean hasNext
 ) {
+
+    public JsonApiPaginationMeta(int pageNumber, int pageSize, long totalElements, int totalPages) {
+        this(pageNumber, pageSize, totalElements, totalPages, PageCount.EXACT.parameter(), pageNumber + 1 < totalPages);
+    }
+
+    public static JsonApiPaginationMeta of(int pageNumber, int pageSize, Long totalElements,
+                                           boolean hasNext, PageCount count) {
+        Integer totalPages = totalElements == null
+                ? null
+                : (int) ((totalElements + pageSize - 1) / pageSize);
+        return new JsonApiPaginationMeta(pageNumber, pageSize, totalElements, totalPages, count.parameter(), hasNext);
+    }
 }
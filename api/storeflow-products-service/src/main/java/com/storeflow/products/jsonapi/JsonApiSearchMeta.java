@@ -0,0 +1,8 @@
+package com.storeflow.products.jsonapi;
+
+public record JsonApiSearchMeta(
+        String query,
+        int pageSize,
+        int found
+) {
+}
@@ -0,0 +1,9 @@
+package com.storeflow.products.jsonapi;
+
+import java.util.List;
+
+public record JsonApiSearchResponse<T>(
+        List<JsonApiData<T>> data,
+        JsonApiSearchMeta meta
+) {
+}
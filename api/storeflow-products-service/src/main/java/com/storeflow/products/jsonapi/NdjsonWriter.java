@@ -0,0 +1,57 @@
+package com.storeflow.products.jsonapi;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes one JSON document per line. Output is flushed every {@code FLUSH_EVERY} lines rather
+ * than per line; in between, a slow reader simply blocks the writer once the socket buffer fills.
+ * Closing does not flush the underlying stream, so a writer closed before anything was written
+ * leaves the response uncommitted and an error status can still be sent.
+ */
+public final class NdjsonWriter implements Closeable {
+
+    public static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private static final int FLUSH_EVERY = 500;
+
+    private final OutputStream out;
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+    private int unflushed;
+
+    public NdjsonWriter(ObjectMapper mapper, OutputStream out) throws IOException {
+        this.out = out;
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = mapper.createGenerator(out);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        this.generator.setRootValueSeparator(null);
+    }
+
+    public void write(Object value) {
+        try {
+            writer.writeValue(generator, value);
+            generator.writeRaw('\n');
+            if (++unflushed >= FLUSH_EVERY) {
+                generator.flush();
+                out.flush();
+                unflushed = 0;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,28 @@
+package com.storeflow.products.jsonapi;
+
+import java.util.Locale;
+
+/**
+ * How the total of an offset-paginated listing is obtained, chosen with {@code page[count]}.
+ * Only {@link #EXACT} runs a {@code COUNT} over the table; {@link #NONE} just reports whether
+ * there is a next page.
+ */
+public enum PageCount {
+    EXACT,
+    ESTIMATED,
+    CACHED,
+    NONE;
+
+    public static PageCount fromParameter(String value) {
+        for (PageCount count : values()) {
+            if (count.parameter().equals(value.trim().toLowerCase(Locale.ROOT))) {
+                return count;
+            }
+        }
+        throw new IllegalArgumentException("page[count] must be one of exact, estimated, cached or none");
+    }
+
+    public String parameter() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
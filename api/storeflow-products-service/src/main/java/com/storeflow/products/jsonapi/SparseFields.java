@@ -0,0 +1,76 @@
+package com.storeflow.products.jsonapi;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Attributes to return for one resource type, from a JSON:API {@code fields[type]} parameter.
+ * {@link #ALL} when the parameter is absent; an empty value asks for no attributes, so each
+ * resource is just its type and id. Listings that need no column beyond the id read only ids.
+ */
+public record SparseFields(
+        Set<String> attributes
+) {
+
+    public static final SparseFields ALL = new SparseFields(null);
+
+    public static SparseFields fromParameter(String type, String value, Class<? extends Record> attributesType) {
+        if (value == null) {
+            return ALL;
+        }
+
+        List<String> known = Arrays.stream(attributesType.getRecordComponents())
+                .map(RecordComponent::getName)
+                .toList();
+        Set<String> attributes = new LinkedHashSet<>();
+        for (String field : value.split(",")) {
+            String attribute = field.trim();
+            if (attribute.isEmpty()) {
+                continue;
+            }
+            if (!known.contains(attribute)) {
+                throw new IllegalArgumentException(
+                        "fields[" + type + "] may only list " + String.join(", ", known));
+            }
+            attributes.add(attribute);
+        }
+        return new SparseFields(Set.copyOf(attributes));
+    }
+
+    public boolean isAll() {
+        return attributes == null;
+    }
+
+    public boolean includes(String attribute) {
+        return attributes == null || attributes.contains(attribute);
+    }
+
+    /**
+     * Whether any attribute other than those listed, which are known without loading the
+     * resource, is asked for.
+     */
+    public boolean needsMoreThan(String... cheap) {
+        if (attributes == null) {
+            return true;
+        }
+        List<String> known = List.of(cheap);
+        return attributes.stream().anyMatch(attribute -> !known.contains(attribute));
+    }
+
+    /**
+     * The parameter for pagination links, starting with {@code &}, or empty for {@link #ALL}.
+     */
+    public String toQuery(String type) {
+        return attributes == null ? "" : "&fields[" + type + "]=" + String.join(",", attributes);
+    }
+
+    /**
+     * Mixed into list ETags, since the same rows give a different body for each field set.
+     */
+    public long hash() {
+        return attributes == null ? 0 : attributes.stream().sorted().toList().hashCode() + 1L;
+    }
+}
@@ -0,0 +1,147 @@
+package com.storeflow.products.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeflow.products.jsonapi.ETags;
+import com.storeflow.products.jsonapi.JsonApiData;
+import com.storeflow.products.jsonapi.JsonApiResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProductCatalogProperties properties = new ProductCatalogProperties();
+
+    @Mock
+    private ProductRepository repository;
+
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        properties.setEnabled(true);
+        properties.setSegmentBytes(1024);
+        catalog = new ProductCatalog(repository, objectMapper, properties);
+    }
+
+    @Test
+    void load_shouldServeEveryProductAsItsJsonApiBody() throws IOException {
+        when(repository.findPageAfter(0L, PageRequest.of(0, 10000)))
+                .thenReturn(List.of(product(1L, "Mouse", "10", 3L), product(2L, "Keyboard", "45.5", 0L)));
+
+        catalog.load();
+
+        assertTrue(catalog.isReady());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(catalog.writeTo(2L, null, response));
+        assertEquals(200, response.getStatus());
+        assertEquals(ETags.of(2L, 0L), response.getHeader("ETag"));
+        assertEquals(body(2L, "Keyboard", "45.50"), response.getContentAsString());
+        assertFalse(catalog.writeTo(3L, null, new MockHttpServletResponse()));
+    }
+
+    @Test
+    void writeTo_withMatchingIfNoneMatch_shouldReturn304WithoutBody() throws IOException {
+        catalog.added(product(1L, "Mouse", "10", 3L));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(catalog.writeTo(1L, "W/" + ETags.of(1L, 3L), response));
+
+        assertEquals(304, response.getStatus());
+        assertEquals(ETags.of(1L, 3L), response.getHeader("ETag"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void writes_shouldKeepTheHighestVersionAndDeletedIdsDeleted() throws IOException {
+        catalog.updated(product(1L, "Mouse v2", "12", 2L));
+        catalog.added(product(1L, "Mouse", "10", 1L));
+        catalog.removed(5L);
+        catalog.added(product(5L, "Gone", "1", 0L));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        catalog.writeTo(1L, null, response);
+
+        assertEquals(body(1L, "Mouse v2", "12.00"), response.getContentAsString());
+        assertFalse(catalog.writeTo(5L, null, new MockHttpServletResponse()));
+        assertEquals(1, catalog.size());
+    }
+
+    @Test
+    void updates_shouldCompactSegmentsSoMemoryDoesNotGrow() throws IOException {
+        catalog.addedAll(List.of(product(1L, "Mouse", "10", 0L), product(70000L, "Cable", "3", 0L)));
+        for (long version = 1; version <= 200; version++) {
+            catalog.updated(product(1L, "Mouse " + version, "10", version));
+        }
+
+        MockHttpServletResponse mouse = new MockHttpServletResponse();
+        catalog.writeTo(1L, null, mouse);
+        MockHttpServletResponse cable = new MockHttpServletResponse();
+        catalog.writeTo(70000L, null, cable);
+
+        assertEquals(body(1L, "Mouse 200", "10.00"), mouse.getContentAsString());
+        assertEquals(body(70000L, "Cable", "3.00"), cable.getContentAsString());
+        assertTrue(catalog.segmentCount() <= 3, "segments: " + catalog.segmentCount());
+    }
+
+    @Test
+    void refresh_shouldApplyWritesOfOtherInstances() throws IOException {
+        catalog.added(product(1L, "Mouse", "10", 0L));
+        catalog.added(product(2L, "Keyboard", "45", 0L));
+        when(repository.findAllById(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(product(1L, "Mouse v2", "12", 1L), product(3L, "Webcam", "30", 0L)));
+
+        catalog.refresh(List.of(1L, 2L, 3L));
+
+        MockHttpServletResponse mouse = new MockHttpServletResponse();
+        catalog.writeTo(1L, ETags.of(1L, 0L), mouse);
+        assertEquals(200, mouse.getStatus());
+        assertEquals(body(1L, "Mouse v2", "12.00"), mouse.getContentAsString());
+        assertFalse(catalog.writeTo(2L, null, new MockHttpServletResponse()));
+        MockHttpServletResponse webcam = new MockHttpServletResponse();
+        catalog.writeTo(3L, null, webcam);
+        assertEquals(body(3L, "Webcam", "30.00"), webcam.getContentAsString());
+    }
+
+    @Test
+    void disabled_shouldNeitherLoadNorStore() throws IOException {
+        properties.setEnabled(false);
+
+        catalog.added(product(1L, "Mouse", "10", 0L));
+        catalog.load();
+
+        assertFalse(catalog.isReady());
+        assertFalse(catalog.writeTo(1L, null, new MockHttpServletResponse()));
+        verifyNoInteractions(repository);
+    }
+
+    private String body(Long id, String name, String price) throws IOException {
+        return objectMapper.writeValueAsString(new JsonApiResponse<>(new JsonApiData<>(
+                "products", String.valueOf(id), new ProductResponse(id, name, new BigDecimal(price)))));
+    }
+
+    private static Product product(Long id, String name, String price, Long version) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,110 @@
+package com.storeflow.products.domain;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductChangeLogTest {
+
+    @Mock
+    private ProductChangeRepository changes;
+
+    @Mock
+    private ProductChangeSequenceRepository sequences;
+
+    @Mock
+    private ProductRepository products;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ProductChangeLog changeLog;
+
+    @BeforeEach
+    void setUp() {
+        changeLog = new ProductChangeLog(changes, sequences, products, entityManager);
+    }
+
+    @Test
+    void record_withoutSequenceRow_createsItAndListsExistingProductsOnce() {
+        ProductChangeSequence sequence = new ProductChangeSequence(ProductChangeSequence.ID, 0);
+        when(sequences.findForUpdate(ProductChangeSequence.ID)).thenReturn(Optional.empty(), Optional.of(sequence));
+        when(sequences.insertIfAbsent(ProductChangeSequence.ID)).thenReturn(1);
+        when(products.findAll(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(product(1L), product(2L)), PageRequest.of(0, 1000), 2));
+        List<ProductChange> saved = new ArrayList<>();
+        when(changes.saveAll(anyList())).thenAnswer(invocation -> {
+            saved.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        changeLog.record(2L, ProductChangeType.CREATED);
+
+        ArgumentCaptor<ProductChange> recorded = ArgumentCaptor.forClass(ProductChange.class);
+        verify(changes).save(recorded.capture());
+        assertEquals(List.of(1L), saved.stream().map(ProductChange::getProductId).toList());
+        assertEquals(2L, recorded.getValue().getProductId());
+        assertEquals(2L, recorded.getValue().getSeq());
+    }
+
+    @Test
+    void initialize_whenAnotherInstanceCreatedTheRow_backfillsNothing() {
+        when(sequences.existsById(ProductChangeSequence.ID)).thenReturn(false);
+        when(sequences.findForUpdate(ProductChangeSequence.ID)).thenReturn(
+                Optional.empty(), Optional.of(new ProductChangeSequence(ProductChangeSequence.ID, 5)));
+        when(sequences.insertIfAbsent(ProductChangeSequence.ID)).thenReturn(0);
+
+        changeLog.initialize();
+
+        verify(products, never()).findAll(any(Pageable.class));
+        verify(changes, never()).saveAll(anyList());
+    }
+
+    @Test
+    void prune_deletesChangesMadeBeforeTheCutoff() {
+        Instant cutoff = Instant.parse("2026-01-01T00:00:00Z");
+        when(changes.findLastSeqBefore(cutoff)).thenReturn(Optional.of(40L));
+        when(changes.deleteThrough(40L)).thenReturn(40);
+
+        assertEquals(40, changeLog.prune(cutoff));
+    }
+
+    @Test
+    void prune_withNothingOldEnough_deletesNothing() {
+        Instant cutoff = Instant.parse("2026-01-01T00:00:00Z");
+        when(changes.findLastSeqBefore(cutoff)).thenReturn(Optional.empty());
+
+        assertEquals(0, changeLog.prune(cutoff));
+        verify(changes, never()).deleteThrough(anyLong());
+    }
+
+    private static Product product(Long id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(new BigDecimal("1.00"));
+        return product;
+    }
+}
@@ -0,0 +1,74 @@
+package com.storeflow.products.domain;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductChangePollerTest {
+
+    private final ProductChangePollerProperties properties = new ProductChangePollerProperties();
+
+    @Mock
+    private ProductChangeRepository changes;
+
+    @Mock
+    private ProductChangeLog changeLog;
+
+    @Mock
+    private ProductNameIndex nameIndex;
+
+    @Mock
+    private ProductCatalog catalog;
+
+    private ProductChangePoller poller;
+
+    @BeforeEach
+    void setUp() {
+        properties.setPageSize(2);
+        poller = new ProductChangePoller(changes, changeLog, nameIndex, catalog, properties);
+        poller.startFrom(10L);
+    }
+
+    @Test
+    void poll_refreshesEveryChangedProductPageByPage() {
+        when(changes.findBySeqGreaterThanOrderBySeq(10L, Limit.of(2)))
+                .thenReturn(List.of(change(11L, 5L), change(12L, 5L)));
+        when(changes.findBySeqGreaterThanOrderBySeq(12L, Limit.of(2)))
+                .thenReturn(List.of(change(13L, 7L)));
+
+        assertEquals(3, poller.poll());
+
+        verify(nameIndex).refresh(Set.of(5L));
+        verify(nameIndex).refresh(Set.of(7L));
+        verify(catalog).refresh(Set.of(5L));
+        verify(catalog).refresh(Set.of(7L));
+        assertEquals(13L, poller.since());
+    }
+
+    @Test
+    void poll_withoutChanges_leavesIndexesAlone() {
+        when(changes.findBySeqGreaterThanOrderBySeq(10L, Limit.of(2))).thenReturn(List.of());
+
+        assertEquals(0, poller.poll());
+
+        verifyNoInteractions(nameIndex, catalog);
+        assertEquals(10L, poller.since());
+    }
+
+    private static ProductChange change(Long seq, Long productId) {
+        return new ProductChange(seq, productId, ProductChangeType.UPDATED, Instant.now());
+    }
+}
@@ -1,23 +1,60 @@
 package com.storeflow.products.domain;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeflow.products.jsonapi.ETagged;
+import com.storeflow.products.jsonapi.JsonApiBatchMeta;
+import com.storeflow.products.jsonapi.JsonApiBatchResponse;
+import com.storeflow.products.jsonapi.JsonApiCursorMeta;
+import com.storeflow.products.jsonapi.JsonApiCursorResponse;
 import com.storeflow.products.jsonapi.JsonApiData;
+import com.storeflow.products.jsonapi.JsonApiFeedMeta;
+import com.storeflow.products.jsonapi.JsonApiFeedResponse;
+import com.storeflow.products.jsonapi.JsonApiIdExportMeta;
+import com.storeflow.products.jsonapi.JsonApiIdExportResponse;
+import com.storeflow.products.jsonapi.JsonApiImportMeta;
+import com.storeflow.products.jsonapi.JsonApiImportResponse;
+import com.storeflow.products.jsonapi.JsonApiKeysetMeta;
+import com.storeflow.products.jsonapi.JsonApiKeysetResponse;
+import com.storeflow.products.jsonapi.JsonApiLinks;
+import com.storeflow.products.jsonapi.JsonApiListResponse;
+import com.storeflow.products.jsonapi.JsonApiPaginationMeta;
 import com.storeflow.products.jsonapi.JsonApiResponse;
+import com.storeflow.products.jsonapi.JsonApiSearchMeta;
+import com.storeflow.products.jsonapi.JsonApiSearchResponse;
+import com.storeflow.products.jsonapi.PageCount;
+import com.storeflow.products.jsonapi.SparseFields;
+import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ProductController.class)
+@WithMockUser
 class ProductControllerTest {
 
     @Autowired
@@ -29,6 +66,12 @@ class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductImporter productImporter;
+
+    @MockBean
+    private ProductCatalog catalog;
+
     @Test
     void create_shouldReturn201AndJsonApiBody() throws Exception {
         ProductRequest request = new ProductRequest("Monitor 27\"", new BigDecimal("950.0"));
@@ -51,6 +94,7 @@ class ProductControllerTest {
 
         mockMvc.perform(
                         post("/api/v1/products")
+                                .with(csrf())
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(objectMapper.writeValueAsString(request))
                 )
@@ -62,4 +106,375 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.data.attributes.name").value("Monitor 27\""))
                 .andExpect(jsonPath("$.data.attributes.price").value(950.0));
     }
+
+    @Test
+    void findById_shouldReturnETag() throws Exception {
+        JsonApiData<ProductResponse> data = new JsonApiData<>(
+                "products",
+                "1",
+                new ProductResponse(1L, "Monitor 27\"", new BigDecimal("950.0"))
+        );
+        when(productService.findTaggedById(1L))
+                .thenReturn(new ETagged<>(new JsonApiResponse<>(data), "\"abc\""));
+
+        mockMvc.perform(get("/api/v1/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(jsonPath("$.data.id").value("1"));
+    }
+
+    @Test
+    void findById_withMatchingIfNoneMatch_shouldReturn304WithoutLoadingProduct() throws Exception {
+        when(productService.currentETag(1L)).thenReturn("\"abc\"");
+
+        mockMvc.perform(get("/api/v1/products/1").header("If-None-Match", "W/\"abc\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(content().string(""));
+
+        verify(productService, never()).findTaggedById(any());
+    }
+
+    @Test
+    void findById_whenCatalogIsReady_shouldWriteItsBodyWithoutTheService() throws Exception {
+        when(catalog.isReady()).thenReturn(true);
+        when(catalog.writeTo(eq(1L), eq(null), any())).thenAnswer(invocation -> {
+            HttpServletResponse response = invocation.getArgument(2);
+            response.setHeader("ETag", "\"abc\"");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write("{\"data\":{\"type\":\"products\",\"id\":\"1\"}}".getBytes());
+            return true;
+        });
+
+        mockMvc.perform(get("/api/v1/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"abc\""))
+                .andExpect(jsonPath("$.data.id").value("1"));
+
+        verify(productService, never()).findTaggedById(any());
+        verify(productService, never()).currentETag(any());
+    }
+
+    @Test
+    void findById_whenCatalogHasNoSuchProduct_shouldReturn404() throws Exception {
+        when(catalog.isReady()).thenReturn(true);
+        when(catalog.writeTo(eq(9L), eq(null), any())).thenReturn(false);
+        when(productService.findTaggedById(9L)).thenThrow(new ProductNotFoundException(9L));
+
+        mockMvc.perform(get("/api/v1/products/9"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findById_whenCatalogHasNotSeenTheProductYet_shouldReadItFromTheService() throws Exception {
+        JsonApiData<ProductResponse> data = new JsonApiData<>(
+                "products",
+                "8",
+                new ProductResponse(8L, "Webcam", new BigDecimal("30.0"))
+        );
+        when(catalog.isReady()).thenReturn(true);
+        when(catalog.writeTo(eq(8L), eq(null), any())).thenReturn(false);
+        when(productService.findTaggedById(8L))
+                .thenReturn(new ETagged<>(new JsonApiResponse<>(data), "\"p8\""));
+
+        mockMvc.perform(get("/api/v1/products/8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"p8\""))
+                .andExpect(jsonPath("$.data.attributes.name").value("Webcam"));
+    }
+
+    @Test
+    void findPage_withMatchingIfNoneMatch_shouldReturn304WithoutLoadingPage() throws Exception {
+        when(productService.currentPageETag(0, 10, PageCount.EXACT, SparseFields.ALL)).thenReturn("\"page\"");
+
+        mockMvc.perform(get("/api/v1/products").header("If-None-Match", "\"other\", \"page\""))
+                .andExpect(status().isNotModified());
+
+        verify(productService, never()).findTaggedPage(anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void findPage_withPageCount_shouldPassTheCountMode() throws Exception {
+        when(productService.findTaggedPage(0, 10, PageCount.NONE, SparseFields.ALL)).thenReturn(new ETagged<>(
+                new JsonApiListResponse<>(List.of(), JsonApiPaginationMeta.of(0, 10, null, false, PageCount.NONE)),
+                "\"page\""));
+
+        mockMvc.perform(get("/api/v1/products").param("page[count]", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.meta.count").value("none"))
+                .andExpect(jsonPath("$.meta.hasNext").value(false));
+    }
+
+    @Test
+    void findPage_withUnknownPageCount_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("page[count]", "maybe"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void export_shouldStreamOneResourcePerLine() throws Exception {
+        ExportRange all = new ExportRange(0L, Long.MAX_VALUE);
+        when(productService.export(eq(all), eq(SparseFields.ALL), any())).thenAnswer(invocation -> {
+            Consumer<JsonApiData<ProductResponse>> sink = invocation.getArgument(2);
+            sink.accept(new JsonApiData<>("products", "1", new ProductResponse(1L, "A", BigDecimal.ONE)));
+            sink.accept(new JsonApiData<>("products", "2", new ProductResponse(2L, "B", BigDecimal.TEN)));
+            return 2L;
+        });
+
+        String body = mockMvc.perform(get("/api/v1/products/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("2", objectMapper.readTree(lines[1]).path("id").asText());
+        assertEquals("A", objectMapper.readTree(lines[0]).path("attributes").path("name").asText());
+        assertEquals(2, objectMapper.readTree(lines[2]).path("meta").path("count").asLong());
+    }
+
+    @Test
+    void export_withEmptyRange_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/v1/products/export")
+                        .param("filter[id][gte]", "5")
+                        .param("filter[id][lt]", "5"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).export(any(), any(), any());
+    }
+
+    @Test
+    void import_shouldReturnChunkResults() throws Exception {
+        ProductImportChunk chunk = new ProductImportChunk(0, 0L, 2, 1,
+                List.of(new ProductImportFailure(1L, "price must not be null")));
+        when(productImporter.importProducts(any())).thenReturn(new JsonApiImportResponse<>(
+                List.of(new JsonApiData<>("product-import-chunks", "0", chunk)),
+                new JsonApiImportMeta(3, 2, 1, 1, 5, 400)
+        ));
+
+        mockMvc.perform(post("/api/v1/products/import")
+                        .with(csrf())
+                        .contentType("application/x-ndjson")
+                        .content("{\"name\":\"A\",\"price\":1}\n{\"name\":\"B\"}\n{\"name\":\"C\",\"price\":2}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].attributes.inserted").value(2))
+                .andExpect(jsonPath("$.data[0].attributes.failures[0].row").value(1))
+                .andExpect(jsonPath("$.meta.failed").value(1));
+    }
+
+    @Test
+    void update_withStaleIfMatch_shouldReturn412() throws Exception {
+        ProductRequest request = new ProductRequest("Monitor 27\"", new BigDecimal("950.0"));
+        when(productService.update(eq(1L), any(ProductRequest.class), eq("\"old\"")))
+                .thenThrow(new ProductVersionMismatchException(1L));
+
+        mockMvc.perform(patch("/api/v1/products/1")
+                        .with(csrf())
+                        .header("If-Match", "\"old\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.errors[0].title").value("Precondition failed"));
+    }
+
+    @Test
+    void exists_shouldAnswerHeadWithoutBody() throws Exception {
+        when(productService.exists(1L)).thenReturn(true);
+
+        mockMvc.perform(head("/api/v1/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+        mockMvc.perform(head("/api/v1/products/2"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void findSorted_shouldPassSortPriceBandAndCursor() throws Exception {
+        ProductResponse product = new ProductResponse(5L, "Mouse", new BigDecimal("20.00"));
+        PriceRange prices = new PriceRange(new BigDecimal("10"), new BigDecimal("30"));
+        when(productService.findSortedPage(any(), eq(prices), eq("abc"), eq(1), eq(SparseFields.ALL))).thenReturn(new JsonApiKeysetResponse<>(
+                List.of(new JsonApiData<>("products", "5", product)),
+                new JsonApiKeysetMeta("price,-name", "abc", "def", 1, true),
+                new JsonApiLinks("self", "next")));
+
+        mockMvc.perform(get("/api/v1/products")
+                        .param("sort", "price,-name")
+                        .param("filter[price][gte]", "10")
+                        .param("filter[price][lte]", "30")
+                        .param("page[after]", "abc")
+                        .param("page[size]", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value("5"))
+                .andExpect(jsonPath("$.meta.sort").value("price,-name"))
+                .andExpect(jsonPath("$.meta.nextAfter").value("def"));
+        verify(productService, never()).findPageAfter(anyLong(), anyInt(), any());
+    }
+
+    @Test
+    void findSorted_withInvalidPriceBandOrSort_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("sort", "price")
+                        .param("filter[price][gte]", "30").param("filter[price][lte]", "10"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/products").param("sort", "weight"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findPage_withPriceFilterButNoSort_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("filter[price][gte]", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void findByIds_shouldReturnFoundProductsAndMissingIds() throws Exception {
+        JsonApiData<ProductResponse> data = new JsonApiData<>(
+                "products",
+                "1",
+                new ProductResponse(1L, "Monitor 27\"", new BigDecimal("950.0"))
+        );
+        JsonApiBatchResponse<ProductResponse> serviceResponse = new JsonApiBatchResponse<>(
+                List.of(data),
+                new JsonApiBatchMeta(2, 1, List.of(7L))
+        );
+
+        when(productService.findByIds(List.of(1L, 7L), SparseFields.ALL)).thenReturn(serviceResponse);
+
+        mockMvc.perform(get("/api/v1/products").param("filter[id]", "1,7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value("1"))
+                .andExpect(jsonPath("$.meta.found").value(1))
+                .andExpect(jsonPath("$.meta.missingIds[0]").value(7));
+
+        verify(productService).findByIds(List.of(1L, 7L), SparseFields.ALL);
+    }
+
+    @Test
+    void findByIds_withNonNumericId_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("filter[id]", "1,abc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors[0].title").value("Invalid request"));
+    }
+
+    @Test
+    void search_shouldReturnRankedProducts() throws Exception {
+        ProductResponse product = new ProductResponse(3L, "Monitor 27\"", new BigDecimal("950.0"));
+        when(productService.search("moni", 5)).thenReturn(new JsonApiSearchResponse<>(
+                List.of(new JsonApiData<>("products", "3", product)),
+                new JsonApiSearchMeta("moni", 5, 1)));
+
+        mockMvc.perform(get("/api/v1/products")
+                        .param("filter[name]", "moni")
+                        .param("page[size]", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].attributes.name").value("Monitor 27\""))
+                .andExpect(jsonPath("$.meta.query").value("moni"))
+                .andExpect(jsonPath("$.meta.found").value(1));
+    }
+
+    @Test
+    void search_whileIndexIsLoading_shouldReturn503() throws Exception {
+        when(productService.search("moni", 20)).thenThrow(new ProductSearchUnavailableException());
+
+        mockMvc.perform(get("/api/v1/products").param("filter[name]", "moni"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"))
+                .andExpect(jsonPath("$.errors[0].status").value("503"));
+    }
+
+    @Test
+    void findChanges_shouldReturnFeedPage() throws Exception {
+        JsonApiData<ProductChangeResponse> change = new JsonApiData<>(
+                "product-changes",
+                "6",
+                new ProductChangeResponse(6L, 1L, "created", Instant.EPOCH)
+        );
+        when(productService.findChanges(5L, 500)).thenReturn(
+                new JsonApiFeedResponse<>(List.of(change), new JsonApiFeedMeta(5L, 6L, 6L, false)));
+
+        mockMvc.perform(get("/api/v1/products/changes").param("since", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].attributes.productId").value(1))
+                .andExpect(jsonPath("$.data[0].attributes.type").value("created"))
+                .andExpect(jsonPath("$.meta.nextSince").value(6))
+                .andExpect(jsonPath("$.meta.hasMore").value(false));
+    }
+
+    @Test
+    void findChanges_afterPrunedChanges_shouldReturnGone() throws Exception {
+        when(productService.findChanges(0L, 500)).thenThrow(new ProductChangesPrunedException(0L));
+
+        mockMvc.perform(get("/api/v1/products/changes").param("since", "0"))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$.errors[0].status").value("410"));
+    }
+
+    @Test
+    void exportIds_shouldReturnIdPage() throws Exception {
+        when(productService.exportIds(0L, 10000)).thenReturn(
+                new JsonApiIdExportResponse(List.of(1L, 4L), new JsonApiIdExportMeta(0L, 4L, 2L, false, 6L)));
+
+        mockMvc.perform(get("/api/v1/products/ids"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[1]").value(4))
+                .andExpect(jsonPath("$.meta.nextAfter").value(4))
+                .andExpect(jsonPath("$.meta.total").value(2))
+                .andExpect(jsonPath("$.meta.lastSeq").value(6));
+    }
+
+    @Test
+    void findPageAfter_shouldReturnCursorPageWithNextLink() throws Exception {
+        ProductResponse product = new ProductResponse(5L, "Product 5", BigDecimal.TEN);
+        when(productService.findPageAfter(4L, 1, SparseFields.ALL)).thenReturn(new JsonApiCursorResponse<>(
+                List.of(new JsonApiData<>("products", "5", product)),
+                new JsonApiCursorMeta(4L, 5L, 1, true),
+                new JsonApiLinks("/api/v1/products?page[after]=4&page[size]=1",
+                        "/api/v1/products?page[after]=5&page[size]=1")));
+
+        mockMvc.perform(get("/api/v1/products")
+                        .param("page[after]", "4")
+                        .param("page[size]", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value("5"))
+                .andExpect(jsonPath("$.meta.nextAfter").value(5))
+                .andExpect(jsonPath("$.links.next").value("/api/v1/products?page[after]=5&page[size]=1"));
+        verify(productService, never()).findTaggedPage(anyInt(), anyInt(), any(), any());
+    }
+
+    @Test
+    void findPageAfter_withFields_shouldPassTheSparseFieldsAndOmitEmptyAttributes() throws Exception {
+        when(productService.findPageAfter(0L, 2, new SparseFields(Set.of()))).thenReturn(new JsonApiCursorResponse<>(
+                List.of(new JsonApiData<>("products", "1", null)),
+                new JsonApiCursorMeta(0L, 1L, 2, false),
+                new JsonApiLinks("/api/v1/products?page[after]=0&page[size]=2&fields[products]=", null)));
+
+        mockMvc.perform(get("/api/v1/products")
+                        .param("page[after]", "0")
+                        .param("page[size]", "2")
+                        .param("fields[products]", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id").value("1"))
+                .andExpect(jsonPath("$.data[0].attributes").doesNotExist());
+    }
+
+    @Test
+    void findByIds_withFields_shouldReturnOnlyThoseAttributes() throws Exception {
+        when(productService.findByIds(List.of(1L), new SparseFields(Set.of("name")))).thenReturn(
+                new JsonApiBatchResponse<>(
+                        List.of(new JsonApiData<>("products", "1", new ProductResponse(null, "Mouse", null))),
+                        new JsonApiBatchMeta(1, 1, List.of())));
+
+        mockMvc.perform(get("/api/v1/products")
+                        .param("filter[id]", "1")
+                        .param("fields[products]", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].attributes.name").value("Mouse"))
+                .andExpect(jsonPath("$.data[0].attributes.price").doesNotExist());
+    }
+
+    @Test
+    void findPage_withUnknownField_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("fields[products]", "name,weight"))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,45 @@
+package com.storeflow.products.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCountTest {
+
+    @Mock
+    private ProductRepository repository;
+
+    @InjectMocks
+    private ProductCount productCount;
+
+    @Test
+    void get_shouldCountOnceAndThenApplyCreationsAndDeletions() {
+        when(repository.count()).thenReturn(10L);
+
+        assertEquals(10L, productCount.get());
+        productCount.added();
+        productCount.added();
+        productCount.removed();
+
+        assertEquals(11L, productCount.get());
+        verify(repository, times(1)).count();
+    }
+
+    @Test
+    void get_shouldNeverBeNegative() {
+        when(repository.count()).thenReturn(0L);
+
+        productCount.get();
+        productCount.removed();
+
+        assertEquals(0L, productCount.get());
+    }
+}
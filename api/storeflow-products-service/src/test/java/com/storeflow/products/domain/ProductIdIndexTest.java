@@ -0,0 +1,61 @@
+package com.storeflow.products.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductIdIndexTest {
+
+    @Mock
+    private ProductRepository repository;
+
+    @InjectMocks
+    private ProductIdIndex index;
+
+    @Test
+    void load_shouldReadEveryPageAndBecomeReady() {
+        List<Long> firstPage = LongStream.rangeClosed(1, 10000).boxed().toList();
+        when(repository.findIdsAfter(0L, PageRequest.of(0, 10000))).thenReturn(firstPage);
+        when(repository.findIdsAfter(10000L, PageRequest.of(0, 10000))).thenReturn(List.of(10002L));
+
+        assertFalse(index.isReady());
+        index.load();
+
+        assertTrue(index.isReady());
+        assertTrue(index.contains(1L));
+        assertTrue(index.contains(10002L));
+        assertFalse(index.contains(10001L));
+    }
+
+    @Test
+    void removed_whileLoading_shouldStayRemoved() {
+        when(repository.findIdsAfter(0L, PageRequest.of(0, 10000))).thenAnswer(invocation -> {
+            index.removed(2L);
+            return List.of(1L, 2L, 3L);
+        });
+
+        index.load();
+
+        assertFalse(index.contains(2L));
+        assertTrue(index.contains(3L));
+    }
+
+    @Test
+    void addedAndRemoved_withoutTransaction_shouldApplyImmediately() {
+        index.added(7L);
+        assertTrue(index.contains(7L));
+
+        index.removed(7L);
+        assertFalse(index.contains(7L));
+    }
+}
@@ -0,0 +1,177 @@
+package com.storeflow.products.domain;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storeflow.products.jsonapi.JsonApiImportResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImporterTest {
+
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private ProductChangeLog changeLog;
+
+    @Mock
+    private ProductIdIndex idIndex;
+
+    @Mock
+    private ProductCount productCount;
+
+    @Mock
+    private ProductNameIndex nameIndex;
+
+    @Mock
+    private ProductCatalog catalog;
+
+    private final ProductImportProperties properties = new ProductImportProperties();
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        properties.setBatchSize(2);
+        properties.setChunkSize(3);
+    }
+
+    @Test
+    void importProducts_shouldInsertNdjsonInChunksAndReportInvalidRows() throws IOException {
+        stubPersist();
+
+        JsonApiImportResponse<ProductImportChunk> response = importer(TransactionOperations.withoutTransaction())
+                .importProducts(body("""
+                        {"name":"A","price":1}
+                        {"name":"B"}
+                        {"name":"C","price":2}
+                        {"name":"D","price":3}
+                        """));
+
+        assertEquals(4, response.meta().rows());
+        assertEquals(3, response.meta().inserted());
+        assertEquals(1, response.meta().failed());
+        assertEquals(2, response.meta().chunks());
+
+        ProductImportChunk first = response.data().get(0).attributes();
+        assertEquals(2, first.inserted());
+        assertEquals(1, first.failed());
+        assertEquals(1L, first.failures().get(0).row());
+        assertTrue(first.failures().get(0).detail().startsWith("price"));
+        assertEquals(3L, response.data().get(1).attributes().firstRow());
+
+        verify(session, times(2)).setJdbcBatchSize(2);
+        verify(entityManager, times(3)).flush();
+        verify(changeLog).recordAll(List.of(1L, 2L), ProductChangeType.CREATED);
+        verify(changeLog).recordAll(List.of(3L), ProductChangeType.CREATED);
+        verify(idIndex).addedAll(List.of(1L, 2L));
+        verify(productCount).added(2L);
+        verify(nameIndex).addedAll(List.of(new ProductName(1L, "A"), new ProductName(2L, "C")));
+        verify(catalog, times(2)).addedAll(anyList());
+    }
+
+    @Test
+    void importProducts_shouldAcceptJsonArrayAndSkipRowsThatDoNotBind() throws IOException {
+        stubPersist();
+
+        JsonApiImportResponse<ProductImportChunk> response = importer(TransactionOperations.withoutTransaction())
+                .importProducts(body("[{\"name\":\"A\",\"price\":1},{\"name\":\"B\",\"price\":\"cheap\"},"
+                        + "{\"name\":\"C\",\"price\":2}]"));
+
+        assertEquals(3, response.meta().rows());
+        assertEquals(2, response.meta().inserted());
+        assertEquals(1L, response.data().get(0).attributes().failures().get(0).row());
+    }
+
+    @Test
+    void importProducts_shouldReportChunkThatFailsToCommitAndContinue() throws IOException {
+        stubPersist();
+        AtomicInteger calls = new AtomicInteger();
+        TransactionOperations failingFirst = new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                if (calls.getAndIncrement() == 0) {
+                    throw new DataIntegrityViolationException("duplicate key");
+                }
+                return action.doInTransaction(null);
+            }
+        };
+
+        JsonApiImportResponse<ProductImportChunk> response = importer(failingFirst)
+                .importProducts(body("""
+                        {"name":"A","price":1}
+                        {"name":"B","price":1}
+                        {"name":"C","price":1}
+                        {"name":"D","price":1}
+                        """));
+
+        assertEquals(1, response.meta().inserted());
+        assertEquals(3, response.meta().failed());
+        ProductImportChunk first = response.data().get(0).attributes();
+        assertEquals(0, first.inserted());
+        assertTrue(first.failures().get(0).detail().contains("duplicate key"));
+    }
+
+    @Test
+    void importProducts_shouldStopAtMalformedJson() throws IOException {
+        stubPersist();
+
+        JsonApiImportResponse<ProductImportChunk> response = importer(TransactionOperations.withoutTransaction())
+                .importProducts(body("{\"name\":\"A\",\"price\":1}\n{\"name\":\n"));
+
+        assertEquals(2, response.meta().rows());
+        assertEquals(1, response.meta().inserted());
+        assertEquals(1, response.meta().failed());
+        assertTrue(response.data().get(0).attributes().failures().get(0).detail().startsWith("Malformed JSON"));
+        verify(changeLog).recordAll(anyList(), eq(ProductChangeType.CREATED));
+    }
+
+    private ProductImporter importer(TransactionOperations transactions) {
+        return new ProductImporter(new ObjectMapper(), VALIDATOR, transactions, entityManager,
+                changeLog, idIndex, productCount, nameIndex, catalog, properties);
+    }
+
+    private void stubPersist() {
+        when(entityManager.unwrap(Session.class)).thenReturn(session);
+        doAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            product.setId(nextId.getAndIncrement());
+            return null;
+        }).when(entityManager).persist(any(Product.class));
+    }
+
+    private static ByteArrayInputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,122 @@
+package com.storeflow.products.domain;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductNameIndexTest {
+
+    @Mock
+    private ProductRepository repository;
+
+    @InjectMocks
+    private ProductNameIndex index;
+
+    @Test
+    void load_shouldIndexEveryNameAndBecomeReady() {
+        when(repository.findNamesAfter(0L, PageRequest.of(0, 10000))).thenReturn(List.of(
+                new ProductName(1L, "Monitor 27\""),
+                new ProductName(2L, "Teclado mecánico")
+        ));
+
+        assertFalse(index.isReady());
+        index.load();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(2L), index.search("teclado", 10));
+    }
+
+    @Test
+    void search_shouldRankExactThenPrefixThenWordMatchesThenShorterNames() {
+        index.added(1L, "Monitor curvo 34");
+        index.added(2L, "Soporte para monitor");
+        index.added(3L, "Monitor");
+        index.added(4L, "Monitor 27");
+        index.added(5L, "Teclado");
+
+        assertEquals(List.of(3L, 4L, 1L, 2L), index.search("Monitor", 10));
+        assertEquals(List.of(3L, 4L), index.search("monitor", 2));
+    }
+
+    @Test
+    void search_shouldMatchWordPrefixesInAnyOrderIgnoringCaseAndAccents() {
+        index.added(1L, "Teclado mecánico RGB");
+        index.added(2L, "Teclado de membrana");
+
+        assertEquals(List.of(1L), index.search("MECA tecl", 1));
+        assertEquals(1L, index.search("mecanico teclado", 10).get(0));
+        assertEquals(List.of(2L, 1L), index.search("t", 10));
+    }
+
+    @Test
+    void search_withTypo_shouldReturnFuzzyMatchesAfterExactOnes() {
+        index.added(1L, "Monitor 27");
+        index.added(2L, "Monedero");
+        index.added(3L, "Moniter stand");
+
+        assertEquals(List.of(3L, 1L), index.search("moniter", 10));
+        assertTrue(index.search("zzzz", 10).isEmpty());
+    }
+
+    @Test
+    void search_shouldFindExactNamesBeyondTheScoredSample() {
+        for (long id = 1; id <= 3000; id++) {
+            index.added(id, "Monitor " + id);
+        }
+        index.added(5000L, "Monitor");
+        index.added(5001L, "Teclado");
+
+        assertEquals(List.of(5000L), index.search("monitor", 1));
+
+        index.updated(5001L, "MONITOR");
+        index.updated(5000L, "Monitor 5000");
+        assertEquals(List.of(5001L), index.search("monitor", 1));
+    }
+
+    @Test
+    void updatedAndRemoved_shouldReplaceTheIndexedName() {
+        index.added(1L, "Mouse inalámbrico");
+        index.updated(1L, "Mouse óptico");
+
+        assertTrue(index.search("inalambrico", 10).isEmpty());
+        assertEquals(List.of(1L), index.search("optico", 10));
+
+        index.removed(1L);
+        assertTrue(index.search("mouse", 10).isEmpty());
+    }
+
+    @Test
+    void refresh_shouldApplyNamesChangedOnOtherInstances() {
+        index.added(1L, "Mouse");
+        index.added(2L, "Teclado");
+        when(repository.findNamesByIdIn(List.of(1L, 2L, 3L)))
+                .thenReturn(List.of(new ProductName(1L, "Mouse óptico"), new ProductName(3L, "Webcam")));
+
+        index.refresh(List.of(1L, 2L, 3L));
+
+        assertEquals(List.of(1L), index.search("optico", 10));
+        assertTrue(index.search("teclado", 10).isEmpty());
+        assertEquals(List.of(3L), index.search("webcam", 10));
+    }
+
+    @Test
+    void updated_whileLoading_shouldKeepTheNewName() {
+        when(repository.findNamesAfter(0L, PageRequest.of(0, 10000))).thenAnswer(invocation -> {
+            index.updated(1L, "Webcam HD");
+            return List.of(new ProductName(1L, "Webcam"), new ProductName(2L, "Webcam 4K"));
+        });
+
+        index.load();
+
+        assertEquals(List.of(1L), index.search("hd", 10));
+    }
+}
@@ -7,25 +7,49 @@ import com.storeflow.products.domain.ProductRepository;
 import com.storeflow.products.domain.ProductRequest;
 import com.storeflow.products.domain.ProductResponse;
 import com.storeflow.products.domain.ProductService;
+import com.storeflow.products.jsonapi.ETagged;
+import com.storeflow.products.jsonapi.ETags;
+import com.storeflow.products.jsonapi.JsonApiBatchResponse;
+import com.storeflow.products.jsonapi.JsonApiCursorResponse;
 import com.storeflow.products.jsonapi.JsonApiData;
+import com.storeflow.products.jsonapi.JsonApiFeedResponse;
+import com.storeflow.products.jsonapi.JsonApiIdExportResponse;
+import com.storeflow.products.jsonapi.JsonApiKeysetResponse;
 import com.storeflow.products.jsonapi.JsonApiListResponse;
+import com.storeflow.products.jsonapi.JsonApiPaginationMeta;
 import com.storeflow.products.jsonapi.JsonApiResponse;
+import com.storeflow.products.jsonapi.JsonApiSearchResponse;
+import com.storeflow.products.jsonapi.PageCount;
+import com.storeflow.products.jsonapi.SparseFields;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.SliceImpl;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +58,24 @@ class ProductServiceTest {
     @Mock
     private ProductRepository repository;
 
+    @Mock
+    private ProductChangeRepository changes;
+
+    @Mock
+    private ProductChangeLog changeLog;
+
+    @Mock
+    private ProductIdIndex idIndex;
+
+    @Mock
+    private ProductCount productCount;
+
+    @Mock
+    private ProductNameIndex nameIndex;
+
+    @Mock
+    private ProductCatalog catalog;
+
     @InjectMocks
     private ProductService service;
 
@@ -53,6 +95,11 @@ class ProductServiceTest {
         ArgumentCaptor<Product> productCaptor = ArgumentCaptor.forClass(Product.class);
         verify(repository).save(productCaptor.capture());
 
+        verify(changeLog).record(1L, ProductChangeType.CREATED);
+        verifyNoMoreInteractions(changeLog);
+        verify(idIndex).added(1L);
+        verify(nameIndex).added(1L, "Monitor 27\"");
+
         Product productToSave = productCaptor.getValue();
         assertEquals("Monitor 27\"", productToSave.getName());
         assertEquals(new BigDecimal("950.0"), productToSave.getPrice());
@@ -93,6 +140,33 @@ class ProductServiceTest {
         assertThrows(ProductNotFoundException.class, () -> service.findById(99L));
     }
 
+    @Test
+    void exists_shouldAnswerFromIdIndexWithoutDatabase() {
+        when(idIndex.isReady()).thenReturn(true);
+        when(idIndex.contains(3L)).thenReturn(true);
+
+        assertTrue(service.exists(3L));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void exists_missingFromIdIndex_shouldAskRepository() {
+        when(idIndex.isReady()).thenReturn(true);
+        when(repository.existsById(4L)).thenReturn(true);
+
+        assertTrue(service.exists(4L));
+        assertFalse(service.exists(5L));
+        verify(repository).existsById(5L);
+    }
+
+    @Test
+    void exists_beforeIdIndexIsLoaded_shouldAskRepository() {
+        when(repository.existsById(3L)).thenReturn(true);
+
+        assertTrue(service.exists(3L));
+        verify(idIndex, never()).contains(anyLong());
+    }
+
     @Test
     void findPage_shouldReturnPagedJsonApiListResponse() {
         Product firstProduct = new Product();
@@ -128,4 +202,412 @@ class ProductServiceTest {
         assertEquals("1", firstItem.id());
         assertEquals("Monitor 24\"", firstItem.attributes().name());
     }
+
+    @Test
+    void currentETag_shouldMatchTheETagOfTheLoadedProduct() {
+        Product product = product(2L, 4L);
+        when(repository.findById(2L)).thenReturn(Optional.of(product));
+        when(repository.findVersionById(2L)).thenReturn(Optional.of(4L));
+
+        String etag = service.findTaggedById(2L).etag();
+
+        assertEquals(etag, service.currentETag(2L));
+        product.setVersion(5L);
+        assertNotEquals(etag, service.findTaggedById(2L).etag());
+    }
+
+    @Test
+    void currentPageETag_shouldMatchTheETagOfTheLoadedPageInAnyRowOrder() {
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        when(repository.findAll(pageRequest))
+                .thenReturn(new PageImpl<>(List.of(product(1L, 0L), product(2L, 3L)), pageRequest, 5));
+        when(repository.findVersions(pageRequest)).thenReturn(new PageImpl<>(
+                List.of(new ProductVersion(2L, 3L), new ProductVersion(1L, 0L)), pageRequest, 5));
+
+        assertEquals(service.findTaggedPage(0, 2).etag(), service.currentPageETag(0, 2));
+    }
+
+    @Test
+    void findTaggedPage_withCountNone_shouldNotCountAndReportHasNext() {
+        PageRequest pageRequest = PageRequest.of(1, 2);
+        when(repository.findSliceBy(pageRequest))
+                .thenReturn(new SliceImpl<>(List.of(product(3L, 0L), product(4L, 0L)), pageRequest, true));
+
+        JsonApiPaginationMeta meta = service.findTaggedPage(1, 2, PageCount.NONE).body().meta();
+
+        assertNull(meta.totalElements());
+        assertNull(meta.totalPages());
+        assertTrue(meta.hasNext());
+        assertEquals("none", meta.count());
+        verify(repository, never()).count();
+        verify(repository, never()).findAll(any(PageRequest.class));
+    }
+
+    @Test
+    void findTaggedPage_withCountCached_shouldReadTheCounter() {
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        when(repository.findSliceBy(pageRequest))
+                .thenReturn(new SliceImpl<>(List.of(product(1L, 0L), product(2L, 0L)), pageRequest, true));
+        when(productCount.get()).thenReturn(5L);
+
+        JsonApiPaginationMeta meta = service.findTaggedPage(0, 2, PageCount.CACHED).body().meta();
+
+        assertEquals(5L, meta.totalElements());
+        assertEquals(3, meta.totalPages());
+        verify(repository, never()).count();
+    }
+
+    @Test
+    void findTaggedPage_withCountEstimated_shouldNotReportLessThanThePageShows() {
+        PageRequest pageRequest = PageRequest.of(2, 2);
+        when(repository.findSliceBy(pageRequest))
+                .thenReturn(new SliceImpl<>(List.of(product(5L, 0L), product(6L, 0L)), pageRequest, true));
+        when(repository.estimateCount()).thenReturn(Optional.of(3L));
+
+        JsonApiPaginationMeta meta = service.findTaggedPage(2, 2, PageCount.ESTIMATED).body().meta();
+
+        assertEquals(7L, meta.totalElements());
+        verify(repository, never()).count();
+    }
+
+    @Test
+    void findTaggedPage_withCountEstimatedOnUnanalyzedTable_shouldCountExactly() {
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        when(repository.findSliceBy(pageRequest))
+                .thenReturn(new SliceImpl<>(List.of(product(1L, 0L)), pageRequest, false));
+        when(repository.estimateCount()).thenReturn(Optional.of(-1L));
+        when(repository.count()).thenReturn(1L);
+
+        assertEquals(1L, service.findTaggedPage(0, 2, PageCount.ESTIMATED).body().meta().totalElements());
+    }
+
+    @Test
+    void currentPageETag_withCountNone_shouldMatchTheETagOfTheLoadedPage() {
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        when(repository.findSliceBy(pageRequest))
+                .thenReturn(new SliceImpl<>(List.of(product(1L, 0L), product(2L, 3L)), pageRequest, true));
+        when(repository.findVersionSlice(pageRequest)).thenReturn(new SliceImpl<>(
+                List.of(new ProductVersion(1L, 0L), new ProductVersion(2L, 3L)), pageRequest, true));
+
+        assertEquals(service.findTaggedPage(0, 2, PageCount.NONE).etag(),
+                service.currentPageETag(0, 2, PageCount.NONE));
+    }
+
+    @Test
+    void findTaggedPage_withIdOnlyFields_shouldReadVersionsInsteadOfProducts() {
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        when(repository.findVersionSlice(pageRequest)).thenReturn(new SliceImpl<>(
+                List.of(new ProductVersion(3L, 1L), new ProductVersion(4L, 0L)), pageRequest, false));
+        SparseFields none = new SparseFields(Set.of());
+
+        ETagged<JsonApiListResponse<ProductResponse>> page = service.findTaggedPage(0, 2, PageCount.NONE, none);
+
+        assertEquals(List.of("3", "4"), page.body().data().stream().map(JsonApiData::id).toList());
+        assertNull(page.body().data().get(0).attributes());
+        assertEquals(page.etag(), service.currentPageETag(0, 2, PageCount.NONE, none));
+        assertNotEquals(page.etag(), service.currentPageETag(0, 2, PageCount.NONE, SparseFields.ALL));
+        verify(repository, never()).findSliceBy(any());
+    }
+
+    @Test
+    void findPageAfter_withIdOnlyFields_shouldReadOnlyIds() {
+        when(repository.findIdsAfter(10L, PageRequest.of(0, 3))).thenReturn(List.of(11L, 14L, 15L));
+
+        JsonApiCursorResponse<ProductResponse> response =
+                service.findPageAfter(10L, 2, new SparseFields(Set.of("id")));
+
+        assertEquals(List.of(11L, 14L), response.data().stream().map(data -> data.attributes().id()).toList());
+        assertNull(response.data().get(0).attributes().name());
+        assertEquals("/api/v1/products?page[after]=14&page[size]=2&fields[products]=id", response.links().next());
+        verify(repository, never()).findPageAfter(anyLong(), any());
+    }
+
+    @Test
+    void findByIds_withFields_shouldKeepOnlyThoseAttributes() {
+        when(repository.findAllById(Set.of(2L))).thenReturn(List.of(product(2L, 0L)));
+
+        ProductResponse attributes = service.findByIds(List.of(2L), new SparseFields(Set.of("price")))
+                .data().get(0).attributes();
+
+        assertEquals(new ProductResponse(null, null, BigDecimal.ONE), attributes);
+    }
+
+    @Test
+    void export_withIdOnlyFields_shouldStreamOnlyIds() {
+        when(repository.streamIdRange(5L, 100L)).thenReturn(Stream.of(5L, 9L));
+
+        List<JsonApiData<ProductResponse>> exported = new ArrayList<>();
+        long count = service.export(new ExportRange(5L, 100L), new SparseFields(Set.of()), exported::add);
+
+        assertEquals(2L, count);
+        assertEquals("9", exported.get(1).id());
+        assertNull(exported.get(1).attributes());
+        verify(repository, never()).streamRange(anyLong(), anyLong());
+    }
+
+    @Test
+    void export_shouldPassEveryStreamedRowToTheSinkAndCloseTheStream() {
+        AtomicBoolean closed = new AtomicBoolean();
+        when(repository.streamRange(5L, 100L)).thenReturn(Stream.of(
+                new ProductResponse(5L, "A", BigDecimal.ONE),
+                new ProductResponse(9L, "B", BigDecimal.TEN)
+        ).onClose(() -> closed.set(true)));
+
+        List<JsonApiData<ProductResponse>> exported = new ArrayList<>();
+        long count = service.export(new ExportRange(5L, 100L), exported::add);
+
+        assertEquals(2L, count);
+        assertEquals(List.of("5", "9"), exported.stream().map(JsonApiData::id).toList());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void exportRange_empty_shouldThrowIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> new ExportRange(10L, 10L));
+        assertThrows(IllegalArgumentException.class, () -> new ExportRange(-1L, 10L));
+    }
+
+    @Test
+    void update_withStaleIfMatch_shouldThrowVersionMismatchAndNotSave() {
+        when(repository.findById(2L)).thenReturn(Optional.of(product(2L, 4L)));
+        String staleETag = ETags.of(2L, 3L);
+
+        assertThrows(ProductVersionMismatchException.class,
+                () -> service.update(2L, new ProductRequest("Mouse", BigDecimal.TEN), staleETag));
+
+        verify(repository, never()).save(any());
+        verifyNoInteractions(changeLog);
+    }
+
+    @Test
+    void update_withCurrentIfMatch_shouldSaveAndReturnNewETag() {
+        Product product = product(2L, 4L);
+        when(repository.findById(2L)).thenReturn(Optional.of(product));
+        when(repository.save(product)).thenReturn(product);
+        doAnswer(invocation -> {
+            product.setVersion(5L);
+            return null;
+        }).when(repository).flush();
+
+        ETagged<JsonApiResponse<ProductResponse>> response =
+                service.update(2L, new ProductRequest("Mouse", BigDecimal.TEN), ETags.of(2L, 4L));
+
+        assertEquals(ETags.of(2L, 5L), response.etag());
+        assertEquals("Mouse", response.body().data().attributes().name());
+        verify(changeLog).record(2L, ProductChangeType.UPDATED);
+        verify(nameIndex).updated(2L, "Mouse");
+        verify(catalog).updated(product);
+    }
+
+    @Test
+    void update_whenConcurrentUpdateWinsTheFlush_shouldThrowVersionMismatch() {
+        Product product = product(2L, 4L);
+        when(repository.findById(2L)).thenReturn(Optional.of(product));
+        when(repository.save(product)).thenReturn(product);
+        doThrow(new ObjectOptimisticLockingFailureException(Product.class, 2L)).when(repository).flush();
+
+        assertThrows(ProductVersionMismatchException.class,
+                () -> service.update(2L, new ProductRequest("Mouse", BigDecimal.TEN), ETags.of(2L, 4L)));
+        verifyNoInteractions(changeLog);
+    }
+
+    @Test
+    void findByIds_shouldReturnFoundProductsInRequestedOrderAndMissingIds() {
+        Product firstProduct = new Product();
+        firstProduct.setId(1L);
+        firstProduct.setName("Monitor 24\"");
+        firstProduct.setPrice(new BigDecimal("100.0"));
+
+        Product thirdProduct = new Product();
+        thirdProduct.setId(3L);
+        thirdProduct.setName("Mouse");
+        thirdProduct.setPrice(new BigDecimal("20.0"));
+
+        when(repository.findAllById(any())).thenReturn(List.of(firstProduct, thirdProduct));
+
+        JsonApiBatchResponse<ProductResponse> response = service.findByIds(List.of(3L, 2L, 1L, 3L));
+
+        assertEquals(List.of("3", "1"), response.data().stream().map(JsonApiData::id).toList());
+        assertEquals(3, response.meta().requested());
+        assertEquals(2, response.meta().found());
+        assertEquals(List.of(2L), response.meta().missingIds());
+        verify(repository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void findByIds_shouldRejectTooManyIds() {
+        List<Long> ids = LongStream.rangeClosed(1, ProductService.MAX_BATCH_IDS + 1).boxed().toList();
+
+        assertThrows(IllegalArgumentException.class, () -> service.findByIds(ids));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void delete_shouldRecordDeletedChange() {
+        when(repository.existsById(4L)).thenReturn(true);
+
+        service.delete(4L);
+
+        verify(repository).deleteById(4L);
+        verify(changeLog).record(4L, ProductChangeType.DELETED);
+        verify(idIndex).removed(4L);
+        verify(nameIndex).removed(4L);
+        verify(catalog).removed(4L);
+    }
+
+    @Test
+    void findChanges_shouldReturnOnePageAndResumePoint() {
+        when(changeLog.lastSeq()).thenReturn(9L);
+        when(changes.findBySeqGreaterThanOrderBySeq(5L, Limit.of(3))).thenReturn(List.of(
+                new ProductChange(6L, 1L, ProductChangeType.CREATED, Instant.EPOCH),
+                new ProductChange(7L, 2L, ProductChangeType.DELETED, Instant.EPOCH),
+                new ProductChange(8L, 3L, ProductChangeType.CREATED, Instant.EPOCH)
+        ));
+
+        JsonApiFeedResponse<ProductChangeResponse> response = service.findChanges(5L, 2);
+
+        assertEquals(2, response.data().size());
+        assertEquals("deleted", response.data().get(1).attributes().type());
+        assertEquals(7L, response.meta().nextSince());
+        assertEquals(9L, response.meta().lastSeq());
+        assertTrue(response.meta().hasMore());
+    }
+
+    @Test
+    void findChanges_afterPrunedChanges_shouldThrowPruned() {
+        when(changeLog.lastSeq()).thenReturn(9L);
+        when(changes.findBySeqGreaterThanOrderBySeq(2L, Limit.of(3))).thenReturn(List.of(
+                new ProductChange(6L, 1L, ProductChangeType.CREATED, Instant.EPOCH)
+        ));
+
+        assertThrows(ProductChangesPrunedException.class, () -> service.findChanges(2L, 2));
+    }
+
+    @Test
+    void findChanges_whenEveryRemainingChangeWasPruned_shouldThrowPruned() {
+        when(changeLog.lastSeq()).thenReturn(9L);
+        when(changes.findBySeqGreaterThanOrderBySeq(2L, Limit.of(3))).thenReturn(List.of());
+
+        assertThrows(ProductChangesPrunedException.class, () -> service.findChanges(2L, 2));
+    }
+
+    @Test
+    void exportIds_shouldReturnOnePageAndResumePoint() {
+        when(changeLog.lastSeq()).thenReturn(42L);
+        when(repository.findIdsAfter(10L, PageRequest.of(0, 3))).thenReturn(List.of(11L, 14L, 15L));
+        when(productCount.get()).thenReturn(7L);
+
+        JsonApiIdExportResponse response = service.exportIds(10L, 2);
+
+        assertEquals(List.of(11L, 14L), response.data());
+        assertEquals(14L, response.meta().nextAfter());
+        assertEquals(7L, response.meta().total());
+        assertEquals(42L, response.meta().lastSeq());
+        assertTrue(response.meta().hasMore());
+        verify(repository, never()).count();
+    }
+
+    @Test
+    void exportIds_withPageTooLarge_shouldThrowIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.exportIds(0L, ProductService.MAX_EXPORT_PAGE + 1));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void findPageAfter_shouldReturnPageAndNextLink() {
+        when(repository.findPageAfter(10L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(product(11L, 0L), product(14L, 0L), product(15L, 0L)));
+
+        JsonApiCursorResponse<ProductResponse> response = service.findPageAfter(10L, 2);
+
+        assertEquals(List.of("11", "14"), response.data().stream().map(JsonApiData::id).toList());
+        assertEquals(14L, response.meta().nextAfter());
+        assertTrue(response.meta().hasMore());
+        assertEquals("/api/v1/products?page[after]=10&page[size]=2", response.links().self());
+        assertEquals("/api/v1/products?page[after]=14&page[size]=2", response.links().next());
+    }
+
+    @Test
+    void findPageAfter_lastPage_shouldHaveNoNextLink() {
+        when(repository.findPageAfter(14L, PageRequest.of(0, 3))).thenReturn(List.of(product(15L, 0L)));
+
+        JsonApiCursorResponse<ProductResponse> response = service.findPageAfter(14L, 2);
+
+        assertEquals(15L, response.meta().nextAfter());
+        assertFalse(response.meta().hasMore());
+        assertNull(response.links().next());
+    }
+
+    @Test
+    void findPageAfter_withPageTooLarge_shouldThrowIllegalArgument() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.findPageAfter(0L, ProductService.MAX_CURSOR_PAGE + 1));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findSortedPage_shouldReturnPageAndNextLinkCarryingTheCursor() {
+        ProductSort sort = ProductSort.fromParameter("-price");
+        Product last = product(8L, 0L);
+        when(repository.findBy(any(Specification.class), any())).thenReturn(
+                Window.from(List.of(product(3L, 0L), last), index -> ScrollPosition.keyset(), true));
+
+        JsonApiKeysetResponse<ProductResponse> response =
+                service.findSortedPage(sort, new PriceRange(BigDecimal.ONE, null), null, 2);
+
+        String cursor = sort.cursorOf(last);
+        assertEquals(List.of("3", "8"), response.data().stream().map(JsonApiData::id).toList());
+        assertEquals(cursor, response.meta().nextAfter());
+        assertTrue(response.meta().hasMore());
+        assertEquals("/api/v1/products?sort=-price&filter[price][gte]=1&page[size]=2", response.links().self());
+        assertEquals("/api/v1/products?sort=-price&filter[price][gte]=1&page[after]=" + cursor + "&page[size]=2",
+                response.links().next());
+    }
+
+    @Test
+    void findSortedPage_withPageTooLarge_shouldThrowIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> service.findSortedPage(
+                ProductSort.fromParameter("price"), PriceRange.ANY, null, ProductService.MAX_CURSOR_PAGE + 1));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void search_shouldReturnProductsInIndexRankOrder() {
+        when(nameIndex.isReady()).thenReturn(true);
+        when(nameIndex.search("mon", 5)).thenReturn(List.of(7L, 3L, 9L));
+        when(repository.findAllById(List.of(7L, 3L, 9L))).thenReturn(List.of(product(3L, 0L), product(7L, 0L)));
+
+        JsonApiSearchResponse<ProductResponse> response = service.search("mon", 5);
+
+        assertEquals(List.of("7", "3"), response.data().stream().map(JsonApiData::id).toList());
+        assertEquals("mon", response.meta().query());
+        assertEquals(2, response.meta().found());
+    }
+
+    @Test
+    void search_beforeNameIndexIsLoaded_shouldThrowUnavailable() {
+        when(nameIndex.isReady()).thenReturn(false);
+
+        assertThrows(ProductSearchUnavailableException.class, () -> service.search("mon", 5));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void search_withBlankQueryOrPageTooLarge_shouldThrowIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> service.search(" ", 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.search("mon", ProductService.MAX_SEARCH_RESULTS + 1));
+        verifyNoInteractions(nameIndex);
+    }
+
+    private static Product product(Long id, Long version) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Product " + id);
+        product.setPrice(BigDecimal.ONE);
+        product.setVersion(version);
+        return product;
+    }
 }
@@ -0,0 +1,108 @@
+package com.storeflow.products.domain;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductSortTest {
+
+    @Test
+    void fromParameter_shouldAppendIdInTheDirectionOfTheLastField() {
+        ProductSort sort = ProductSort.fromParameter("price, -name");
+
+        assertEquals("price,-name", sort.parameter());
+        assertEquals(Sort.by(Sort.Order.asc("price"), Sort.Order.desc("name"), Sort.Order.desc("id")), sort.toSort());
+    }
+
+    @Test
+    void fromParameter_shouldDropFieldsAfterId() {
+        ProductSort sort = ProductSort.fromParameter("-id,price");
+
+        assertEquals("-id", sort.parameter());
+        assertEquals(Sort.by(Sort.Order.desc("id")), sort.toSort());
+    }
+
+    @Test
+    void fromParameter_shouldRejectUnknownOrRepeatedFields() {
+        assertThrows(IllegalArgumentException.class, () -> ProductSort.fromParameter("weight"));
+        assertThrows(IllegalArgumentException.class, () -> ProductSort.fromParameter("price,-price"));
+        assertThrows(IllegalArgumentException.class, () -> ProductSort.fromParameter("price,"));
+    }
+
+    @Test
+    void cursorOf_shouldRoundTripTheSortValuesOfTheRow() {
+        ProductSort sort = ProductSort.fromParameter("price,-name");
+        Product product = new Product();
+        product.setId(42L);
+        product.setName("Teclado, mecánico");
+        product.setPrice(new BigDecimal("45.50"));
+
+        KeysetScrollPosition position = sort.positionAfter(sort.cursorOf(product));
+
+        assertEquals(Map.of("price", new BigDecimal("45.50"), "name", "Teclado, mecánico", "id", 42L),
+                position.getKeys());
+        assertTrue(sort.positionAfter(null).isInitial());
+    }
+
+    @Test
+    void cursorOf_withIdOrder_shouldBeTheId() {
+        ProductSort sort = ProductSort.fromParameter("id");
+        Product product = new Product();
+        product.setId(7L);
+
+        assertEquals("7", sort.cursorOf(product));
+        assertEquals(Map.of("id", 7L), sort.positionAfter("7").getKeys());
+    }
+
+    @Test
+    void positionAfter_withCursorOfAnotherSort_shouldThrowIllegalArgument() {
+        Product product = new Product();
+        product.setId(3L);
+        product.setName("Mouse");
+        product.setPrice(BigDecimal.TEN);
+        String byName = ProductSort.fromParameter("name").cursorOf(product);
+
+        ProductSort byPriceAndName = ProductSort.fromParameter("price,name");
+        assertThrows(IllegalArgumentException.class, () -> byPriceAndName.positionAfter(byName));
+        String byNameAndPrice = ProductSort.fromParameter("name,price").cursorOf(product);
+        assertThrows(IllegalArgumentException.class, () -> byPriceAndName.positionAfter(byNameAndPrice));
+        assertThrows(IllegalArgumentException.class, () -> ProductSort.fromParameter("-id").positionAfter("3"));
+        assertThrows(IllegalArgumentException.class, () -> byPriceAndName.positionAfter("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> ProductSort.fromParameter("id").positionAfter("abc"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leadingBound_shouldBoundTheFirstFieldInItsDirection() {
+        ProductSort sort = ProductSort.fromParameter("-price,name");
+        Product product = new Product();
+        product.setId(9L);
+        product.setName("Mouse");
+        product.setPrice(new BigDecimal("12.50"));
+        Root<Product> root = mock(Root.class);
+        CriteriaQuery<?> query = mock(CriteriaQuery.class);
+        CriteriaBuilder builder = mock(CriteriaBuilder.class);
+        Path<BigDecimal> price = mock(Path.class);
+        Predicate bound = mock(Predicate.class);
+        when(root.<BigDecimal>get("price")).thenReturn(price);
+        when(builder.lessThanOrEqualTo(price, new BigDecimal("12.50"))).thenReturn(bound);
+
+        KeysetScrollPosition position = sort.positionAfter(sort.cursorOf(product));
+
+        assertSame(bound, sort.leadingBound(position).toPredicate(root, query, builder));
+        sort.leadingBound(sort.positionAfter(null)).toPredicate(root, query, builder);
+        verify(builder).and();
+        verify(builder, never()).greaterThanOrEqualTo(any(Path.class), any(BigDecimal.class));
+    }
+}